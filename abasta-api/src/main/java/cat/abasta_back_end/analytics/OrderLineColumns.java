@@ -0,0 +1,390 @@
+package cat.abasta_back_end.analytics;
+
+import cat.abasta_back_end.dto.PivotDimension;
+import cat.abasta_back_end.dto.TimeSeriesGranularity;
+import cat.abasta_back_end.money.Money;
+import cat.abasta_back_end.services.OrderRollupService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Línies de comanda d'una empresa guardades per columnes en arrays primitius.
+ *
+ * <p>Cada fila és una línia (comanda i producte) d'una comanda activa: dia de creació com a
+ * dia epoch, proveïdor i producte com a codis de diccionari {@code int}, identificador de la
+ * comanda, quantitat en centèsimes i despesa en cèntims. Les línies d'una comanda ocupen
+ * sempre files consecutives, cosa que permet comptar comandes diferents sense conjunts.</p>
+ *
+ * <p>Substituir o eliminar una comanda marca les seves files com a mortes i afegeix les noves
+ * al final; quan les files mortes superen una quarta part es compacten els arrays.</p>
+ *
+ * <p>No és segura per a fils: qui la fa servir ha de sincronitzar les escriptures amb les
+ * lectures. Les consultes poden repartir el recorregut entre diversos fils.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ * @see OrderLineStore
+ */
+public class OrderLineColumns {
+
+    /**
+     * Dia que marca una fila morta; queda fora de qualsevol període.
+     */
+    private static final int DEAD = Integer.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * Files mínimes per tros quan el recorregut es reparteix entre fils.
+     */
+    private static final int MIN_CHUNK_ROWS = 16_384;
+
+    /**
+     * Bytes per fila: dia, proveïdor i producte (int) i comanda, quantitat i despesa (long).
+     */
+    private static final int BYTES_PER_ROW = 3 * Integer.BYTES + 3 * Long.BYTES;
+
+    private int size;
+    private int deadRows;
+    private int[] days = new int[INITIAL_CAPACITY];
+    private int[] suppliers = new int[INITIAL_CAPACITY];
+    private int[] products = new int[INITIAL_CAPACITY];
+    private long[] orders = new long[INITIAL_CAPACITY];
+    private long[] quantities = new long[INITIAL_CAPACITY];
+    private long[] amounts = new long[INITIAL_CAPACITY];
+
+    private final Dictionary supplierDictionary = new Dictionary();
+    private final Dictionary productDictionary = new Dictionary();
+
+    /**
+     * Primera fila i nombre de files de cada comanda.
+     */
+    private final Map<Long, int[]> orderRows = new HashMap<>();
+
+    /**
+     * Afegeix una línia al final. Les línies d'una mateixa comanda s'han d'afegir seguides.
+     *
+     * @param orderId identificador de la comanda
+     * @param day dia de creació de la comanda
+     * @param supplierId proveïdor de la comanda
+     * @param productId producte de la línia
+     * @param quantityHundredths quantitat en centèsimes
+     * @param amountCents despesa en cèntims
+     * @throws IllegalStateException si la comanda ja té files que no són les últimes
+     */
+    public void append(long orderId, LocalDate day, long supplierId, long productId,
+                       long quantityHundredths, long amountCents) {
+        int[] range = orderRows.get(orderId);
+        if (range != null && range[0] + range[1] != size) {
+            throw new IllegalStateException("Les línies de la comanda " + orderId + " no són consecutives");
+        }
+        ensureCapacity(size + 1);
+
+        days[size] = Math.toIntExact(day.toEpochDay());
+        suppliers[size] = supplierDictionary.code(supplierId);
+        products[size] = productDictionary.code(productId);
+        orders[size] = orderId;
+        quantities[size] = quantityHundredths;
+        amounts[size] = amountCents;
+
+        if (range == null) {
+            orderRows.put(orderId, new int[]{size, 1});
+        } else {
+            range[1]++;
+        }
+        size++;
+    }
+
+    /**
+     * Substitueix les línies d'una comanda pel seu estat nou. Si la comanda ja no és activa
+     * només s'eliminen les línies anteriors.
+     *
+     * @param orderId identificador de la comanda
+     * @param order estat nou de la comanda
+     */
+    public void replace(long orderId, OrderRollupService.Snapshot order) {
+        remove(orderId);
+        if (order.status() == null || !order.status().isActive()) {
+            return;
+        }
+        order.lines().forEach((productId, line) -> append(orderId, order.day(), order.supplierId(), productId,
+                Money.toCents(line.quantity()), Money.toCents(line.spend())));
+    }
+
+    /**
+     * Elimina les línies d'una comanda.
+     *
+     * @param orderId identificador de la comanda
+     */
+    public void remove(long orderId) {
+        int[] range = orderRows.remove(orderId);
+        if (range == null) {
+            return;
+        }
+        Arrays.fill(days, range[0], range[0] + range[1], DEAD);
+        deadRows += range[1];
+        if (deadRows > INITIAL_CAPACITY && deadRows > size / 4) {
+            compact();
+        }
+    }
+
+    /**
+     * Agrega les línies que compleixen la consulta.
+     *
+     * @param query període, dimensió i filtres
+     * @param parallelism nombre màxim de fils del recorregut
+     * @return una fila per valor de la dimensió amb alguna línia, sense ordre definit
+     */
+    public List<PivotRow> scan(PivotQuery query, int parallelism) {
+        int supplierFilter = query.supplierId() == null ? -1 : supplierDictionary.find(query.supplierId());
+        int productFilter = query.productId() == null ? -1 : productDictionary.find(query.productId());
+        if ((query.supplierId() != null && supplierFilter < 0) || (query.productId() != null && productFilter < 0)) {
+            return List.of();
+        }
+
+        Grouping grouping = Grouping.of(query, supplierDictionary.size(), productDictionary.size());
+        int[] bounds = chunkBounds(parallelism);
+        Partial total = IntStream.range(0, bounds.length - 1)
+                .parallel()
+                .mapToObj(chunk -> scanChunk(bounds[chunk], bounds[chunk + 1], grouping, supplierFilter, productFilter))
+                .reduce(Partial::merge)
+                .orElseGet(() -> new Partial(grouping.groups()));
+
+        List<PivotRow> rows = new ArrayList<>();
+        for (int group = 0; group < grouping.groups(); group++) {
+            if (total.lines[group] == 0) {
+                continue;
+            }
+            rows.add(new PivotRow(
+                    grouping.dimension() == PivotDimension.SUPPLIER ? Long.valueOf(supplierDictionary.id(group))
+                            : grouping.dimension() == PivotDimension.PRODUCT ? Long.valueOf(productDictionary.id(group)) : null,
+                    grouping.starts() != null ? grouping.starts()[group] : null,
+                    total.orders[group], total.quantities[group], total.amounts[group]));
+        }
+        return rows;
+    }
+
+    /**
+     * @return nombre de línies vives
+     */
+    public int size() {
+        return size - deadRows;
+    }
+
+    /**
+     * @return nombre de comandes amb línies
+     */
+    public int orderCount() {
+        return orderRows.size();
+    }
+
+    /**
+     * Estimació de la memòria ocupada, comptant la capacitat dels arrays, l'índex de comandes
+     * i els diccionaris.
+     *
+     * @return bytes aproximats
+     */
+    public long estimatedBytes() {
+        return (long) days.length * BYTES_PER_ROW
+                + orderRows.size() * 96L
+                + supplierDictionary.estimatedBytes()
+                + productDictionary.estimatedBytes();
+    }
+
+    private Partial scanChunk(int from, int to, Grouping grouping, int supplierFilter, int productFilter) {
+        int fromDay = grouping.fromDay();
+        int toDay = grouping.toDay();
+        int[] dayGroups = grouping.dayGroups();
+        PivotDimension dimension = grouping.dimension();
+
+        Partial partial = new Partial(grouping.groups());
+        long[] lastOrder = new long[grouping.groups()];
+        Arrays.fill(lastOrder, Long.MIN_VALUE);
+
+        for (int row = from; row < to; row++) {
+            int day = days[row];
+            if (day < fromDay || day > toDay) {
+                continue;
+            }
+            if ((supplierFilter >= 0 && suppliers[row] != supplierFilter)
+                    || (productFilter >= 0 && products[row] != productFilter)) {
+                continue;
+            }
+
+            int group = dimension == PivotDimension.SUPPLIER ? suppliers[row]
+                    : dimension == PivotDimension.PRODUCT ? products[row]
+                    : dayGroups[day - fromDay];
+
+            // Les línies d'una comanda són consecutives i no es parteixen entre trossos
+            if (lastOrder[group] != orders[row]) {
+                lastOrder[group] = orders[row];
+                partial.orders[group]++;
+            }
+            partial.lines[group]++;
+            partial.quantities[group] += quantities[row];
+            partial.amounts[group] += amounts[row];
+        }
+        return partial;
+    }
+
+    /**
+     * Reparteix les files en trossos que no parteixen cap comanda.
+     */
+    private int[] chunkBounds(int parallelism) {
+        int chunks = Math.max(1, Math.min(parallelism, size / MIN_CHUNK_ROWS));
+        int[] bounds = new int[chunks + 1];
+        for (int chunk = 1; chunk < chunks; chunk++) {
+            int bound = Math.max(bounds[chunk - 1], (int) ((long) size * chunk / chunks));
+            while (bound > 0 && bound < size && orders[bound] == orders[bound - 1]) {
+                bound++;
+            }
+            bounds[chunk] = bound;
+        }
+        bounds[chunks] = size;
+        return bounds;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= days.length) {
+            return;
+        }
+        int capacity = Math.max(required, days.length + (days.length >> 1));
+        days = Arrays.copyOf(days, capacity);
+        suppliers = Arrays.copyOf(suppliers, capacity);
+        products = Arrays.copyOf(products, capacity);
+        orders = Arrays.copyOf(orders, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+    }
+
+    /**
+     * Elimina les files mortes mantenint l'ordre de les vives.
+     */
+    private void compact() {
+        int target = 0;
+        for (int row = 0; row < size; row++) {
+            if (days[row] == DEAD) {
+                continue;
+            }
+            if (target != row) {
+                days[target] = days[row];
+                suppliers[target] = suppliers[row];
+                products[target] = products[row];
+                orders[target] = orders[row];
+                quantities[target] = quantities[row];
+                amounts[target] = amounts[row];
+            }
+            int[] range = orderRows.get(orders[target]);
+            if (range[0] > target) {
+                range[0] = target;
+            }
+            target++;
+        }
+        size = target;
+        deadRows = 0;
+    }
+
+    /**
+     * Codifica identificadors {@code long} com a codis {@code int} consecutius.
+     */
+    private static final class Dictionary {
+
+        private final Map<Long, Integer> codes = new HashMap<>();
+        private long[] ids = new long[16];
+
+        int code(long id) {
+            Integer code = codes.get(id);
+            if (code != null) {
+                return code;
+            }
+            int next = codes.size();
+            if (next == ids.length) {
+                ids = Arrays.copyOf(ids, next * 2);
+            }
+            ids[next] = id;
+            codes.put(id, next);
+            return next;
+        }
+
+        int find(long id) {
+            return codes.getOrDefault(id, -1);
+        }
+
+        long id(int code) {
+            return ids[code];
+        }
+
+        int size() {
+            return codes.size();
+        }
+
+        long estimatedBytes() {
+            return ids.length * (long) Long.BYTES + codes.size() * 64L;
+        }
+    }
+
+    /**
+     * Com es tradueix cada fila a un grup: pel codi de proveïdor o producte, o pel període
+     * que conté el seu dia.
+     */
+    private record Grouping(PivotDimension dimension, int fromDay, int toDay, int groups,
+                            int[] dayGroups, LocalDate[] starts) {
+
+        static Grouping of(PivotQuery query, int supplierCount, int productCount) {
+            int fromDay = Math.toIntExact(query.from().toEpochDay());
+            int toDay = Math.toIntExact(query.to().toEpochDay());
+            TimeSeriesGranularity granularity = query.dimension().granularity();
+            if (granularity == null) {
+                int groups = query.dimension() == PivotDimension.SUPPLIER ? supplierCount : productCount;
+                return new Grouping(query.dimension(), fromDay, toDay, groups, null, null);
+            }
+
+            int[] dayGroups = new int[Math.max(0, toDay - fromDay + 1)];
+            List<LocalDate> starts = new ArrayList<>();
+            for (int offset = 0; offset < dayGroups.length; offset++) {
+                LocalDate start = granularity.bucketStart(query.from().plusDays(offset));
+                if (starts.isEmpty() || !starts.get(starts.size() - 1).equals(start)) {
+                    starts.add(start);
+                }
+                dayGroups[offset] = starts.size() - 1;
+            }
+            return new Grouping(query.dimension(), fromDay, toDay, starts.size(), dayGroups,
+                    starts.toArray(LocalDate[]::new));
+        }
+    }
+
+    /**
+     * Acumulats parcials d'un tros de files.
+     */
+    private static final class Partial {
+
+        private final long[] lines;
+        private final long[] orders;
+        private final long[] quantities;
+        private final long[] amounts;
+
+        Partial(int groups) {
+            lines = new long[groups];
+            orders = new long[groups];
+            quantities = new long[groups];
+            amounts = new long[groups];
+        }
+
+        Partial merge(Partial other) {
+            for (int group = 0; group < lines.length; group++) {
+                lines[group] += other.lines[group];
+                orders[group] += other.orders[group];
+                quantities[group] += other.quantities[group];
+                amounts[group] += other.amounts[group];
+            }
+            return this;
+        }
+    }
+}
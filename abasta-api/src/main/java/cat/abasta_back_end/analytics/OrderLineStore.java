@@ -0,0 +1,328 @@
+package cat.abasta_back_end.analytics;
+
+import cat.abasta_back_end.concurrent.SingleFlight;
+import cat.abasta_back_end.entities.Order;
+import cat.abasta_back_end.events.OrderChangedEvent;
+import cat.abasta_back_end.money.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Motor d'anàlisi en memòria de les línies de comanda, separat per empresa.
+ *
+ * <p>La primera consulta d'una empresa carrega totes les línies de les seves comandes actives
+ * en un {@link OrderLineColumns}; les consultes següents s'agreguen en memòria, repartint el
+ * recorregut entre els nuclis disponibles, sense llegir {@code orders} ni {@code order_items}.
+ * Les càrregues simultànies d'una mateixa empresa s'agrupen amb {@link SingleFlight}.</p>
+ *
+ * <p>Un cop confirmada la transacció que modifica una comanda, el {@link OrderChangedEvent}
+ * en substitueix les línies. Un comptador de versió per empresa evita instal·lar una càrrega
+ * que ha començat abans d'un canvi que ha arribat mentre es llegia.</p>
+ *
+ * <p>La memòria és acotada ({@code app.reports.analytics.max-memory-mb}): si se supera,
+ * s'expulsen empreses senceres començant per la que fa més temps que no es consulta. Una
+ * empresa que no hi cap es consulta igualment, però no es queda en memòria.</p>
+ *
+ * <p>Si el motor està desactivat ({@code app.reports.analytics.enabled}), cada consulta llegeix
+ * de la base de dades només les línies del període i les agrega de la mateixa manera.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+@Slf4j
+@Component
+public class OrderLineStore {
+
+    private static final String ACTIVE_STATUSES = Arrays.stream(Order.OrderStatus.values())
+            .filter(Order.OrderStatus::isActive)
+            .map(status -> "'" + status.name() + "'")
+            .collect(Collectors.joining(", ", "(", ")"));
+
+    private static final String LINES_SQL = """
+            SELECT o.id AS order_id, o.created_at, o.supplier_id, oi.product_id, oi.quantity, oi.subtotal
+            FROM orders o
+            JOIN order_items oi ON oi.order_id = o.id
+            WHERE o.company_id = ? AND o.status IN %s
+            """.formatted(ACTIVE_STATUSES);
+
+    private static final String PERIOD_FILTER = " AND o.created_at >= ? AND o.created_at < ?";
+
+    private static final String ORDER_BY = " ORDER BY o.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final long maxBytes;
+    private final int parallelism;
+
+    private final Map<Long, Tenant> tenants = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final SingleFlight<Long> loads = new SingleFlight<>();
+
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    /**
+     * Línies en memòria d'una empresa.
+     */
+    private static final class Tenant {
+
+        private final OrderLineColumns columns;
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private volatile long lastAccess = System.nanoTime();
+        private volatile long bytes;
+
+        Tenant(OrderLineColumns columns) {
+            this.columns = columns;
+            this.bytes = columns.estimatedBytes();
+        }
+    }
+
+    /**
+     * Crea el motor amb la configuració de l'aplicació.
+     *
+     * @param jdbcTemplate accés JDBC a la base de dades
+     * @param enabled si es guarden les línies en memòria
+     * @param maxMemoryMb memòria màxima de totes les empreses, en MB
+     * @param parallelism fils màxims per consulta; 0 per fer servir tots els processadors
+     */
+    @Autowired
+    public OrderLineStore(JdbcTemplate jdbcTemplate,
+                          @Value("${app.reports.analytics.enabled:true}") boolean enabled,
+                          @Value("${app.reports.analytics.max-memory-mb:256}") long maxMemoryMb,
+                          @Value("${app.reports.analytics.parallelism:0}") int parallelism) {
+        if (maxMemoryMb <= 0) {
+            throw new IllegalArgumentException("La memòria màxima ha de ser positiva");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.maxBytes = maxMemoryMb * 1024 * 1024;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Agrega les línies de comanda d'una empresa segons la consulta.
+     *
+     * @param companyId identificador de l'empresa
+     * @param query període, dimensió i filtres
+     * @return una fila per valor de la dimensió amb alguna línia, sense ordre definit
+     */
+    public List<PivotRow> query(Long companyId, PivotQuery query) {
+        if (!enabled) {
+            fallbacks.increment();
+            return load(companyId, query.from(), query.to()).scan(query, parallelism);
+        }
+
+        queries.increment();
+        Tenant tenant = tenant(companyId);
+        Lock lock = tenant.lock.readLock();
+        lock.lock();
+        try {
+            return tenant.columns.scan(query, parallelism);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Substitueix les línies d'una comanda un cop confirmada la transacció que l'ha modificada.
+     * Si l'empresa no és en memòria només s'anota el canvi; si l'esdeveniment no porta l'estat
+     * de la comanda, s'expulsa l'empresa i es tornarà a carregar a la consulta següent.
+     *
+     * @param event canvi de comanda
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (!enabled || event.companyId() == null) {
+            return;
+        }
+        version(event.companyId()).incrementAndGet();
+
+        Tenant tenant = tenants.get(event.companyId());
+        if (tenant == null) {
+            return;
+        }
+        if (event.orderId() == null || event.order() == null) {
+            evict(event.companyId());
+            return;
+        }
+
+        Lock lock = tenant.lock.writeLock();
+        lock.lock();
+        try {
+            tenant.columns.replace(event.orderId(), event.order());
+            tenant.bytes = tenant.columns.estimatedBytes();
+        } finally {
+            lock.unlock();
+        }
+        enforceBudget();
+    }
+
+    /**
+     * Treu de memòria les línies d'una empresa.
+     *
+     * @param companyId identificador de l'empresa
+     */
+    public void evict(Long companyId) {
+        if (tenants.remove(companyId) != null) {
+            evictions.increment();
+        }
+    }
+
+    /**
+     * @return nombre d'empreses en memòria
+     */
+    public int getTenantCount() {
+        return tenants.size();
+    }
+
+    /**
+     * @return memòria estimada de totes les empreses, en bytes
+     */
+    public long getEstimatedBytes() {
+        return tenants.values().stream().mapToLong(tenant -> tenant.bytes).sum();
+    }
+
+    /**
+     * @return nombre d'empreses carregades des de la base de dades
+     */
+    public long getLoadCount() {
+        return loadCount.sum();
+    }
+
+    /**
+     * @return nombre d'empreses expulsades de memòria
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return nombre de consultes resoltes amb les línies en memòria
+     */
+    public long getQueryCount() {
+        return queries.sum();
+    }
+
+    /**
+     * @return nombre de consultes resoltes llegint el període de la base de dades
+     */
+    public long getFallbackCount() {
+        return fallbacks.sum();
+    }
+
+    /**
+     * Retorna les línies en memòria de l'empresa o les carrega. Si la càrrega no es pot
+     * instal·lar, perquè hi ha hagut un canvi mentre es llegia o perquè no hi cap, es fa
+     * servir només per a aquesta consulta.
+     */
+    private Tenant tenant(Long companyId) {
+        Tenant tenant = tenants.get(companyId);
+        if (tenant != null) {
+            tenant.lastAccess = System.nanoTime();
+            return tenant;
+        }
+
+        return loads.execute(companyId, () -> {
+            Tenant existing = tenants.get(companyId);
+            if (existing != null) {
+                return existing;
+            }
+
+            AtomicLong version = version(companyId);
+            long before = version.get();
+            Tenant loaded = new Tenant(load(companyId, null, null));
+            loadCount.increment();
+
+            if (loaded.bytes > maxBytes) {
+                log.warn("Les línies de l'empresa {} ({} bytes) superen la memòria màxima", companyId, loaded.bytes);
+                return loaded;
+            }
+            if (version.get() == before) {
+                tenants.put(companyId, loaded);
+                // Un canvi entre la comprovació i l'alta no s'ha aplicat a aquesta còpia
+                if (version.get() != before) {
+                    tenants.remove(companyId, loaded);
+                } else {
+                    enforceBudget();
+                }
+            }
+            return loaded;
+        });
+    }
+
+    /**
+     * Llegeix de la base de dades les línies de les comandes actives de l'empresa,
+     * de tot l'historial o només del període indicat.
+     */
+    private OrderLineColumns load(Long companyId, LocalDate from, LocalDate to) {
+        OrderLineColumns columns = new OrderLineColumns();
+        List<Object> args = new ArrayList<>(List.of(companyId));
+        String sql = LINES_SQL;
+        if (from != null) {
+            sql += PERIOD_FILTER;
+            args.add(Timestamp.valueOf(from.atStartOfDay()));
+            args.add(Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+        }
+
+        jdbcTemplate.query(sql + ORDER_BY, rs -> {
+            columns.append(
+                    rs.getLong("order_id"),
+                    rs.getTimestamp("created_at").toLocalDateTime().toLocalDate(),
+                    rs.getLong("supplier_id"),
+                    rs.getLong("product_id"),
+                    Money.toCents(rs.getBigDecimal("quantity")),
+                    Money.toCents(rs.getBigDecimal("subtotal")));
+        }, args.toArray());
+        return columns;
+    }
+
+    /**
+     * Expulsa empreses, començant per la que fa més temps que no es consulta, fins que
+     * la memòria estimada no supera el màxim.
+     */
+    private synchronized void enforceBudget() {
+        long total = getEstimatedBytes();
+        if (total <= maxBytes) {
+            return;
+        }
+
+        List<Map.Entry<Long, Tenant>> byAccess = tenants.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().lastAccess))
+                .toList();
+        for (Map.Entry<Long, Tenant> entry : byAccess) {
+            if (total <= maxBytes) {
+                break;
+            }
+            if (tenants.remove(entry.getKey(), entry.getValue())) {
+                total -= entry.getValue().bytes;
+                evictions.increment();
+                log.debug("Expulsades de memòria les línies de l'empresa {}", entry.getKey());
+            }
+        }
+    }
+
+    private AtomicLong version(Long companyId) {
+        return versions.computeIfAbsent(companyId, id -> new AtomicLong());
+    }
+}
@@ -0,0 +1,20 @@
+package cat.abasta_back_end.analytics;
+
+import cat.abasta_back_end.dto.PivotDimension;
+
+import java.time.LocalDate;
+
+/**
+ * Consulta d'agrupació sobre les línies de comanda d'una empresa.
+ *
+ * @param from primer dia del període (inclòs)
+ * @param to últim dia del període (inclòs)
+ * @param dimension dimensió d'agrupació
+ * @param supplierId proveïdor per filtrar, o null
+ * @param productId producte per filtrar, o null
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+public record PivotQuery(LocalDate from, LocalDate to, PivotDimension dimension, Long supplierId, Long productId) {
+}
@@ -0,0 +1,19 @@
+package cat.abasta_back_end.analytics;
+
+import java.time.LocalDate;
+
+/**
+ * Fila agregada d'una consulta d'agrupació. Els imports són en unitats mínimes:
+ * cèntims per a la despesa i centèsimes per a la quantitat.
+ *
+ * @param id proveïdor o producte de la fila; null per a les dimensions temporals
+ * @param start primer dia del període de la fila; null per a proveïdor i producte
+ * @param orders nombre de comandes amb alguna línia a la fila
+ * @param quantityHundredths quantitat total, en centèsimes
+ * @param amountCents despesa total, en cèntims
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+public record PivotRow(Long id, LocalDate start, long orders, long quantityHundredths, long amountCents) {
+}
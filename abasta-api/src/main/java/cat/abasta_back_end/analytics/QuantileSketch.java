@@ -0,0 +1,270 @@
+package cat.abasta_back_end.analytics;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Histograma logarítmic per estimar percentils de valors enters no negatius, com imports
+ * en cèntims.
+ *
+ * <p>Cada valor positiu {@code v} es compta al cub {@code ceil(log_γ v)}, amb
+ * {@code γ = (1 + α) / (1 - α)}; el valor estimat d'un cub té un error relatiu màxim
+ * {@code α} ({@value #RELATIVE_ACCURACY}). Els zeros es compten a part. Amb imports de fins
+ * a deu milions d'euros n'hi ha prou amb uns 1.000 cubs, i normalment se n'omplen pocs.</p>
+ *
+ * <p>Com que cada cub és un comptador, dos histogrames es poden fusionar sumant-los i un
+ * valor es pot treure restant-lo, cosa que permet mantenir-los quan una comanda canvia
+ * d'import o deixa de ser activa. Calcular un percentil costa O(cubs), no O(valors).</p>
+ *
+ * <p>No és segur per a fils.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+public class QuantileSketch {
+
+    /**
+     * Error relatiu màxim dels percentils estimats.
+     */
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    /**
+     * Versió del format serialitzat; canvia si canvia la precisió o la codificació.
+     */
+    private static final byte FORMAT_VERSION = 1;
+
+    private long zeroCount;
+    private long count;
+
+    /**
+     * Comptadors dels cubs {@code offset .. offset + counts.length - 1}.
+     */
+    private long[] counts = new long[0];
+    private int offset;
+
+    /**
+     * Afegeix un valor.
+     *
+     * @param value valor; els negatius es compten com a zero
+     */
+    public void add(long value) {
+        add(value, 1);
+    }
+
+    /**
+     * Treu un valor afegit abans. Si el cub ja és buit no fa res, de manera que un
+     * histograma desviat mai té comptadors negatius.
+     *
+     * @param value valor
+     * @return cert si s'ha tret
+     */
+    public boolean remove(long value) {
+        if (value <= 0) {
+            if (zeroCount == 0) {
+                return false;
+            }
+            zeroCount--;
+            count--;
+            return true;
+        }
+        int slot = indexOf(value) - offset;
+        if (slot < 0 || slot >= counts.length || counts[slot] == 0) {
+            return false;
+        }
+        counts[slot]--;
+        count--;
+        return true;
+    }
+
+    /**
+     * Suma a aquest histograma els comptadors d'un altre.
+     *
+     * @param other histograma a fusionar; no es modifica
+     */
+    public void merge(QuantileSketch other) {
+        zeroCount += other.zeroCount;
+        count += other.count;
+        for (int slot = 0; slot < other.counts.length; slot++) {
+            if (other.counts[slot] != 0) {
+                addToBucket(other.offset + slot, other.counts[slot]);
+            }
+        }
+    }
+
+    /**
+     * @return nombre de valors
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return cert si no té cap valor
+     */
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Estima el percentil {@code q}, amb el mateix criteri de rang que el percentil exacte
+     * {@code sorted[floor(q * (n - 1))]}.
+     *
+     * @param q percentil entre 0 i 1 (0,5 per a la mediana)
+     * @return el valor estimat, o 0 si l'histograma és buit
+     * @throws IllegalArgumentException si {@code q} no és entre 0 i 1
+     */
+    public long quantile(double q) {
+        if (q < 0 || q > 1 || Double.isNaN(q)) {
+            throw new IllegalArgumentException("Percentil fora de rang: " + q);
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.floor(q * (count - 1));
+        long seen = zeroCount;
+        if (rank < seen) {
+            return 0;
+        }
+        for (int slot = 0; slot < counts.length; slot++) {
+            seen += counts[slot];
+            if (rank < seen) {
+                return Math.round(valueOf(offset + slot));
+            }
+        }
+        return Math.round(valueOf(offset + counts.length - 1));
+    }
+
+    /**
+     * Serialitza l'histograma: versió, zeros i, per cada cub no buit, la diferència
+     * d'índex amb l'anterior i el comptador, tot en enters de longitud variable.
+     *
+     * @return els bytes de l'histograma
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + counts.length * 2);
+        out.write(FORMAT_VERSION);
+        writeVarLong(out, zeroCount);
+
+        int buckets = 0;
+        for (long bucketCount : counts) {
+            if (bucketCount != 0) {
+                buckets++;
+            }
+        }
+        writeVarLong(out, buckets);
+
+        int previous = 0;
+        for (int slot = 0; slot < counts.length; slot++) {
+            if (counts[slot] == 0) {
+                continue;
+            }
+            int index = offset + slot;
+            writeVarLong(out, zigZag(index - previous));
+            writeVarLong(out, counts[slot]);
+            previous = index;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Reconstrueix un histograma serialitzat amb {@link #toBytes()}.
+     *
+     * @param bytes bytes de l'histograma; null o buit per a un histograma buit
+     * @return l'histograma
+     * @throws IllegalArgumentException si el format no és vàlid
+     */
+    public static QuantileSketch fromBytes(byte[] bytes) {
+        QuantileSketch sketch = new QuantileSketch();
+        if (bytes == null || bytes.length == 0) {
+            return sketch;
+        }
+        if (bytes[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Versió d'histograma no suportada: " + bytes[0]);
+        }
+
+        int[] position = {1};
+        sketch.zeroCount = readVarLong(bytes, position);
+        sketch.count = sketch.zeroCount;
+        long buckets = readVarLong(bytes, position);
+        int index = 0;
+        for (long bucket = 0; bucket < buckets; bucket++) {
+            index += unZigZag(readVarLong(bytes, position));
+            long bucketCount = readVarLong(bytes, position);
+            sketch.addToBucket(index, bucketCount);
+            sketch.count += bucketCount;
+        }
+        return sketch;
+    }
+
+    private void add(long value, long times) {
+        count += times;
+        if (value <= 0) {
+            zeroCount += times;
+        } else {
+            addToBucket(indexOf(value), times);
+        }
+    }
+
+    private void addToBucket(int index, long times) {
+        if (counts.length == 0) {
+            counts = new long[8];
+            offset = index;
+        } else if (index < offset) {
+            int grow = Math.max(offset - index, counts.length / 2);
+            long[] grown = new long[counts.length + grow];
+            System.arraycopy(counts, 0, grown, grow, counts.length);
+            counts = grown;
+            offset -= grow;
+        } else if (index >= offset + counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index - offset + 1, counts.length + counts.length / 2));
+        }
+        counts[index - offset] += times;
+    }
+
+    private static int indexOf(long value) {
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+
+    /**
+     * Valor representatiu d'un cub: el que té el mateix error relatiu respecte als dos extrems.
+     */
+    private static double valueOf(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static int unZigZag(long value) {
+        return (int) ((value >>> 1) ^ -(value & 1));
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] bytes, int[] position) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position[0] >= bytes.length) {
+                throw new IllegalArgumentException("Histograma truncat");
+            }
+            byte next = bytes[position[0]++];
+            value |= (long) (next & 0x7F) << shift;
+            if ((next & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Enter massa llarg a l'histograma");
+    }
+}
@@ -0,0 +1,101 @@
+package cat.abasta_back_end.concurrent;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa les crides concurrents amb la mateixa clau en un sol càlcul.
+ *
+ * <p>La primera crida amb una clau executa el càlcul al seu propi fil; les que arriben mentre
+ * encara s'està executant n'esperen el resultat en lloc de repetir-lo. Si el càlcul llança una
+ * excepció, totes les crides agrupades la reben. Quan el càlcul acaba la clau queda lliure i la
+ * crida següent torna a calcular: no és una memòria cau.</p>
+ *
+ * <p>Només s'ha d'utilitzar per a lectures idempotents, i la clau ha d'incloure tot el que
+ * determina el resultat (per exemple, l'empresa). Un càlcul no pot esperar una altra crida amb
+ * la mateixa clau d'aquesta mateixa instància.</p>
+ *
+ * <p>Exposa comptadors de càlculs executats i de crides agrupades.</p>
+ *
+ * @param <K> tipus de la clau
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+public class SingleFlight<K> {
+
+    private final Map<K, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Executa el càlcul, o espera el que ja s'està executant amb la mateixa clau.
+     *
+     * @param key clau de la crida
+     * @param loader càlcul del resultat
+     * @param <T> tipus del resultat; totes les crides amb la mateixa clau han d'esperar el mateix tipus
+     * @return el resultat del càlcul
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(K key, Supplier<T> loader) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            return (T) await(existing);
+        }
+
+        executions.increment();
+        try {
+            T value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * @return nombre de càlculs executats
+     */
+    public long getExecutionCount() {
+        return executions.sum();
+    }
+
+    /**
+     * @return nombre de crides que han esperat un càlcul ja en curs
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return nombre de càlculs en curs
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private static Object await(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            // Propaguem la mateixa excepció que ha rebut la crida que ha fet el càlcul
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
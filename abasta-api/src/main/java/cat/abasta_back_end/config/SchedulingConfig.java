@@ -0,0 +1,17 @@
+package cat.abasta_back_end.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuració de les tasques periòdiques de l'aplicació.
+ * Habilita l'execució dels mètodes anotats amb {@code @Scheduled}.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
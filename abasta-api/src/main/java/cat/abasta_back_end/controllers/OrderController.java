@@ -1,6 +1,7 @@
 package cat.abasta_back_end.controllers;
 
 import cat.abasta_back_end.dto.*;
+import cat.abasta_back_end.services.OrderEventStreamService;
 import cat.abasta_back_end.services.OrderService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
@@ -10,8 +11,10 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * Controlador REST per gestionar les operacions relacionades amb les comandes.
@@ -32,6 +35,7 @@ import org.springframework.web.bind.annotation.*;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderEventStreamService orderEventStreamService;
 
     /**
      * Crea una nova comanda.
@@ -99,6 +103,36 @@ public class OrderController {
         return ResponseEntity.ok(ApiResponseDTO.success(pagedResponse, message));
     }
 
+    /**
+     * Llista les comandes paginant per cursor, per a clients amb scroll infinit.
+     *
+     * <p>Aquest mode s'activa enviant el paràmetre {@code cursor}: buit per a la primera pàgina
+     * i, a partir d'aquí, el {@code nextCursor} de la resposta anterior. Les comandes s'ordenen
+     * per data de creació descendent; s'hi apliquen els mateixos filtres que a
+     * {@code /filter}, però no es calcula el total d'elements i el temps de resposta és
+     * constant sigui quina sigui la profunditat.</p>
+     *
+     * <p>Exemple d'ús:
+     * <pre>
+     * GET /api/orders/list?cursor=&size=20
+     * GET /api/orders/list?cursor=MjAyNS0xMS0wNFQxMDoxNToyMHw0Mg&size=20
+     * </pre>
+     * </p>
+     *
+     * @param filterDTO paràmetres de filtratge, mida de pàgina i cursor
+     * @return resposta amb la pàgina de comandes i el cursor de la pàgina següent
+     * @throws cat.abasta_back_end.exceptions.BadRequestException si el cursor no és vàlid
+     */
+    @GetMapping(value = "/list", params = "cursor")
+    public ResponseEntity<ApiResponseDTO<CursorPagedResponseDTO<OrderResponseDTO>>> listOrdersByCursor(@Valid OrderFilterDTO filterDTO){
+
+        CursorPagedResponseDTO<OrderResponseDTO> orders = orderService.listOrdersByCursor(filterDTO);
+
+        // Retorn
+        String message = String.format("Llistat de comandes per cursor completat. Filtres aplicats: text=%s", filterDTO.hasTextFilters());
+        return ResponseEntity.ok(ApiResponseDTO.success(orders, message));
+    }
+
     /**
      * Envia una comanda existent al proveïdor.
      *
@@ -122,6 +156,24 @@ public class OrderController {
                 .ok(ApiResponseDTO.success(sentOrder, "Comanda enviada correctament"));
     }
 
+    /**
+     * Obre una connexió Server-Sent Events amb els canvis de les comandes de l'empresa.
+     *
+     * <p>Cada vegada que es crea, s'envia, es modifica o s'elimina una comanda, el client rep un
+     * esdeveniment {@code order} amb l'uuid, l'estat i l'import total, i pot deixar de consultar
+     * la llista periòdicament. El token s'envia a la capçalera {@code Authorization}, com a la
+     * resta d'endpoints. Si la connexió es tanca, el client s'ha de tornar a connectar i
+     * recarregar la llista.</p>
+     *
+     * Exemple: GET /api/orders/stream
+     *
+     * @return connexió oberta amb els canvis de comandes
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOrderChanges() {
+        return orderEventStreamService.subscribe();
+    }
+
     /**
      * Cerca una comanda pel seu UUID.
      * <p>
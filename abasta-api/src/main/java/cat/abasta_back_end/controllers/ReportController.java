@@ -2,13 +2,17 @@ package cat.abasta_back_end.controllers;
 
 import cat.abasta_back_end.dto.*;
 import cat.abasta_back_end.exceptions.ResourceNotFoundException;
+import cat.abasta_back_end.services.ReportJobService;
 import cat.abasta_back_end.services.ReportService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -30,6 +34,10 @@ import static jakarta.xml.bind.DatatypeConverter.parseDate;
  * <p>Ofereix els endpoints:</p>
  * <ul>
  *     <li>GET /dashboard (sense paràmetres)</li>
+ *     <li>GET /timeseries (període, granularitat i filtres opcionals)</li>
+ *     <li>GET /pivot (període, agrupació i filtres opcionals)</li>
+ *     <li>GET /percentiles (període, agrupació i proveïdor opcionals)</li>
+ *     <li>POST /jobs i GET /jobs/{id} (informe global en segon pla)</li>
  * </ul>
  *
  * @author Daniel Garcia
@@ -44,6 +52,9 @@ public class ReportController {
     /** Servei encarregat de la lògica de negoci dels reports . */
     private final ReportService reportService;
 
+    /** Servei encarregat dels informes generats en segon pla. */
+    private final ReportJobService reportJobService;
+
     /**
      * Report amb dades de comandes de l'últim mes
      *
@@ -85,12 +96,15 @@ public class ReportController {
     /**
      * PDF : Report amb dades de comandes, proveïdors i productes en un periode de temps
      *
+     * <p>Les dades es calculen abans de respondre; el document s'escriu directament a la resposta
+     * a mesura que es genera, sense Content-Length (transferència per blocs).</p>
+     *
      * @param startDate data inicial del periode
      * @param endDate data final del periode
-     * @return {@link ReportGlobalResponseDTO} amb diferents dades
+     * @return cos que escriu el pdf a la resposta
      */
     @GetMapping("global/pdf")
-    public ResponseEntity<byte[]> globalInfoPDF(@RequestParam(required = false) String startDate, @RequestParam(required = false) String endDate) {
+    public ResponseEntity<StreamingResponseBody> globalInfoPDF(@RequestParam(required = false) String startDate, @RequestParam(required = false) String endDate) {
 
         LocalDateTime start = parseDate(startDate,false);
         LocalDateTime end = parseDate(endDate,true);
@@ -101,8 +115,6 @@ public class ReportController {
         // Servei
         ReportGlobalResponseDTO report = reportService.globalInfo(dto);
 
-        byte[] pdfBytes = reportService.generateGlobalInfoPDF(report);
-
         // Retornem pdf com resposta
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy_MM_dd");
         String startStr = start.format(formatter);
@@ -113,7 +125,188 @@ public class ReportController {
         headers.setContentDisposition(ContentDisposition.builder("inline")
                 .filename(titolPdf).build());
 
-        return ResponseEntity.ok().headers(headers).body(pdfBytes);
+        return ResponseEntity.ok().headers(headers).body(out -> reportService.writeGlobalInfoPDF(report, out));
+    }
+
+    /**
+     * Demana un informe global en segon pla, per a períodes llargs.
+     *
+     * <p>Retorna immediatament (HTTP 202) amb l'identificador de l'informe, que es consulta
+     * amb {@code GET /api/reports/jobs/{id}}.</p>
+     *
+     * @param startDate data inicial del periode
+     * @param endDate data final del periode
+     * @param format format del resultat (json o pdf, json per defecte)
+     * @return {@link ReportJobResponseDTO} amb l'estat inicial de l'informe
+     */
+    @PostMapping("jobs")
+    public ResponseEntity<ApiResponseDTO<ReportJobResponseDTO>> submitJob(@RequestParam(required = false) String startDate,
+                                                                          @RequestParam(required = false) String endDate,
+                                                                          @RequestParam(required = false) String format) {
+
+        LocalDateTime start = parseDate(startDate,false);
+        LocalDateTime end = parseDate(endDate,true);
+
+        // Creem DTO a partir dels paràmetres
+        PeriodRequestDTO dto = PeriodRequestDTO.builder().dataInicial(start).dataFinal(end).build();
+
+        // Servei
+        ReportJobResponseDTO job = reportJobService.submit(dto, ReportJobFormat.parse(format));
+
+        // Retorn
+        return ResponseEntity
+                .status(HttpStatus.ACCEPTED)
+                .body(ApiResponseDTO.success(job, "Informe en cua."));
+    }
+
+    /**
+     * Estat d'un informe en segon pla.
+     *
+     * <p>Si l'informe és en format PDF i s'ha completat, retorna directament el document.
+     * En cas contrari retorna l'estat i, per als informes JSON completats, el resultat.</p>
+     *
+     * @param id identificador de l'informe
+     * @return el PDF o {@link ReportJobResponseDTO} amb l'estat de l'informe
+     */
+    @GetMapping("jobs/{id}")
+    public ResponseEntity<?> getJob(@PathVariable String id) {
+
+        // Servei
+        ReportJobResponseDTO job = reportJobService.getJob(id);
+
+        if (job.getFormat() == ReportJobFormat.PDF && job.getEstat() == ReportJobStatus.COMPLETED) {
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy_MM_dd");
+            String titolPdf = "Report_Global_Abasta_de_" + job.getDataInicial().format(formatter)
+                    + "_a_" + job.getDataFinal().format(formatter) + ".pdf";
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_PDF);
+            headers.setContentDisposition(ContentDisposition.builder("inline")
+                    .filename(titolPdf).build());
+
+            return ResponseEntity.ok().headers(headers).body(new FileSystemResource(reportJobService.getPdfResult(id)));
+        }
+
+        // Retorn
+        return ResponseEntity.ok(ApiResponseDTO.success(job, "Estat de l'informe correcte."));
+    }
+
+    /**
+     * Sèrie temporal de comandes i despesa en un període, calculada a partir dels acumulats diaris
+     *
+     * <p>Exemple d'ús:
+     * <pre>
+     * GET /api/reports/timeseries?startDate=2023-01-01&endDate=2025-12-31&granularity=month
+     * GET /api/reports/timeseries?startDate=2025-11-01&endDate=2025-11-30&productUuid=...
+     * </pre>
+     * </p>
+     *
+     * @param startDate data inicial del periode
+     * @param endDate data final del periode
+     * @param granularity day, week o month (day per defecte)
+     * @param supplierUuid UUID del proveïdor per filtrar (opcional)
+     * @param productUuid UUID del producte per filtrar (opcional)
+     * @return {@link TimeSeriesResponseDTO} amb un punt per període
+     * @throws cat.abasta_back_end.exceptions.BadRequestException si la granularitat o el període no són vàlids
+     */
+    @GetMapping("timeseries")
+    public ResponseEntity<ApiResponseDTO<TimeSeriesResponseDTO>> timeSeries(@RequestParam(required = false) String startDate, @RequestParam(required = false) String endDate,
+                                                                           @RequestParam(required = false) String granularity,
+                                                                           @RequestParam(required = false) String supplierUuid,
+                                                                           @RequestParam(required = false) String productUuid) {
+
+        // Creem DTO a partir dels paràmetres
+        TimeSeriesRequestDTO dto = TimeSeriesRequestDTO.builder()
+                .dataInicial(parseDate(startDate, false).toLocalDate())
+                .dataFinal(parseDate(endDate, true).toLocalDate())
+                .granularitat(TimeSeriesGranularity.parse(granularity))
+                .supplierUuid(supplierUuid)
+                .productUuid(productUuid)
+                .build();
+
+        // Servei
+        TimeSeriesResponseDTO series = reportService.timeSeries(dto);
+
+        // Retorn
+        return ResponseEntity.ok(ApiResponseDTO.success(series, "Sèrie temporal correcta."));
+    }
+
+    /**
+     * Consulta dinàmica de les línies de comanda d'un període, agrupades per proveïdor,
+     * producte, dia, setmana o mes i calculada en memòria
+     *
+     * <p>Exemple d'ús:
+     * <pre>
+     * GET /api/reports/pivot?startDate=2025-01-01&endDate=2025-12-31&groupBy=product&supplierUuid=...
+     * GET /api/reports/pivot?startDate=2025-01-01&endDate=2025-12-31&groupBy=week&productUuid=...
+     * </pre>
+     * </p>
+     *
+     * @param startDate data inicial del periode
+     * @param endDate data final del periode
+     * @param groupBy supplier, product, day, week o month (supplier per defecte)
+     * @param supplierUuid UUID del proveïdor per filtrar (opcional)
+     * @param productUuid UUID del producte per filtrar (opcional)
+     * @return {@link PivotResponseDTO} amb una fila per valor de l'agrupació
+     * @throws cat.abasta_back_end.exceptions.BadRequestException si l'agrupació o el període no són vàlids
+     */
+    @GetMapping("pivot")
+    public ResponseEntity<ApiResponseDTO<PivotResponseDTO>> pivot(@RequestParam(required = false) String startDate, @RequestParam(required = false) String endDate,
+                                                                  @RequestParam(required = false) String groupBy,
+                                                                  @RequestParam(required = false) String supplierUuid,
+                                                                  @RequestParam(required = false) String productUuid) {
+
+        // Creem DTO a partir dels paràmetres
+        PivotRequestDTO dto = PivotRequestDTO.builder()
+                .dataInicial(parseDate(startDate, false).toLocalDate())
+                .dataFinal(parseDate(endDate, true).toLocalDate())
+                .agrupacio(PivotDimension.parse(groupBy))
+                .supplierUuid(supplierUuid)
+                .productUuid(productUuid)
+                .build();
+
+        // Servei
+        PivotResponseDTO pivot = reportService.pivot(dto);
+
+        // Retorn
+        return ResponseEntity.ok(ApiResponseDTO.success(pivot, "Consulta dinàmica correcta."));
+    }
+
+    /**
+     * Mediana i percentils 90 i 99 de l'import de les comandes dels mesos del període,
+     * calculats fusionant els histogrames mensuals
+     *
+     * <p>Exemple d'ús:
+     * <pre>
+     * GET /api/reports/percentiles?startDate=2025-01-01&endDate=2025-06-30&groupBy=supplier
+     * GET /api/reports/percentiles?startDate=2025-01-01&endDate=2025-12-31&groupBy=month&supplierUuid=...
+     * </pre>
+     * </p>
+     *
+     * @param startDate data inicial del periode; s'inclou el mes sencer
+     * @param endDate data final del periode; s'inclou el mes sencer
+     * @param groupBy supplier o month (opcional; sense agrupació només es retorna el total)
+     * @param supplierUuid UUID del proveïdor per filtrar (opcional)
+     * @return {@link PercentilesResponseDTO} amb el total i una fila per grup
+     * @throws cat.abasta_back_end.exceptions.BadRequestException si l'agrupació o el període no són vàlids
+     */
+    @GetMapping("percentiles")
+    public ResponseEntity<ApiResponseDTO<PercentilesResponseDTO>> percentiles(@RequestParam(required = false) String startDate, @RequestParam(required = false) String endDate,
+                                                                              @RequestParam(required = false) String groupBy,
+                                                                              @RequestParam(required = false) String supplierUuid) {
+
+        // Creem DTO a partir dels paràmetres
+        PercentilesRequestDTO dto = PercentilesRequestDTO.builder()
+                .dataInicial(parseDate(startDate, false).toLocalDate())
+                .dataFinal(parseDate(endDate, true).toLocalDate())
+                .agrupacio(groupBy == null || groupBy.isBlank() ? null : PivotDimension.parse(groupBy))
+                .supplierUuid(supplierUuid)
+                .build();
+
+        // Servei
+        PercentilesResponseDTO percentiles = reportService.orderValuePercentiles(dto);
+
+        // Retorn
+        return ResponseEntity.ok(ApiResponseDTO.success(percentiles, "Percentils correctes."));
     }
 
     /**
@@ -0,0 +1,72 @@
+package cat.abasta_back_end.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO per a respostes paginades per cursor (keyset pagination).
+ *
+ * <p>A diferència de {@link PagedResponseDTO}, no inclou el total d'elements ni de pàgines:
+ * obtenir-los requereix un {@code COUNT(*)} sobre tots els resultats, que és justament el que
+ * aquest mode evita. El client demana la pàgina següent enviant {@code nextCursor} tal com
+ * l'ha rebut; el seu contingut és opac i pot canviar entre versions.</p>
+ *
+ * @param <T> tipus de les dades contingudes a la pàgina
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPagedResponseDTO<T> {
+
+    /**
+     * Contingut de la pàgina actual.
+     */
+    private List<T> content;
+
+    /**
+     * Mida de pàgina demanada.
+     */
+    private int size;
+
+    /**
+     * Número d'elements en la pàgina actual.
+     */
+    private int numberOfElements;
+
+    /**
+     * Indica si hi ha més elements després d'aquesta pàgina.
+     */
+    private boolean hasNext;
+
+    /**
+     * Cursor per obtenir la pàgina següent, o null si és l'última.
+     */
+    private String nextCursor;
+
+    /**
+     * Crea una resposta paginada per cursor.
+     *
+     * @param content contingut de la pàgina
+     * @param size mida de pàgina demanada
+     * @param nextCursor cursor de la pàgina següent, o null si no n'hi ha
+     * @param <T> tipus de dades
+     * @return CursorPagedResponseDTO amb el contingut i el cursor
+     */
+    public static <T> CursorPagedResponseDTO<T> of(List<T> content, int size, String nextCursor) {
+        return CursorPagedResponseDTO.<T>builder()
+                .content(content)
+                .size(size)
+                .numberOfElements(content.size())
+                .hasNext(nextCursor != null)
+                .nextCursor(nextCursor)
+                .build();
+    }
+}
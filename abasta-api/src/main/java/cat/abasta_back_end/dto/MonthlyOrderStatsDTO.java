@@ -0,0 +1,63 @@
+package cat.abasta_back_end.dto;
+
+import cat.abasta_back_end.entities.Order;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.Map;
+
+/**
+ * Comptadors de comandes d'una empresa en un mes, llegits de la taula {@code company_monthly_stats}.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlyOrderStatsDTO {
+
+    /**
+     * Identificador de l'empresa
+     */
+    private Long companyId;
+
+    /**
+     * Mes de creació de les comandes
+     */
+    private YearMonth month;
+
+    /**
+     * Nombre de comandes per estat
+     */
+    private Map<Order.OrderStatus, Long> counts;
+
+    /**
+     * Import total de les comandes actives
+     */
+    private BigDecimal totalAmount;
+
+    /**
+     * @param status estat de la comanda
+     * @return nombre de comandes en aquest estat
+     */
+    public long getCount(Order.OrderStatus status) {
+        return counts.getOrDefault(status, 0L);
+    }
+
+    /**
+     * @return nombre de comandes en estats actius
+     * @see Order.OrderStatus#isActive()
+     */
+    public long getActiveCount() {
+        return counts.entrySet().stream()
+                .filter(entry -> entry.getKey().isActive())
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+    }
+}
@@ -0,0 +1,53 @@
+package cat.abasta_back_end.dto;
+
+import cat.abasta_back_end.exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Posició d'una comanda en el llistat per cursor, ordenat per data de creació i id descendents.
+ *
+ * <p>Es codifica en Base64 URL-safe perquè el client el tracti com un valor opac i el pugui
+ * enviar directament com a paràmetre de la URL.</p>
+ *
+ * @param createdAt data de creació de l'última comanda retornada
+ * @param id identificador de l'última comanda retornada
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+public record OrderCursor(LocalDateTime createdAt, Long id) {
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Codifica el cursor en un string opac.
+     *
+     * @return el cursor codificat
+     */
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Descodifica un cursor rebut del client.
+     *
+     * @param cursor el cursor codificat
+     * @return el cursor
+     * @throws BadRequestException si el cursor no és vàlid
+     */
+    public static OrderCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new OrderCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.valueOf(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Cursor de paginació no vàlid");
+        }
+    }
+}
@@ -155,6 +155,12 @@ public class OrderFilterDTO {
     @Builder.Default
     private String sortDir = "asc";
 
+    /**
+     * Cursor de la paginació per cursor, tal com l'ha retornat la pàgina anterior.
+     * Buit per demanar la primera pàgina. En aquest mode s'ignoren page, sortBy i sortDir.
+     */
+    private String cursor;
+
     /**
      * Verifica si algun filtre de text està aplicat.
      *
@@ -0,0 +1,41 @@
+package cat.abasta_back_end.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Data Transfer Object (DTO) amb el canvi d'una comanda que s'envia als clients connectats a
+ * {@code GET /api/orders/stream}.
+ *
+ * <p>Només porta el necessari perquè el client actualitzi la llista o el tauler; si necessita
+ * el detall, el demana amb l'uuid.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderStreamEventDTO {
+
+    /**
+     * Identificador únic de la comanda
+     */
+    private String uuid;
+
+    /**
+     * Estat nou de la comanda (DELETED si s'ha eliminat)
+     */
+    private String status;
+
+    /**
+     * Import total de la comanda
+     */
+    private BigDecimal totalAmount;
+}
@@ -0,0 +1,46 @@
+package cat.abasta_back_end.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object (DTO) per demanar els percentils de l'import de les comandes d'un període.
+ * <p>
+ * Els histogrames es guarden per mes, de manera que el període s'amplia als mesos sencers
+ * que el contenen.
+ * </p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PercentilesRequestDTO {
+
+    /**
+     * Primer dia del període
+     */
+    private LocalDate dataInicial;
+
+    /**
+     * Últim dia del període
+     */
+    private LocalDate dataFinal;
+
+    /**
+     * Agrupació de les files: SUPPLIER o MONTH; null per retornar només el total
+     */
+    private PivotDimension agrupacio;
+
+    /**
+     * UUID del proveïdor per filtrar (opcional)
+     */
+    private String supplierUuid;
+}
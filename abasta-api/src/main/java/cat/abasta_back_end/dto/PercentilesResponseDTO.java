@@ -0,0 +1,52 @@
+package cat.abasta_back_end.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) amb els percentils de l'import de les comandes d'un període.
+ * <p>
+ * Inclou el total del període i, si s'ha demanat una agrupació, una fila per proveïdor
+ * (per nombre de comandes descendent) o per mes (per ordre cronològic).
+ * </p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PercentilesResponseDTO {
+
+    /**
+     * Primer mes inclòs
+     */
+    private YearMonth mesInicial;
+
+    /**
+     * Últim mes inclòs
+     */
+    private YearMonth mesFinal;
+
+    /**
+     * Agrupació de les files, o null
+     */
+    private PivotDimension agrupacio;
+
+    /**
+     * Distribució de tot el període
+     */
+    private PercentilesRowDTO total;
+
+    /**
+     * Files per grup; buida si no s'ha demanat agrupació
+     */
+    private List<PercentilesRowDTO> files;
+}
@@ -0,0 +1,53 @@
+package cat.abasta_back_end.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Data Transfer Object (DTO) amb la distribució de l'import de les comandes d'un grup.
+ * Els percentils tenen un error relatiu màxim de l'1%.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PercentilesRowDTO {
+
+    /**
+     * UUID del proveïdor o mes (yyyy-MM); buit per al total
+     */
+    private String clau;
+
+    /**
+     * Nom del proveïdor; buit per als mesos i el total
+     */
+    private String nom;
+
+    /**
+     * Nombre de comandes actives
+     */
+    private Long numComandes;
+
+    /**
+     * Mediana de l'import de les comandes
+     */
+    private BigDecimal mediana;
+
+    /**
+     * Percentil 90 de l'import
+     */
+    private BigDecimal p90;
+
+    /**
+     * Percentil 99 de l'import
+     */
+    private BigDecimal p99;
+}
@@ -0,0 +1,51 @@
+package cat.abasta_back_end.dto;
+
+import cat.abasta_back_end.exceptions.BadRequestException;
+
+/**
+ * Dimensió d'agrupació d'una consulta dinàmica (pivot) sobre les línies de comanda.
+ * <ul>
+ *   <li><b>SUPPLIER:</b> una fila per proveïdor</li>
+ *   <li><b>PRODUCT:</b> una fila per producte</li>
+ *   <li><b>DAY, WEEK, MONTH:</b> una fila per període, com a les sèries temporals</li>
+ * </ul>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+public enum PivotDimension {
+    SUPPLIER, PRODUCT, DAY, WEEK, MONTH;
+
+    /**
+     * Retorna la granularitat equivalent si la dimensió és temporal.
+     *
+     * @return la granularitat, o null per a proveïdor i producte
+     */
+    public TimeSeriesGranularity granularity() {
+        return switch (this) {
+            case DAY -> TimeSeriesGranularity.DAY;
+            case WEEK -> TimeSeriesGranularity.WEEK;
+            case MONTH -> TimeSeriesGranularity.MONTH;
+            default -> null;
+        };
+    }
+
+    /**
+     * Converteix el paràmetre rebut pel client, sense distingir majúscules.
+     *
+     * @param value valor rebut; si és buit es fa servir SUPPLIER
+     * @return la dimensió
+     * @throws BadRequestException si el valor no és vàlid
+     */
+    public static PivotDimension parse(String value) {
+        if (value == null || value.isBlank()) {
+            return SUPPLIER;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Agrupació no vàlida: " + value);
+        }
+    }
+}
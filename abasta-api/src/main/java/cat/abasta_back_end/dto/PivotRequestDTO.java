@@ -0,0 +1,52 @@
+package cat.abasta_back_end.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object (DTO) per demanar una consulta dinàmica (pivot) de les línies de comanda.
+ * <p>
+ * Agrupa les línies de les comandes actives del període per la dimensió indicada, amb filtres
+ * opcionals per proveïdor i producte.
+ * </p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PivotRequestDTO {
+
+    /**
+     * Primer dia del període (inclòs)
+     */
+    private LocalDate dataInicial;
+
+    /**
+     * Últim dia del període (inclòs)
+     */
+    private LocalDate dataFinal;
+
+    /**
+     * Dimensió d'agrupació
+     */
+    @Builder.Default
+    private PivotDimension agrupacio = PivotDimension.SUPPLIER;
+
+    /**
+     * UUID del proveïdor per filtrar (opcional)
+     */
+    private String supplierUuid;
+
+    /**
+     * UUID del producte per filtrar (opcional)
+     */
+    private String productUuid;
+}
@@ -0,0 +1,47 @@
+package cat.abasta_back_end.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) amb el resultat d'una consulta dinàmica (pivot).
+ * <p>
+ * Les dimensions temporals retornen les files ordenades per data; proveïdors i productes,
+ * per despesa de més gran a més petita. Només s'inclouen les files amb alguna línia.
+ * </p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PivotResponseDTO {
+
+    /**
+     * Primer dia del període
+     */
+    private LocalDate dataInicial;
+
+    /**
+     * Últim dia del període
+     */
+    private LocalDate dataFinal;
+
+    /**
+     * Dimensió d'agrupació
+     */
+    private PivotDimension agrupacio;
+
+    /**
+     * Files del resultat
+     */
+    private List<PivotRowDTO> files;
+}
@@ -0,0 +1,47 @@
+package cat.abasta_back_end.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Data Transfer Object (DTO) amb una fila d'una consulta dinàmica (pivot).
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PivotRowDTO {
+
+    /**
+     * Valor de la dimensió: UUID del proveïdor o producte, o primer dia del període (ISO)
+     */
+    private String clau;
+
+    /**
+     * Nom del proveïdor o producte; buit per a les dimensions temporals
+     */
+    private String nom;
+
+    /**
+     * Nombre de comandes amb alguna línia a la fila
+     */
+    private Long numComandes;
+
+    /**
+     * Quantitat total de les línies
+     */
+    private BigDecimal quantitat;
+
+    /**
+     * Despesa total de les línies
+     */
+    private BigDecimal despesa;
+}
@@ -0,0 +1,36 @@
+package cat.abasta_back_end.dto;
+
+import cat.abasta_back_end.exceptions.BadRequestException;
+
+/**
+ * Format del resultat d'un informe generat en segon pla.
+ * <ul>
+ *   <li><b>JSON:</b> el mateix contingut que {@code GET /api/reports/global}</li>
+ *   <li><b>PDF:</b> el mateix document que {@code GET /api/reports/global/pdf}</li>
+ * </ul>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+public enum ReportJobFormat {
+    JSON, PDF;
+
+    /**
+     * Converteix el paràmetre rebut pel client, sense distingir majúscules.
+     *
+     * @param value valor rebut; si és buit es fa servir JSON
+     * @return el format
+     * @throws BadRequestException si el valor no és vàlid
+     */
+    public static ReportJobFormat parse(String value) {
+        if (value == null || value.isBlank()) {
+            return JSON;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Format d'informe no vàlid: " + value);
+        }
+    }
+}
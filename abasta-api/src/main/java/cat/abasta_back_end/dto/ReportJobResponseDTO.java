@@ -0,0 +1,72 @@
+package cat.abasta_back_end.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object (DTO) amb l'estat d'un informe generat en segon pla.
+ *
+ * <p>Quan l'informe és en format JSON i s'ha completat, inclou el resultat. Els informes en
+ * format PDF es descarreguen des del mateix endpoint un cop completats.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReportJobResponseDTO {
+
+    /**
+     * Identificador de l'informe
+     */
+    private String uuid;
+
+    /**
+     * Estat actual
+     */
+    private ReportJobStatus estat;
+
+    /**
+     * Format del resultat
+     */
+    private ReportJobFormat format;
+
+    /**
+     * Data inicial del període
+     */
+    private LocalDateTime dataInicial;
+
+    /**
+     * Data final del període
+     */
+    private LocalDateTime dataFinal;
+
+    /**
+     * Moment en què s'ha demanat l'informe
+     */
+    private LocalDateTime creat;
+
+    /**
+     * Moment en què s'ha completat o ha fallat
+     */
+    private LocalDateTime finalitzat;
+
+    /**
+     * Motiu de l'error si l'informe ha fallat
+     */
+    private String error;
+
+    /**
+     * Resultat, només per als informes JSON completats
+     */
+    private ReportGlobalResponseDTO resultat;
+}
@@ -0,0 +1,18 @@
+package cat.abasta_back_end.dto;
+
+/**
+ * Estat d'un informe generat en segon pla.
+ * <ul>
+ *   <li><b>PENDING:</b> a la cua, esperant un fil lliure</li>
+ *   <li><b>RUNNING:</b> s'està calculant</li>
+ *   <li><b>COMPLETED:</b> el resultat és disponible</li>
+ *   <li><b>FAILED:</b> el càlcul ha fallat</li>
+ * </ul>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+public enum ReportJobStatus {
+    PENDING, RUNNING, COMPLETED, FAILED
+}
@@ -0,0 +1,35 @@
+package cat.abasta_back_end.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.math.BigDecimal;
+
+/**
+ * Projecció amb els totals d'un proveïdor en un període, calculats a la base de dades
+ * amb {@code GROUP BY}.
+ *
+ * <p>S'utilitza com a resultat intermedi de l'informe global: a partir d'aquests totals
+ * es calcula el percentatge de cada proveïdor i es construeix {@link DespesaPerProveidorDTO}.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@Data
+@AllArgsConstructor
+public class SupplierTotalsDTO {
+
+    /**
+     * Nom del proveïdor
+     */
+    private String proveidor;
+
+    /**
+     * Nombre de comandes fetes al proveïdor
+     */
+    private Long numComandes;
+
+    /**
+     * Despesa total al proveïdor, o null si les seves comandes no tenen items
+     */
+    private BigDecimal despesaTotal;
+}
@@ -0,0 +1,69 @@
+package cat.abasta_back_end.dto;
+
+import cat.abasta_back_end.exceptions.BadRequestException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Granularitat dels punts d'una sèrie temporal d'estadístiques.
+ * <ul>
+ *   <li><b>DAY:</b> un punt per dia</li>
+ *   <li><b>WEEK:</b> un punt per setmana, començant en dilluns</li>
+ *   <li><b>MONTH:</b> un punt per mes, començant el dia 1</li>
+ * </ul>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+public enum TimeSeriesGranularity {
+    DAY, WEEK, MONTH;
+
+    /**
+     * Retorna el primer dia del període que conté la data.
+     *
+     * @param date data qualsevol
+     * @return inici del període
+     */
+    public LocalDate bucketStart(LocalDate date) {
+        return switch (this) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    /**
+     * Retorna l'inici del període següent.
+     *
+     * @param bucketStart inici d'un període
+     * @return inici del període següent
+     */
+    public LocalDate next(LocalDate bucketStart) {
+        return switch (this) {
+            case DAY -> bucketStart.plusDays(1);
+            case WEEK -> bucketStart.plusWeeks(1);
+            case MONTH -> bucketStart.plusMonths(1);
+        };
+    }
+
+    /**
+     * Converteix el paràmetre rebut pel client, sense distingir majúscules.
+     *
+     * @param value valor rebut; si és buit es fa servir DAY
+     * @return la granularitat
+     * @throws BadRequestException si el valor no és vàlid
+     */
+    public static TimeSeriesGranularity parse(String value) {
+        if (value == null || value.isBlank()) {
+            return DAY;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Granularitat no vàlida: " + value);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package cat.abasta_back_end.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object (DTO) amb els valors d'un període d'una sèrie temporal.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TimeSeriesPointDTO {
+
+    /**
+     * Primer dia del període
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate inici;
+
+    /**
+     * Nombre de comandes actives del període
+     */
+    private Long numComandes;
+
+    /**
+     * Quantitat demanada del producte (només si la sèrie és d'un producte)
+     */
+    private BigDecimal quantitat;
+
+    /**
+     * Despesa del període
+     */
+    private BigDecimal despesa;
+}
@@ -0,0 +1,51 @@
+package cat.abasta_back_end.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object (DTO) per demanar una sèrie temporal d'estadístiques de comandes.
+ * <p>
+ * Si s'indica un producte, la sèrie inclou la quantitat i la despesa d'aquest producte;
+ * si no, la despesa i el nombre de comandes de tots els proveïdors o del proveïdor indicat.
+ * </p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TimeSeriesRequestDTO {
+
+    /**
+     * Primer dia del període (inclòs)
+     */
+    private LocalDate dataInicial;
+
+    /**
+     * Últim dia del període (inclòs)
+     */
+    private LocalDate dataFinal;
+
+    /**
+     * Granularitat dels punts
+     */
+    @Builder.Default
+    private TimeSeriesGranularity granularitat = TimeSeriesGranularity.DAY;
+
+    /**
+     * UUID del proveïdor per filtrar (opcional)
+     */
+    private String supplierUuid;
+
+    /**
+     * UUID del producte per filtrar (opcional)
+     */
+    private String productUuid;
+}
@@ -0,0 +1,49 @@
+package cat.abasta_back_end.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) per retornar una sèrie temporal d'estadístiques de comandes.
+ * <p>
+ * Conté un punt per cada període entre les dues dates, també per als períodes sense comandes,
+ * perquè el client pugui dibuixar el gràfic directament.
+ * </p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TimeSeriesResponseDTO {
+
+    /**
+     * Primer dia del període
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate dataInicial;
+
+    /**
+     * Últim dia del període
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate dataFinal;
+
+    /**
+     * Granularitat dels punts
+     */
+    private TimeSeriesGranularity granularitat;
+
+    /**
+     * Punts de la sèrie, ordenats per data
+     */
+    private List<TimeSeriesPointDTO> punts;
+}
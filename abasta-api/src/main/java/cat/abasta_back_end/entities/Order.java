@@ -23,9 +23,15 @@ import java.util.*;
 @Builder
 public class Order {
 
-    /** Identificador del registre a la taula */
+    /**
+     * Identificador del registre a la taula.
+     * Es reserva en blocs de 50 a la taula id_generators perquè els INSERT es puguin agrupar en lots JDBC.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_id_generator")
+    @TableGenerator(name = "order_id_generator", table = "id_generators",
+            pkColumnName = "sequence_name", valueColumnName = "next_val",
+            pkColumnValue = "orders", allocationSize = 50)
     private Long id;
 
     /** Identificador únic universal del registre */
@@ -133,7 +139,16 @@ public class Order {
      * </ul>
      */
     public enum OrderStatus {
-        PENDING, SENT, CONFIRMED, REJECTED, COMPLETED, CANCELLED, DELETED
+        PENDING, SENT, CONFIRMED, REJECTED, COMPLETED, CANCELLED, DELETED;
+
+        /**
+         * Indica si les comandes en aquest estat compten als informes i al dashboard.
+         *
+         * @return true per a PENDING, SENT, CONFIRMED i COMPLETED
+         */
+        public boolean isActive() {
+            return this == PENDING || this == SENT || this == CONFIRMED || this == COMPLETED;
+        }
     }
 
 }
\ No newline at end of file
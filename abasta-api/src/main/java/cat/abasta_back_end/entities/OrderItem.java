@@ -22,9 +22,15 @@ import java.util.*;
 @Builder
 public class OrderItem {
 
-    /** Identificador del registre de la taula */
+    /**
+     * Identificador del registre de la taula.
+     * Es reserva en blocs de 50 a la taula id_generators perquè els INSERT es puguin agrupar en lots JDBC.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_item_id_generator")
+    @TableGenerator(name = "order_item_id_generator", table = "id_generators",
+            pkColumnName = "sequence_name", valueColumnName = "next_val",
+            pkColumnValue = "order_items", allocationSize = 50)
     private Long id;
 
     /** Identificador únic universal del registre */
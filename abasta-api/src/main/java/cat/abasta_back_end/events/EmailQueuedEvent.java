@@ -0,0 +1,15 @@
+package cat.abasta_back_end.events;
+
+/**
+ * Esdeveniment d'aplicació publicat quan es guarda un correu a la bústia de sortida.
+ *
+ * <p>Els consumidors l'han d'escoltar un cop confirmada la transacció: abans, el correu encara
+ * no és visible per a altres connexions.</p>
+ *
+ * @param id identificador del correu a la bústia
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+public record EmailQueuedEvent(Long id) {
+}
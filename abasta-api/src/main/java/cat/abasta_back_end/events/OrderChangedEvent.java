@@ -0,0 +1,36 @@
+package cat.abasta_back_end.events;
+
+import cat.abasta_back_end.services.OrderRollupService;
+
+import java.time.LocalDateTime;
+
+/**
+ * Esdeveniment d'aplicació publicat quan es crea, modifica, envia o elimina una comanda.
+ *
+ * <p>Els informes d'una empresa depenen de les seves comandes per data de creació; per invalidar
+ * resultats n'hi ha prou amb l'empresa i la data. Els consumidors que mantenen còpies de les
+ * línies de comanda fan servir també l'identificador i l'estat nou de la comanda, i els que
+ * avisen els clients connectats, l'uuid públic.</p>
+ *
+ * @param companyId empresa de la comanda
+ * @param createdAt data de creació de la comanda
+ * @param orderId identificador de la comanda, o null si no es coneix
+ * @param order estat nou de la comanda i les seves línies, o null si no es coneix
+ * @param orderUuid uuid públic de la comanda, o null si no es coneix
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+public record OrderChangedEvent(Long companyId, LocalDateTime createdAt, Long orderId, OrderRollupService.Snapshot order,
+                                String orderUuid) {
+
+    /**
+     * Esdeveniment que només indica l'empresa i la data afectades.
+     *
+     * @param companyId empresa de la comanda
+     * @param createdAt data de creació de la comanda
+     */
+    public OrderChangedEvent(Long companyId, LocalDateTime createdAt) {
+        this(companyId, createdAt, null, null, null);
+    }
+}
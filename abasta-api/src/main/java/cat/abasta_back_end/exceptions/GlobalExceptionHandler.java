@@ -1,6 +1,7 @@
 package cat.abasta_back_end.exceptions;
 
 import cat.abasta_back_end.dto.ApiResponseDTO;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -24,6 +25,7 @@ import java.util.Map;
  *   <li>{@link ResourceNotFoundException}: recurs no trobat (HTTP 404)</li>
  *   <li>{@link DuplicateResourceException}: recurs duplicat (HTTP 409)</li>
  *   <li>{@link BadRequestException}: petició invàlida (HTTP 400)</li>
+ *   <li>{@link TooManyRequestsException}: capacitat exhaurida (HTTP 429)</li>
  *   <li>{@link MethodArgumentNotValidException}: errors de validació (HTTP 400)</li>
  *   <li>{@link Exception}: errors interns no previstos (HTTP 500)</li>
  * </ul>
@@ -74,6 +76,20 @@ public class GlobalExceptionHandler {
                 .body(ApiResponseDTO.error(ex.getMessage()));
     }
 
+    /**
+     * Gestiona les excepcions {@link TooManyRequestsException}.
+     *
+     * @param ex excepció capturada.
+     * @return resposta HTTP amb estat 429, capçalera Retry-After i missatge d'error.
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ApiResponseDTO<Void>> handleTooManyRequests(TooManyRequestsException ex) {
+        return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ApiResponseDTO.error(ex.getMessage()));
+    }
+
     /**
      * Gestiona els errors de validació provinents de {@code @Valid}.
      * <p>
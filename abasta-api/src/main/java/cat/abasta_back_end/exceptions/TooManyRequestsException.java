@@ -0,0 +1,45 @@
+package cat.abasta_back_end.exceptions;
+
+/**
+ * Excepció personalitzada per indicar que el servidor no pot atendre la petició
+ * perquè ha arribat al límit de capacitat o de freqüència permès.
+ * <p>
+ * Es tradueix en una resposta HTTP 429 amb la capçalera {@code Retry-After},
+ * perquè el client sàpiga quan pot tornar-ho a provar.
+ * </p>
+ *
+ * <p>Exemple d'ús:</p>
+ * <pre>
+ * if (cuaPlena) {
+ *     throw new TooManyRequestsException("Massa peticions", 1);
+ * }
+ * </pre>
+ *
+ * @author Enrique Pérez
+ * @since 1.0
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    /**
+     * Segons que el client hauria d'esperar abans de repetir la petició.
+     */
+    private final long retryAfterSeconds;
+
+    /**
+     * Crea una nova excepció amb el missatge i el temps d'espera especificats.
+     *
+     * @param message Descripció de l'error per mostrar al client o als logs.
+     * @param retryAfterSeconds Segons recomanats abans de tornar-ho a provar.
+     */
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * @return segons recomanats abans de tornar-ho a provar
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
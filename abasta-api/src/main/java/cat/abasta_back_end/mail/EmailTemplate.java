@@ -0,0 +1,214 @@
+package cat.abasta_back_end.mail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plantilla HTML de correu analitzada una sola vegada.
+ *
+ * <p>{@code String.format} torna a analitzar la cadena de format a cada crida, i les plantilles
+ * dels correus fan diversos kilobytes. Aquesta classe separa la plantilla en trossos literals i
+ * marcadors quan es compila, normalment en una constant; renderitzar-la només copia els trossos
+ * i els valors a un {@link StringBuilder} amb la mida ja calculada.</p>
+ *
+ * <p>Sintaxi dels marcadors:
+ * <ul>
+ *   <li>{@code {{nom}}}: el valor s'escapa per HTML. És el que cal per a qualsevol dada
+ *       introduïda per l'usuari (noms, notes, adreces)</li>
+ *   <li>{@code {{{nom}}}}: el valor s'insereix tal qual. Només per a fragments HTML generats per
+ *       l'aplicació, com les seccions d'una altra plantilla</li>
+ * </ul>
+ * Els noms dels marcadors es declaren en compilar la plantilla i els valors es passen en el
+ * mateix ordre. Un marcador desconegut o un paràmetre sense marcador és un error de
+ * compilació, de manera que les plantilles incorrectes fallen en arrencar l'aplicació.
+ * Els valors {@code null} es renderitzen com a cadena buida.</p>
+ *
+ * <p>Les instàncies són immutables i es poden compartir entre fils.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+public final class EmailTemplate {
+
+    /**
+     * Marge per als valors que no són text i per als caràcters escapats en calcular la mida.
+     */
+    private static final int VALUE_ESTIMATE = 16;
+
+    /**
+     * Trossos literals: un més que marcadors, el primer abans del primer marcador.
+     */
+    private final String[] literals;
+
+    /**
+     * Posició del valor de cada marcador entre els paràmetres.
+     */
+    private final int[] slots;
+
+    /**
+     * Si el valor de cada marcador s'escapa per HTML.
+     */
+    private final boolean[] escaped;
+
+    private final int parameterCount;
+    private final int literalLength;
+
+    private EmailTemplate(String[] literals, int[] slots, boolean[] escaped, int parameterCount) {
+        this.literals = literals;
+        this.slots = slots;
+        this.escaped = escaped;
+        this.parameterCount = parameterCount;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Analitza una plantilla.
+     *
+     * @param source text de la plantilla amb marcadors {@code {{nom}}} i {@code {{{nom}}}}
+     * @param parameters noms dels marcadors, en l'ordre en què es passaran els valors
+     * @return la plantilla compilada
+     * @throws IllegalArgumentException si un marcador no està tancat o no és un paràmetre, o si
+     *                                  un paràmetre no apareix a la plantilla o està repetit
+     */
+    public static EmailTemplate compile(String source, String... parameters) {
+        List<String> names = List.of(parameters);
+        for (int i = 0; i < parameters.length; i++) {
+            if (names.indexOf(parameters[i]) != i) {
+                throw new IllegalArgumentException("Paràmetre repetit a la plantilla: " + parameters[i]);
+            }
+        }
+
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<Boolean> escaped = new ArrayList<>();
+        boolean[] used = new boolean[parameters.length];
+
+        int from = 0;
+        int open;
+        while ((open = source.indexOf("{{", from)) >= 0) {
+            boolean raw = source.startsWith("{{{", open);
+            String close = raw ? "}}}" : "}}";
+            int nameStart = open + (raw ? 3 : 2);
+            int end = source.indexOf(close, nameStart);
+            if (end < 0) {
+                throw new IllegalArgumentException("Marcador sense tancar a la posició " + open);
+            }
+            String name = source.substring(nameStart, end).trim();
+            int slot = names.indexOf(name);
+            if (slot < 0) {
+                throw new IllegalArgumentException("Marcador desconegut a la plantilla: " + name);
+            }
+
+            literals.add(source.substring(from, open));
+            slots.add(slot);
+            escaped.add(!raw);
+            used[slot] = true;
+            from = end + close.length();
+        }
+        literals.add(source.substring(from));
+
+        for (int i = 0; i < used.length; i++) {
+            if (!used[i]) {
+                throw new IllegalArgumentException("Paràmetre sense marcador a la plantilla: " + parameters[i]);
+            }
+        }
+
+        int[] slotArray = new int[slots.size()];
+        boolean[] escapedArray = new boolean[escaped.size()];
+        for (int i = 0; i < slotArray.length; i++) {
+            slotArray[i] = slots.get(i);
+            escapedArray[i] = escaped.get(i);
+        }
+        return new EmailTemplate(literals.toArray(String[]::new), slotArray, escapedArray, parameters.length);
+    }
+
+    /**
+     * Renderitza la plantilla en una cadena nova.
+     *
+     * @param values valors dels paràmetres, en l'ordre declarat en compilar-la
+     * @return el text renderitzat
+     * @throws IllegalArgumentException si el nombre de valors no és el de paràmetres
+     */
+    public String render(Object... values) {
+        checkArity(values);
+        int capacity = literalLength;
+        for (int slot : slots) {
+            Object value = values[slot];
+            capacity += value instanceof CharSequence text ? text.length() : VALUE_ESTIMATE;
+        }
+        return renderTo(new StringBuilder(capacity + VALUE_ESTIMATE), values).toString();
+    }
+
+    /**
+     * Renderitza la plantilla al final d'un {@link StringBuilder}, per composar-ne diverses
+     * (per exemple, una fila per línia de comanda) sense cadenes intermèdies.
+     *
+     * @param out destinació
+     * @param values valors dels paràmetres, en l'ordre declarat en compilar-la
+     * @return {@code out}
+     * @throws IllegalArgumentException si el nombre de valors no és el de paràmetres
+     */
+    public StringBuilder renderTo(StringBuilder out, Object... values) {
+        checkArity(values);
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]);
+            Object value = values[slots[i]];
+            if (value == null) {
+                continue;
+            }
+            CharSequence text = value instanceof CharSequence sequence ? sequence : value.toString();
+            if (escaped[i]) {
+                escapeTo(text, out);
+            } else {
+                out.append(text);
+            }
+        }
+        return out.append(literals[slots.length]);
+    }
+
+    /**
+     * @return longitud total del text literal, per dimensionar la destinació de
+     * {@link #renderTo(StringBuilder, Object...)}
+     */
+    public int literalLength() {
+        return literalLength;
+    }
+
+    /**
+     * Escapa un text per inserir-lo en contingut o atributs HTML.
+     *
+     * @param text text a escapar
+     * @param out destinació
+     * @return {@code out}
+     */
+    public static StringBuilder escapeTo(CharSequence text, StringBuilder out) {
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            String entity = switch (text.charAt(i)) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#39;";
+                default -> null;
+            };
+            if (entity != null) {
+                out.append(text, start, i).append(entity);
+                start = i + 1;
+            }
+        }
+        return out.append(text, start, text.length());
+    }
+
+    private void checkArity(Object[] values) {
+        if (values.length != parameterCount) {
+            throw new IllegalArgumentException("La plantilla espera " + parameterCount
+                    + " valors i n'ha rebut " + values.length);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package cat.abasta_back_end.mail;
+
+import cat.abasta_back_end.entities.Order;
+import cat.abasta_back_end.entities.OrderItem;
+import cat.abasta_back_end.entities.Product;
+
+/**
+ * Taula HTML amb els productes d'una comanda per als correus als proveïdors.
+ *
+ * <p>Genera una fila per línia de comanda amb:
+ * <ul>
+ *   <li>Nom del producte</li>
+ *   <li>Quantitat</li>
+ *   <li>Volum</li>
+ *   <li>Unitat</li>
+ *   <li>Notes (si n'hi ha)</li>
+ * </ul>
+ * Les files es renderitzen amb una plantilla compilada ({@link EmailTemplate}) directament a un
+ * únic {@link StringBuilder} dimensionat per al nombre de línies, i els noms i les notes
+ * s'escapen per HTML.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+public final class OrderDetailsHtml {
+
+    /**
+     * Estimació dels caràcters que ocupen els valors d'una fila.
+     */
+    private static final int ROW_VALUES_ESTIMATE = 64;
+
+    private static final String TABLE_START = """
+            <table width="100%" cellpadding="0" cellspacing="0" style="border: 1px solid #e0e0e0; border-radius: 6px; overflow: hidden;">
+                <thead>
+                    <tr style="background-color: #667eea;">
+                        <th style="padding: 12px; text-align: left; color: #ffffff; font-size: 14px;">Producte</th>
+                        <th style="padding: 12px; text-align: center; color: #ffffff; font-size: 14px;">Quantitat</th>
+                        <th style="padding: 12px; text-align: right; color: #ffffff; font-size: 14px;">Volum</th>
+                        <th style="padding: 12px; text-align: right; color: #ffffff; font-size: 14px;">Unitat</th>
+                    </tr>
+                </thead>
+                <tbody>
+            """;
+
+    private static final EmailTemplate ROW_TEMPLATE = EmailTemplate.compile("""
+            <tr style="border-bottom: 1px solid #eeeeee;">
+                <td style="padding: 15px; color: #333333;">
+                    <strong>{{productName}}</strong>{{{notes}}}
+                </td>
+                <td style="padding: 15px; text-align: center; color: #666666;">{{quantity}}</td>
+                <td style="padding: 15px; text-align: right; color: #666666;">{{volume}}</td>
+                <td style="padding: 15px; text-align: right; color: #666666;">{{unit}}</td>
+            </tr>
+            """, "productName", "notes", "quantity", "volume", "unit");
+
+    private static final EmailTemplate NOTES_TEMPLATE = EmailTemplate.compile(
+            "<br><span style=\"font-size: 12px; color: #999; font-style: italic;\">Notes: {{notes}}</span>",
+            "notes");
+
+    private static final String TABLE_END = """
+                </tbody>
+            </table>
+            """;
+
+    private OrderDetailsHtml() {
+    }
+
+    /**
+     * Construeix la taula de productes d'una comanda.
+     *
+     * @param order la comanda amb els items
+     * @return HTML amb la taula de productes
+     */
+    public static String render(Order order) {
+        StringBuilder html = new StringBuilder(TABLE_START.length() + TABLE_END.length()
+                + order.getItems().size() * (ROW_TEMPLATE.literalLength() + ROW_VALUES_ESTIMATE));
+        html.append(TABLE_START);
+
+        for (OrderItem item : order.getItems()) {
+            Product product = item.getProduct();
+            String notes = item.getNotes() != null && !item.getNotes().isEmpty()
+                    ? NOTES_TEMPLATE.render(item.getNotes())
+                    : null;
+
+            ROW_TEMPLATE.renderTo(html,
+                    product != null ? product.getName() : "Producte desconegut",
+                    notes,
+                    item.getQuantity(),
+                    product != null ? product.getVolume() : null,
+                    product != null ? product.getUnit() : null);
+        }
+
+        return html.append(TABLE_END).toString();
+    }
+}
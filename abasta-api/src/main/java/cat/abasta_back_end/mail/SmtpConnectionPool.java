@@ -0,0 +1,343 @@
+package cat.abasta_back_end.mail;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool de connexions SMTP autenticades per enviar correus en lots.
+ *
+ * <p>{@code JavaMailSender.send} obre una connexió nova per cada crida i torna a negociar
+ * STARTTLS i l'autenticació, que és la major part del temps d'enviament. Aquest pool manté
+ * obertes fins a {@code app.mail.smtp.pool.max-connections} connexions, configurades com el
+ * {@link JavaMailSenderImpl} de l'aplicació ({@code spring.mail.*}), i cada lot s'envia
+ * seguit per una sola connexió.</p>
+ *
+ * <p>Les connexions sense ús durant {@code app.mail.smtp.pool.idle-timeout-seconds} es tanquen,
+ * abans que ho faci el servidor. Una connexió es renova després de
+ * {@code app.mail.smtp.pool.max-messages-per-connection} missatges, perquè molts servidors en
+ * limiten el nombre. Si una connexió es trenca a mig lot, es descarta i el missatge es torna a
+ * enviar una vegada per una connexió nova; els rebuigs de destinatari no la descarten.</p>
+ *
+ * <p>Exposa comptadors de connexions obertes, expulsades per inactivitat, trencades i de
+ * missatges enviats.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+@Slf4j
+@Component
+public class SmtpConnectionPool {
+
+    private final JavaMailSenderImpl mailSender;
+    private final int maxConnections;
+    private final long idleTimeoutNanos;
+    private final int maxMessagesPerConnection;
+
+    /**
+     * Connexions lliures, la més recent primer.
+     */
+    private final BlockingDeque<Connection> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private volatile boolean closed;
+
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder broken = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+
+    /**
+     * Connexió SMTP del pool.
+     */
+    private static final class Connection {
+
+        private final Transport transport;
+        private long lastUsed = System.nanoTime();
+        private int messages;
+
+        Connection(Transport transport) {
+            this.transport = transport;
+        }
+    }
+
+    /**
+     * Crea el pool amb la configuració de l'aplicació.
+     *
+     * @param mailSender client JavaMail amb la sessió, el servidor i les credencials SMTP
+     * @param maxConnections nombre màxim de connexions obertes
+     * @param idleTimeoutSeconds segons sense ús després dels quals es tanca una connexió
+     * @param maxMessagesPerConnection missatges enviats per una connexió abans de renovar-la
+     */
+    @Autowired
+    public SmtpConnectionPool(JavaMailSenderImpl mailSender,
+                              @Value("${app.mail.smtp.pool.max-connections:3}") int maxConnections,
+                              @Value("${app.mail.smtp.pool.idle-timeout-seconds:30}") long idleTimeoutSeconds,
+                              @Value("${app.mail.smtp.pool.max-messages-per-connection:100}") int maxMessagesPerConnection) {
+        if (maxConnections <= 0 || maxMessagesPerConnection <= 0) {
+            throw new IllegalArgumentException("La mida del pool i els missatges per connexió han de ser positius");
+        }
+        this.mailSender = mailSender;
+        this.maxConnections = maxConnections;
+        this.idleTimeoutNanos = idleTimeoutSeconds * 1_000_000_000L;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.permits = new Semaphore(maxConnections);
+    }
+
+    /**
+     * Envia un lot de missatges per una connexió del pool, esperant-ne una si totes són ocupades.
+     * Un missatge que falla no atura la resta del lot, llevat que no es pugui obrir cap connexió.
+     *
+     * @param messages missatges a enviar, en ordre
+     * @return els missatges que no s'han pogut enviar amb el seu error; buit si s'han enviat tots
+     */
+    public Map<MimeMessage, MessagingException> send(List<MimeMessage> messages) {
+        Map<MimeMessage, MessagingException> failures = new IdentityHashMap<>();
+        Connection connection = null;
+        try {
+            for (int i = 0; i < messages.size(); i++) {
+                MimeMessage message = messages.get(i);
+                try {
+                    prepare(message);
+                } catch (MessagingException e) {
+                    failures.put(message, e);
+                    continue;
+                }
+
+                for (int attempt = 1; ; attempt++) {
+                    if (connection == null) {
+                        try {
+                            connection = borrow();
+                        } catch (MessagingException e) {
+                            // Sense connexió no es pot enviar cap missatge més del lot
+                            messages.subList(i, messages.size()).forEach(pending -> failures.put(pending, e));
+                            return failures;
+                        }
+                    }
+
+                    try {
+                        connection.transport.sendMessage(message, message.getAllRecipients());
+                        connection.messages++;
+                        sent.increment();
+                        break;
+                    } catch (SendFailedException e) {
+                        // Rebuig del servidor (per exemple, un destinatari inexistent): la connexió segueix bé
+                        failures.put(message, e);
+                        break;
+                    } catch (MessagingException | IllegalStateException e) {
+                        broken.increment();
+                        release(connection, true);
+                        connection = null;
+                        if (attempt > 1) {
+                            failures.put(message, e instanceof MessagingException me
+                                    ? me
+                                    : new MessagingException(e.getMessage(), e));
+                            break;
+                        }
+                        log.debug("Connexió SMTP trencada, es torna a enviar el missatge per una de nova: {}", e.getMessage());
+                    }
+                }
+
+                if (connection != null && connection.messages >= maxMessagesPerConnection) {
+                    release(connection, true);
+                    connection = null;
+                }
+            }
+        } finally {
+            if (connection != null) {
+                release(connection, false);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Tanca les connexions inactives periòdicament segons
+     * {@code app.mail.smtp.pool.eviction-interval-ms} (15 segons per defecte).
+     */
+    @Scheduled(fixedDelayString = "${app.mail.smtp.pool.eviction-interval-ms:15000}")
+    public void scheduledEviction() {
+        int removed = evictIdle();
+        if (removed > 0) {
+            log.debug("Tancades {} connexions SMTP inactives", removed);
+        }
+    }
+
+    /**
+     * Tanca les connexions lliures que han superat el temps d'inactivitat.
+     *
+     * @return nombre de connexions tancades
+     */
+    public int evictIdle() {
+        List<Connection> expired = new ArrayList<>();
+        idle.removeIf(connection -> isExpired(connection) && expired.add(connection));
+        expired.forEach(this::close);
+        evicted.add(expired.size());
+        return expired.size();
+    }
+
+    /**
+     * Tanca totes les connexions en aturar l'aplicació. Les connexions en ús es tanquen quan
+     * s'alliberen.
+     */
+    @PreDestroy
+    public void shutdown() {
+        closed = true;
+        Connection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            close(connection);
+        }
+    }
+
+    /**
+     * @return nombre màxim de connexions obertes
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * @return nombre de connexions lliures
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * @return nombre de connexions obertes des de l'inici
+     */
+    public long getOpenedCount() {
+        return opened.sum();
+    }
+
+    /**
+     * @return nombre de connexions tancades per inactivitat
+     */
+    public long getEvictedCount() {
+        return evicted.sum();
+    }
+
+    /**
+     * @return nombre de connexions descartades perquè s'han trencat
+     */
+    public long getBrokenCount() {
+        return broken.sum();
+    }
+
+    /**
+     * @return nombre de missatges enviats
+     */
+    public long getSentCount() {
+        return sent.sum();
+    }
+
+    /**
+     * Pren una connexió lliure i vigent o n'obre una de nova, esperant si totes són ocupades.
+     */
+    private Connection borrow() throws MessagingException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interromput esperant una connexió SMTP", e);
+        }
+
+        try {
+            Connection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                if (!isExpired(connection) && connection.transport.isConnected()) {
+                    return connection;
+                }
+                close(connection);
+                evicted.increment();
+            }
+            return open();
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Torna una connexió al pool, o la tanca si s'ha trencat, s'ha esgotat o el pool s'atura.
+     */
+    private void release(Connection connection, boolean discard) {
+        try {
+            if (discard || closed) {
+                close(connection);
+            } else {
+                connection.lastUsed = System.nanoTime();
+                idle.offerFirst(connection);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Obre i autentica una connexió amb la sessió i les credencials del {@link JavaMailSenderImpl}.
+     */
+    private Connection open() throws MessagingException {
+        // Mateixa resolució del protocol que JavaMailSenderImpl: propietat, sessió o "smtp"
+        String protocol = mailSender.getProtocol();
+        if (protocol == null) {
+            protocol = mailSender.getSession().getProperty("mail.transport.protocol");
+            if (protocol == null) {
+                protocol = JavaMailSenderImpl.DEFAULT_PROTOCOL;
+            }
+        }
+        Transport transport = mailSender.getSession().getTransport(protocol);
+        String username = mailSender.getUsername();
+        String password = mailSender.getPassword();
+        if ("".equals(username)) {
+            username = null;
+            if ("".equals(password)) {
+                password = null;
+            }
+        }
+        transport.connect(mailSender.getHost(), mailSender.getPort(), username, password);
+        opened.increment();
+        log.debug("Oberta una connexió SMTP amb {}:{}", mailSender.getHost(), mailSender.getPort());
+        return new Connection(transport);
+    }
+
+    private void close(Connection connection) {
+        try {
+            connection.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Error en tancar una connexió SMTP: {}", e.getMessage());
+        }
+    }
+
+    private boolean isExpired(Connection connection) {
+        return System.nanoTime() - connection.lastUsed >= idleTimeoutNanos;
+    }
+
+    /**
+     * Completa el missatge com ho fa {@link JavaMailSenderImpl} abans d'enviar-lo.
+     */
+    private static void prepare(MimeMessage message) throws MessagingException {
+        if (message.getSentDate() == null) {
+            message.setSentDate(new Date());
+        }
+        message.saveChanges();
+    }
+}
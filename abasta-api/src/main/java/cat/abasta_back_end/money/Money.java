@@ -0,0 +1,109 @@
+package cat.abasta_back_end.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Operacions amb imports representats com a cèntims en un {@code long}.
+ *
+ * <p>Els imports de l'aplicació es guarden amb dos decimals ({@code DECIMAL(x, 2)}). Als camins
+ * que agreguen molts valors, treballar amb {@link BigDecimal} crea un objecte nou a cada suma;
+ * amb cèntims en un {@code long} les operacions no assignen memòria i són exactes. La conversió
+ * a {@link BigDecimal} es fa només en construir els DTO.</p>
+ *
+ * <p>Tots els arrodoniments són {@link RoundingMode#HALF_UP} a dos decimals, com els que es
+ * feien amb {@link BigDecimal}. Els desbordaments llancen {@link ArithmeticException}.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ * @see MoneyAccumulator
+ */
+public final class Money {
+
+    /**
+     * Decimals dels imports.
+     */
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    /**
+     * Converteix un import a cèntims, arrodonint a dos decimals.
+     *
+     * @param amount import; null es tracta com a zero
+     * @return l'import en cèntims
+     */
+    public static long toCents(BigDecimal amount) {
+        return toUnscaled(amount, SCALE);
+    }
+
+    /**
+     * Converteix cèntims a un import amb dos decimals.
+     *
+     * @param cents import en cèntims
+     * @return l'import
+     */
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    /**
+     * Divideix un import, arrodonint el resultat a cèntims.
+     *
+     * @param cents import en cèntims
+     * @param divisor divisor, diferent de zero
+     * @return el quocient en cèntims
+     */
+    public static long divide(long cents, long divisor) {
+        return divideHalfUp(cents, divisor);
+    }
+
+    /**
+     * Percentatge que representa una part respecte del total, amb dos decimals.
+     * Equival a {@code part * 100 / total} amb escala 2.
+     *
+     * @param partCents part en cèntims
+     * @param totalCents total en cèntims; si és zero o negatiu el resultat és zero
+     * @return el percentatge en centèsimes (12,34 % → 1234)
+     */
+    public static long percentage(long partCents, long totalCents) {
+        if (totalCents <= 0) {
+            return 0;
+        }
+        return divideHalfUp(Math.multiplyExact(partCents, 10_000L), totalCents);
+    }
+
+    /**
+     * Converteix un valor decimal al seu valor sense escala amb els decimals indicats,
+     * arrodonint si en té més.
+     *
+     * @param value valor; null es tracta com a zero
+     * @param scale decimals del resultat
+     * @return el valor multiplicat per 10<sup>scale</sup>
+     */
+    static long toUnscaled(BigDecimal value, int scale) {
+        if (value == null) {
+            return 0;
+        }
+        BigDecimal rounded = value.scale() > scale ? value.setScale(scale, RoundingMode.HALF_UP) : value;
+        return rounded.movePointRight(scale).longValueExact();
+    }
+
+    /**
+     * Divisió entera arrodonint HALF_UP (les meitats s'allunyen de zero).
+     *
+     * @param dividend dividend
+     * @param divisor divisor, diferent de zero
+     * @return el quocient arrodonit
+     */
+    static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) >= Math.abs(divisor) - Math.abs(remainder)) {
+            quotient += Long.signum(dividend) * Long.signum(divisor);
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,93 @@
+package cat.abasta_back_end.money;
+
+import java.math.BigDecimal;
+
+/**
+ * Acumulador mutable d'imports, sense assignar memòria per cada suma.
+ *
+ * <p>Internament guarda la suma amb quatre decimals, de manera que els productes preu × quantitat
+ * (dos decimals cadascun) se sumen sense arrodonir i només s'arrodoneix un cop, en llegir el
+ * resultat en cèntims. El resultat és el mateix que sumar els {@link BigDecimal} i aplicar
+ * {@code setScale(2, HALF_UP)}.</p>
+ *
+ * <p>No és segur entre fils; per agregar en paral·lel cada fil fa servir el seu acumulador i
+ * després es combinen amb {@link #merge(MoneyAccumulator)}.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ * @see Money
+ */
+public final class MoneyAccumulator {
+
+    /**
+     * Decimals de la suma interna.
+     */
+    private static final int UNIT_SCALE = 4;
+
+    /**
+     * Unitats internes per cèntim.
+     */
+    private static final long UNITS_PER_CENT = 100;
+
+    private long units;
+
+    /**
+     * Suma un import en cèntims.
+     *
+     * @param cents import en cèntims
+     * @return aquest acumulador
+     */
+    public MoneyAccumulator addCents(long cents) {
+        units = Math.addExact(units, Math.multiplyExact(cents, UNITS_PER_CENT));
+        return this;
+    }
+
+    /**
+     * Suma el producte exacte d'un preu per una quantitat, tots dos amb dos decimals.
+     *
+     * @param priceCents preu en cèntims
+     * @param quantityHundredths quantitat en centèsimes
+     * @return aquest acumulador
+     */
+    public MoneyAccumulator addProduct(long priceCents, long quantityHundredths) {
+        units = Math.addExact(units, Math.multiplyExact(priceCents, quantityHundredths));
+        return this;
+    }
+
+    /**
+     * Suma un import decimal; si té més de quatre decimals s'arrodoneix a quatre.
+     *
+     * @param amount import; null es tracta com a zero
+     * @return aquest acumulador
+     */
+    public MoneyAccumulator add(BigDecimal amount) {
+        units = Math.addExact(units, Money.toUnscaled(amount, UNIT_SCALE));
+        return this;
+    }
+
+    /**
+     * Afegeix la suma d'un altre acumulador.
+     *
+     * @param other acumulador a combinar
+     * @return aquest acumulador
+     */
+    public MoneyAccumulator merge(MoneyAccumulator other) {
+        units = Math.addExact(units, other.units);
+        return this;
+    }
+
+    /**
+     * @return la suma en cèntims, arrodonida HALF_UP
+     */
+    public long cents() {
+        return Money.divideHalfUp(units, UNITS_PER_CENT);
+    }
+
+    /**
+     * @return la suma amb dos decimals, arrodonida HALF_UP
+     */
+    public BigDecimal toBigDecimal() {
+        return Money.toBigDecimal(cents());
+    }
+}
@@ -1,15 +1,22 @@
 package cat.abasta_back_end.repositories;
 
+import cat.abasta_back_end.dto.ProducteTopDTO;
+import cat.abasta_back_end.dto.SupplierTotalsDTO;
 import cat.abasta_back_end.entities.Order;
 import cat.abasta_back_end.entities.Supplier;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,7 +30,7 @@ import java.util.Optional;
  * @version 3.0
  */
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order>, OrderRepositoryCustom {
 
     /**
      * Cerca Comanda per el seu Uuid
@@ -33,6 +40,34 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
      */
     Optional<Order> findByUuid(String uuid);
 
+    /**
+     * Cerca una comanda pel seu uuid i bloqueja la fila fins al final de la transacció
+     * ({@code SELECT ... FOR UPDATE}).
+     *
+     * <p>Les operacions que modifiquen una comanda en fan una foto abans del canvi per aplicar la
+     * diferència als comptadors, als acumulats i als histogrames. Amb el bloqueig, dues
+     * modificacions concurrents de la mateixa comanda s'apliquen una darrere l'altra i la
+     * segona parteix de l'estat que ha deixat la primera.</p>
+     *
+     * @param uuid identificador de la comanda
+     * @return la comanda bloquejada, si existeix
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.uuid = :uuid")
+    Optional<Order> findForUpdateByUuid(@Param("uuid") String uuid);
+
+    /**
+     * Carrega les comandes indicades amb el proveïdor, els items i el producte de cada item
+     * en una sola consulta. És la segona fase del llistat paginat de comandes.
+     *
+     * @param ids identificadors de les comandes
+     * @return comandes amb les associacions inicialitzades, sense ordre garantit
+     * @see OrderRepositoryCustom#findIdsBy
+     */
+    @EntityGraph(attributePaths = {"supplier", "items", "items.product"})
+    @Query("SELECT DISTINCT o FROM Order o WHERE o.id IN :ids")
+    List<Order> findWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+
     /**
      * Cerca de comandes per període de creació amb llistat d'items (productes de la comanda)
      * @param companyId id de la companyia
@@ -72,4 +107,61 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
             @Param("endDate") LocalDateTime endDate
     );
 
+    /**
+     * Calcula, per a cada proveïdor, el nombre de comandes i la despesa d'un període.
+     * L'agregació es fa a la base de dades i retorna una fila per proveïdor.
+     *
+     * @param companyId id de la companyia
+     * @param statuses estats de les comandes a incloure
+     * @param startDate data d'inici del periode
+     * @param endDate data de fi del periode
+     * @return totals per proveïdor
+     */
+    @Query("""
+        SELECT new cat.abasta_back_end.dto.SupplierTotalsDTO(s.name, COUNT(DISTINCT o.id), SUM(i.unitPrice * i.quantity))
+        FROM Order o
+        JOIN o.supplier s
+        LEFT JOIN o.items i
+        WHERE o.company.id = :companyId
+          AND o.status IN :statuses
+          AND o.createdAt BETWEEN :startDate AND :endDate
+        GROUP BY s.id, s.name
+    """)
+    List<SupplierTotalsDTO> getSupplierTotalsByCompanyIdAndPeriod(
+            @Param("companyId") Long companyId,
+            @Param("statuses") Collection<Order.OrderStatus> statuses,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate
+    );
+
+    /**
+     * Calcula la quantitat i la despesa per producte d'un període i en retorna els més demanats.
+     * L'agregació, l'ordenació i el límit es fan a la base de dades.
+     *
+     * @param companyId id de la companyia
+     * @param statuses estats de les comandes a incloure
+     * @param startDate data d'inici del periode
+     * @param endDate data de fi del periode
+     * @param limit nombre màxim de productes a retornar
+     * @return productes ordenats per quantitat total descendent
+     */
+    @Query("""
+        SELECT new cat.abasta_back_end.dto.ProducteTopDTO(p.name, SUM(i.quantity), SUM(i.unitPrice * i.quantity))
+        FROM OrderItem i
+        JOIN i.order o
+        JOIN i.product p
+        WHERE o.company.id = :companyId
+          AND o.status IN :statuses
+          AND o.createdAt BETWEEN :startDate AND :endDate
+        GROUP BY p.id, p.name
+        ORDER BY SUM(i.quantity) DESC, p.id
+    """)
+    List<ProducteTopDTO> getTopProductsByCompanyIdAndPeriod(
+            @Param("companyId") Long companyId,
+            @Param("statuses") Collection<Order.OrderStatus> statuses,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate,
+            Limit limit
+    );
+
 }
\ No newline at end of file
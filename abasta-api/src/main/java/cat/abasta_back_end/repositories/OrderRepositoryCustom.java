@@ -0,0 +1,47 @@
+package cat.abasta_back_end.repositories;
+
+import cat.abasta_back_end.entities.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Consultes de comandes que no es poden expressar amb mètodes derivats de Spring Data.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @see OrderRepositoryImpl
+ */
+public interface OrderRepositoryCustom {
+
+    /**
+     * Pagina només els identificadors de les comandes que compleixen l'especificació.
+     *
+     * <p>És la primera fase del llistat de comandes: la consulta paginada no carrega cap
+     * associació i, per tant, el LIMIT/OFFSET s'aplica sobre files de comanda. Les
+     * associacions es carreguen després amb {@link OrderRepository#findWithItemsByIdIn}.</p>
+     *
+     * @param spec filtres a aplicar
+     * @param pageable pàgina i ordenació
+     * @return pàgina d'identificadors en l'ordre demanat
+     */
+    Page<Long> findIdsBy(Specification<Order> spec, Pageable pageable);
+
+    /**
+     * Retorna els identificadors de les comandes que compleixen l'especificació i van després
+     * de la posició indicada, ordenats per data de creació i id descendents (keyset pagination).
+     *
+     * <p>En lloc d'un OFFSET es filtra per {@code (created_at, id) < (createdAt, id)}, de manera
+     * que el cost no depèn de la profunditat de la pàgina. No s'executa cap consulta de recompte.</p>
+     *
+     * @param spec filtres a aplicar
+     * @param createdAt data de creació de l'última comanda de la pàgina anterior, o null per a la primera
+     * @param id id de l'última comanda de la pàgina anterior, o null per a la primera
+     * @param limit nombre màxim d'identificadors a retornar
+     * @return identificadors en ordre descendent
+     */
+    List<Long> findIdsAfter(Specification<Order> spec, LocalDateTime createdAt, Long id, int limit);
+}
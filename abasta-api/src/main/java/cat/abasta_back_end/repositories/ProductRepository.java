@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,6 +33,23 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      */
     Optional<Product> findByUuid(String uuid);
 
+    /**
+     * Resol en una sola consulta tots els productes actius d'un proveïdor amb els uuids indicats.
+     * Els uuids que no existeixen, són d'un altre proveïdor o estan inactius no es retornen.
+     *
+     * @param supplierId Id del proveïdor de la comanda
+     * @param uuids uuids dels productes a resoldre
+     * @return llista de productes trobats
+     */
+    @Query("""
+            SELECT p FROM Product p
+            WHERE p.uuid IN :uuids
+            AND p.supplier.id = :supplierId
+            AND p.isActive = true
+           """)
+    List<Product> findActiveBySupplierIdAndUuidIn(@Param("supplierId") Long supplierId,
+                                                  @Param("uuids") Collection<String> uuids);
+
     @Query("SELECT p FROM Product p " +
             "JOIN p.supplier s " +
             "WHERE s.company.id = :companyId AND p.isActive = true")
@@ -3,6 +3,7 @@ package cat.abasta_back_end.repositories;
 import cat.abasta_back_end.entities.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -71,6 +72,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     Optional<User> findByEmail(String email);
 
+    /**
+     * Cerca un usuari pel seu email carregant també la seva empresa en la mateixa consulta.
+     * Permet treballar amb l'usuari fora d'una transacció, com durant l'inici de sessió.
+     *
+     * @param email l'adreça de correu electrònic de l'usuari
+     * @return un Optional que conté l'usuari amb l'empresa inicialitzada, o Optional.empty() si no es troba
+     */
+    @EntityGraph(attributePaths = "company")
+    Optional<User> findWithCompanyByEmail(String email);
+
     /**
      * Cerca un usuari pel seu uuid.
      *
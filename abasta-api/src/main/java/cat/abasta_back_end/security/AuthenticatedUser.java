@@ -0,0 +1,121 @@
+package cat.abasta_back_end.security;
+
+import cat.abasta_back_end.entities.User;
+import cat.abasta_back_end.exceptions.ResourceNotFoundException;
+import cat.abasta_back_end.repositories.UserRepository;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Principal tipat de l'usuari autenticat amb el context de tenant (empresa) inclòs.
+ *
+ * <p>El {@link JwtAuthenticationFilter} el construeix a partir dels claims del token JWT
+ * (userId, companyId, companyUuid i role) i el publica al context de Spring Security.
+ * D'aquesta manera els serveis poden obtenir l'usuari i l'empresa de la petició
+ * sense consultar la base de dades a cada crida.</p>
+ *
+ * <p>Implementa {@link AuthenticatedPrincipal} perquè {@code Authentication.getName()}
+ * continuï retornant l'email de l'usuari.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ * @see JwtUtil#generateToken(User)
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+@ToString
+public class AuthenticatedUser implements AuthenticatedPrincipal {
+
+    /**
+     * Identificador intern de l'usuari.
+     */
+    private final Long userId;
+
+    /**
+     * Email de l'usuari, utilitzat com a subject del token.
+     */
+    private final String email;
+
+    /**
+     * Identificador intern de l'empresa de l'usuari.
+     */
+    private final Long companyId;
+
+    /**
+     * UUID de l'empresa de l'usuari.
+     */
+    private final String companyUuid;
+
+    /**
+     * Rol de l'usuari dins de l'empresa.
+     */
+    private final User.UserRole role;
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return l'email de l'usuari
+     */
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    /**
+     * Indica si l'usuari té rol d'administrador.
+     *
+     * @return true si el rol és {@link User.UserRole#ADMIN}
+     */
+    public boolean isAdmin() {
+        return role == User.UserRole.ADMIN;
+    }
+
+    /**
+     * Construeix el principal a partir d'una entitat User.
+     * L'empresa pot ser nul·la; en aquest cas companyId i companyUuid queden buits.
+     *
+     * @param user l'entitat de l'usuari
+     * @return el principal equivalent
+     */
+    public static AuthenticatedUser fromUser(User user) {
+        return AuthenticatedUser.builder()
+                .userId(user.getId())
+                .email(user.getEmail())
+                .companyId(user.getCompany() != null ? user.getCompany().getId() : null)
+                .companyUuid(user.getCompany() != null ? user.getCompany().getUuid() : null)
+                .role(user.getRole())
+                .build();
+    }
+
+    /**
+     * Obté l'usuari autenticat de la petició actual.
+     *
+     * <p>Si el context conté un {@link AuthenticatedUser} (token amb claims de tenant)
+     * es retorna directament sense accedir a la base de dades. En cas contrari
+     * (tokens antics o autenticacions sense claims) es recupera l'usuari pel seu email.</p>
+     *
+     * @param userRepository repositori utilitzat només com a alternativa
+     * @return el principal de l'usuari autenticat
+     * @throws ResourceNotFoundException si l'usuari no existeix a la base de dades
+     */
+    public static AuthenticatedUser current(UserRepository userRepository) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return principal;
+        }
+
+        String username = authentication.getName();
+        User user = userRepository.findByEmail(username)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuari no trobat: " + username));
+
+        return fromUser(user);
+    }
+}
@@ -1,11 +1,13 @@
 package cat.abasta_back_end.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -13,6 +15,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Filtre d'autenticació JWT que intercepta cada petició HTTP per validar tokens JWT.
@@ -21,6 +24,15 @@ import java.util.ArrayList;
  * <p>Aquest filtre extreu el token JWT de la capçalera Authorization, el valida i estableix
  * el context de seguretat de Spring Security si el token és vàlid.</p>
  *
+ * <p>Si el token conté els claims de tenant, el principal publicat és un
+ * {@link AuthenticatedUser} amb l'usuari, l'empresa i el rol, i s'afegeix l'autoritat
+ * {@code ROLE_<rol>}. Els serveis el poden llegir amb
+ * {@link AuthenticatedUser#current(cat.abasta_back_end.repositories.UserRepository)}
+ * sense accedir a la base de dades.</p>
+ *
+ * <p>El token es verifica una sola vegada per petició amb {@link JwtUtil#getClaimsFromToken(String)},
+ * que a més reutilitza el resultat de verificacions anteriors del mateix token.</p>
+ *
  * @author Enrique Pérez
  * @version 1.0
  * @since 2025
@@ -48,27 +60,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                     FilterChain filterChain) throws ServletException, IOException {
 
         String authHeader = request.getHeader("Authorization");
-        String token = null;
-        String username = null;
+        Claims claims = null;
 
-        // Extreu el token del header Authorization
+        // Extreu i verifica el token del header Authorization (una sola vegada per token)
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
+            String token = authHeader.substring(7);
             try {
-                username = jwtUtil.getUsernameFromToken(token);
+                claims = jwtUtil.getClaimsFromToken(token);
             } catch (Exception e) {
-                System.out.println("Error al extraure username del token: " + e.getMessage());
+                System.out.println("Error al validar el token: " + e.getMessage());
             }
         }
 
-        // Valida el token y estableix el context de seguretat
+        // Estableix el context de seguretat
+        String username = claims != null ? claims.getSubject() : null;
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtUtil.validateToken(token, username)) {
-                UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(username, null, new ArrayList<>());
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-            }
+            AuthenticatedUser principal = jwtUtil.toAuthenticatedUser(claims);
+            UsernamePasswordAuthenticationToken authToken = principal != null
+                    ? new UsernamePasswordAuthenticationToken(principal, null,
+                            List.of(new SimpleGrantedAuthority("ROLE_" + principal.getRole().name())))
+                    : new UsernamePasswordAuthenticationToken(username, null, new ArrayList<>());
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
         }
 
         filterChain.doFilter(request, response);
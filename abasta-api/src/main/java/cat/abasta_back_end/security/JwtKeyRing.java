@@ -0,0 +1,330 @@
+package cat.abasta_back_end.security;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Anell de claus compartides per signar i verificar els tokens JWT.
+ *
+ * <p>Permet que diverses instàncies de l'API validin els tokens emesos per qualsevol
+ * d'elles. Cada clau té un identificador ({@code kid}) que s'escriu a la capçalera del
+ * token, i una finestra de validesa opcional ({@code notBefore}/{@code notAfter}).
+ * Es signa sempre amb la clau activa més recent, mentre que una clau retirada continua
+ * acceptant-se per verificar fins que caduquen els tokens que ha signat.</p>
+ *
+ * <p>Les claus es carreguen de la configuració ({@code app.jwt.secret}) i/o d'un fitxer
+ * de propietats local ({@code app.jwt.keyring-file}) amb el format:</p>
+ * <pre>
+ * key.2025-10.secret=&lt;clau en Base64, mínim 64 bytes&gt;
+ * key.2025-10.not-before=2025-10-01T00:00:00Z
+ * key.2025-10.not-after=2026-01-01T00:00:00Z
+ * </pre>
+ *
+ * <p>El fitxer es torna a llegir en calent quan canvia, com a màxim un cop per interval
+ * de refresc, de manera que una rotació només requereix afegir la nova clau al fitxer
+ * de totes les instàncies. Si no hi ha cap clau configurada es genera una clau aleatòria
+ * efímera, vàlida només per a una única instància.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ * @see JwtUtil
+ */
+@Slf4j
+@Component
+public class JwtKeyRing {
+
+    /**
+     * Mida mínima de la clau per a l'algorisme HS512 (512 bits).
+     */
+    private static final int MIN_KEY_BYTES = 64;
+
+    /**
+     * Identificador de la clau efímera generada quan no hi ha configuració.
+     */
+    private static final String EPHEMERAL_KEY_ID = "ephemeral";
+
+    private static final String KEY_PREFIX = "key.";
+
+    /**
+     * Clau de l'anell amb el seu identificador i finestra de validesa.
+     * Els extrems nuls indiquen una finestra oberta.
+     *
+     * @param kid identificador de la clau
+     * @param secretKey clau HMAC
+     * @param notBefore instant a partir del qual es pot signar amb la clau
+     * @param notAfter instant a partir del qual ja no es pot signar amb la clau
+     */
+    public record SigningKey(String kid, SecretKey secretKey, Instant notBefore, Instant notAfter) {
+
+        /**
+         * Indica si la clau es pot utilitzar per signar en l'instant indicat.
+         *
+         * @param now instant de referència
+         * @return true si l'instant és dins la finestra de validesa
+         */
+        public boolean canSignAt(Instant now) {
+            return (notBefore == null || !now.isBefore(notBefore))
+                    && (notAfter == null || now.isBefore(notAfter));
+        }
+
+        /**
+         * Indica si la clau es pot utilitzar per verificar en l'instant indicat.
+         * Una clau retirada continua sent vàlida durant el marge indicat perquè
+         * els tokens que ja ha signat no deixin de funcionar.
+         *
+         * @param now instant de referència
+         * @param grace marge posterior a {@code notAfter}
+         * @return true si la clau encara és acceptada
+         */
+        public boolean canVerifyAt(Instant now, Duration grace) {
+            return notAfter == null || now.isBefore(notAfter.plus(grace));
+        }
+    }
+
+    private final String configuredSecret;
+    private final String configuredKeyId;
+    private final Path keyRingFile;
+    private final long refreshIntervalMillis;
+    private final Duration verificationGrace;
+
+    private volatile List<SigningKey> keys = List.of();
+    private volatile long lastModifiedMillis = Long.MIN_VALUE;
+    private volatile long nextRefreshMillis;
+
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Crea l'anell de claus a partir de la configuració de l'aplicació.
+     *
+     * @param configuredSecret clau en Base64 definida a la configuració (opcional)
+     * @param configuredKeyId identificador de la clau de configuració
+     * @param keyRingFile ruta del fitxer de claus (opcional)
+     * @param refreshIntervalMillis interval mínim entre comprovacions del fitxer
+     * @param verificationGraceMillis marge de verificació d'una clau retirada,
+     *                                com a mínim la durada dels tokens
+     */
+    @Autowired
+    public JwtKeyRing(@Value("${app.jwt.secret:}") String configuredSecret,
+                      @Value("${app.jwt.key-id:default}") String configuredKeyId,
+                      @Value("${app.jwt.keyring-file:}") String keyRingFile,
+                      @Value("${app.jwt.keyring-refresh-ms:60000}") long refreshIntervalMillis,
+                      @Value("${app.jwt.verification-grace-ms:3600000}") long verificationGraceMillis) {
+        this.configuredSecret = configuredSecret;
+        this.configuredKeyId = configuredKeyId;
+        this.keyRingFile = keyRingFile == null || keyRingFile.isBlank() ? null : Path.of(keyRingFile);
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.verificationGrace = Duration.ofMillis(verificationGraceMillis);
+        reload();
+    }
+
+    /**
+     * Crea un anell amb una única clau aleatòria, vàlid només dins d'aquest procés.
+     *
+     * @return l'anell de claus efímer
+     */
+    public static JwtKeyRing ephemeral() {
+        return new JwtKeyRing(null, null, null, Long.MAX_VALUE, 0);
+    }
+
+    /**
+     * Retorna la clau amb què s'han de signar els nous tokens: la clau activa
+     * amb l'inici de validesa més recent.
+     *
+     * @return la clau de signatura activa
+     * @throws IllegalStateException si no hi ha cap clau activa
+     */
+    public SigningKey getSigningKey() {
+        refreshIfStale();
+        Instant now = Instant.now();
+
+        return keys.stream()
+                .filter(k -> k.canSignAt(now))
+                .max(Comparator.comparing((SigningKey k) -> k.notBefore() != null ? k.notBefore() : Instant.MIN)
+                        .thenComparing(SigningKey::kid))
+                .orElseThrow(() -> new IllegalStateException("No hi ha cap clau JWT activa per signar"));
+    }
+
+    /**
+     * Retorna la clau per verificar un token segons el {@code kid} de la capçalera.
+     * Els tokens sense {@code kid} (emesos abans de la rotació) es verifiquen amb la clau activa.
+     *
+     * @param kid identificador de la capçalera del token, pot ser nul
+     * @return la clau de verificació
+     * @throws JwtException si la clau és desconeguda o ja no s'accepta
+     */
+    public SecretKey getVerificationKey(String kid) {
+        if (kid == null) {
+            return getSigningKey().secretKey();
+        }
+
+        refreshIfStale();
+        Instant now = Instant.now();
+
+        return keys.stream()
+                .filter(k -> k.kid().equals(kid))
+                .filter(k -> k.canVerifyAt(now, verificationGrace))
+                .findFirst()
+                .map(SigningKey::secretKey)
+                .orElseThrow(() -> new JwtException("Clau JWT desconeguda o retirada: " + kid));
+    }
+
+    /**
+     * @return les claus carregades actualment
+     */
+    public List<SigningKey> getKeys() {
+        return keys;
+    }
+
+    /**
+     * Registra una acció que s'executa cada vegada que canvia el conjunt de claus,
+     * per exemple per invalidar memòries cau de tokens verificats.
+     *
+     * @param listener l'acció a executar
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Torna a llegir el fitxer de claus si ha passat l'interval de refresc i el fitxer ha canviat.
+     */
+    private void refreshIfStale() {
+        if (keyRingFile == null || System.currentTimeMillis() < nextRefreshMillis) {
+            return;
+        }
+        reload();
+    }
+
+    /**
+     * Carrega les claus de la configuració i del fitxer. Si el fitxer no es pot llegir
+     * o és invàlid, es conserven les claus anteriors.
+     */
+    final synchronized void reload() {
+        nextRefreshMillis = saturatedAdd(System.currentTimeMillis(), refreshIntervalMillis);
+
+        long modified = fileLastModified();
+        if (!keys.isEmpty() && modified == lastModifiedMillis) {
+            return;
+        }
+
+        List<SigningKey> loaded = new ArrayList<>();
+        if (configuredSecret != null && !configuredSecret.isBlank()) {
+            loaded.add(new SigningKey(configuredKeyId, decodeKey(configuredKeyId, configuredSecret), null, null));
+        }
+
+        if (keyRingFile != null) {
+            try {
+                loaded.addAll(readKeyRingFile());
+            } catch (IOException | RuntimeException e) {
+                if (!keys.isEmpty()) {
+                    log.error("No s'ha pogut recarregar el fitxer de claus JWT {}: {}", keyRingFile, e.getMessage());
+                    return;
+                }
+                throw new IllegalStateException("No s'ha pogut carregar el fitxer de claus JWT " + keyRingFile, e);
+            }
+        }
+
+        if (loaded.isEmpty()) {
+            if (!keys.isEmpty()) {
+                return;
+            }
+            log.warn("No hi ha claus JWT configurades; s'utilitza una clau efímera només vàlida per a aquesta instància");
+            loaded.add(new SigningKey(EPHEMERAL_KEY_ID, Keys.secretKeyFor(SignatureAlgorithm.HS512), null, null));
+        }
+
+        boolean changed = !keys.isEmpty();
+        keys = List.copyOf(loaded);
+        lastModifiedMillis = modified;
+
+        log.info("Claus JWT carregades: {}", keys.stream().map(SigningKey::kid).toList());
+        if (changed) {
+            changeListeners.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * Llegeix les claus del fitxer de propietats.
+     *
+     * @return les claus definides al fitxer
+     * @throws IOException si el fitxer no es pot llegir
+     */
+    private List<SigningKey> readKeyRingFile() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(keyRingFile)) {
+            properties.load(in);
+        }
+
+        TreeSet<String> kids = new TreeSet<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(KEY_PREFIX) && name.endsWith(".secret")) {
+                kids.add(name.substring(KEY_PREFIX.length(), name.length() - ".secret".length()));
+            }
+        }
+
+        List<SigningKey> result = new ArrayList<>();
+        for (String kid : kids) {
+            String prefix = KEY_PREFIX + kid + ".";
+            result.add(new SigningKey(
+                    kid,
+                    decodeKey(kid, properties.getProperty(prefix + "secret")),
+                    parseInstant(properties.getProperty(prefix + "not-before")),
+                    parseInstant(properties.getProperty(prefix + "not-after"))));
+        }
+        return result;
+    }
+
+    /**
+     * Descodifica una clau en Base64 i comprova que tingui la mida mínima per a HS512.
+     *
+     * @param kid identificador de la clau, per als missatges d'error
+     * @param base64 la clau codificada
+     * @return la clau HMAC
+     * @throws IllegalArgumentException si la clau no és Base64 vàlid o és massa curta
+     */
+    private static SecretKey decodeKey(String kid, String base64) {
+        byte[] bytes = Base64.getDecoder().decode(base64.trim());
+        if (bytes.length < MIN_KEY_BYTES) {
+            throw new IllegalArgumentException("La clau JWT '" + kid + "' ha de tenir com a mínim "
+                    + MIN_KEY_BYTES + " bytes");
+        }
+        return Keys.hmacShaKeyFor(bytes);
+    }
+
+    private static Instant parseInstant(String value) {
+        return value == null || value.isBlank() ? null : Instant.parse(value.trim());
+    }
+
+    private long fileLastModified() {
+        try {
+            return keyRingFile != null ? Files.getLastModifiedTime(keyRingFile).toMillis() : 0L;
+        } catch (IOException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long result = a + b;
+        return ((a ^ result) & (b ^ result)) < 0 ? Long.MAX_VALUE : result;
+    }
+}
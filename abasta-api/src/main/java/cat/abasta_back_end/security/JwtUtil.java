@@ -1,18 +1,29 @@
 package cat.abasta_back_end.security;
 
+import cat.abasta_back_end.entities.User;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
+import java.security.Key;
 import java.util.Date;
 
 /**
  * Utilitat per gestionar tokens JWT (JSON Web Tokens).
  * Proporciona funcionalitats per generar, validar i extreure informació dels tokens JWT.
  *
- * <p>Utilitza l'algorisme HS512 per signar els tokens amb una clau secreta generada
- * automàticament. Els tokens tenen una validesa d'1 hora per defecte.</p>
+ * <p>Utilitza l'algorisme HS512 per signar els tokens amb la clau activa del
+ * {@link JwtKeyRing}, i n'escriu l'identificador a la capçalera {@code kid} perquè
+ * qualsevol instància pugui triar la clau de verificació. Els tokens tenen una
+ * validesa d'1 hora per defecte.</p>
+ *
+ * <p>Els tokens generats a partir d'un {@link User} inclouen com a claims l'identificador
+ * de l'usuari, l'empresa (id i UUID) i el rol, de manera que el context de tenant es pot
+ * reconstruir sense accedir a la base de dades.</p>
+ *
+ * <p>La verificació de la signatura es fa amb un parser compartit i el resultat es guarda
+ * a una {@link VerifiedTokenCache}, de manera que les diferents consultes sobre un mateix
+ * token (username, expiració, claims de tenant) no el tornen a parsejar.</p>
  *
  * @author Enrique Pérez
  * @version 1.0
@@ -22,16 +33,75 @@ import java.util.Date;
 public class JwtUtil {
 
     /**
-     * Clau secreta per signar els tokens JWT.
-     * Generada automàticament amb l'algorisme HS512.
+     * Anell de claus per signar i verificar els tokens JWT.
      */
-    private final SecretKey key = Keys.secretKeyFor(SignatureAlgorithm.HS512);
+    private final JwtKeyRing keyRing;
 
     /**
      * Temps d'expiració del token en mil·lisegons (1 hora = 3600000 ms).
      */
     private final long jwtExpiration = 3600000;
 
+    /**
+     * Nombre màxim de tokens verificats que es guarden a la memòria cau.
+     */
+    private static final int VERIFIED_TOKEN_CACHE_SIZE = 10_000;
+
+    /**
+     * Parser compartit, construït una sola vegada. La clau de verificació es resol
+     * a partir del {@code kid} de cada token. Els parsers de jjwt són immutables
+     * i segurs entre fils.
+     */
+    private final JwtParser parser;
+
+    /**
+     * Memòria cau de tokens ja verificats, perquè cada token es verifiqui
+     * criptogràficament una sola vegada durant la seva vida.
+     */
+    private final VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(VERIFIED_TOKEN_CACHE_SIZE);
+
+    /** Claim amb l'identificador de l'usuari. */
+    public static final String CLAIM_USER_ID = "userId";
+
+    /** Claim amb l'identificador de l'empresa. */
+    public static final String CLAIM_COMPANY_ID = "companyId";
+
+    /** Claim amb l'UUID de l'empresa. */
+    public static final String CLAIM_COMPANY_UUID = "companyUuid";
+
+    /** Claim amb el rol de l'usuari. */
+    public static final String CLAIM_ROLE = "role";
+
+    /**
+     * Crea la utilitat amb l'anell de claus compartit de l'aplicació.
+     * Quan l'anell canvia es buida la memòria cau de tokens verificats.
+     *
+     * @param keyRing anell de claus de signatura
+     */
+    @Autowired
+    public JwtUtil(JwtKeyRing keyRing) {
+        this.keyRing = keyRing;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    // jjwt 0.11 declara el mètode amb JwsHeader sense paràmetre de tipus, i
+                    // sobreescriure'l amb JwsHeader<?> no compila
+                    @Override
+                    @SuppressWarnings("rawtypes")
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return keyRing.getVerificationKey(header.getKeyId());
+                    }
+                })
+                .build();
+        keyRing.addChangeListener(verifiedTokenCache::clear);
+    }
+
+    /**
+     * Crea la utilitat amb una clau efímera, vàlida només dins d'aquest procés.
+     */
+    public JwtUtil() {
+        this(JwtKeyRing.ephemeral());
+    }
+
     /**
      * Genera un nou token JWT per a l'usuari especificat.
      * El token conté el nom d'usuari com a subject i té una validesa d'1 hora.
@@ -40,14 +110,48 @@ public class JwtUtil {
      * @return el token JWT generat com a String
      */
     public String generateToken(String username) {
-        return Jwts.builder()
+        return signedBuilder()
                 .setSubject(username)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(key)
                 .compact();
     }
 
+    /**
+     * Genera un nou token JWT per a l'usuari especificat amb el context de tenant.
+     * A més del subject (email), el token inclou els claims userId, companyId,
+     * companyUuid i role.
+     *
+     * @param user l'usuari autenticat
+     * @return el token JWT generat com a String
+     */
+    public String generateToken(User user) {
+        AuthenticatedUser principal = AuthenticatedUser.fromUser(user);
+
+        return signedBuilder()
+                .setSubject(principal.getEmail())
+                .claim(CLAIM_USER_ID, principal.getUserId())
+                .claim(CLAIM_COMPANY_ID, principal.getCompanyId())
+                .claim(CLAIM_COMPANY_UUID, principal.getCompanyUuid())
+                .claim(CLAIM_ROLE, principal.getRole() != null ? principal.getRole().name() : null)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
+                .compact();
+    }
+
+    /**
+     * Crea un constructor de token signat amb la clau activa de l'anell
+     * i amb el seu identificador a la capçalera {@code kid}.
+     *
+     * @return el constructor de token
+     */
+    private JwtBuilder signedBuilder() {
+        JwtKeyRing.SigningKey signingKey = keyRing.getSigningKey();
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
+                .signWith(signingKey.secretKey(), SignatureAlgorithm.HS512);
+    }
+
     /**
      * Extreu el nom d'usuari (subject) d'un token JWT.
      *
@@ -56,12 +160,7 @@ public class JwtUtil {
      * @throws JwtException si el token no és vàlid o no es pot parsejar
      */
     public String getUsernameFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return getClaimsFromToken(token).getSubject();
     }
 
     /**
@@ -83,12 +182,7 @@ public class JwtUtil {
      * @throws JwtException si el token no és vàlid o no es pot parsejar
      */
     public Date getExpirationDateFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getExpiration();
+        return getClaimsFromToken(token).getExpiration();
     }
 
     /**
@@ -100,10 +194,77 @@ public class JwtUtil {
      */
     public boolean validateToken(String token, String username) {
         try {
-            String tokenUsername = getUsernameFromToken(token);
-            return (tokenUsername.equals(username) && !isTokenExpired(token));
+            Claims claims = getClaimsFromToken(token);
+            return (claims.getSubject().equals(username) && !claims.getExpiration().before(new Date()));
         } catch (JwtException | IllegalArgumentException e) {
             return false;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Obté els claims verificats d'un token JWT.
+     * Si el token ja s'ha verificat abans i no ha caducat, es retornen els claims de la
+     * memòria cau; en cas contrari es verifica la signatura i l'expiració.
+     *
+     * @param token el token JWT
+     * @return els claims del token
+     * @throws JwtException si el token no és vàlid, ha expirat o no es pot parsejar
+     * @throws IllegalArgumentException si el token és nul o buit
+     */
+    public Claims getClaimsFromToken(String token) {
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException("El token no pot ser buit");
+        }
+
+        Claims claims = verifiedTokenCache.get(token);
+        if (claims == null) {
+            claims = parser.parseClaimsJws(token).getBody();
+            verifiedTokenCache.put(token, claims);
+        }
+        return claims;
+    }
+
+    /**
+     * Retorna la memòria cau de tokens verificats, per consultar-ne les mètriques.
+     *
+     * @return la memòria cau de tokens verificats
+     */
+    public VerifiedTokenCache getVerifiedTokenCache() {
+        return verifiedTokenCache;
+    }
+
+    /**
+     * Construeix el principal {@link AuthenticatedUser} a partir dels claims d'un token JWT.
+     *
+     * @param token el token JWT
+     * @return el principal amb el context de tenant, o null si el token no conté els claims
+     * @throws JwtException si el token no és vàlid o no es pot parsejar
+     */
+    public AuthenticatedUser getAuthenticatedUserFromToken(String token) {
+        return toAuthenticatedUser(getClaimsFromToken(token));
+    }
+
+    /**
+     * Converteix els claims d'un token en un {@link AuthenticatedUser}.
+     *
+     * @param claims els claims ja verificats
+     * @return el principal, o null si falten els claims de tenant
+     */
+    public AuthenticatedUser toAuthenticatedUser(Claims claims) {
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        Number companyId = claims.get(CLAIM_COMPANY_ID, Number.class);
+        String role = claims.get(CLAIM_ROLE, String.class);
+
+        if (userId == null || companyId == null || role == null) {
+            return null;
+        }
+
+        return AuthenticatedUser.builder()
+                .userId(userId.longValue())
+                .email(claims.getSubject())
+                .companyId(companyId.longValue())
+                .companyUuid(claims.get(CLAIM_COMPANY_UUID, String.class))
+                .role(User.UserRole.valueOf(role))
+                .build();
+    }
+}
@@ -0,0 +1,197 @@
+package cat.abasta_back_end.security;
+
+import cat.abasta_back_end.exceptions.TooManyRequestsException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor acotat per a les operacions de BCrypt (verificació i encriptació de contrasenyes).
+ *
+ * <p>BCrypt és intencionadament costós en CPU. Executar-lo directament als fils de Tomcat fa
+ * que una allau d'inicis de sessió ocupi tots els nuclis i deixi sense servei la resta
+ * d'endpoints. Aquest executor limita el nombre de fils dedicats a BCrypt i la longitud
+ * de la cua d'espera; quan la cua és plena la petició es rebutja immediatament amb una
+ * {@link TooManyRequestsException} (HTTP 429) en lloc d'acumular latència.</p>
+ *
+ * <p>Exposa comptadors d'operacions completades, rebutjades i que han superat el temps
+ * màxim d'espera per monitoritzar-ne la saturació.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ * @see SecurityConfig#passwordEncoder()
+ */
+@Slf4j
+@Component
+public class PasswordHashingExecutor {
+
+    /**
+     * Segons recomanats al client abans de tornar-ho a provar quan l'executor és ple.
+     */
+    private static final long RETRY_AFTER_SECONDS = 1;
+
+    private static final String BUSY_MESSAGE =
+            "El servidor està processant massa inicis de sessió. Torna-ho a provar d'aquí a uns segons.";
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    /**
+     * Crea l'executor amb la configuració de l'aplicació.
+     *
+     * @param passwordEncoder encoder de contrasenyes (BCrypt)
+     * @param threads nombre de fils dedicats; 0 per utilitzar la meitat dels processadors
+     * @param queueCapacity nombre màxim d'operacions en espera
+     * @param timeoutMillis temps màxim d'espera d'una operació, incloent-hi la cua
+     */
+    @Autowired
+    public PasswordHashingExecutor(PasswordEncoder passwordEncoder,
+                                   @Value("${app.security.password-hashing.threads:0}") int threads,
+                                   @Value("${app.security.password-hashing.queue-capacity:64}") int queueCapacity,
+                                   @Value("${app.security.password-hashing.timeout-ms:10000}") long timeoutMillis) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        this.passwordEncoder = passwordEncoder;
+        this.timeoutMillis = timeoutMillis;
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                threadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        log.info("Executor de BCrypt inicialitzat amb {} fils i una cua de {} operacions", poolSize, queueCapacity);
+    }
+
+    /**
+     * Verifica una contrasenya contra el seu hash a l'executor acotat.
+     *
+     * @param rawPassword la contrasenya en clar
+     * @param encodedPassword el hash guardat
+     * @return true si la contrasenya coincideix
+     * @throws TooManyRequestsException si l'executor és ple o l'operació supera el temps màxim
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Encripta una contrasenya a l'executor acotat.
+     *
+     * @param rawPassword la contrasenya en clar
+     * @return el hash de la contrasenya
+     * @throws TooManyRequestsException si l'executor és ple o l'operació supera el temps màxim
+     */
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Envia una tasca a l'executor i n'espera el resultat.
+     *
+     * @param task la tasca de BCrypt
+     * @param <T> tipus del resultat
+     * @return el resultat de la tasca
+     */
+    private <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new TooManyRequestsException(BUSY_MESSAGE, RETRY_AFTER_SECONDS);
+        }
+
+        try {
+            T result = future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            completed.increment();
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOut.increment();
+            throw new TooManyRequestsException(BUSY_MESSAGE, RETRY_AFTER_SECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Verificació de contrasenya interrompuda", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Error en verificar la contrasenya", e.getCause());
+        }
+    }
+
+    /**
+     * Atura l'executor en tancar l'aplicació.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return nombre d'operacions completades
+     */
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    /**
+     * @return nombre d'operacions rebutjades per cua plena
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return nombre d'operacions que han superat el temps màxim d'espera
+     */
+    public long getTimedOutCount() {
+        return timedOut.sum();
+    }
+
+    /**
+     * @return nombre d'operacions que esperen a la cua
+     */
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return nombre de fils executant BCrypt en aquest moment
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,286 @@
+package cat.abasta_back_end.security;
+
+import cat.abasta_back_end.dto.ApiResponseDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtre que limita la freqüència de peticions als endpoints públics d'autenticació i registre.
+ *
+ * <p>Els endpoints {@code /api/auth/login}, {@code /api/auth/forgot-password},
+ * {@code /api/auth/resend-verification} i {@code /api/companies/register} no requereixen
+ * autenticació i cadascun executa BCrypt o envia un correu. Aquest filtre aplica dos
+ * {@link TokenBucketRateLimiter} per endpoint: un per IP del client i un altre per l'email
+ * del cos de la petició, amb els límits de {@link RateLimitProperties}.</p>
+ *
+ * <p>Quan se supera un límit es respon directament amb HTTP 429 i la capçalera
+ * {@code Retry-After}, sense arribar al controlador. El cos de la petició es llegeix
+ * una sola vegada i es torna a oferir al controlador.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    /**
+     * Nombre màxim de bytes del cos que es llegeixen per obtenir l'email.
+     */
+    private static final int MAX_INSPECTED_BODY_BYTES = 16 * 1024;
+
+    /**
+     * Regla de limitació d'un endpoint.
+     *
+     * @param ipLimiter limitador per IP del client
+     * @param emailLimiter limitador per email de destí
+     * @param emailField camp del cos JSON que conté l'email
+     */
+    private record Rule(TokenBucketRateLimiter ipLimiter, TokenBucketRateLimiter emailLimiter, String emailField) {
+    }
+
+    private final RateLimitProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Rule> rules = new LinkedHashMap<>();
+
+    /**
+     * Crea el filtre i un parell de limitadors per a cada endpoint públic.
+     *
+     * @param properties configuració dels límits
+     * @param objectMapper mapper per llegir el cos i escriure la resposta d'error
+     */
+    public RateLimitFilter(RateLimitProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+
+        rules.put("/api/auth/login", rule(properties.getLogin(), "email"));
+        rules.put("/api/auth/forgot-password", rule(properties.getForgotPassword(), "email"));
+        rules.put("/api/auth/resend-verification", rule(properties.getResendVerification(), "email"));
+        rules.put("/api/companies/register", rule(properties.getCompanyRegister(), "adminEmail"));
+    }
+
+    /**
+     * Només es filtren les peticions POST als endpoints configurats.
+     *
+     * @param request la petició HTTP rebuda
+     * @return true si la petició no s'ha de limitar
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled()
+                || !HttpMethod.POST.matches(request.getMethod())
+                || !rules.containsKey(path(request));
+    }
+
+    /**
+     * Consumeix una fitxa de la galleda de la IP i, si en queda, de la de l'email.
+     * Si alguna és buida respon amb HTTP 429.
+     *
+     * @param request la petició HTTP rebuda
+     * @param response la resposta HTTP a enviar
+     * @param filterChain la cadena de filtres a continuar
+     * @throws ServletException si es produeix un error en el processament del servlet
+     * @throws IOException si es produeix un error d'entrada/sortida
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Rule rule = rules.get(path(request));
+
+        long waitNanos = rule.ipLimiter().tryAcquire(request.getRemoteAddr());
+        if (waitNanos > 0) {
+            reject(request, response, waitNanos);
+            return;
+        }
+
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        String email = extractEmail(cachedRequest.getPrefix(), rule.emailField());
+        if (email != null) {
+            waitNanos = rule.emailLimiter().tryAcquire(email.trim().toLowerCase(Locale.ROOT));
+            if (waitNanos > 0) {
+                reject(request, response, waitNanos);
+                return;
+            }
+        }
+
+        filterChain.doFilter(cachedRequest, response);
+    }
+
+    /**
+     * Elimina periòdicament les galledes inactives perquè la memòria es mantingui acotada.
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        int removed = 0;
+        for (Rule rule : rules.values()) {
+            removed += rule.ipLimiter().evictIdle();
+            removed += rule.emailLimiter().evictIdle();
+        }
+        if (removed > 0) {
+            log.debug("Eliminades {} galledes inactives del limitador de peticions", removed);
+        }
+    }
+
+    /**
+     * Retorna els limitadors per endpoint, per consultar-ne els comptadors.
+     *
+     * @return mapa de nom de limitador (endpoint i clau) a limitador
+     */
+    public Map<String, TokenBucketRateLimiter> getLimiters() {
+        Map<String, TokenBucketRateLimiter> limiters = new LinkedHashMap<>();
+        rules.forEach((path, rule) -> {
+            limiters.put(path + "#ip", rule.ipLimiter());
+            limiters.put(path + "#email", rule.emailLimiter());
+        });
+        return limiters;
+    }
+
+    private Rule rule(RateLimitProperties.Endpoint endpoint, String emailField) {
+        return new Rule(limiter(endpoint.getIp()), limiter(endpoint.getEmail()), emailField);
+    }
+
+    private TokenBucketRateLimiter limiter(RateLimitProperties.Limit limit) {
+        return new TokenBucketRateLimiter(limit.getCapacity(), limit.getRefillPerMinute(),
+                properties.getStripes(), properties.getIdleTimeoutMs(), properties.getMaxBuckets());
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    /**
+     * Obté l'email del cos JSON de la petició.
+     *
+     * @param body els primers bytes del cos
+     * @param field el camp que conté l'email
+     * @return l'email, o null si el cos no és JSON vàlid o no conté el camp
+     */
+    private String extractEmail(byte[] body, String field) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(body).get(field);
+            return node != null && node.isTextual() && !node.asText().isBlank() ? node.asText() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        log.warn("Petició limitada a {} des de {}", path(request), request.getRemoteAddr());
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), ApiResponseDTO.error(
+                "Massa peticions. Torna-ho a provar d'aquí a " + retryAfterSeconds + " segons."));
+    }
+
+    /**
+     * Petició que conserva els primers bytes del cos perquè es puguin inspeccionar
+     * i després tornar a llegir des del controlador.
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] prefix;
+        private final InputStream body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            InputStream original = request.getInputStream();
+            this.prefix = original.readNBytes(MAX_INSPECTED_BODY_BYTES);
+            this.body = new SequenceInputStream(new ByteArrayInputStream(prefix), original);
+        }
+
+        byte[] getPrefix() {
+            return prefix;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return new ServletInputStream() {
+                private boolean finished;
+
+                @Override
+                public int read() throws IOException {
+                    int b = body.read();
+                    finished = b < 0;
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    int read = body.read(buffer, offset, length);
+                    finished = read < 0;
+                    return read;
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return finished;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /**
+                 * El cos ja està disponible (sempre {@link #isReady()}), de manera que l'oient
+                 * el pot llegir sencer de seguida.
+                 */
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        listener.onDataAvailable();
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package cat.abasta_back_end.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuració del limitador de freqüència dels endpoints públics ({@code app.rate-limit.*}).
+ *
+ * <p>Cada endpoint té un límit per IP del client i un altre per email de destí.
+ * Els valors per defecte són els d'aquesta classe i es poden sobreescriure a
+ * {@code application.properties}, per exemple:</p>
+ * <pre>
+ * app.rate-limit.login.ip.capacity=30
+ * app.rate-limit.login.ip.refill-per-minute=30
+ * app.rate-limit.forgot-password.email.refill-per-minute=1
+ * </pre>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ * @see RateLimitFilter
+ */
+@Data
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * Activa o desactiva la limitació.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Nombre de locks entre els quals es reparteixen les galledes de cada limitador.
+     */
+    private int stripes = 64;
+
+    /**
+     * Temps d'inactivitat a partir del qual s'elimina una galleda.
+     */
+    private long idleTimeoutMs = 600_000;
+
+    /**
+     * Nombre màxim de galledes en memòria per limitador.
+     */
+    private int maxBuckets = 100_000;
+
+    /** Límits de {@code POST /api/auth/login}. */
+    private Endpoint login = new Endpoint(new Limit(30, 30), new Limit(10, 5));
+
+    /** Límits de {@code POST /api/auth/forgot-password}. */
+    private Endpoint forgotPassword = new Endpoint(new Limit(10, 5), new Limit(3, 1));
+
+    /** Límits de {@code POST /api/auth/resend-verification}. */
+    private Endpoint resendVerification = new Endpoint(new Limit(10, 5), new Limit(3, 1));
+
+    /** Límits de {@code POST /api/companies/register}. */
+    private Endpoint companyRegister = new Endpoint(new Limit(5, 2), new Limit(3, 1));
+
+    /**
+     * Límits d'un endpoint: per IP del client i per email de destí.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Endpoint {
+        private Limit ip;
+        private Limit email;
+    }
+
+    /**
+     * Paràmetres d'una galleda de fitxes.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+
+        /** Nombre màxim de peticions seguides permeses (ràfega). */
+        private double capacity;
+
+        /** Peticions que es recuperen cada minut. */
+        private double refillPerMinute;
+    }
+}
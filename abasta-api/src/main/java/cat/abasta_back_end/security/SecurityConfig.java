@@ -1,5 +1,6 @@
 package cat.abasta_back_end.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -37,6 +38,9 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
     /**
      * Proporciona un bean de PasswordEncoder per encriptar contrasenyes.
      * Utilitza BCrypt com a algorisme d'encriptació, que és segur i recomanat
@@ -74,6 +78,7 @@ public class SecurityConfig {
      * Configura la cadena de filtres de seguretat de Spring Security.
      * Defineix quins endpoints són públics i quins requereixen autenticació,
      * estableix la política de sessions stateless i afegeix el filtre JWT.
+     * Els endpoints públics d'autenticació i registre passen abans pel {@link RateLimitFilter}.
      *
      * @param http l'objecte HttpSecurity per configurar la seguretat
      * @return la cadena de filtres de seguretat configurada
@@ -88,6 +93,11 @@ public class SecurityConfig {
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
                 .authorizeHttpRequests(auth -> auth
+                        // Respostes asíncrones (GET /api/orders/stream i el PDF en streaming de
+                        // GET /api/reports/global/pdf): la petició original ja s'ha autoritzat i
+                        // el filtre JWT no torna a llegir el token en el dispatch asíncron
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // Swagger endpoints - públics
                         .requestMatchers("/swagger-ui.html").permitAll()
                         .requestMatchers("/swagger-ui/**").permitAll()
@@ -112,6 +122,7 @@ public class SecurityConfig {
                         .requestMatchers("/api/**").authenticated()
                         .anyRequest().authenticated()
                 )
+                .addFilterBefore(rateLimitFilter, UsernamePasswordAuthenticationFilter.class)
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
@@ -0,0 +1,223 @@
+package cat.abasta_back_end.security;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Limitador de freqüència en memòria basat en l'algorisme token bucket.
+ *
+ * <p>Cada clau (IP del client, email, ...) té una galleda amb una capacitat màxima de
+ * fitxes que es reomple a un ritme constant. Cada petició consumeix una fitxa; si la
+ * galleda és buida la petició es rebutja i s'indica quant temps cal esperar.</p>
+ *
+ * <p>Les galledes es protegeixen amb un conjunt fix de locks repartits per hash de la
+ * clau (lock striping), de manera que peticions de claus diferents rarament competeixen
+ * pel mateix lock. Les galledes inactives es poden eliminar amb {@link #evictIdle()}:
+ * una galleda inactiva durant més temps del que triga a reomplir-se és equivalent a
+ * una de nova. Si s'arriba al màxim de galledes s'eliminen primer les inactives i,
+ * si no n'hi ha prou, una part de les existents.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ * @see RateLimitFilter
+ */
+public class TokenBucketRateLimiter {
+
+    /**
+     * Fracció de la capacitat que s'allibera quan s'arriba al màxim de galledes
+     * i no n'hi ha cap d'inactiva.
+     */
+    private static final int EVICTION_DIVISOR = 10;
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final long idleTimeoutNanos;
+    private final int maxBuckets;
+    private final LongSupplier nanoClock;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Estat d'una galleda. Els camps només es modifiquen amb el lock de la franja corresponent.
+     */
+    private static final class Bucket {
+        private double tokens;
+        private long lastRefillNanos;
+
+        private Bucket(double tokens, long lastRefillNanos) {
+            this.tokens = tokens;
+            this.lastRefillNanos = lastRefillNanos;
+        }
+    }
+
+    /**
+     * Crea un limitador amb el rellotge del sistema.
+     *
+     * @param capacity nombre màxim de fitxes (ràfega permesa)
+     * @param refillPerMinute fitxes que es recuperen cada minut
+     * @param stripes nombre de locks entre els quals es reparteixen les galledes
+     * @param idleTimeoutMillis temps d'inactivitat a partir del qual una galleda es pot eliminar
+     * @param maxBuckets nombre màxim de galledes en memòria
+     */
+    public TokenBucketRateLimiter(double capacity, double refillPerMinute, int stripes,
+                                  long idleTimeoutMillis, int maxBuckets) {
+        this(capacity, refillPerMinute, stripes, idleTimeoutMillis, maxBuckets, System::nanoTime);
+    }
+
+    /**
+     * Crea un limitador amb un rellotge propi, en nanosegons.
+     *
+     * @param capacity nombre màxim de fitxes (ràfega permesa)
+     * @param refillPerMinute fitxes que es recuperen cada minut
+     * @param stripes nombre de locks entre els quals es reparteixen les galledes
+     * @param idleTimeoutMillis temps d'inactivitat a partir del qual una galleda es pot eliminar
+     * @param maxBuckets nombre màxim de galledes en memòria
+     * @param nanoClock font del temps en nanosegons
+     */
+    TokenBucketRateLimiter(double capacity, double refillPerMinute, int stripes,
+                           long idleTimeoutMillis, int maxBuckets, LongSupplier nanoClock) {
+        if (capacity < 1 || refillPerMinute <= 0 || stripes <= 0 || maxBuckets <= 0) {
+            throw new IllegalArgumentException("Configuració del limitador invàlida");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerMinute / TimeUnit.MINUTES.toNanos(1);
+        this.maxBuckets = maxBuckets;
+        this.nanoClock = nanoClock;
+
+        // Una galleda no es pot eliminar abans que s'hagi reomplert del tot
+        long fullRefillNanos = (long) Math.ceil(capacity / tokensPerNano);
+        this.idleTimeoutNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis), fullRefillNanos);
+
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Intenta consumir una fitxa de la galleda de la clau indicada.
+     *
+     * @param key la clau a limitar
+     * @return 0 si la petició es permet, o els nanosegons que cal esperar fins a la propera fitxa
+     */
+    public long tryAcquire(String key) {
+        long now = nanoClock.getAsLong();
+
+        if (!buckets.containsKey(key) && buckets.size() >= maxBuckets) {
+            makeRoom(now);
+        }
+
+        Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(capacity, now));
+        ReentrantLock lock = stripeFor(key);
+
+        lock.lock();
+        try {
+            refill(bucket, now);
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                allowed.increment();
+                return 0;
+            }
+            rejected.increment();
+            return (long) Math.ceil((1 - bucket.tokens) / tokensPerNano);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Elimina les galledes que fa més temps del temps d'inactivitat que no s'utilitzen.
+     *
+     * @return nombre de galledes eliminades
+     */
+    public int evictIdle() {
+        return evictIdle(nanoClock.getAsLong());
+    }
+
+    /**
+     * @return nombre de galledes en memòria
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * @return nombre de peticions permeses
+     */
+    public long getAllowedCount() {
+        return allowed.sum();
+    }
+
+    /**
+     * @return nombre de peticions rebutjades
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return nombre de galledes eliminades per inactivitat o per manca d'espai
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private int evictIdle(long now) {
+        int removed = 0;
+        Iterator<Map.Entry<String, Bucket>> entries = buckets.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, Bucket> entry = entries.next();
+            ReentrantLock lock = stripeFor(entry.getKey());
+            lock.lock();
+            try {
+                if (now - entry.getValue().lastRefillNanos >= idleTimeoutNanos) {
+                    entries.remove();
+                    removed++;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        evictions.add(removed);
+        return removed;
+    }
+
+    private void makeRoom(long now) {
+        evictIdle(now);
+        if (buckets.size() < maxBuckets) {
+            return;
+        }
+
+        int toEvict = buckets.size() - maxBuckets + Math.max(1, maxBuckets / EVICTION_DIVISOR);
+        Iterator<String> keys = buckets.keySet().iterator();
+        while (toEvict > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+            evictions.increment();
+            toEvict--;
+        }
+    }
+
+    private void refill(Bucket bucket, long now) {
+        long elapsed = now - bucket.lastRefillNanos;
+        if (elapsed > 0) {
+            bucket.tokens = Math.min(capacity, bucket.tokens + elapsed * tokensPerNano);
+            bucket.lastRefillNanos = now;
+        }
+    }
+
+    private ReentrantLock stripeFor(String key) {
+        return stripes[Math.floorMod(key.hashCode(), stripes.length)];
+    }
+}
@@ -0,0 +1,189 @@
+package cat.abasta_back_end.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Memòria cau acotada de tokens JWT ja verificats.
+ *
+ * <p>Guarda els claims d'un token després de la seva primera verificació criptogràfica,
+ * indexats pel hash SHA-256 del token (mai el token en clar). Cada entrada caduca en el
+ * mateix instant que el token, de manera que un token només es verifica una vegada
+ * durant tota la seva vida.</p>
+ *
+ * <p>Quan s'arriba a la capacitat màxima s'eliminen primer les entrades caducades i,
+ * si encara no hi ha espai, una part de les entrades existents. Exposa comptadors
+ * d'encerts, errades i expulsions per monitoritzar-ne l'eficàcia.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ * @see JwtUtil
+ */
+public class VerifiedTokenCache {
+
+    /**
+     * Fracció de la capacitat que s'allibera quan la memòria cau és plena
+     * i no hi ha entrades caducades.
+     */
+    private static final int EVICTION_DIVISOR = 10;
+
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Entrada de la memòria cau: claims verificats i instant de caducitat del token.
+     *
+     * @param claims claims del token verificat
+     * @param expiresAtMillis instant de caducitat en mil·lisegons
+     */
+    private record Entry(Claims claims, long expiresAtMillis) {
+    }
+
+    /**
+     * Crea una memòria cau amb la capacitat indicada.
+     *
+     * @param maxEntries nombre màxim de tokens guardats
+     */
+    public VerifiedTokenCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("La capacitat ha de ser positiva");
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Obté els claims d'un token verificat prèviament.
+     *
+     * @param token el token JWT
+     * @return els claims si el token és a la memòria cau i no ha caducat, o null en cas contrari
+     */
+    public Claims get(String token) {
+        String key = hash(token);
+        Entry entry = entries.get(key);
+
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+
+        if (entry.expiresAtMillis() <= System.currentTimeMillis()) {
+            entries.remove(key, entry);
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return entry.claims();
+    }
+
+    /**
+     * Afegeix els claims d'un token que s'acaba de verificar.
+     * Els tokens sense data d'expiració no es guarden.
+     *
+     * @param token el token JWT
+     * @param claims els claims verificats del token
+     */
+    public void put(String token, Claims claims) {
+        if (claims.getExpiration() == null) {
+            return;
+        }
+
+        if (entries.size() >= maxEntries) {
+            makeRoom();
+        }
+
+        entries.put(hash(token), new Entry(claims, claims.getExpiration().getTime()));
+    }
+
+    /**
+     * Buida la memòria cau.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return nombre d'entrades actuals
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return nombre de consultes resoltes des de la memòria cau
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return nombre de consultes que han requerit verificar el token
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return nombre d'entrades expulsades per manca d'espai o per caducitat
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Allibera espai eliminant primer les entrades caducades i, si no n'hi ha prou,
+     * una desena part de la capacitat.
+     */
+    private void makeRoom() {
+        long now = System.currentTimeMillis();
+        Iterator<Entry> values = entries.values().iterator();
+        while (values.hasNext()) {
+            if (values.next().expiresAtMillis() <= now) {
+                values.remove();
+                evictions.increment();
+            }
+        }
+
+        if (entries.size() < maxEntries) {
+            return;
+        }
+
+        int toEvict = entries.size() - maxEntries + Math.max(1, maxEntries / EVICTION_DIVISOR);
+        Iterator<String> keys = entries.keySet().iterator();
+        while (toEvict > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+            evictions.increment();
+            toEvict--;
+        }
+    }
+
+    /**
+     * Calcula el hash SHA-256 del token codificat en Base64.
+     *
+     * @param token el token JWT
+     * @return el hash del token
+     */
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package cat.abasta_back_end.services;
+
+import java.util.List;
+
+/**
+ * Interfície de servei de la bústia de sortida de correus ({@code email_outbox}).
+ *
+ * <p>Els correus no s'envien dins de la petició: es guarden a la bústia dins de la mateixa
+ * transacció que el canvi que els origina, de manera que només surten si el canvi es confirma
+ * i no es perden si el servidor SMTP no respon. Un procés en segon pla els reclama, els envia
+ * i els marca com a enviats; els que fallen es tornen a intentar més tard i, després d'un
+ * nombre màxim d'intents, es deixen en estat {@code DEAD} per revisar-los.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+public interface EmailOutboxService {
+
+    /**
+     * Correu reclamat per enviar.
+     *
+     * @param id identificador a la bústia
+     * @param recipient adreça del destinatari
+     * @param subject assumpte
+     * @param body cos HTML
+     * @param attempts intents fets, comptant el que es reclama ara
+     */
+    record OutboxEmail(Long id, String recipient, String subject, String body, int attempts) {
+    }
+
+    /**
+     * Guarda un correu per enviar dins de la transacció en curs, o en una de nova si no n'hi ha.
+     *
+     * @param recipient adreça del destinatari
+     * @param subject assumpte
+     * @param body cos HTML
+     * @return identificador del correu a la bústia
+     */
+    long enqueue(String recipient, String subject, String body);
+
+    /**
+     * Reclama correus pendents que ja toca enviar, o que un altre procés havia reclamat i no ha
+     * marcat a temps. Cada correu reclamat queda reservat durant un temps i compta un intent.
+     *
+     * @param limit nombre màxim de correus
+     * @return els correus reclamats, en ordre de cua
+     */
+    List<OutboxEmail> claim(int limit);
+
+    /**
+     * Marca un correu com a enviat.
+     *
+     * @param id identificador a la bústia
+     */
+    void markSent(long id);
+
+    /**
+     * Registra un error d'enviament i programa el següent intent, o deixa el correu en estat
+     * {@code DEAD} si ja s'han esgotat els intents.
+     *
+     * @param email correu reclamat
+     * @param error descripció de l'error
+     * @return cert si el correu ha quedat en estat {@code DEAD}
+     */
+    boolean markFailed(OutboxEmail email, String error);
+
+    /**
+     * Elimina els correus enviats que han superat el temps de conservació.
+     *
+     * @return nombre de correus eliminats
+     */
+    int purgeSent();
+}
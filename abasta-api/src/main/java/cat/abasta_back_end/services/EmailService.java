@@ -1,5 +1,7 @@
 package cat.abasta_back_end.services;
 
+import java.util.List;
+
 /**
  * Interfície que defineix les operacions per enviar correus electrònics.
  *
@@ -9,10 +11,13 @@ package cat.abasta_back_end.services;
  *   <li>Recuperació de contrasenyes</li>
  *   <li>Verificació de comptes d'usuari</li>
  *   <li>Verificació d'empreses i administradors</li>
- *   <li>Notificacions de comandes</li>
+ *   <li>Notificacions de comandes, individuals o agrupades per proveïdor</li>
  * </ul>
  * </p>
  *
+ * <p>Els correus s'encuen dins de la transacció en curs i s'envien en segon pla: que un mètode
+ * acabi sense error vol dir que el correu s'enviarà, no que ja s'hagi enviat.</p>
+ *
  * @author Enrique Pérez
  * @version 1.1
  * @since 2025
@@ -64,4 +69,29 @@ public interface EmailService {
                                String companyAddress, String companyPhone,
                                String orderName, String orderDetails,
                                String notes);
-}
\ No newline at end of file
+
+    /**
+     * Envia en un sol correu electrònic els detalls de diverses comandes d'una empresa a un
+     * mateix proveïdor.
+     *
+     * @param to l'adreça de correu electrònic del proveïdor
+     * @param supplierName el nom del proveïdor
+     * @param companyName el nom de l'empresa
+     * @param companyAddress la direcció de l'empresa
+     * @param companyPhone el telèfon de l'empresa
+     * @param orders les comandes agrupades, en l'ordre en què s'han enviat
+     */
+    void sendOrderDigest(String to, String supplierName, String companyName,
+                         String companyAddress, String companyPhone,
+                         List<OrderSummary> orders);
+
+    /**
+     * Dades d'una comanda dins d'un correu agrupat.
+     *
+     * @param orderName el nom de la comanda
+     * @param orderDetails els detalls de la comanda en format HTML
+     * @param notes notes addicionals de la comanda (pot ser null)
+     */
+    record OrderSummary(String orderName, String orderDetails, String notes) {
+    }
+}
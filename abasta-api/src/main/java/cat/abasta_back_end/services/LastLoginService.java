@@ -0,0 +1,43 @@
+package cat.abasta_back_end.services;
+
+import java.time.LocalDateTime;
+
+/**
+ * Interfície de servei per registrar la data de l'últim inici de sessió dels usuaris.
+ *
+ * <p>Les actualitzacions no s'escriuen immediatament a la base de dades: s'acumulen
+ * en memòria i s'escriuen periòdicament en bloc, de manera que un inici de sessió
+ * no genera cap escriptura síncrona sobre la taula d'usuaris.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+public interface LastLoginService {
+
+    /**
+     * Registra un inici de sessió pendent d'escriure.
+     * Si l'usuari ja té una data pendent, es conserva la més recent.
+     *
+     * @param userId identificador de l'usuari
+     * @param lastLogin data i hora de l'inici de sessió
+     */
+    void recordLogin(Long userId, LocalDateTime lastLogin);
+
+    /**
+     * Escriu a la base de dades totes les dates pendents amb una única sentència en bloc.
+     *
+     * @return nombre d'usuaris actualitzats
+     */
+    int flush();
+
+    /**
+     * @return nombre d'usuaris amb una data d'inici de sessió pendent d'escriure
+     */
+    int getPendingCount();
+
+    /**
+     * @return nombre total d'actualitzacions escrites a la base de dades
+     */
+    long getFlushedCount();
+}
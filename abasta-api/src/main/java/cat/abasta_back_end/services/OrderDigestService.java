@@ -0,0 +1,58 @@
+package cat.abasta_back_end.services;
+
+import cat.abasta_back_end.entities.Order;
+
+import java.util.List;
+
+/**
+ * Interfície de servei per agrupar les notificacions de comandes a un mateix proveïdor
+ * ({@code order_digest_entries}).
+ *
+ * <p>Quan una empresa envia diverses comandes al mateix proveïdor en poca estona, el proveïdor
+ * rep un sol correu amb totes en lloc d'un per comanda. Les comandes enviades s'apunten aquí
+ * dins de la transacció de l'enviament; la primera comanda d'un grup obre una finestra de
+ * {@code app.notifications.order-digest.window-minutes} minuts i les que arriben abans que
+ * tanqui s'hi afegeixen. Un procés periòdic recull els grups amb la finestra tancada i n'envia
+ * el correu.</p>
+ *
+ * <p>Els grups es formen per empresa i adreça de correu del proveïdor. Amb la finestra a 0
+ * (per defecte) l'agrupació està desactivada i cada comanda s'envia de seguida.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+public interface OrderDigestService {
+
+    /**
+     * Comandes d'una empresa a un proveïdor pendents de notificar en un sol correu.
+     *
+     * @param companyId identificador de l'empresa
+     * @param recipient adreça de correu del proveïdor, en minúscules
+     * @param orderIds identificadors de les comandes, en l'ordre en què s'han enviat
+     */
+    record DigestGroup(Long companyId, String recipient, List<Long> orderIds) {
+    }
+
+    /**
+     * @return {@code true} si les notificacions de comandes s'agrupen
+     */
+    boolean isEnabled();
+
+    /**
+     * Apunta una comanda enviada al grup del seu proveïdor, dins de la transacció en curs.
+     * Si el grup no té cap comanda pendent, n'obre la finestra.
+     *
+     * @param order la comanda enviada, amb l'empresa i el proveïdor
+     */
+    void schedule(Order order);
+
+    /**
+     * Treu els grups amb la finestra tancada. Les comandes es bloquegen i s'esborren dins de la
+     * transacció en curs, de manera que només es treuen una vegada i tornen al grup si la
+     * transacció es desfà.
+     *
+     * @return els grups per notificar
+     */
+    List<DigestGroup> takeDue();
+}
@@ -0,0 +1,26 @@
+package cat.abasta_back_end.services;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Interfície de servei per enviar els canvis de comandes als clients connectats amb
+ * Server-Sent Events.
+ *
+ * <p>En lloc de tornar a consultar la llista de comandes o el tauler cada pocs segons, el client
+ * obre una connexió i rep un esdeveniment {@code order} cada vegada que es crea, s'envia, es
+ * modifica o s'elimina una comanda de la seva empresa. Els esdeveniments només s'envien un cop
+ * confirmada la transacció.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+public interface OrderEventStreamService {
+
+    /**
+     * Subscriu el client als canvis de les comandes de l'empresa de l'usuari autenticat.
+     *
+     * @return connexió oberta pel client; Spring MVC la manté fins que es tanca o caduca
+     */
+    SseEmitter subscribe();
+}
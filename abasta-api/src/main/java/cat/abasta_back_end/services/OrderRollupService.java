@@ -0,0 +1,119 @@
+package cat.abasta_back_end.services;
+
+import cat.abasta_back_end.dto.TimeSeriesGranularity;
+import cat.abasta_back_end.dto.TimeSeriesPointDTO;
+import cat.abasta_back_end.entities.Order;
+import cat.abasta_back_end.entities.OrderItem;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Interfície de servei per mantenir i consultar els acumulats diaris de comandes.
+ *
+ * <p>Els acumulats es guarden per empresa, dia de creació i proveïdor (comandes i despesa) i per
+ * empresa, dia i producte (comandes, quantitat i despesa). Només compten les comandes actives.
+ * S'actualitzen amb increments dins de la transacció que modifica la comanda, i les sèries
+ * temporals s'obtenen només a partir d'aquests acumulats, sense llegir comandes.</p>
+ *
+ * <p>Els mesos tancats es congelen: es recalculen un últim cop a partir de les comandes i, a
+ * partir d'aquí, els canvis en comandes d'aquests mesos ja no modifiquen els acumulats.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+public interface OrderRollupService {
+
+    /**
+     * Quantitat i despesa d'un producte dins d'una comanda.
+     *
+     * @param quantity quantitat total del producte
+     * @param spend subtotal total del producte
+     */
+    record Line(BigDecimal quantity, BigDecimal spend) {
+
+        Line add(Line other) {
+            return new Line(quantity.add(other.quantity), spend.add(other.spend));
+        }
+    }
+
+    /**
+     * Estat d'una comanda rellevant per als acumulats diaris.
+     *
+     * @param companyId empresa de la comanda
+     * @param day dia de creació de la comanda
+     * @param supplierId proveïdor de la comanda
+     * @param status estat de la comanda
+     * @param totalAmount import total de la comanda
+     * @param lines quantitat i despesa per identificador de producte
+     */
+    record Snapshot(Long companyId, LocalDate day, Long supplierId, Order.OrderStatus status,
+                    BigDecimal totalAmount, Map<Long, Line> lines) {
+
+        /**
+         * Captura l'estat actual d'una comanda i dels seus items. Els valors es copien, de manera
+         * que la captura no canvia si després es modifiquen els items.
+         *
+         * @param order la comanda
+         * @return l'estat de la comanda per als acumulats
+         */
+        public static Snapshot of(Order order) {
+            Map<Long, Line> lines = order.getItems().stream()
+                    .collect(Collectors.toMap(
+                            item -> item.getProduct().getId(),
+                            Snapshot::lineOf,
+                            Line::add));
+            return new Snapshot(
+                    order.getCompany().getId(),
+                    order.getCreatedAt() != null ? order.getCreatedAt().toLocalDate() : LocalDate.now(),
+                    order.getSupplier().getId(),
+                    order.getStatus(),
+                    order.getTotalAmount(),
+                    lines);
+        }
+
+        private static Line lineOf(OrderItem item) {
+            return new Line(
+                    item.getQuantity() != null ? item.getQuantity() : BigDecimal.ZERO,
+                    item.getSubtotal() != null ? item.getSubtotal() : BigDecimal.ZERO);
+        }
+    }
+
+    /**
+     * Aplica als acumulats el canvi d'una comanda. Ha de cridar-se dins de la transacció que
+     * guarda la comanda. No fa res si la comanda és d'un mes congelat.
+     *
+     * @param before estat anterior de la comanda, o null si és nova
+     * @param after estat nou de la comanda
+     */
+    void applyChange(Snapshot before, Snapshot after);
+
+    /**
+     * Retorna la sèrie temporal d'una empresa a partir dels acumulats diaris.
+     * Inclou un punt per cada període entre les dues dates, també si no té comandes.
+     *
+     * @param companyId identificador de l'empresa
+     * @param supplierId identificador del proveïdor per filtrar, o null
+     * @param productId identificador del producte per filtrar, o null
+     * @param from primer dia (inclòs)
+     * @param to últim dia (inclòs)
+     * @param granularity granularitat dels punts
+     * @return punts de la sèrie ordenats per data
+     */
+    List<TimeSeriesPointDTO> getTimeSeries(Long companyId, Long supplierId, Long productId,
+                                           LocalDate from, LocalDate to, TimeSeriesGranularity granularity);
+
+    /**
+     * Recalcula els acumulats d'un mes tancat a partir de les comandes i el marca com a congelat.
+     * Si el mes ja estava congelat no fa res.
+     *
+     * @param month mes a congelar; ha de ser anterior al mes en curs
+     * @return true si s'ha congelat ara, false si ja ho estava
+     */
+    boolean freezeMonth(YearMonth month);
+}
@@ -48,6 +48,20 @@ public interface OrderService {
      */
     Page<OrderResponseDTO> filterOrders(OrderFilterDTO dto, Pageable pageable);
 
+    /**
+     * Llista les comandes amb els mateixos filtres que {@link #filterOrders} però paginant per cursor.
+     * <p>
+     * Les comandes s'ordenen per data de creació i id descendents i la pàgina següent es
+     * demana amb el cursor retornat, sense OFFSET ni recompte total. El temps de resposta
+     * no depèn de la profunditat de la pàgina.
+     * </p>
+     *
+     * @param dto Objecte {@link OrderFilterDTO} amb els filtres, la mida de pàgina i el cursor (buit per a la primera pàgina).
+     * @return Una pàgina de {@link OrderResponseDTO} amb el cursor de la pàgina següent.
+     * @throws cat.abasta_back_end.exceptions.BadRequestException si el cursor no és vàlid
+     */
+    CursorPagedResponseDTO<OrderResponseDTO> listOrdersByCursor(OrderFilterDTO dto);
+
     /**
      * Retorna les dades d'una comanda concreta
      *
@@ -0,0 +1,75 @@
+package cat.abasta_back_end.services;
+
+import cat.abasta_back_end.dto.MonthlyOrderStatsDTO;
+import cat.abasta_back_end.entities.Order;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+/**
+ * Interfície de servei per mantenir els comptadors mensuals de comandes per empresa.
+ *
+ * <p>Els comptadors (comandes per estat i import total de les actives) s'actualitzen amb
+ * increments dins de la mateixa transacció que modifica la comanda, de manera que el
+ * dashboard els pot llegir amb una sola consulta per clau primària en lloc de recórrer
+ * totes les comandes del mes. Una conciliació periòdica els recalcula a partir de les
+ * comandes per detectar i corregir qualsevol desviació.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+public interface OrderStatsService {
+
+    /**
+     * Estat d'una comanda rellevant per als comptadors.
+     *
+     * @param companyId empresa de la comanda
+     * @param month mes de creació de la comanda
+     * @param status estat de la comanda
+     * @param totalAmount import total de la comanda
+     */
+    record Snapshot(Long companyId, YearMonth month, Order.OrderStatus status, BigDecimal totalAmount) {
+
+        /**
+         * Captura l'estat actual d'una comanda.
+         *
+         * @param order la comanda
+         * @return l'estat de la comanda per als comptadors
+         */
+        public static Snapshot of(Order order) {
+            return new Snapshot(
+                    order.getCompany().getId(),
+                    order.getCreatedAt() != null ? YearMonth.from(order.getCreatedAt()) : YearMonth.now(),
+                    order.getStatus(),
+                    order.getTotalAmount());
+        }
+    }
+
+    /**
+     * Aplica als comptadors el canvi d'una comanda. Ha de cridar-se dins de la transacció
+     * que guarda la comanda perquè els comptadors i les comandes no puguin divergir.
+     *
+     * @param before estat anterior de la comanda, o null si és nova
+     * @param after estat nou de la comanda
+     */
+    void applyChange(Snapshot before, Snapshot after);
+
+    /**
+     * Retorna els comptadors d'una empresa i un mes.
+     *
+     * @param companyId identificador de l'empresa
+     * @param month mes a consultar
+     * @return comptadors del mes; tots a zero si l'empresa no hi té comandes
+     */
+    MonthlyOrderStatsDTO getMonthlyStats(Long companyId, YearMonth month);
+
+    /**
+     * Recalcula tots els comptadors a partir de la taula de comandes i corregeix els que no coincideixen.
+     * Cada empresa es concilia per separat, de manera que no es bloquegen els comptadors de totes
+     * les empreses alhora.
+     *
+     * @return nombre de comptadors mensuals corregits
+     */
+    int reconcile();
+}
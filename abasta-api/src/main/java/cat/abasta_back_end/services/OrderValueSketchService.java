@@ -0,0 +1,60 @@
+package cat.abasta_back_end.services;
+
+import cat.abasta_back_end.analytics.QuantileSketch;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Interfície de servei per mantenir i consultar els histogrames d'imports de comandes.
+ *
+ * <p>Per cada empresa, proveïdor i mes de creació es guarda un {@link QuantileSketch} amb
+ * l'import total de cada comanda activa. S'actualitza dins de la transacció que modifica la
+ * comanda i, com que els histogrames es poden fusionar, els percentils de qualsevol període
+ * s'obtenen sense llegir comandes, amb un cost proporcional al nombre de cubs.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+public interface OrderValueSketchService {
+
+    /**
+     * Histograma d'un proveïdor i un mes.
+     *
+     * @param supplierId identificador del proveïdor
+     * @param month mes de creació de les comandes
+     * @param sketch histograma dels imports, en cèntims
+     */
+    record SketchRow(Long supplierId, YearMonth month, QuantileSketch sketch) {
+    }
+
+    /**
+     * Aplica als histogrames el canvi d'una comanda: treu l'import anterior i afegeix el nou
+     * si la comanda és activa. Ha de cridar-se dins de la transacció que guarda la comanda.
+     *
+     * @param before estat anterior de la comanda, o null si és nova
+     * @param after estat nou de la comanda
+     */
+    void applyChange(OrderRollupService.Snapshot before, OrderRollupService.Snapshot after);
+
+    /**
+     * Retorna els histogrames d'una empresa entre dos mesos, inclosos.
+     *
+     * @param companyId identificador de l'empresa
+     * @param supplierId proveïdor per filtrar, o null per a tots
+     * @param from primer mes
+     * @param to últim mes
+     * @return un histograma per proveïdor i mes amb alguna comanda
+     */
+    List<SketchRow> getSketches(Long companyId, Long supplierId, YearMonth from, YearMonth to);
+
+    /**
+     * Recalcula a partir de les comandes els histogrames de totes les empreses d'un mes, cada
+     * empresa per separat.
+     *
+     * @param month mes a recalcular
+     * @return nombre d'histogrames guardats
+     */
+    int rebuildMonth(YearMonth month);
+}
@@ -0,0 +1,61 @@
+package cat.abasta_back_end.services;
+
+import cat.abasta_back_end.dto.PeriodRequestDTO;
+import cat.abasta_back_end.dto.ReportJobFormat;
+import cat.abasta_back_end.dto.ReportJobResponseDTO;
+
+import java.nio.file.Path;
+
+/**
+ * Interfície de servei per generar informes globals en segon pla.
+ *
+ * <p>Els informes de períodes llargs poden trigar més que el temps d'espera del proxy. En lloc
+ * d'ocupar un fil de Tomcat i una connexió durant tot el càlcul, el client demana l'informe,
+ * rep un identificador i en consulta l'estat fins que el resultat és disponible.</p>
+ *
+ * <p>Tots els mètodes treballen amb l'empresa de l'usuari autenticat: un informe d'una altra
+ * empresa es tracta com si no existís.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+public interface ReportJobService {
+
+    /**
+     * Posa a la cua un informe global de l'empresa de l'usuari autenticat.
+     *
+     * @param period període de l'informe
+     * @param format format del resultat
+     * @return l'estat inicial de l'informe, amb el seu identificador
+     * @throws cat.abasta_back_end.exceptions.TooManyRequestsException si la cua és plena
+     */
+    ReportJobResponseDTO submit(PeriodRequestDTO period, ReportJobFormat format);
+
+    /**
+     * Retorna l'estat d'un informe i, si és JSON i s'ha completat, el resultat.
+     *
+     * @param uuid identificador de l'informe
+     * @return l'estat de l'informe
+     * @throws cat.abasta_back_end.exceptions.ResourceNotFoundException si no existeix, és d'una altra
+     * empresa o el resultat ja ha caducat
+     */
+    ReportJobResponseDTO getJob(String uuid);
+
+    /**
+     * Retorna el fitxer PDF d'un informe completat.
+     *
+     * @param uuid identificador de l'informe
+     * @return ruta del fitxer PDF
+     * @throws cat.abasta_back_end.exceptions.ResourceNotFoundException si no existeix, és d'una altra
+     * empresa, no és un PDF completat o el resultat ja ha caducat
+     */
+    Path getPdfResult(String uuid);
+
+    /**
+     * Elimina els informes finalitzats, i els seus fitxers, que han superat el temps de vida.
+     *
+     * @return nombre d'informes eliminats
+     */
+    int cleanup();
+}
@@ -2,6 +2,8 @@ package cat.abasta_back_end.services;
 
 import cat.abasta_back_end.dto.*;
 
+import java.io.OutputStream;
+
 
 /**
  * Interfície que defineix les operacions de negoci per a la gestió d'informes i estadístiques.
@@ -32,6 +34,16 @@ public interface ReportService {
      */
     ReportGlobalResponseDTO globalInfo(PeriodRequestDTO dto);
 
+    /**
+     * Obté informació de comandes / proveïdors / productes d'una empresa concreta.
+     * No depèn de l'usuari autenticat; s'utilitza per generar informes en segon pla.
+     *
+     * @param companyId identificador de l'empresa
+     * @param dto periode de temps
+     * @return La informació corresponent com a {@link ReportGlobalResponseDTO}.
+     */
+    ReportGlobalResponseDTO globalInfo(Long companyId, PeriodRequestDTO dto);
+
     /**
      * Genera un pdf amb les dades del report demanat
      *
@@ -40,4 +52,39 @@ public interface ReportService {
      */
     byte[] generateGlobalInfoPDF(ReportGlobalResponseDTO dto);
 
+    /**
+     * Escriu el pdf amb les dades del report directament a un flux de sortida,
+     * sense construir tot el document en memòria.
+     *
+     * @param dto amb la informació del report
+     * @param out flux on s'escriu el pdf; no es tanca
+     */
+    void writeGlobalInfoPDF(ReportGlobalResponseDTO dto, OutputStream out);
+
+    /**
+     * Obté la sèrie temporal de comandes i despesa d'un període, a partir dels acumulats diaris.
+     *
+     * @param dto període, granularitat i filtres opcionals de proveïdor o producte
+     * @return La sèrie corresponent com a {@link TimeSeriesResponseDTO}.
+     */
+    TimeSeriesResponseDTO timeSeries(TimeSeriesRequestDTO dto);
+
+    /**
+     * Agrupa les línies de les comandes actives d'un període per proveïdor, producte o període,
+     * a partir de les línies en memòria.
+     *
+     * @param dto període, dimensió d'agrupació i filtres opcionals de proveïdor o producte
+     * @return Les files agregades com a {@link PivotResponseDTO}.
+     */
+    PivotResponseDTO pivot(PivotRequestDTO dto);
+
+    /**
+     * Obté la mediana i els percentils 90 i 99 de l'import de les comandes actives dels mesos
+     * del període, fusionant els histogrames mensuals per proveïdor.
+     *
+     * @param dto període, agrupació opcional per proveïdor o mes i filtre opcional de proveïdor
+     * @return Els percentils com a {@link PercentilesResponseDTO}.
+     */
+    PercentilesResponseDTO orderValuePercentiles(PercentilesRequestDTO dto);
+
 }
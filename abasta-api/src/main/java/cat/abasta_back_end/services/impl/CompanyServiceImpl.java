@@ -10,10 +10,10 @@ import cat.abasta_back_end.exceptions.DuplicateResourceException;
 import cat.abasta_back_end.exceptions.ResourceNotFoundException;
 import cat.abasta_back_end.repositories.CompanyRepository;
 import cat.abasta_back_end.repositories.UserRepository;
+import cat.abasta_back_end.security.AuthenticatedUser;
 import cat.abasta_back_end.services.CompanyService;
 import cat.abasta_back_end.services.EmailService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,8 +21,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
-import static cat.abasta_back_end.entities.User.UserRole.ADMIN;
-
 /**
  * Implementació del servei de gestió d'empreses
  * Conté la lògica de negoci per operacions CRUD d'empresa.
@@ -167,18 +165,13 @@ public class CompanyServiceImpl implements CompanyService {
      * @throws ResourceNotFoundException si l'usuari no existeix o no té empresa assignada
      */
     private String getCompanyUuidFromAuthenticatedUser() {
-        String username = SecurityContextHolder.getContext()
-                .getAuthentication()
-                .getName();
-
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuari no trobat: " + username));
+        AuthenticatedUser principal = AuthenticatedUser.current(userRepository);
 
-        if (user.getCompany() == null || user.getCompany().getUuid() == null) {
+        if (principal.getCompanyUuid() == null) {
             throw new ResourceNotFoundException("L'usuari no té empresa assignada");
         }
 
-        return user.getCompany().getUuid();
+        return principal.getCompanyUuid();
     }
 
     /**
@@ -193,14 +186,7 @@ public class CompanyServiceImpl implements CompanyService {
      * @throws ResourceNotFoundException si l'usuari autenticat no existeix a la base de dades
      */
     private Boolean isAdminUser() {
-        String username = SecurityContextHolder.getContext()
-                .getAuthentication()
-                .getName();
-
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuari no trobat: " + username));
-
-        return user.getRole() == ADMIN;
+        return AuthenticatedUser.current(userRepository).isAdmin();
     }
 
     /**
@@ -0,0 +1,278 @@
+package cat.abasta_back_end.services.impl;
+
+import cat.abasta_back_end.events.EmailQueuedEvent;
+import cat.abasta_back_end.mail.SmtpConnectionPool;
+import cat.abasta_back_end.services.EmailOutboxService;
+import cat.abasta_back_end.services.EmailOutboxService.OutboxEmail;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Procés en segon pla que envia els correus de la bústia de sortida.
+ *
+ * <p>Es desperta quan es confirma una transacció que ha encuat un correu
+ * ({@link EmailQueuedEvent}) i, per recollir reintents i reserves caducades, cada
+ * {@code app.mail.outbox.poll-interval-ms}. Cada vegada reclama correus en lots de
+ * {@code app.mail.outbox.batch-size}, fins que la bústia no en té cap per enviar. Cada lot es
+ * reparteix entre les connexions del {@link SmtpConnectionPool}: cada part s'envia en un fil
+ * virtual, seguida per una mateixa connexió ja autenticada. Només hi ha una ronda d'enviament en
+ * curs: els avisos que arriben mentre s'envia fan que se'n faci una altra en acabar.</p>
+ *
+ * <p>Exposa comptadors de correus enviats, d'intents fallits que es tornaran a provar i de
+ * correus que han esgotat els intents.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @see EmailOutboxService
+ * @since 2025
+ */
+@Slf4j
+@Component
+public class EmailDispatcher {
+
+    private final EmailOutboxService outboxService;
+    private final JavaMailSender mailSender;
+    private final SmtpConnectionPool connectionPool;
+    private final String fromEmail;
+    private final int batchSize;
+
+    private final ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean wakeRequested = new AtomicBoolean();
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder dead = new LongAdder();
+
+    /**
+     * Crea el procés amb la configuració de l'aplicació.
+     *
+     * @param outboxService bústia de sortida de correus
+     * @param mailSender client JavaMail per construir els missatges
+     * @param connectionPool pool de connexions SMTP per enviar-los
+     * @param fromEmail adreça d'origen dels correus
+     * @param batchSize nombre màxim de correus reclamats alhora
+     */
+    @Autowired
+    public EmailDispatcher(EmailOutboxService outboxService, JavaMailSender mailSender,
+                           SmtpConnectionPool connectionPool,
+                           @Value("${spring.mail.username}") String fromEmail,
+                           @Value("${app.mail.outbox.batch-size:50}") int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("La mida del lot ha de ser positiva");
+        }
+        this.outboxService = outboxService;
+        this.mailSender = mailSender;
+        this.connectionPool = connectionPool;
+        this.fromEmail = fromEmail;
+        this.batchSize = batchSize;
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("email-dispatcher-", 0).factory());
+    }
+
+    /**
+     * Desperta el procés un cop confirmada la transacció que ha encuat un correu.
+     *
+     * @param event correu encuat
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmailQueued(EmailQueuedEvent event) {
+        wakeUp();
+    }
+
+    /**
+     * Revisa la bústia periòdicament segons {@code app.mail.outbox.poll-interval-ms}
+     * (15 segons per defecte), per enviar els reintents que ja toquen.
+     */
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval-ms:15000}")
+    public void scheduledPoll() {
+        wakeUp();
+    }
+
+    /**
+     * Elimina els correus enviats antics segons {@code app.mail.outbox.purge-cron}.
+     */
+    @Scheduled(cron = "${app.mail.outbox.purge-cron:0 30 3 * * *}")
+    public void scheduledPurge() {
+        int removed = outboxService.purgeSent();
+        if (removed > 0) {
+            log.info("Eliminats {} correus enviats de la bústia de sortida", removed);
+        }
+    }
+
+    /**
+     * Demana una ronda d'enviament. Si ja n'hi ha una en curs, aquesta en farà una altra en acabar.
+     */
+    public void wakeUp() {
+        wakeRequested.set(true);
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::run);
+        } catch (RejectedExecutionException e) {
+            // L'aplicació s'està aturant; els correus queden a la bústia
+            running.set(false);
+        }
+    }
+
+    /**
+     * Envia tots els correus que ja toca enviar.
+     *
+     * @return nombre de correus reclamats, enviats o no
+     */
+    public int drain() {
+        int processed = 0;
+        List<OutboxEmail> batch;
+        while (!(batch = outboxService.claim(batchSize)).isEmpty()) {
+            List<OutboxEmail> emails = new ArrayList<>(batch.size());
+            List<MimeMessage> messages = new ArrayList<>(batch.size());
+            for (OutboxEmail email : batch) {
+                try {
+                    messages.add(buildMessage(email));
+                    emails.add(email);
+                } catch (MessagingException e) {
+                    failed(email, e.getMessage());
+                }
+            }
+
+            // Una part del lot per connexió, perquè cada connexió enviï seguit
+            int parts = Math.max(1, Math.min(connectionPool.getMaxConnections(), messages.size()));
+            int partSize = (messages.size() + parts - 1) / parts;
+            List<Future<Map<MimeMessage, MessagingException>>> deliveries = new ArrayList<>(parts);
+            for (int from = 0; from < messages.size(); from += partSize) {
+                List<MimeMessage> part = messages.subList(from, Math.min(from + partSize, messages.size()));
+                deliveries.add(executor.submit(() -> connectionPool.send(part)));
+            }
+
+            for (int index = 0; index < deliveries.size(); index++) {
+                int from = index * partSize;
+                int to = Math.min(from + partSize, messages.size());
+                Map<MimeMessage, MessagingException> failures;
+                try {
+                    failures = deliveries.get(index).get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return processed;
+                } catch (ExecutionException e) {
+                    log.error("Error inesperat en enviar un lot de correus de la bústia", e.getCause());
+                    for (int i = from; i < to; i++) {
+                        failed(emails.get(i), String.valueOf(e.getCause()));
+                    }
+                    continue;
+                }
+
+                for (int i = from; i < to; i++) {
+                    MessagingException failure = failures.get(messages.get(i));
+                    if (failure == null) {
+                        sent(emails.get(i));
+                    } else {
+                        failed(emails.get(i), failure.getMessage());
+                    }
+                }
+            }
+            processed += batch.size();
+        }
+        return processed;
+    }
+
+    /**
+     * Atura els enviaments en curs en tancar l'aplicació. Els correus reclamats i no marcats es
+     * tornaran a enviar quan caduqui la reserva.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return nombre de correus enviats
+     */
+    public long getSentCount() {
+        return sent.sum();
+    }
+
+    /**
+     * @return nombre d'intents fallits que es tornaran a provar
+     */
+    public long getRetriedCount() {
+        return retried.sum();
+    }
+
+    /**
+     * @return nombre de correus que han esgotat els intents
+     */
+    public long getDeadCount() {
+        return dead.sum();
+    }
+
+    /**
+     * Fa rondes d'enviament mentre n'hi hagi de demanades.
+     */
+    private void run() {
+        try {
+            while (wakeRequested.getAndSet(false)) {
+                drain();
+            }
+        } catch (RuntimeException e) {
+            log.error("Error en revisar la bústia de sortida: {}", e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+        // Un avís arribat entre l'última ronda i l'alliberament no s'ha de perdre
+        if (wakeRequested.get()) {
+            wakeUp();
+        }
+    }
+
+    /**
+     * Construeix el missatge HTML d'un correu de la bústia.
+     */
+    private MimeMessage buildMessage(OutboxEmail email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+        helper.setFrom(fromEmail);
+        helper.setTo(email.recipient());
+        helper.setSubject(email.subject());
+        helper.setText(email.body(), true); // true = HTML
+        return message;
+    }
+
+    private void sent(OutboxEmail email) {
+        outboxService.markSent(email.id());
+        sent.increment();
+        log.info("Correu {} enviat a: {}", email.id(), email.recipient());
+    }
+
+    private void failed(OutboxEmail email, String error) {
+        if (outboxService.markFailed(email, error)) {
+            dead.increment();
+            log.error("El correu {} a {} ha esgotat els {} intents: {}",
+                    email.id(), email.recipient(), email.attempts(), error);
+        } else {
+            retried.increment();
+            log.warn("Error en enviar el correu {} a {} (intent {}): {}",
+                    email.id(), email.recipient(), email.attempts(), error);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package cat.abasta_back_end.services.impl;
+
+import cat.abasta_back_end.events.EmailQueuedEvent;
+import cat.abasta_back_end.services.EmailOutboxService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Implementació amb JDBC de la bústia de sortida de correus.
+ *
+ * <p>Per reclamar correus es llegeixen els candidats i cadascun es reserva amb un
+ * {@code UPDATE} condicionat al mateix criteri: si dues instàncies reclamen alhora, només una
+ * modifica la fila. La reserva dura {@code app.mail.outbox.lease-seconds}; si el procés cau
+ * abans de marcar el correu, un altre el torna a reclamar quan caduca. Per això un correu es
+ * pot enviar més d'una vegada, però mai es perd.</p>
+ *
+ * <p>Els intents fallits s'espaien exponencialment a partir de
+ * {@code app.mail.outbox.initial-backoff-seconds}, fins a
+ * {@code app.mail.outbox.max-backoff-seconds}. Després de {@code app.mail.outbox.max-attempts}
+ * intents el correu queda en estat {@code DEAD} amb l'últim error.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @see EmailOutboxService
+ * @since 2025
+ */
+@Slf4j
+@Service
+public class EmailOutboxServiceImpl implements EmailOutboxService {
+
+    /**
+     * Longitud màxima de l'error guardat, la de la columna {@code last_error}.
+     */
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO email_outbox (recipient, subject, body, status, attempts, next_attempt_at, created_at)
+            VALUES (?, ?, ?, 'PENDING', 0, ?, ?)
+            """;
+
+    private static final String CLAIMABLE = """
+            ((status = 'PENDING' AND next_attempt_at <= ?) OR (status = 'SENDING' AND locked_until < ?))
+            """;
+
+    private static final String CANDIDATES_SQL = """
+            SELECT id, recipient, subject, body, attempts
+            FROM email_outbox
+            WHERE %s
+            ORDER BY next_attempt_at, id
+            LIMIT ?
+            """.formatted(CLAIMABLE);
+
+    private static final String CLAIM_SQL = """
+            UPDATE email_outbox SET status = 'SENDING', locked_until = ?, attempts = attempts + 1
+            WHERE id = ? AND %s
+            """.formatted(CLAIMABLE);
+
+    private static final String SENT_SQL = """
+            UPDATE email_outbox SET status = 'SENT', sent_at = ?, locked_until = NULL, last_error = NULL
+            WHERE id = ?
+            """;
+
+    private static final String RETRY_SQL = """
+            UPDATE email_outbox SET status = 'PENDING', next_attempt_at = ?, locked_until = NULL, last_error = ?
+            WHERE id = ? AND status = 'SENDING'
+            """;
+
+    private static final String DEAD_SQL = """
+            UPDATE email_outbox SET status = 'DEAD', locked_until = NULL, last_error = ?
+            WHERE id = ? AND status = 'SENDING'
+            """;
+
+    private static final String PURGE_SQL = "DELETE FROM email_outbox WHERE status = 'SENT' AND sent_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxAttempts;
+    private final long initialBackoffSeconds;
+    private final long maxBackoffSeconds;
+    private final long leaseSeconds;
+    private final int retentionDays;
+
+    /**
+     * Crea el servei amb la configuració de l'aplicació.
+     *
+     * @param jdbcTemplate accés JDBC a la base de dades
+     * @param eventPublisher publicador de l'esdeveniment de correu encuat
+     * @param maxAttempts intents abans de deixar un correu en estat {@code DEAD}
+     * @param initialBackoffSeconds espera abans del segon intent, en segons
+     * @param maxBackoffSeconds espera màxima entre intents, en segons
+     * @param leaseSeconds segons que un correu reclamat queda reservat
+     * @param retentionDays dies que es conserven els correus enviats
+     */
+    @Autowired
+    public EmailOutboxServiceImpl(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher,
+                                  @Value("${app.mail.outbox.max-attempts:8}") int maxAttempts,
+                                  @Value("${app.mail.outbox.initial-backoff-seconds:30}") long initialBackoffSeconds,
+                                  @Value("${app.mail.outbox.max-backoff-seconds:3600}") long maxBackoffSeconds,
+                                  @Value("${app.mail.outbox.lease-seconds:120}") long leaseSeconds,
+                                  @Value("${app.mail.outbox.retention-days:7}") int retentionDays) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("El nombre d'intents ha de ser positiu");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffSeconds = initialBackoffSeconds;
+        this.maxBackoffSeconds = maxBackoffSeconds;
+        this.leaseSeconds = leaseSeconds;
+        this.retentionDays = retentionDays;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public long enqueue(String recipient, String subject, String body) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT_SQL, new String[]{"id"});
+            ps.setString(1, recipient);
+            ps.setString(2, subject);
+            ps.setString(3, body);
+            ps.setTimestamp(4, now);
+            ps.setTimestamp(5, now);
+            return ps;
+        }, keyHolder);
+
+        long id = Objects.requireNonNull(keyHolder.getKey()).longValue();
+        eventPublisher.publishEvent(new EmailQueuedEvent(id));
+        log.debug("Correu {} encuat per a {}", id, recipient);
+        return id;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public List<OutboxEmail> claim(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp nowTs = Timestamp.valueOf(now);
+        Timestamp lockedUntil = Timestamp.valueOf(now.plusSeconds(leaseSeconds));
+
+        List<OutboxEmail> candidates = jdbcTemplate.query(CANDIDATES_SQL, (rs, rowNum) -> new OutboxEmail(
+                rs.getLong("id"),
+                rs.getString("recipient"),
+                rs.getString("subject"),
+                rs.getString("body"),
+                rs.getInt("attempts")), nowTs, nowTs, limit);
+
+        List<OutboxEmail> claimed = new ArrayList<>(candidates.size());
+        for (OutboxEmail candidate : candidates) {
+            // Si una altra instància l'ha reclamat entre la lectura i l'UPDATE, no es modifica cap fila
+            if (jdbcTemplate.update(CLAIM_SQL, lockedUntil, candidate.id(), nowTs, nowTs) == 1) {
+                claimed.add(new OutboxEmail(candidate.id(), candidate.recipient(), candidate.subject(),
+                        candidate.body(), candidate.attempts() + 1));
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void markSent(long id) {
+        jdbcTemplate.update(SENT_SQL, Timestamp.valueOf(LocalDateTime.now()), id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public boolean markFailed(OutboxEmail email, String error) {
+        String lastError = error == null || error.length() <= MAX_ERROR_LENGTH
+                ? error
+                : error.substring(0, MAX_ERROR_LENGTH);
+
+        if (email.attempts() >= maxAttempts) {
+            jdbcTemplate.update(DEAD_SQL, lastError, email.id());
+            return true;
+        }
+
+        LocalDateTime nextAttempt = LocalDateTime.now().plusSeconds(backoffSeconds(email.attempts()));
+        jdbcTemplate.update(RETRY_SQL, Timestamp.valueOf(nextAttempt), lastError, email.id());
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public int purgeSent() {
+        return jdbcTemplate.update(PURGE_SQL, Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays)));
+    }
+
+    /**
+     * Espera abans del següent intent: es dobla a cada intent fallit, fins al màxim.
+     *
+     * @param attempts intents fets
+     * @return segons d'espera
+     */
+    long backoffSeconds(int attempts) {
+        int doublings = Math.min(Math.max(attempts - 1, 0), 30);
+        return Math.min(initialBackoffSeconds << doublings, maxBackoffSeconds);
+    }
+}
@@ -1,35 +1,41 @@
 package cat.abasta_back_end.services.impl;
 
+import cat.abasta_back_end.mail.EmailTemplate;
+import cat.abasta_back_end.services.EmailOutboxService;
 import cat.abasta_back_end.services.EmailService;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 /**
  * Implementació del servei d'enviament de correus electrònics.
  * Gestiona l'enviament de diferents tipus de correus relacionats amb l'autenticació i la verificació.
  *
- * <p>Utilitza JavaMailSender per enviar correus HTML amb format professional.
- * Tots els correus inclouen plantilles HTML responsives amb estils inline.</p>
+ * <p>Construeix correus HTML amb format professional i els guarda a la bústia de sortida
+ * ({@link EmailOutboxService}) dins de la transacció en curs; l'enviament per SMTP el fa en
+ * segon pla l'{@link EmailDispatcher}, de manera que les peticions no esperen el servidor de
+ * correu. Tots els correus inclouen plantilles HTML responsives amb estils inline.</p>
+ *
+ * <p>Les plantilles es compilen una sola vegada en carregar la classe ({@link EmailTemplate}) i
+ * les dades que hi arriben de l'usuari s'escapen per HTML en renderitzar-les.</p>
  *
  * <p>Els correus enviats inclouen:
  * <ul>
  *   <li>Recuperació de contrasenya amb enllaç temporal</li>
  *   <li>Verificació d'email per a usuaris estàndard</li>
  *   <li>Verificació d'empresa per a administradors</li>
- *   <li>Notificacions de comandes</li>
+ *   <li>Notificacions de comandes, individuals o agrupades per proveïdor</li>
  * </ul>
  * </p>
  *
  * @author Enrique Pérez
  * @version 1.0
  * @see EmailService
- * @see JavaMailSender
+ * @see EmailOutboxService
+ * @see EmailTemplate
  * @since 2025
  */
 @Service
@@ -38,165 +44,9 @@ import org.springframework.stereotype.Service;
 public class EmailServiceImpl implements EmailService {
 
     /**
-     * Client JavaMail per enviar correus electrònics.
-     * Injectat automàticament per Spring.
-     */
-    private final JavaMailSender mailSender;
-
-    /**
-     * Adreça de correu electrònic d'origen configurada a application.properties.
-     * S'obté de la propietat spring.mail.username.
-     */
-    @Value("${spring.mail.username}")
-    private String fromEmail;
-
-    /**
-     * URL del frontend de l'aplicació per generar enllaços de verificació.
-     * S'obté de la propietat app.frontend.url amb valor per defecte https://deveps.ddns.net/abasta.
-     */
-    @Value("${app.frontend.url:https://deveps.ddns.net/abasta}")
-    private String frontendUrl;
-
-    /**
-     * {@inheritDoc}
-     * <p>
-     * Envia un correu HTML amb un enllaç per restablir la contrasenya.
-     * L'enllaç inclou un token de seguretat que expira després d'1 hora.
-     *
-     * @throws RuntimeException si es produeix un error en l'enviament del correu
+     * Plantilla del correu de recuperació de contrasenya.
      */
-    @Override
-    public void sendPasswordResetEmail(String to, String token, String userName) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom(fromEmail);
-            helper.setTo(to);
-            helper.setSubject("Recuperació de Contrasenya - Abasta");
-            helper.setText(buildPasswordResetEmailBody(token, userName), true); // true = HTML
-
-            mailSender.send(message);
-            log.info("Email de recuperació enviat a: {}", to);
-        } catch (MessagingException e) {
-            log.error("Error en enviar l'email de recuperació: {}", e.getMessage());
-            throw new RuntimeException("Error en enviar l'email de recuperació");
-        }
-    }
-
-    /**
-     * {@inheritDoc}
-     * <p>
-     * Envia un correu HTML amb un enllaç per verificar l'adreça de correu electrònic.
-     * L'enllaç inclou un token de verificació que expira després de 24 hores.
-     * Aquest mètode s'utilitza per a usuaris estàndard (no administradors d'empresa).
-     *
-     * @throws RuntimeException si es produeix un error en l'enviament del correu
-     */
-    @Override
-    public void sendEmailVerification(String to, String token, String userName) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom(fromEmail);
-            helper.setTo(to);
-            helper.setSubject("Verifica el teu compte d'Abasta");
-            helper.setText(buildEmailVerificationBody(token, userName), true); // true = HTML
-
-            mailSender.send(message);
-            log.info("Email de verificació enviat a: {}", to);
-        } catch (MessagingException e) {
-            log.error("Error en enviar l'email de verificació: {}", e.getMessage());
-            throw new RuntimeException("Error en enviar l'email de verificació");
-        }
-    }
-
-    /**
-     * {@inheritDoc}
-     * <p>
-     * Envia un correu HTML especial per a administradors d'empresa amb informació
-     * sobre la verificació i activació de l'empresa. L'enllaç inclou un token que
-     * expira després de 24 hores.
-     *
-     * <p>Aquest correu inclou informació addicional sobre els privilegis d'administrador
-     * i les funcionalitats que estarán disponibles després de la verificació.</p>
-     *
-     * @throws RuntimeException si es produeix un error en l'enviament del correu
-     */
-    @Override
-    public void sendCompanyAdminVerification(String to, String token, String userName, String companyName) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom(fromEmail);
-            helper.setTo(to);
-            helper.setSubject("¡Benvingut a Abasta! - Verifica la teva empresa");
-            helper.setText(buildCompanyAdminVerificationBody(token, userName, companyName), true);
-
-            mailSender.send(message);
-            log.info("Email de verificació d'empresa enviat a: {} per a l'empresa: {}", to, companyName);
-        } catch (MessagingException e) {
-            log.error("Error en enviar l'email de verificació de l'empresa: {}", e.getMessage());
-            throw new RuntimeException("Error en enviar l'email de verificació d'empresa");
-        }
-    }
-
-    /**
-     * {@inheritDoc}
-     * <p>
-     * Envia un correu HTML amb els detalls d'una comanda al proveïdor.
-     * El correu inclou el nom de la comanda, els productes sol·licitats,
-     * i notes addicionals si n'hi ha.
-     *
-     * @throws RuntimeException si es produeix un error en l'enviament del correu
-     */
-    @Override
-    public void sendOrderNotification(String to, String supplierName, String companyName,
-                                      String companyAddress, String companyPhone,
-                                      String orderName, String orderDetails,
-                                      String notes) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom(fromEmail);
-            helper.setTo(to);
-            helper.setSubject("Nova Comanda - " + orderName + " - Abasta");
-            helper.setText(buildOrderNotificationBody(supplierName, companyName, companyAddress, companyPhone,
-                    orderName, orderDetails, notes), true);
-
-            mailSender.send(message);
-            log.info("Email de comanda enviat a: {} per a la comanda: {}", to, orderName);
-        } catch (MessagingException e) {
-            log.error("Error en enviar l'email de comanda: {}", e.getMessage());
-            throw new RuntimeException("Error en enviar l'email de comanda");
-        }
-    }
-
-    /**
-     * Construeix el cos HTML del correu de recuperació de contrasenya.
-     *
-     * <p>La plantilla HTML inclou:
-     * <ul>
-     *   <li>Capçalera amb el logo i nom d'Abasta</li>
-     *   <li>Missatge personalitzat amb el nom de l'usuari</li>
-     *   <li>Botó destacat amb l'enllaç de restabliment</li>
-     *   <li>Advertència sobre l'expiració del token (1 hora)</li>
-     *   <li>Nota de seguretat si no va sol·licitar el canvi</li>
-     *   <li>Peu de pàgina amb informació de contacte</li>
-     * </ul>
-     * </p>
-     *
-     * @param token    el token únic de restabliment de contrasenya
-     * @param userName el nom de l'usuari per personalitzar el missatge
-     * @return el cos HTML del correu com a String
-     */
-    private String buildPasswordResetEmailBody(String token, String userName) {
-        String resetLink = frontendUrl + "/reset-password?token=" + token;
-
-        return """
+    private static final EmailTemplate PASSWORD_RESET_TEMPLATE = EmailTemplate.compile("""
                  <!DOCTYPE html>
                         <html lang="ca">
                         <head>
@@ -205,13 +55,13 @@ public class EmailServiceImpl implements EmailService {
                             <title>Recuperació de Contrasenya</title>
                         </head>
                         <body style="margin: 0; padding: 0; font-family: Arial, sans-serif; background-color: #f4f4f4;">
-                            <table width="100%%" cellpadding="0" cellspacing="0" style="background-color: #f4f4f4; padding: 20px;">
+                            <table width="100%" cellpadding="0" cellspacing="0" style="background-color: #f4f4f4; padding: 20px;">
                                 <tr>
                                     <td align="center">
                                         <table width="600" cellpadding="0" cellspacing="0" style="background-color: #ffffff; border-radius: 8px; overflow: hidden; box-shadow: 0 2px 4px rgba(0,0,0,0.1);">
                                             <!-- Header -->
                                             <tr>
-                                                <td style="background: linear-gradient(135deg, #667eea 0%%, #764ba2 100%%); padding: 40px 20px; text-align: center;">
+                                                <td style="background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); padding: 40px 20px; text-align: center;">
                                                     <h1 style="color: #ffffff; margin: 0; font-size: 28px;">Abasta</h1>
                                                 </td>
                                             </tr>
@@ -219,16 +69,16 @@ public class EmailServiceImpl implements EmailService {
                                             <!-- Body -->
                                             <tr>
                                                 <td style="padding: 40px 30px;">
-                                                    <h2 style="color: #333333; margin-top: 0;">Hola %s,</h2>
+                                                    <h2 style="color: #333333; margin-top: 0;">Hola {{userName}},</h2>
                                                     <p style="color: #666666; font-size: 16px; line-height: 1.6;">
                                                         Has sol·licitat restablir la teva contrasenya. Fes clic al botó de sota per crear una contrasenya nova:
                                                     </p>
                 
                                                     <!-- Button -->
-                                                    <table width="100%%" cellpadding="0" cellspacing="0" style="margin: 30px 0;">
+                                                    <table width="100%" cellpadding="0" cellspacing="0" style="margin: 30px 0;">
                                                         <tr>
                                                             <td align="center">
-                                                                <a href="%s" style="display: inline-block; padding: 16px 40px; background: linear-gradient(135deg, #667eea 0%%, #764ba2 100%%); color: #ffffff; text-decoration: none; border-radius: 5px; font-weight: bold; font-size: 16px; box-shadow: 0 4px 15px rgba(102, 126, 234, 0.4);">
+                                                                <a href="{{resetLink}}" style="display: inline-block; padding: 16px 40px; background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); color: #ffffff; text-decoration: none; border-radius: 5px; font-weight: bold; font-size: 16px; box-shadow: 0 4px 15px rgba(102, 126, 234, 0.4);">
                                                                     Restablir Contrasenya
                                                                 </a>
                                                             </td>
@@ -236,7 +86,7 @@ public class EmailServiceImpl implements EmailService {
                                                     </table>
                 
                                                     <!-- Timer Info -->
-                                                    <table width="100%%" cellpadding="0" cellspacing="0" style="margin: 20px 0; background-color: #fff3cd; border-radius: 6px;">
+                                                    <table width="100%" cellpadding="0" cellspacing="0" style="margin: 20px 0; background-color: #fff3cd; border-radius: 6px;">
                                                         <tr>
                                                             <td style="padding: 15px; text-align: center;">
                                                                 <p style="margin: 0; color: #856404; font-size: 13px;">
@@ -260,7 +110,7 @@ public class EmailServiceImpl implements EmailService {
                                                     </p>
                                                     <p style="color: #999999; font-size: 11px; margin: 10px 0 0 0;">
                                                         Si el botó no funciona, copia i enganxa aquest enllaç al teu navegador:<br>
-                                                        <span style="color: #667eea;">%s</span>
+                                                        <span style="color: #667eea;">{{resetLink}}</span>
                                                     </p>
                                                 </td>
                                             </tr>
@@ -270,31 +120,12 @@ public class EmailServiceImpl implements EmailService {
                             </table>
                         </body>
                         </html>
-                \s""".formatted(userName, resetLink, resetLink);
-    }
+                \s""", "userName", "resetLink");
 
     /**
-     * Construeix el cos HTML del correu de verificació d'email estàndard.
-     *
-     * <p>La plantilla HTML inclou:
-     * <ul>
-     *   <li>Capçalera amb el logo d'Abasta</li>
-     *   <li>Missatge personalitzat amb el nom de l'usuari</li>
-     *   <li>Botó destacat amb l'enllaç de verificació</li>
-     *   <li>Advertència sobre l'expiració del token (24 hores)</li>
-     *   <li>Nota de seguretat si no es va registrar</li>
-     *   <li>Peu de pàgina amb l'enllaç alternatiu</li>
-     * </ul>
-     * </p>
-     *
-     * @param token    el token únic de verificació d'email
-     * @param userName el nom de l'usuari per personalitzar el missatge
-     * @return el cos HTML del correu com a String
+     * Plantilla del correu de verificació d'email.
      */
-    private String buildEmailVerificationBody(String token, String userName) {
-        String verificationLink = frontendUrl + "/verify-email?token=" + token;
-
-        return """
+    private static final EmailTemplate EMAIL_VERIFICATION_TEMPLATE = EmailTemplate.compile("""
                  <!DOCTYPE html>
                         <html lang="ca">
                         <head>
@@ -303,13 +134,13 @@ public class EmailServiceImpl implements EmailService {
                             <title>Verifica el teu Email</title>
                         </head>
                         <body style="margin: 0; padding: 0; font-family: Arial, sans-serif; background-color: #f4f4f4;">
-                            <table width="100%%" cellpadding="0" cellspacing="0" style="background-color: #f4f4f4; padding: 20px;">
+                            <table width="100%" cellpadding="0" cellspacing="0" style="background-color: #f4f4f4; padding: 20px;">
                                 <tr>
                                     <td align="center">
                                         <table width="600" cellpadding="0" cellspacing="0" style="background-color: #ffffff; border-radius: 8px; overflow: hidden; box-shadow: 0 2px 4px rgba(0,0,0,0.1);">
                                             <!-- Header -->
                                             <tr>
-                                                <td style="background: linear-gradient(135deg, #667eea 0%%, #764ba2 100%%); padding: 40px 20px; text-align: center;">
+                                                <td style="background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); padding: 40px 20px; text-align: center;">
                                                     <h1 style="color: #ffffff; margin: 0; font-size: 28px;">Abasta</h1>
                                                 </td>
                                             </tr>
@@ -317,16 +148,16 @@ public class EmailServiceImpl implements EmailService {
                                             <!-- Body -->
                                             <tr>
                                                 <td style="padding: 40px 30px;">
-                                                    <h2 style="color: #333333; margin-top: 0;">Hola %s,</h2>
+                                                    <h2 style="color: #333333; margin-top: 0;">Hola {{userName}},</h2>
                                                     <p style="color: #666666; font-size: 16px; line-height: 1.6;">
                                                         Gràcies per registrar-te a Abasta. Per completar el teu registre, si us plau verifica la teva adreça de correu electrònic.
                                                     </p>
                 
                                                     <!-- Button -->
-                                                    <table width="100%%" cellpadding="0" cellspacing="0" style="margin: 30px 0;">
+                                                    <table width="100%" cellpadding="0" cellspacing="0" style="margin: 30px 0;">
                                                         <tr>
                                                             <td align="center">
-                                                                <a href="%s" style="display: inline-block; padding: 16px 40px; background: linear-gradient(135deg, #667eea 0%%, #764ba2 100%%); color: #ffffff; text-decoration: none; border-radius: 5px; font-weight: bold; font-size: 16px; box-shadow: 0 4px 15px rgba(102, 126, 234, 0.4);">
+                                                                <a href="{{verificationLink}}" style="display: inline-block; padding: 16px 40px; background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); color: #ffffff; text-decoration: none; border-radius: 5px; font-weight: bold; font-size: 16px; box-shadow: 0 4px 15px rgba(102, 126, 234, 0.4);">
                                                                     Verificar Email
                                                                 </a>
                                                             </td>
@@ -334,7 +165,7 @@ public class EmailServiceImpl implements EmailService {
                                                     </table>
                 
                                                     <!-- Timer Info -->
-                                                    <table width="100%%" cellpadding="0" cellspacing="0" style="margin: 20px 0; background-color: #fff3cd; border-radius: 6px;">
+                                                    <table width="100%" cellpadding="0" cellspacing="0" style="margin: 20px 0; background-color: #fff3cd; border-radius: 6px;">
                                                         <tr>
                                                             <td style="padding: 15px; text-align: center;">
                                                                 <p style="margin: 0; color: #856404; font-size: 13px;">
@@ -358,7 +189,7 @@ public class EmailServiceImpl implements EmailService {
                                                     </p>
                                                     <p style="color: #999999; font-size: 11px; margin: 10px 0 0 0;">
                                                         Si el botó no funciona, copia i enganxa aquest enllaç al teu navegador:<br>
-                                                        <span style="color: #667eea;">%s</span>
+                                                        <span style="color: #667eea;">{{verificationLink}}</span>
                                                     </p>
                                                 </td>
                                             </tr>
@@ -368,33 +199,12 @@ public class EmailServiceImpl implements EmailService {
                             </table>
                         </body>
                         </html>
-                \s""".formatted(userName, verificationLink, verificationLink);
-    }
+                \s""", "userName", "verificationLink");
 
     /**
-     * Construeix el cos HTML del correu de verificació per a administradors d'empresa.
-     *
-     * <p>La plantilla HTML inclou:
-     * <ul>
-     *   <li>Capçalera amb missatge de benvinguda especial</li>
-     *   <li>Missatge personalitzat amb nom d'usuari i empresa</li>
-     *   <li>Caixa informativa amb privilegis d'administrador</li>
-     *   <li>Botó destacat amb l'enllaç de verificació i activació</li>
-     *   <li>Advertència sobre l'expiració del token (24 hores)</li>
-     *   <li>Informació sobre el panell d'administració</li>
-     *   <li>Peu de pàgina amb l'enllaç alternatiu</li>
-     * </ul>
-     * </p>
-     *
-     * @param token       el token únic de verificació
-     * @param userName    el nom de l'administrador
-     * @param companyName el nom de l'empresa a verificar i activar
-     * @return el cos HTML del correu com a String
+     * Plantilla del correu de verificació d'administrador d'empresa.
      */
-    private String buildCompanyAdminVerificationBody(String token, String userName, String companyName) {
-        String verificationLink = frontendUrl + "/verify-email?token=" + token;
-
-        return """
+    private static final EmailTemplate COMPANY_ADMIN_VERIFICATION_TEMPLATE = EmailTemplate.compile("""
                  <!DOCTYPE html>
                         <html lang="ca">
                         <head>
@@ -403,13 +213,13 @@ public class EmailServiceImpl implements EmailService {
                             <title>Verifica la teva Empresa a Abasta</title>
                         </head>
                         <body style="margin: 0; padding: 0; font-family: Arial, sans-serif; background-color: #f4f4f4;">
-                            <table width="100%%" cellpadding="0" cellspacing="0" style="background-color: #f4f4f4; padding: 20px;">
+                            <table width="100%" cellpadding="0" cellspacing="0" style="background-color: #f4f4f4; padding: 20px;">
                                 <tr>
                                     <td align="center">
                                         <table width="600" cellpadding="0" cellspacing="0" style="background-color: #ffffff; border-radius: 8px; overflow: hidden; box-shadow: 0 2px 4px rgba(0,0,0,0.1);">
                                             <!-- Header -->
                                             <tr>
-                                                <td style="background: linear-gradient(135deg, #667eea 0%%, #764ba2 100%%); padding: 40px 20px; text-align: center;">
+                                                <td style="background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); padding: 40px 20px; text-align: center;">
                                                     <h1 style="color: #ffffff; margin: 0; font-size: 28px;">🎉 Benvingut a Abasta!</h1>
                                                 </td>
                                             </tr>
@@ -417,10 +227,10 @@ public class EmailServiceImpl implements EmailService {
                                             <!-- Body -->
                                             <tr>
                                                 <td style="padding: 40px 30px;">
-                                                    <h2 style="color: #333333; margin-top: 0;">Hola %s,</h2>
+                                                    <h2 style="color: #333333; margin-top: 0;">Hola {{userName}},</h2>
                 
                                                     <p style="color: #666666; font-size: 16px; line-height: 1.6;">
-                                                        Gràcies per registrar la teva empresa <strong style="color: #667eea;">%s</strong> a Abasta!
+                                                        Gràcies per registrar la teva empresa <strong style="color: #667eea;">{{companyName}}</strong> a Abasta!
                                                     </p>
                 
                                                     <p style="color: #666666; font-size: 16px; line-height: 1.6;">
@@ -428,7 +238,7 @@ public class EmailServiceImpl implements EmailService {
                                                     </p>
                 
                                                     <!-- Info Box -->
-                                                    <table width="100%%" cellpadding="0" cellspacing="0" style="margin: 25px 0; background-color: #f0f4ff; border-radius: 8px; border-left: 4px solid #667eea;">
+                                                    <table width="100%" cellpadding="0" cellspacing="0" style="margin: 25px 0; background-color: #f0f4ff; border-radius: 8px; border-left: 4px solid #667eea;">
                                                         <tr>
                                                             <td style="padding: 20px;">
                                                                 <p style="margin: 0; color: #555555; font-size: 14px; line-height: 1.6;">
@@ -447,10 +257,10 @@ public class EmailServiceImpl implements EmailService {
                                                     </p>
                 
                                                     <!-- Button -->
-                                                    <table width="100%%" cellpadding="0" cellspacing="0" style="margin: 30px 0;">
+                                                    <table width="100%" cellpadding="0" cellspacing="0" style="margin: 30px 0;">
                                                         <tr>
                                                             <td align="center">
-                                                                <a href="%s" style="display: inline-block; padding: 16px 45px; background: linear-gradient(135deg, #667eea 0%%, #764ba2 100%%); color: #ffffff; text-decoration: none; border-radius: 5px; font-weight: bold; font-size: 16px; box-shadow: 0 4px 15px rgba(102, 126, 234, 0.4);">
+                                                                <a href="{{verificationLink}}" style="display: inline-block; padding: 16px 45px; background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); color: #ffffff; text-decoration: none; border-radius: 5px; font-weight: bold; font-size: 16px; box-shadow: 0 4px 15px rgba(102, 126, 234, 0.4);">
                                                                     Verificar i Activar Empresa
                                                                 </a>
                                                             </td>
@@ -458,7 +268,7 @@ public class EmailServiceImpl implements EmailService {
                                                     </table>
                 
                                                     <!-- Timer Info -->
-                                                    <table width="100%%" cellpadding="0" cellspacing="0" style="margin: 20px 0; background-color: #fff3cd; border-radius: 6px;">
+                                                    <table width="100%" cellpadding="0" cellspacing="0" style="margin: 20px 0; background-color: #fff3cd; border-radius: 6px;">
                                                         <tr>
                                                             <td style="padding: 15px; text-align: center;">
                                                                 <p style="margin: 0; color: #856404; font-size: 13px;">
@@ -486,7 +296,7 @@ public class EmailServiceImpl implements EmailService {
                                                     </p>
                                                     <p style="color: #999999; font-size: 11px; margin: 10px 0 0 0;">
                                                         Si el botó no funciona, copia i enganxa aquest enllaç al teu navegador:<br>
-                                                        <span style="color: #667eea;">%s</span>
+                                                        <span style="color: #667eea;">{{verificationLink}}</span>
                                                     </p>
                                                 </td>
                                             </tr>
@@ -496,121 +306,55 @@ public class EmailServiceImpl implements EmailService {
                             </table>
                         </body>
                         </html>
-                \s""".formatted(userName, companyName, verificationLink, verificationLink);
-    }
+                \s""", "userName", "companyName", "verificationLink");
 
     /**
-     * Construeix el cos HTML del correu de notificació de comanda.
-     *
-     * <p>La plantilla HTML inclou:
-     * <ul>
-     *   <li>Capçalera amb el nom de la comanda</li>
-     *   <li>Salutació personalitzada amb el nom del proveïdor</li>
-     *   <li>Nom de l'empresa que fa la comanda</li>
-     *   <li>Taula amb els detalls dels productes</li>
-     *   <li>Notes addicionals si n'hi ha</li>
-     *   <li>Informació de contacte</li>
-     * </ul>
-     * </p>
-     *
-     * @param supplierName el nom del proveïdor
-     * @param companyName  el nom de l'empresa que fa la comanda
-     * @param companyAddress  la direcció de l'empresa que fa la comanda
-     * @param companyPhone  el telèfon de l'empresa que fa la comanda
-     * @param orderName    el nom de la comanda
-     * @param orderDetails HTML amb la taula de productes
-     * @param notes notes addicionals (pot ser null)
-     * @return el cos HTML del correu com a String
+     * Plantilla del correu de notificació de comanda.
      */
-    private String buildOrderNotificationBody(String supplierName, String companyName,
-                                              String companyAddress, String companyPhone,
-                                              String orderName, String orderDetails,
-                                              String notes) {
-
-        // Construir la secció de notes si existeix
-        String notesSection = "";
-        if (notes != null && !notes.isEmpty()) {
-            notesSection = """
-                    <tr>
-                        <td style="padding: 15px 30px; border-bottom: 1px solid #eeeeee;">
-                            <p style="margin: 0 0 5px 0; color: #333333; font-size: 15px; font-weight: bold;">
-                                📝 Notes addicionals:
-                            </p>
-                            <p style="margin: 0; color: #666666; font-size: 14px; line-height: 1.6;">
-                                %s
-                            </p>
-                        </td>
-                    </tr>
-                    """.formatted(notes);
-        }
-
-        // Construir la secció de dades del client
-        String clientDataSection = """
-                <tr>
-                    <td style="padding: 20px 30px; background-color: #f8f9ff; border-bottom: 1px solid #eeeeee;">
-                        <p style="margin: 0 0 8px 0; color: #333333; font-size: 15px; font-weight: bold;">
-                            🧾 Dades del client:
-                        </p>
-                
-                        <p style="margin: 0; color: #444444; font-size: 14px; line-height: 1.5;">
-                            <strong>Empresa:</strong> %s
-                        </p>
-                
-                        <p style="margin: 0; color: #444444; font-size: 14px; line-height: 1.5;">
-                            <strong>Adreça:</strong> %s
-                        </p>
-                
-                        <p style="margin: 0; color: #444444; font-size: 14px; line-height: 1.5;">
-                            <strong>Telèfon:</strong> %s
-                        </p>
-                    </td>
-                </tr>
-                """.formatted(companyName, companyAddress, companyPhone);
-
-        return """
+    private static final EmailTemplate ORDER_NOTIFICATION_TEMPLATE = EmailTemplate.compile("""
                 <!DOCTYPE html>
                 <html lang="ca">
                 <head>
                     <meta charset="UTF-8">
                     <meta name="viewport" content="width=device-width, initial-scale=1.0">
-                    <title>Nova Comanda - %s</title>
+                    <title>Nova Comanda - {{orderName}}</title>
                 </head>
                 <body style="margin: 0; padding: 0; font-family: Arial, sans-serif; background-color: #f4f4f4;">
-                    <table width="100%%" cellpadding="0" cellspacing="0" style="background-color: #f4f4f4; padding: 20px;">
+                    <table width="100%" cellpadding="0" cellspacing="0" style="background-color: #f4f4f4; padding: 20px;">
                         <tr>
                             <td align="center">
                                 <table width="650" cellpadding="0" cellspacing="0" style="background-color: #ffffff; border-radius: 8px; overflow: hidden; box-shadow: 0 2px 4px rgba(0,0,0,0.1);">
                                     <!-- Header -->
                                     <tr>
-                                        <td style="background: linear-gradient(135deg, #667eea 0%%, #764ba2 100%%); padding: 40px 20px; text-align: center;">
+                                        <td style="background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); padding: 40px 20px; text-align: center;">
                                             <h1 style="color: #ffffff; margin: 0; font-size: 28px;">🛒 Nova Comanda</h1>
-                                            <p style="color: #ffffff; margin: 10px 0 0 0; font-size: 18px; opacity: 0.9;">%s</p>
+                                            <p style="color: #ffffff; margin: 10px 0 0 0; font-size: 18px; opacity: 0.9;">{{orderName}}</p>
                                         </td>
                                     </tr>
                 
                                     <!-- Body -->
                                     <tr>
                                         <td style="padding: 40px 30px 20px 30px;">
-                                            <h2 style="color: #333333; margin-top: 0;">Hola %s,</h2>
+                                            <h2 style="color: #333333; margin-top: 0;">Hola {{supplierName}},</h2>
                 
                                             <p style="color: #666666; font-size: 16px; line-height: 1.6;">
-                                                Has rebut una nova comanda de <strong style="color: #667eea;">%s</strong> a través de la plataforma Abasta.
+                                                Has rebut una nova comanda de <strong style="color: #667eea;">{{companyName}}</strong> a través de la plataforma Abasta.
                                                  A continuació trobaràs els detalls:
                                             </p>
                                         </td>
                                     </tr>
                 
                                     <!-- Client Data -->
-                                    %s
+                                    {{{clientData}}}
                 
                                     <!-- Order Details -->
                                     <tr>
                                         <td style="padding: 0 30px;">
-                                            %s
+                                            {{{orderDetails}}}
                                         </td>
                                     </tr>
                 
-                                    %s  <!-- notes -->
+                                    {{{notes}}}  <!-- notes -->
                 
                                     <!-- Contact Info -->
                                     <tr>
@@ -642,14 +386,394 @@ public class EmailServiceImpl implements EmailService {
                     </table>
                 </body>
                 </html>
-                """.formatted(
-                orderName,
+                """, "orderName", "supplierName", "companyName", "clientData", "orderDetails", "notes");
+
+    /**
+     * Plantilla del correu que agrupa diverses comandes.
+     */
+    private static final EmailTemplate ORDER_DIGEST_TEMPLATE = EmailTemplate.compile("""
+                <!DOCTYPE html>
+                <html lang="ca">
+                <head>
+                    <meta charset="UTF-8">
+                    <meta name="viewport" content="width=device-width, initial-scale=1.0">
+                    <title>Noves Comandes - {{companyName}}</title>
+                </head>
+                <body style="margin: 0; padding: 0; font-family: Arial, sans-serif; background-color: #f4f4f4;">
+                    <table width="100%" cellpadding="0" cellspacing="0" style="background-color: #f4f4f4; padding: 20px;">
+                        <tr>
+                            <td align="center">
+                                <table width="650" cellpadding="0" cellspacing="0" style="background-color: #ffffff; border-radius: 8px; overflow: hidden; box-shadow: 0 2px 4px rgba(0,0,0,0.1);">
+                                    <!-- Header -->
+                                    <tr>
+                                        <td style="background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); padding: 40px 20px; text-align: center;">
+                                            <h1 style="color: #ffffff; margin: 0; font-size: 28px;">🛒 Noves Comandes</h1>
+                                            <p style="color: #ffffff; margin: 10px 0 0 0; font-size: 18px; opacity: 0.9;">{{orderCount}} comandes de {{companyName}}</p>
+                                        </td>
+                                    </tr>
+                
+                                    <!-- Body -->
+                                    <tr>
+                                        <td style="padding: 40px 30px 20px 30px;">
+                                            <h2 style="color: #333333; margin-top: 0;">Hola {{supplierName}},</h2>
+                
+                                            <p style="color: #666666; font-size: 16px; line-height: 1.6;">
+                                                Has rebut {{orderCount}} noves comandes de <strong style="color: #667eea;">{{companyName}}</strong> a través de la plataforma Abasta.
+                                                 A continuació trobaràs els detalls de cadascuna:
+                                            </p>
+                                        </td>
+                                    </tr>
+                
+                                    <!-- Client Data -->
+                                    {{{clientData}}}
+                
+                                    <!-- Orders -->
+                                    {{{orders}}}
+                
+                                    <!-- Contact Info -->
+                                    <tr>
+                                        <td style="padding: 30px; background-color: #f0f4ff;">
+                                            <p style="margin: 0 0 10px 0; color: #333333; font-size: 15px; font-weight: bold;">
+                                                ℹ️ Informació important:
+                                            </p>
+                                            <p style="margin: 0; color: #666666; font-size: 14px; line-height: 1.6;">
+                                                Si tens qualsevol dubte sobre aquestes comandes, si us plau contacta amb nosaltres a través de la plataforma Abasta
+                                                 o respon a aquest correu electrònic.
+                                            </p>
+                                        </td>
+                                    </tr>
+                
+                                    <!-- Footer -->
+                                    <tr>
+                                        <td style="background-color: #f8f8f8; padding: 20px 30px; text-align: center; border-top: 1px solid #eeeeee;">
+                                            <p style="color: #999999; font-size: 12px; margin: 0;">
+                                                © 2025 Abasta - Plataforma de Gestió de Comandes
+                                            </p>
+                                            <p style="color: #999999; font-size: 11px; margin: 10px 0 0 0;">
+                                                Aquest és un correu automàtic generat pel sistema Abasta
+                                            </p>
+                                        </td>
+                                    </tr>
+                                </table>
+                            </td>
+                        </tr>
+                    </table>
+                </body>
+                </html>
+                """, "companyName", "orderCount", "supplierName", "clientData", "orders");
+
+    /**
+     * Plantilla de la secció d'una comanda dins del correu agrupat.
+     */
+    private static final EmailTemplate ORDER_DIGEST_SECTION_TEMPLATE = EmailTemplate.compile("""
+                    <tr>
+                        <td style="padding: 25px 30px 10px 30px;">
+                            <h3 style="color: #667eea; margin: 0 0 12px 0; font-size: 18px;">{{orderName}}</h3>
+                            {{{orderDetails}}}
+                        </td>
+                    </tr>
+                    {{{notes}}}
+                    """, "orderName", "orderDetails", "notes");
+
+    /**
+     * Plantilla de la secció de notes addicionals d'una comanda.
+     */
+    private static final EmailTemplate NOTES_SECTION_TEMPLATE = EmailTemplate.compile("""
+                <tr>
+                    <td style="padding: 15px 30px; border-bottom: 1px solid #eeeeee;">
+                        <p style="margin: 0 0 5px 0; color: #333333; font-size: 15px; font-weight: bold;">
+                            📝 Notes addicionals:
+                        </p>
+                        <p style="margin: 0; color: #666666; font-size: 14px; line-height: 1.6;">
+                            {{notes}}
+                        </p>
+                    </td>
+                </tr>
+                """, "notes");
+
+    /**
+     * Plantilla de la secció de dades del client d'una comanda.
+     */
+    private static final EmailTemplate CLIENT_DATA_SECTION_TEMPLATE = EmailTemplate.compile("""
+                <tr>
+                    <td style="padding: 20px 30px; background-color: #f8f9ff; border-bottom: 1px solid #eeeeee;">
+                        <p style="margin: 0 0 8px 0; color: #333333; font-size: 15px; font-weight: bold;">
+                            🧾 Dades del client:
+                        </p>
+                
+                        <p style="margin: 0; color: #444444; font-size: 14px; line-height: 1.5;">
+                            <strong>Empresa:</strong> {{companyName}}
+                        </p>
+                
+                        <p style="margin: 0; color: #444444; font-size: 14px; line-height: 1.5;">
+                            <strong>Adreça:</strong> {{companyAddress}}
+                        </p>
+                
+                        <p style="margin: 0; color: #444444; font-size: 14px; line-height: 1.5;">
+                            <strong>Telèfon:</strong> {{companyPhone}}
+                        </p>
+                    </td>
+                </tr>
+                """, "companyName", "companyAddress", "companyPhone");
+
+    /**
+     * Bústia de sortida on es guarden els correus per enviar.
+     * Injectada automàticament per Spring.
+     */
+    private final EmailOutboxService outboxService;
+
+    /**
+     * URL del frontend de l'aplicació per generar enllaços de verificació.
+     * S'obté de la propietat app.frontend.url amb valor per defecte https://deveps.ddns.net/abasta.
+     */
+    @Value("${app.frontend.url:https://deveps.ddns.net/abasta}")
+    private String frontendUrl;
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Encua un correu HTML amb un enllaç per restablir la contrasenya.
+     * L'enllaç inclou un token de seguretat que expira després d'1 hora.
+     */
+    @Override
+    public void sendPasswordResetEmail(String to, String token, String userName) {
+        outboxService.enqueue(to, "Recuperació de Contrasenya - Abasta",
+                buildPasswordResetEmailBody(token, userName));
+        log.info("Email de recuperació encuat per a: {}", to);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Encua un correu HTML amb un enllaç per verificar l'adreça de correu electrònic.
+     * L'enllaç inclou un token de verificació que expira després de 24 hores.
+     * Aquest mètode s'utilitza per a usuaris estàndard (no administradors d'empresa).
+     */
+    @Override
+    public void sendEmailVerification(String to, String token, String userName) {
+        outboxService.enqueue(to, "Verifica el teu compte d'Abasta",
+                buildEmailVerificationBody(token, userName));
+        log.info("Email de verificació encuat per a: {}", to);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Encua un correu HTML especial per a administradors d'empresa amb informació
+     * sobre la verificació i activació de l'empresa. L'enllaç inclou un token que
+     * expira després de 24 hores.
+     *
+     * <p>Aquest correu inclou informació addicional sobre els privilegis d'administrador
+     * i les funcionalitats que estarán disponibles després de la verificació.</p>
+     */
+    @Override
+    public void sendCompanyAdminVerification(String to, String token, String userName, String companyName) {
+        outboxService.enqueue(to, "¡Benvingut a Abasta! - Verifica la teva empresa",
+                buildCompanyAdminVerificationBody(token, userName, companyName));
+        log.info("Email de verificació d'empresa encuat per a: {} per a l'empresa: {}", to, companyName);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Encua un correu HTML amb els detalls d'una comanda al proveïdor.
+     * El correu inclou el nom de la comanda, els productes sol·licitats,
+     * i notes addicionals si n'hi ha.
+     */
+    @Override
+    public void sendOrderNotification(String to, String supplierName, String companyName,
+                                      String companyAddress, String companyPhone,
+                                      String orderName, String orderDetails,
+                                      String notes) {
+        outboxService.enqueue(to, "Nova Comanda - " + orderName + " - Abasta",
+                buildOrderNotificationBody(supplierName, companyName, companyAddress, companyPhone,
+                        orderName, orderDetails, notes));
+        log.info("Email de comanda encuat per a: {} per a la comanda: {}", to, orderName);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Encua un únic correu HTML amb una secció per cada comanda: el nom, la taula de
+     * productes i les notes, amb les dades del client una sola vegada.
+     */
+    @Override
+    public void sendOrderDigest(String to, String supplierName, String companyName,
+                                String companyAddress, String companyPhone,
+                                List<OrderSummary> orders) {
+        outboxService.enqueue(to, orders.size() + " comandes noves - " + companyName + " - Abasta",
+                buildOrderDigestBody(supplierName, companyName, companyAddress, companyPhone, orders));
+        log.info("Email amb {} comandes encuat per a: {}", orders.size(), to);
+    }
+
+    /**
+     * Construeix el cos HTML del correu de recuperació de contrasenya.
+     *
+     * <p>La plantilla HTML inclou:
+     * <ul>
+     *   <li>Capçalera amb el logo i nom d'Abasta</li>
+     *   <li>Missatge personalitzat amb el nom de l'usuari</li>
+     *   <li>Botó destacat amb l'enllaç de restabliment</li>
+     *   <li>Advertència sobre l'expiració del token (1 hora)</li>
+     *   <li>Nota de seguretat si no va sol·licitar el canvi</li>
+     *   <li>Peu de pàgina amb informació de contacte</li>
+     * </ul>
+     * </p>
+     *
+     * @param token    el token únic de restabliment de contrasenya
+     * @param userName el nom de l'usuari per personalitzar el missatge
+     * @return el cos HTML del correu com a String
+     */
+    private String buildPasswordResetEmailBody(String token, String userName) {
+        String resetLink = frontendUrl + "/reset-password?token=" + token;
+
+        return PASSWORD_RESET_TEMPLATE.render(userName, resetLink);
+    }
+
+    /**
+     * Construeix el cos HTML del correu de verificació d'email estàndard.
+     *
+     * <p>La plantilla HTML inclou:
+     * <ul>
+     *   <li>Capçalera amb el logo d'Abasta</li>
+     *   <li>Missatge personalitzat amb el nom de l'usuari</li>
+     *   <li>Botó destacat amb l'enllaç de verificació</li>
+     *   <li>Advertència sobre l'expiració del token (24 hores)</li>
+     *   <li>Nota de seguretat si no es va registrar</li>
+     *   <li>Peu de pàgina amb l'enllaç alternatiu</li>
+     * </ul>
+     * </p>
+     *
+     * @param token    el token únic de verificació d'email
+     * @param userName el nom de l'usuari per personalitzar el missatge
+     * @return el cos HTML del correu com a String
+     */
+    private String buildEmailVerificationBody(String token, String userName) {
+        String verificationLink = frontendUrl + "/verify-email?token=" + token;
+
+        return EMAIL_VERIFICATION_TEMPLATE.render(userName, verificationLink);
+    }
+
+    /**
+     * Construeix el cos HTML del correu de verificació per a administradors d'empresa.
+     *
+     * <p>La plantilla HTML inclou:
+     * <ul>
+     *   <li>Capçalera amb missatge de benvinguda especial</li>
+     *   <li>Missatge personalitzat amb nom d'usuari i empresa</li>
+     *   <li>Caixa informativa amb privilegis d'administrador</li>
+     *   <li>Botó destacat amb l'enllaç de verificació i activació</li>
+     *   <li>Advertència sobre l'expiració del token (24 hores)</li>
+     *   <li>Informació sobre el panell d'administració</li>
+     *   <li>Peu de pàgina amb l'enllaç alternatiu</li>
+     * </ul>
+     * </p>
+     *
+     * @param token       el token únic de verificació
+     * @param userName    el nom de l'administrador
+     * @param companyName el nom de l'empresa a verificar i activar
+     * @return el cos HTML del correu com a String
+     */
+    private String buildCompanyAdminVerificationBody(String token, String userName, String companyName) {
+        String verificationLink = frontendUrl + "/verify-email?token=" + token;
+
+        return COMPANY_ADMIN_VERIFICATION_TEMPLATE.render(userName, companyName, verificationLink);
+    }
+
+    /**
+     * Construeix el cos HTML del correu de notificació de comanda.
+     *
+     * <p>La plantilla HTML inclou:
+     * <ul>
+     *   <li>Capçalera amb el nom de la comanda</li>
+     *   <li>Salutació personalitzada amb el nom del proveïdor</li>
+     *   <li>Nom de l'empresa que fa la comanda</li>
+     *   <li>Taula amb els detalls dels productes</li>
+     *   <li>Notes addicionals si n'hi ha</li>
+     *   <li>Informació de contacte</li>
+     * </ul>
+     * </p>
+     *
+     * @param supplierName el nom del proveïdor
+     * @param companyName  el nom de l'empresa que fa la comanda
+     * @param companyAddress  la direcció de l'empresa que fa la comanda
+     * @param companyPhone  el telèfon de l'empresa que fa la comanda
+     * @param orderName    el nom de la comanda
+     * @param orderDetails HTML amb la taula de productes
+     * @param notes notes addicionals (pot ser null)
+     * @return el cos HTML del correu com a String
+     */
+    private String buildOrderNotificationBody(String supplierName, String companyName,
+                                              String companyAddress, String companyPhone,
+                                              String orderName, String orderDetails,
+                                              String notes) {
+        return ORDER_NOTIFICATION_TEMPLATE.render(
                 orderName,
                 supplierName,
                 companyName,
-                clientDataSection,
+                buildClientDataSection(companyName, companyAddress, companyPhone),
                 orderDetails,
-                notesSection
+                buildNotesSection(notes)
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * Construeix el cos HTML del correu que agrupa diverses comandes a un proveïdor.
+     *
+     * <p>Segueix la plantilla de la notificació d'una comanda, amb una secció per comanda en
+     * lloc d'una sola taula de productes.</p>
+     *
+     * @param supplierName el nom del proveïdor
+     * @param companyName el nom de l'empresa que fa les comandes
+     * @param companyAddress la direcció de l'empresa
+     * @param companyPhone el telèfon de l'empresa
+     * @param orders les comandes agrupades
+     * @return el cos HTML del correu com a String
+     */
+    private String buildOrderDigestBody(String supplierName, String companyName,
+                                        String companyAddress, String companyPhone,
+                                        List<OrderSummary> orders) {
+        int capacity = 0;
+        for (OrderSummary order : orders) {
+            capacity += ORDER_DIGEST_SECTION_TEMPLATE.literalLength() + order.orderDetails().length();
+        }
+        StringBuilder orderSections = new StringBuilder(capacity);
+        for (OrderSummary order : orders) {
+            ORDER_DIGEST_SECTION_TEMPLATE.renderTo(orderSections,
+                    order.orderName(), order.orderDetails(), buildNotesSection(order.notes()));
+        }
+
+        return ORDER_DIGEST_TEMPLATE.render(
+                companyName,
+                orders.size(),
+                supplierName,
+                buildClientDataSection(companyName, companyAddress, companyPhone),
+                orderSections
+        );
+    }
+
+    /**
+     * Construeix la secció de notes addicionals d'una comanda.
+     *
+     * @param notes notes de la comanda (pot ser null)
+     * @return la fila HTML amb les notes, o una cadena buida si no n'hi ha
+     */
+    private String buildNotesSection(String notes) {
+        if (notes == null || notes.isEmpty()) {
+            return "";
+        }
+        return NOTES_SECTION_TEMPLATE.render(notes);
+    }
+
+    /**
+     * Construeix la secció amb les dades de contacte de l'empresa que fa la comanda.
+     *
+     * @param companyName el nom de l'empresa
+     * @param companyAddress la direcció de l'empresa
+     * @param companyPhone el telèfon de l'empresa
+     * @return la fila HTML amb les dades del client
+     */
+    private String buildClientDataSection(String companyName, String companyAddress, String companyPhone) {
+        return CLIENT_DATA_SECTION_TEMPLATE.render(companyName, companyAddress, companyPhone);
+    }
+}
@@ -0,0 +1,130 @@
+package cat.abasta_back_end.services.impl;
+
+import cat.abasta_back_end.services.LastLoginService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Implementació amb escriptura diferida (write-behind) del servei d'últim inici de sessió.
+ *
+ * <p>Cada inici de sessió només actualitza un mapa en memòria d'usuari a data. Una tasca
+ * periòdica buida el mapa i escriu totes les dates amb un únic lot JDBC
+ * ({@code UPDATE users SET last_login = ? WHERE id = ?}). El lot també s'escriu en aturar
+ * l'aplicació.</p>
+ *
+ * <p>La finestra de pèrdua màxima en cas de caiguda és l'interval d'escriptura, configurable
+ * amb {@code app.users.last-login.flush-interval-ms}. Si l'escriptura falla, les dates
+ * es tornen a afegir al mapa per al proper intent.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @see LastLoginService
+ * @since 2025
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LastLoginServiceImpl implements LastLoginService {
+
+    private static final String UPDATE_LAST_LOGIN_SQL = "UPDATE users SET last_login = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Dates pendents d'escriure, indexades per l'identificador de l'usuari.
+     */
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    private final LongAdder flushed = new LongAdder();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordLogin(Long userId, LocalDateTime lastLogin) {
+        pending.merge(userId, lastLogin, LastLoginServiceImpl::latest);
+    }
+
+    /**
+     * Escriu les dates pendents periòdicament segons {@code app.users.last-login.flush-interval-ms}
+     * (10 segons per defecte).
+     */
+    @Scheduled(fixedDelayString = "${app.users.last-login.flush-interval-ms:10000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * Escriu les dates pendents abans d'aturar l'aplicació.
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        int written = flush();
+        log.info("Escrites {} dates d'últim inici de sessió abans d'aturar l'aplicació", written);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized int flush() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        List<Object[]> batch = new ArrayList<>();
+        Map<Long, LocalDateTime> drained = new HashMap<>();
+        for (Long userId : pending.keySet()) {
+            LocalDateTime lastLogin = pending.remove(userId);
+            if (lastLogin != null) {
+                drained.put(userId, lastLogin);
+                batch.add(new Object[]{Timestamp.valueOf(lastLogin), userId});
+            }
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_LAST_LOGIN_SQL, batch);
+        } catch (RuntimeException e) {
+            drained.forEach(this::recordLogin);
+            log.error("No s'han pogut escriure {} dates d'últim inici de sessió: {}", batch.size(), e.getMessage());
+            return 0;
+        }
+
+        flushed.add(batch.size());
+        log.debug("Escrites {} dates d'últim inici de sessió", batch.size());
+        return batch.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getFlushedCount() {
+        return flushed.sum();
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -1,13 +1,22 @@
 package cat.abasta_back_end.services.impl;
 
 import cat.abasta_back_end.entities.Order;
-import cat.abasta_back_end.entities.OrderItem;
 import cat.abasta_back_end.entities.Supplier;
+import cat.abasta_back_end.mail.OrderDetailsHtml;
+import cat.abasta_back_end.repositories.OrderRepository;
 import cat.abasta_back_end.services.EmailService;
+import cat.abasta_back_end.services.EmailService.OrderSummary;
 import cat.abasta_back_end.services.NotificationService;
+import cat.abasta_back_end.services.OrderDigestService;
+import cat.abasta_back_end.services.OrderDigestService.DigestGroup;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Comparator;
+import java.util.List;
 
 /**
  * Implementació del servei de notificacions de comandes.
@@ -19,6 +28,7 @@ import org.springframework.stereotype.Service;
  * <p>Funcionalitats principals:
  * <ul>
  *   <li>Generació de missatges HTML per a correus electrònics</li>
+ *   <li>Agrupació de les comandes a un mateix proveïdor en un sol correu</li>
  *   <li>Gestió d'errors amb logging detallat</li>
  * </ul>
  * </p>
@@ -27,6 +37,8 @@ import org.springframework.stereotype.Service;
  * @version 1.0
  * @see NotificationService
  * @see EmailService
+ * @see OrderDigestService
+ * @see OrderDetailsHtml
  * @since 2025
  */
 @Service
@@ -35,12 +47,16 @@ import org.springframework.stereotype.Service;
 public class NotificationServiceImpl implements NotificationService {
 
     private final EmailService emailService;
+    private final OrderDigestService orderDigestService;
+    private final OrderRepository orderRepository;
 
     /**
      * {@inheritDoc}
      *
      * <p>Aquest mètode construeix els detalls de la comanda en format HTML
-     * i envia la notificació per correu electrònic al proveïdor.</p>
+     * i encua la notificació per correu electrònic al proveïdor dins de la transacció en curs.
+     * Si l'agrupació està activada, la comanda s'apunta al grup del proveïdor i s'envia amb les
+     * altres del grup quan se'n tanca la finestra ({@link #flushOrderDigests()}).</p>
      *
      * <p>Validacions realitzades:
      * <ul>
@@ -64,25 +80,18 @@ public class NotificationServiceImpl implements NotificationService {
             throw new RuntimeException("El proveïdor no té email configurat");
         }
 
-        // Construir els detalls de la comanda
-        String orderDetailsHtml = buildOrderDetailsHtml(order);
-
         try {
-            // Enviar email
-            emailService.sendOrderNotification(
-                    supplier.getEmail(),
-                    supplier.getContactName(),
-                    order.getCompany().getName(),
-                    order.getCompany().getAddress(),
-                    order.getCompany().getPhone(),
-                    order.getName(),
-                    orderDetailsHtml,
-                    order.getNotes()
-            );
-
-            // Actualitzar l'estat de la comanda a SENT després d'enviar
+            if (orderDigestService.isEnabled()) {
+                // S'enviarà amb les altres comandes al proveïdor quan es tanqui la finestra
+                orderDigestService.schedule(order);
+            } else {
+                // Encuar l'email a la transacció de la comanda; s'envia en segon pla
+                enqueueNotification(order);
+            }
+
+            // Actualitzar l'estat de la comanda a SENT un cop encuada la notificació
             order.setStatus(Order.OrderStatus.SENT);
-            log.info("Notificació de comanda {} enviada correctament per email a {}",
+            log.info("Notificació de comanda {} encuada per email a {}",
                     order.getUuid(), supplier.getEmail());
 
         } catch (Exception e) {
@@ -93,69 +102,60 @@ public class NotificationServiceImpl implements NotificationService {
     }
 
     /**
-     * Construeix els detalls de la comanda en format HTML per al correu electrònic.
+     * Envia les notificacions agrupades amb la finestra tancada, periòdicament segons
+     * {@code app.notifications.order-digest.flush-interval-ms} (30 segons per defecte).
      *
-     * <p>Genera una taula HTML amb els productes de la comanda incloent:
-     * <ul>
-     *   <li>Nom del producte</li>
-     *   <li>Quantitat</li>
-     *   <li>Volum</li>
-     *   <li>Unitat</li>
-     *   <li>Notes (si n'hi ha)</li>
-     * </ul>
-     * </p>
-     *
-     * @param order la comanda amb els items
-     * @return HTML amb la taula de productes
+     * <p>Cada grup s'encua com un sol correu amb totes les comandes; un grup d'una sola comanda
+     * s'envia com la notificació habitual. Els grups es treuen i els correus s'encuen dins de la
+     * mateixa transacció: si falla, els grups es tornen a provar a la següent revisió.</p>
      */
-    private String buildOrderDetailsHtml(Order order) {
-        StringBuilder html = new StringBuilder();
-        html.append("""
-                <table width="100%" cellpadding="0" cellspacing="0" style="border: 1px solid #e0e0e0; border-radius: 6px; overflow: hidden;">
-                    <thead>
-                        <tr style="background-color: #667eea;">
-                            <th style="padding: 12px; text-align: left; color: #ffffff; font-size: 14px;">Producte</th>
-                            <th style="padding: 12px; text-align: center; color: #ffffff; font-size: 14px;">Quantitat</th>
-                            <th style="padding: 12px; text-align: right; color: #ffffff; font-size: 14px;">Volum</th>
-                            <th style="padding: 12px; text-align: right; color: #ffffff; font-size: 14px;">Unitat</th>
-                        </tr>
-                    </thead>
-                    <tbody>
-                """);
-
-        for (OrderItem item : order.getItems()) {
-            String productName = item.getProduct() != null ?
-                    item.getProduct().getName() : "Producte desconegut";
-            String unit = item.getProduct() != null && item.getProduct().getUnit() != null ?
-                    item.getProduct().getUnit() : "";
-            String notes = item.getNotes() != null && !item.getNotes().isEmpty() ?
-                    "<br><span style=\"font-size: 12px; color: #999; font-style: italic;\">Notes: " +
-                            item.getNotes() + "</span>" : "";
-
-            html.append(String.format("""
-                            <tr style="border-bottom: 1px solid #eeeeee;">
-                                <td style="padding: 15px; color: #333333;">
-                                    <strong>%s</strong>%s
-                                </td>
-                                <td style="padding: 15px; text-align: center; color: #666666;">%s</td>
-                                <td style="padding: 15px; text-align: right; color: #666666;">%s</td>
-                                <td style="padding: 15px; text-align: right; color: #666666;">%s</td>
-                            </tr>
-                            """,
-                    productName,
-                    notes,
-                    item.getQuantity(),
-                    item.getProduct() != null ? item.getProduct().getVolume() : "",
-                    unit
-            ));
+    @Scheduled(fixedDelayString = "${app.notifications.order-digest.flush-interval-ms:30000}")
+    @Transactional
+    public void flushOrderDigests() {
+        for (DigestGroup group : orderDigestService.takeDue()) {
+            List<Order> orders = orderRepository.findWithItemsByIdIn(group.orderIds()).stream()
+                    .sorted(Comparator.comparingInt(order -> group.orderIds().indexOf(order.getId())))
+                    .toList();
+            if (orders.isEmpty()) {
+                continue;
+            }
+            if (orders.size() == 1) {
+                enqueueNotification(orders.getFirst());
+                continue;
+            }
+
+            Order first = orders.getFirst();
+            List<OrderSummary> summaries = orders.stream()
+                    .map(order -> new OrderSummary(order.getName(), OrderDetailsHtml.render(order), order.getNotes()))
+                    .toList();
+            emailService.sendOrderDigest(
+                    group.recipient(),
+                    first.getSupplier().getContactName(),
+                    first.getCompany().getName(),
+                    first.getCompany().getAddress(),
+                    first.getCompany().getPhone(),
+                    summaries
+            );
+            log.info("Notificació de {} comandes encuada en un sol email a {}", orders.size(), group.recipient());
         }
-
-        html.append("""
-                    </tbody>
-                </table>
-                """);
-
-        return html.toString();
     }
 
-}
\ No newline at end of file
+    /**
+     * Encua la notificació d'una sola comanda al seu proveïdor.
+     *
+     * @param order la comanda amb el proveïdor, l'empresa i els items
+     */
+    private void enqueueNotification(Order order) {
+        Supplier supplier = order.getSupplier();
+        emailService.sendOrderNotification(
+                supplier.getEmail(),
+                supplier.getContactName(),
+                order.getCompany().getName(),
+                order.getCompany().getAddress(),
+                order.getCompany().getPhone(),
+                order.getName(),
+                OrderDetailsHtml.render(order),
+                order.getNotes()
+        );
+    }
+}
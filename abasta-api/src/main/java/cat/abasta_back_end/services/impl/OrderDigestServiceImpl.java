@@ -0,0 +1,140 @@
+package cat.abasta_back_end.services.impl;
+
+import cat.abasta_back_end.entities.Order;
+import cat.abasta_back_end.services.OrderDigestService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Implementació amb JDBC de l'agrupació de notificacions de comandes.
+ *
+ * <p>Totes les comandes d'un grup comparteixen el moment de tancament ({@code due_at}) de la
+ * primera. Per treure un grup es bloquegen les seves files amb {@code SELECT ... FOR UPDATE} i
+ * s'esborren una per una: si dues instàncies el treuen alhora, la segona espera i només es
+ * queda les comandes que encara hi són.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @see OrderDigestService
+ * @since 2025
+ */
+@Service
+public class OrderDigestServiceImpl implements OrderDigestService {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO order_digest_entries (company_id, recipient, order_id, due_at, created_at)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    private static final String GROUP_DUE_AT_SQL = """
+            SELECT MIN(due_at) FROM order_digest_entries WHERE company_id = ? AND recipient = ?
+            """;
+
+    private static final String DUE_GROUPS_SQL = """
+            SELECT DISTINCT company_id, recipient FROM order_digest_entries WHERE due_at <= ?
+            """;
+
+    private static final String LOCK_GROUP_SQL = """
+            SELECT id, order_id FROM order_digest_entries
+            WHERE company_id = ? AND recipient = ?
+            ORDER BY id
+            FOR UPDATE
+            """;
+
+    private static final String DELETE_SQL = "DELETE FROM order_digest_entries WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long windowMinutes;
+
+    private record GroupKey(Long companyId, String recipient) {
+    }
+
+    private record Entry(long id, long orderId) {
+    }
+
+    /**
+     * Crea el servei amb la configuració de l'aplicació.
+     *
+     * @param jdbcTemplate accés JDBC a la base de dades
+     * @param windowMinutes minuts que es recullen comandes d'un grup abans d'enviar-lo; 0 per no agrupar
+     */
+    @Autowired
+    public OrderDigestServiceImpl(JdbcTemplate jdbcTemplate,
+                                  @Value("${app.notifications.order-digest.window-minutes:0}") long windowMinutes) {
+        if (windowMinutes < 0) {
+            throw new IllegalArgumentException("La finestra d'agrupació no pot ser negativa");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.windowMinutes = windowMinutes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEnabled() {
+        return windowMinutes > 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void schedule(Order order) {
+        Long companyId = order.getCompany().getId();
+        String recipient = normalize(order.getSupplier().getEmail());
+        LocalDateTime now = LocalDateTime.now();
+
+        // La finestra la marca la primera comanda pendent del grup
+        Timestamp dueAt = jdbcTemplate.queryForObject(GROUP_DUE_AT_SQL, Timestamp.class, companyId, recipient);
+        if (dueAt == null) {
+            dueAt = Timestamp.valueOf(now.plusMinutes(windowMinutes));
+        }
+        jdbcTemplate.update(INSERT_SQL, companyId, recipient, order.getId(), dueAt, Timestamp.valueOf(now));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<DigestGroup> takeDue() {
+        List<DigestGroup> groups = new ArrayList<>();
+        List<GroupKey> dueGroups = jdbcTemplate.query(DUE_GROUPS_SQL,
+                (rs, rowNum) -> new GroupKey(rs.getLong("company_id"), rs.getString("recipient")),
+                Timestamp.valueOf(LocalDateTime.now()));
+
+        for (GroupKey group : dueGroups) {
+            List<Entry> entries = jdbcTemplate.query(LOCK_GROUP_SQL,
+                    (rs, rowNum) -> new Entry(rs.getLong("id"), rs.getLong("order_id")),
+                    group.companyId(), group.recipient());
+
+            List<Long> orderIds = new ArrayList<>(entries.size());
+            for (Entry entry : entries) {
+                // Una fila ja esborrada l'ha treta una altra instància
+                if (jdbcTemplate.update(DELETE_SQL, entry.id()) == 1) {
+                    orderIds.add(entry.orderId());
+                }
+            }
+            if (!orderIds.isEmpty()) {
+                groups.add(new DigestGroup(group.companyId(), group.recipient(), orderIds));
+            }
+        }
+        return groups;
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
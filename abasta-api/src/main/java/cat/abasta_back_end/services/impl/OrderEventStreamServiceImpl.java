@@ -0,0 +1,335 @@
+package cat.abasta_back_end.services.impl;
+
+import cat.abasta_back_end.dto.OrderStreamEventDTO;
+import cat.abasta_back_end.events.OrderChangedEvent;
+import cat.abasta_back_end.repositories.UserRepository;
+import cat.abasta_back_end.security.AuthenticatedUser;
+import cat.abasta_back_end.services.OrderEventStreamService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Implementació del servei que envia els canvis de comandes amb Server-Sent Events.
+ *
+ * <p>Manté en memòria, per empresa, els clients connectats. Quan es confirma una transacció que
+ * ha canviat una comanda ({@link OrderChangedEvent}), l'esdeveniment es serialitza una sola
+ * vegada i es deixa a la cua de cada client de l'empresa; qui publica mai espera cap client.
+ * Cada cua té com a màxim {@code app.orders.stream.buffer-size} esdeveniments i la buida un fil
+ * virtual propi del client, que només existeix mentre hi ha esdeveniments per enviar.</p>
+ *
+ * <p>Un client que no llegeix prou de pressa i omple la cua es desconnecta: perdria
+ * esdeveniments igualment, i és millor que es torni a connectar i recarregui la llista que no
+ * pas que mostri dades incompletes. Cada {@code app.orders.stream.heartbeat-interval-ms}
+ * s'envia un comentari a tots els clients perquè els proxies no tallin les connexions inactives
+ * i per detectar els clients que ja han marxat.</p>
+ *
+ * <p>Exposa comptadors de clients connectats, d'esdeveniments enviats i de clients
+ * desconnectats per lents.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+@Slf4j
+@Service
+public class OrderEventStreamServiceImpl implements OrderEventStreamService {
+
+    private static final Set<DataWithMediaType> CONNECTED = SseEmitter.event().comment("connected").build();
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("heartbeat").build();
+
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final long timeoutMillis;
+
+    /**
+     * Clients connectats per identificador d'empresa.
+     */
+    private final ConcurrentHashMap<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    private final ExecutorService executor;
+
+    private final LongAdder connected = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Crea el servei amb la configuració de l'aplicació.
+     *
+     * @param userRepository repositori per resoldre l'usuari autenticat
+     * @param objectMapper serialitzador dels esdeveniments JSON
+     * @param bufferSize nombre màxim d'esdeveniments pendents d'enviar a un client
+     * @param timeoutMillis temps màxim d'una connexió, en mil·lisegons; el client es torna a connectar
+     */
+    @Autowired
+    public OrderEventStreamServiceImpl(UserRepository userRepository, ObjectMapper objectMapper,
+                                       @Value("${app.orders.stream.buffer-size:64}") int bufferSize,
+                                       @Value("${app.orders.stream.timeout-ms:1800000}") long timeoutMillis) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("La mida de la cua ha de ser positiva");
+        }
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("order-stream-", 0).factory());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SseEmitter subscribe() {
+        Long companyId = AuthenticatedUser.current(userRepository).getCompanyId();
+        Subscriber subscriber = new Subscriber(companyId, createEmitter());
+
+        subscriber.emitter.onCompletion(() -> disconnected(subscriber));
+        subscriber.emitter.onTimeout(() -> disconnected(subscriber));
+        subscriber.emitter.onError(e -> disconnected(subscriber));
+
+        subscribers.compute(companyId, (id, clients) -> {
+            Set<Subscriber> updated = clients != null ? clients : ConcurrentHashMap.newKeySet();
+            updated.add(subscriber);
+            return updated;
+        });
+        connected.increment();
+        log.debug("Client connectat als canvis de comandes de l'empresa {}", companyId);
+
+        // Primer missatge perquè el client i els proxies vegin la connexió oberta
+        offer(subscriber, CONNECTED);
+        return subscriber.emitter;
+    }
+
+    /**
+     * Envia el canvi d'una comanda als clients de la seva empresa un cop confirmada la transacció.
+     *
+     * @param event canvi de comanda
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (event.orderUuid() == null || event.order() == null) {
+            return;
+        }
+        Set<Subscriber> clients = subscribers.get(event.companyId());
+        if (clients == null || clients.isEmpty()) {
+            return;
+        }
+
+        OrderStreamEventDTO payload = OrderStreamEventDTO.builder()
+                .uuid(event.orderUuid())
+                .status(event.order().status().name())
+                .totalAmount(event.order().totalAmount())
+                .build();
+        Set<DataWithMediaType> message;
+        try {
+            message = SseEmitter.event().name("order").data(objectMapper.writeValueAsString(payload)).build();
+        } catch (JsonProcessingException e) {
+            log.error("No s'ha pogut serialitzar el canvi de la comanda {}", event.orderUuid(), e);
+            return;
+        }
+
+        for (Subscriber subscriber : clients) {
+            offer(subscriber, message);
+        }
+    }
+
+    /**
+     * Envia un comentari a tots els clients cada {@code app.orders.stream.heartbeat-interval-ms}
+     * (15 segons per defecte).
+     */
+    @Scheduled(fixedDelayString = "${app.orders.stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        for (Set<Subscriber> clients : subscribers.values()) {
+            for (Subscriber subscriber : clients) {
+                offer(subscriber, HEARTBEAT);
+            }
+        }
+    }
+
+    /**
+     * Tanca les connexions en tancar l'aplicació.
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (Set<Subscriber> clients : subscribers.values()) {
+            for (Subscriber subscriber : clients) {
+                subscriber.closed = true;
+                subscriber.emitter.complete();
+            }
+        }
+        subscribers.clear();
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return nombre de clients connectats ara mateix
+     */
+    public int getSubscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    /**
+     * @return nombre de connexions obertes des de l'arrencada
+     */
+    public long getConnectedCount() {
+        return connected.sum();
+    }
+
+    /**
+     * @return nombre d'esdeveniments enviats, comptant cada client per separat
+     */
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    /**
+     * @return nombre de clients desconnectats per no llegir prou de pressa
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Crea la connexió d'un client nou.
+     */
+    SseEmitter createEmitter() {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    /**
+     * Deixa un missatge a la cua d'un client i, si cal, posa en marxa l'enviament. Si la cua és
+     * plena, desconnecta el client sense esperar-lo.
+     */
+    private void offer(Subscriber subscriber, Set<DataWithMediaType> message) {
+        if (subscriber.closed) {
+            return;
+        }
+        if (!subscriber.buffer.offer(message)) {
+            dropped.increment();
+            log.warn("Client dels canvis de comandes de l'empresa {} desconnectat: té {} esdeveniments pendents",
+                    subscriber.companyId, bufferSize);
+            close(subscriber);
+            return;
+        }
+        schedule(subscriber);
+    }
+
+    /**
+     * Posa en marxa l'enviament de la cua d'un client si no n'hi ha cap en curs.
+     */
+    private void schedule(Subscriber subscriber) {
+        if (!subscriber.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            // L'aplicació s'està aturant
+            subscriber.draining.set(false);
+        }
+    }
+
+    /**
+     * Envia els missatges pendents d'un client fins que la cua queda buida.
+     */
+    private void drain(Subscriber subscriber) {
+        try {
+            Set<DataWithMediaType> message;
+            while (!subscriber.closed && (message = subscriber.buffer.poll()) != null) {
+                subscriber.emitter.send(message);
+                delivered.increment();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // El client ha tancat la connexió o ja s'ha completat
+            log.debug("Client dels canvis de comandes de l'empresa {} desconnectat: {}",
+                    subscriber.companyId, e.getMessage());
+            subscriber.closed = true;
+            remove(subscriber);
+        } finally {
+            subscriber.draining.set(false);
+        }
+
+        if (subscriber.closed) {
+            subscriber.buffer.clear();
+            subscriber.emitter.complete();
+        } else if (!subscriber.buffer.isEmpty()) {
+            // Un missatge arribat entre l'última lectura i l'alliberament no s'ha de perdre
+            schedule(subscriber);
+        }
+    }
+
+    /**
+     * Desconnecta un client. La connexió es completa des del seu fil d'enviament, que pot estar
+     * bloquejat escrivint, i no des del fil que publica.
+     */
+    private void close(Subscriber subscriber) {
+        subscriber.closed = true;
+        remove(subscriber);
+        subscriber.buffer.clear();
+        schedule(subscriber);
+    }
+
+    /**
+     * La connexió d'un client s'ha completat, ha caducat o ha fallat.
+     */
+    private void disconnected(Subscriber subscriber) {
+        subscriber.closed = true;
+        remove(subscriber);
+    }
+
+    /**
+     * Treu un client del registre i l'empresa si ja no en té cap.
+     */
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.companyId, (id, clients) -> {
+            clients.remove(subscriber);
+            return clients.isEmpty() ? null : clients;
+        });
+    }
+
+    /**
+     * Client connectat amb la seva cua de missatges pendents.
+     */
+    private final class Subscriber {
+
+        private final Long companyId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<DataWithMediaType>> buffer;
+
+        /**
+         * Si hi ha un fil enviant la cua d'aquest client.
+         */
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        /**
+         * Si el client s'ha desconnectat; els missatges nous es descarten.
+         */
+        private volatile boolean closed;
+
+        private Subscriber(Long companyId, SseEmitter emitter) {
+            this.companyId = companyId;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package cat.abasta_back_end.services.impl;
+
+import cat.abasta_back_end.dto.TimeSeriesGranularity;
+import cat.abasta_back_end.dto.TimeSeriesPointDTO;
+import cat.abasta_back_end.entities.Order;
+import cat.abasta_back_end.money.Money;
+import cat.abasta_back_end.services.OrderRollupService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Implementació amb JDBC del servei d'acumulats diaris de comandes.
+ *
+ * <p>Els canvis d'una comanda es tradueixen en increments relatius sobre les files
+ * {@code supplier_daily_rollups} i {@code product_daily_rollups} del seu dia de creació, amb
+ * un sol {@code INSERT ... ON DUPLICATE KEY UPDATE} per fila que la crea si encara no existeix
+ * i no bloqueja l'interval de la clau abans d'inserir-la. Les sèries temporals agrupen
+ * per dia a la base de dades i es reagrupen per setmana o mes en memòria, de manera que
+ * el cost depèn del nombre de dies del període i no del nombre de comandes.</p>
+ *
+ * <p>Cada nit ({@code app.reports.daily-rollups.freeze-cron}) es congela el mes anterior:
+ * se'n recalculen els acumulats a partir de les comandes i es registra a
+ * {@code rollup_frozen_months}. Cada empresa es recalcula en una transacció curta pròpia que
+ * només esborra i bloqueja els seus acumulats del mes (per la clau primària o l'índex
+ * {@code idx_company_date}): ningú veu el mes buit i els increments de la resta d'empreses no
+ * esperen. El mes es marca com a congelat quan totes les empreses s'han recalculat; si hi ha
+ * una fallada a mig camí, la congelació següent el torna a recalcular sencer.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @see OrderRollupService
+ * @since 2025
+ */
+@Service
+@Slf4j
+public class OrderRollupServiceImpl implements OrderRollupService {
+
+    private static final String ACTIVE_STATUSES = Arrays.stream(Order.OrderStatus.values())
+            .filter(Order.OrderStatus::isActive)
+            .map(status -> "'" + status.name() + "'")
+            .collect(Collectors.joining(", ", "(", ")"));
+
+    private static final String INCREMENT_SUPPLIER_SQL = """
+            INSERT INTO supplier_daily_rollups (order_count, spend, company_id, rollup_date, supplier_id)
+            VALUES (?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count), spend = spend + VALUES(spend)
+            """;
+
+    private static final String INCREMENT_PRODUCT_SQL = """
+            INSERT INTO product_daily_rollups (order_count, quantity, spend, company_id, rollup_date, product_id, supplier_id)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count),
+                                    quantity = quantity + VALUES(quantity), spend = spend + VALUES(spend)
+            """;
+
+    private static final String SUPPLIER_SERIES_SQL = """
+            SELECT rollup_date, SUM(order_count) AS order_count, SUM(spend) AS spend
+            FROM supplier_daily_rollups
+            WHERE company_id = ? AND rollup_date BETWEEN ? AND ?
+            """;
+
+    private static final String PRODUCT_SERIES_SQL = """
+            SELECT rollup_date, SUM(order_count) AS order_count, SUM(quantity) AS quantity, SUM(spend) AS spend
+            FROM product_daily_rollups
+            WHERE company_id = ? AND product_id = ? AND rollup_date BETWEEN ? AND ?
+            GROUP BY rollup_date
+            """;
+
+    private static final String IS_FROZEN_SQL = "SELECT COUNT(*) FROM rollup_frozen_months WHERE rollup_month = ?";
+
+    private static final String MARK_FROZEN_SQL = "INSERT INTO rollup_frozen_months (rollup_month, frozen_at) VALUES (?, ?)";
+
+    private static final String DELETE_SUPPLIER_MONTH_SQL =
+            "DELETE FROM supplier_daily_rollups WHERE company_id = ? AND rollup_date >= ? AND rollup_date < ?";
+
+    private static final String DELETE_PRODUCT_MONTH_SQL =
+            "DELETE FROM product_daily_rollups WHERE company_id = ? AND rollup_date >= ? AND rollup_date < ?";
+
+    private static final String REBUILD_SUPPLIER_MONTH_SQL = """
+            INSERT INTO supplier_daily_rollups (company_id, rollup_date, supplier_id, order_count, spend)
+            SELECT company_id, CAST(created_at AS DATE), supplier_id, COUNT(*), SUM(total_amount)
+            FROM orders
+            WHERE company_id = ? AND created_at >= ? AND created_at < ? AND status IN %s
+            GROUP BY company_id, CAST(created_at AS DATE), supplier_id
+            """.formatted(ACTIVE_STATUSES);
+
+    private static final String REBUILD_PRODUCT_MONTH_SQL = """
+            INSERT INTO product_daily_rollups (company_id, rollup_date, product_id, supplier_id, order_count, quantity, spend)
+            SELECT o.company_id, CAST(o.created_at AS DATE), i.product_id, o.supplier_id,
+                   COUNT(DISTINCT o.id), SUM(i.quantity), SUM(i.subtotal)
+            FROM order_items i
+            JOIN orders o ON o.id = i.order_id
+            WHERE o.company_id = ? AND o.created_at >= ? AND o.created_at < ? AND o.status IN %s
+            GROUP BY o.company_id, CAST(o.created_at AS DATE), i.product_id, o.supplier_id
+            """.formatted(ACTIVE_STATUSES);
+
+    private static final String COMPANY_IDS_SQL = "SELECT id FROM companies ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Clau d'una fila d'acumulats per proveïdor.
+     */
+    private record SupplierKey(Long companyId, LocalDate day, Long supplierId) {
+    }
+
+    /**
+     * Clau d'una fila d'acumulats per producte.
+     */
+    private record ProductKey(Long companyId, LocalDate day, Long productId, Long supplierId) {
+    }
+
+    /**
+     * Variació acumulada d'una fila.
+     */
+    private static final class Delta {
+
+        private long orders;
+
+        private BigDecimal quantity = BigDecimal.ZERO;
+
+        private BigDecimal spend = BigDecimal.ZERO;
+
+        void add(int sign, BigDecimal quantity, BigDecimal spend) {
+            this.orders += sign;
+            this.quantity = this.quantity.add(sign < 0 ? quantity.negate() : quantity);
+            this.spend = this.spend.add(sign < 0 ? spend.negate() : spend);
+        }
+
+        boolean isZero() {
+            return orders == 0 && quantity.signum() == 0 && spend.signum() == 0;
+        }
+    }
+
+    /**
+     * Crea el servei.
+     *
+     * @param jdbcTemplate accés JDBC a la base de dades
+     * @param transactionManager gestor de transaccions per recalcular cada empresa per separat
+     */
+    @Autowired
+    public OrderRollupServiceImpl(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void applyChange(Snapshot before, Snapshot after) {
+        Map<SupplierKey, Delta> suppliers = new HashMap<>();
+        Map<ProductKey, Delta> products = new HashMap<>();
+        collect(before, -1, suppliers, products);
+        collect(after, 1, suppliers, products);
+
+        Map<YearMonth, Boolean> frozen = new HashMap<>();
+        suppliers.forEach((key, delta) -> {
+            if (!delta.isZero() && !frozen.computeIfAbsent(YearMonth.from(key.day()), this::isFrozen)) {
+                jdbcTemplate.update(INCREMENT_SUPPLIER_SQL,
+                        delta.orders, delta.spend, key.companyId(), Date.valueOf(key.day()), key.supplierId());
+            }
+        });
+        products.forEach((key, delta) -> {
+            if (!delta.isZero() && !frozen.computeIfAbsent(YearMonth.from(key.day()), this::isFrozen)) {
+                jdbcTemplate.update(INCREMENT_PRODUCT_SQL,
+                        delta.orders, delta.quantity, delta.spend,
+                        key.companyId(), Date.valueOf(key.day()), key.productId(), key.supplierId());
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<TimeSeriesPointDTO> getTimeSeries(Long companyId, Long supplierId, Long productId,
+                                                  LocalDate from, LocalDate to, TimeSeriesGranularity granularity) {
+        // Un punt per cada període, perquè els períodes sense comandes també es dibuixin
+        List<LocalDate> starts = new ArrayList<>();
+        Map<LocalDate, Integer> index = new HashMap<>();
+        for (LocalDate start = granularity.bucketStart(from); !start.isAfter(to); start = granularity.next(start)) {
+            index.put(start, starts.size());
+            starts.add(start);
+        }
+
+        // Acumulats per període en tipus primitius; despesa en cèntims i quantitat en centèsimes
+        long[] orderCounts = new long[starts.size()];
+        long[] spendCents = new long[starts.size()];
+        long[] quantities = new long[starts.size()];
+
+        String sql;
+        Object[] args;
+        if (productId != null) {
+            sql = PRODUCT_SERIES_SQL;
+            args = new Object[]{companyId, productId, Date.valueOf(from), Date.valueOf(to)};
+        } else if (supplierId != null) {
+            sql = SUPPLIER_SERIES_SQL + " AND supplier_id = ? GROUP BY rollup_date";
+            args = new Object[]{companyId, Date.valueOf(from), Date.valueOf(to), supplierId};
+        } else {
+            sql = SUPPLIER_SERIES_SQL + " GROUP BY rollup_date";
+            args = new Object[]{companyId, Date.valueOf(from), Date.valueOf(to)};
+        }
+
+        jdbcTemplate.query(sql, rs -> {
+            int bucket = index.get(granularity.bucketStart(rs.getDate("rollup_date").toLocalDate()));
+            orderCounts[bucket] += rs.getLong("order_count");
+            spendCents[bucket] = Math.addExact(spendCents[bucket], Money.toCents(rs.getBigDecimal("spend")));
+            if (productId != null) {
+                quantities[bucket] = Math.addExact(quantities[bucket], Money.toCents(rs.getBigDecimal("quantity")));
+            }
+        }, args);
+
+        List<TimeSeriesPointDTO> points = new ArrayList<>(starts.size());
+        for (int i = 0; i < starts.size(); i++) {
+            points.add(TimeSeriesPointDTO.builder()
+                    .inici(starts.get(i))
+                    .numComandes(orderCounts[i])
+                    .quantitat(productId != null ? Money.toBigDecimal(quantities[i]) : null)
+                    .despesa(Money.toBigDecimal(spendCents[i]))
+                    .build());
+        }
+        return points;
+    }
+
+    /**
+     * Congela el mes anterior segons {@code app.reports.daily-rollups.freeze-cron}.
+     */
+    @Scheduled(cron = "${app.reports.daily-rollups.freeze-cron:0 0 4 * * *}")
+    public void freezeClosedMonths() {
+        freezeMonth(YearMonth.now().minusMonths(1));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Cada empresa es recalcula en una transacció pròpia, i el mes es marca com a congelat en
+     * una última transacció.</p>
+     */
+    @Override
+    public boolean freezeMonth(YearMonth month) {
+        if (!month.isBefore(YearMonth.now())) {
+            throw new IllegalArgumentException("Només es poden congelar mesos tancats: " + month);
+        }
+        if (isFrozen(month)) {
+            return false;
+        }
+
+        int supplierRows = 0;
+        int productRows = 0;
+        for (Long companyId : jdbcTemplate.queryForList(COMPANY_IDS_SQL, Long.class)) {
+            int[] rows = transactionTemplate.execute(status -> rebuildCompanyMonth(companyId, month));
+            if (rows != null) {
+                supplierRows += rows[0];
+                productRows += rows[1];
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(MARK_FROZEN_SQL,
+                Date.valueOf(month.atDay(1)), Timestamp.valueOf(LocalDateTime.now())));
+
+        log.info("Mes {} congelat amb {} acumulats per proveïdor i {} per producte", month, supplierRows, productRows);
+        return true;
+    }
+
+    /**
+     * Recalcula els acumulats d'una empresa i un mes a partir de les seves comandes. S'ha de
+     * cridar dins d'una transacció.
+     *
+     * @return files d'acumulats per proveïdor i per producte creades
+     */
+    private int[] rebuildCompanyMonth(Long companyId, YearMonth month) {
+        Timestamp start = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp end = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+        Date startDay = Date.valueOf(month.atDay(1));
+        Date endDay = Date.valueOf(month.plusMonths(1).atDay(1));
+
+        jdbcTemplate.update(DELETE_SUPPLIER_MONTH_SQL, companyId, startDay, endDay);
+        jdbcTemplate.update(DELETE_PRODUCT_MONTH_SQL, companyId, startDay, endDay);
+        int supplierRows = jdbcTemplate.update(REBUILD_SUPPLIER_MONTH_SQL, companyId, start, end);
+        int productRows = jdbcTemplate.update(REBUILD_PRODUCT_MONTH_SQL, companyId, start, end);
+        return new int[]{supplierRows, productRows};
+    }
+
+    /**
+     * Indica si un mes està congelat. El mes en curs mai ho està i no es consulta.
+     */
+    private boolean isFrozen(YearMonth month) {
+        if (!month.isBefore(YearMonth.now())) {
+            return false;
+        }
+        Integer count = jdbcTemplate.queryForObject(IS_FROZEN_SQL, Integer.class, Date.valueOf(month.atDay(1)));
+        return count != null && count > 0;
+    }
+
+    /**
+     * Afegeix als deltes la contribució d'una comanda, si està activa.
+     */
+    private static void collect(Snapshot snapshot, int sign,
+                                Map<SupplierKey, Delta> suppliers, Map<ProductKey, Delta> products) {
+        if (snapshot == null || !snapshot.status().isActive()) {
+            return;
+        }
+
+        BigDecimal total = Objects.requireNonNullElse(snapshot.totalAmount(), BigDecimal.ZERO);
+        suppliers.computeIfAbsent(new SupplierKey(snapshot.companyId(), snapshot.day(), snapshot.supplierId()), k -> new Delta())
+                .add(sign, BigDecimal.ZERO, total);
+
+        snapshot.lines().forEach((productId, line) -> products
+                .computeIfAbsent(new ProductKey(snapshot.companyId(), snapshot.day(), productId, snapshot.supplierId()), k -> new Delta())
+                .add(sign, line.quantity(), line.spend()));
+    }
+}
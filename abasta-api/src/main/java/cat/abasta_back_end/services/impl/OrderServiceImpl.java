@@ -2,16 +2,23 @@ package cat.abasta_back_end.services.impl;
 
 import cat.abasta_back_end.dto.*;
 import cat.abasta_back_end.entities.*;
+import cat.abasta_back_end.events.OrderChangedEvent;
 import cat.abasta_back_end.exceptions.BadRequestException;
 import cat.abasta_back_end.exceptions.ResourceNotFoundException;
 import cat.abasta_back_end.repositories.*;
+import cat.abasta_back_end.security.AuthenticatedUser;
 import cat.abasta_back_end.services.NotificationService;
+import cat.abasta_back_end.services.OrderRollupService;
 import cat.abasta_back_end.services.OrderService;
+import cat.abasta_back_end.services.OrderStatsService;
+import cat.abasta_back_end.services.OrderValueSketchService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
@@ -20,6 +27,9 @@ import java.util.List;
 import java.util.UUID;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -34,6 +44,12 @@ import java.util.stream.Collectors;
  *
  * <p>Les comandes sempre s'envien per email al proveïdor.</p>
  *
+ * <p>Cada creació, modificació, enviament o eliminació actualitza els comptadors mensuals
+ * de l'empresa ({@link OrderStatsService}), els acumulats diaris ({@link OrderRollupService}) i
+ * els histogrames d'imports ({@link OrderValueSketchService}) dins de la mateixa transacció,
+ * i publica un {@link OrderChangedEvent} per invalidar els informes de l'empresa que en
+ * depenen.</p>
+ *
  * @author Daniel Garcia
  * @author Enrique Pérez
  * @version 2.0
@@ -47,8 +63,13 @@ public class OrderServiceImpl implements OrderService {
     private final OrderItemRepository orderItemRepository;
     private final SupplierRepository supplierRepository;
     private final UserRepository userRepository;
+    private final CompanyRepository companyRepository;
     private final ProductRepository productRepository;
     private final NotificationService notificationService;
+    private final OrderStatsService orderStatsService;
+    private final OrderRollupService orderRollupService;
+    private final OrderValueSketchService orderValueSketchService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * {@inheritDoc}
@@ -68,19 +89,19 @@ public class OrderServiceImpl implements OrderService {
         order.setDeliveryDate(orderRequestDTO.getDeliveryDate());
         order.setStatus(Order.OrderStatus.PENDING);
 
-        // Assignar company i usuari
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuari no trobat: " + username));
-
-        order.setUser(user);
-        order.setCompany(user.getCompany());
+        // Assignar company i usuari (referències a partir del token, sense consultar la BD)
+        AuthenticatedUser principal = AuthenticatedUser.current(userRepository);
+        order.setUser(userRepository.getReferenceById(principal.getUserId()));
+        order.setCompany(companyRepository.getReferenceById(principal.getCompanyId()));
 
         // Buscar el proveïdor pel UUID
         Supplier supplier = supplierRepository.findByUuid(orderRequestDTO.getSupplierUuid())
                 .orElseThrow(() -> new ResourceNotFoundException("Proveïdor no trobat"));
         order.setSupplier(supplier);
 
+        // Resoldre tots els productes en una sola consulta
+        Map<String, Product> products = resolveProducts(supplier, orderRequestDTO.getItems());
+
         // Crear els items associats a la comanda
         BigDecimal totalAmount = BigDecimal.ZERO;
         List<OrderItem> orderItems = new ArrayList<>();
@@ -90,9 +111,7 @@ public class OrderServiceImpl implements OrderService {
             item.setUuid(UUID.randomUUID().toString());
             item.setOrder(order);
 
-            Product product = productRepository.findByUuid(itemDTO.getProductUuid())
-                    .orElseThrow(() -> new ResourceNotFoundException(
-                            "Producte no trobat: " + itemDTO.getProductUuid()));
+            Product product = products.get(itemDTO.getProductUuid());
 
             item.setProduct(product);
             item.setQuantity(itemDTO.getQuantity());
@@ -110,9 +129,10 @@ public class OrderServiceImpl implements OrderService {
 
         orderRepository.save(order);
         orderItemRepository.saveAll(orderItems);
+        recordChange(null, null, order);
 
         log.info("Comanda {} creada correctament per l'usuari {} amb estat PENDING",
-                order.getUuid(), username);
+                order.getUuid(), principal.getEmail());
 
         return buildOrderResponseDTO(order);
     }
@@ -124,10 +144,66 @@ public class OrderServiceImpl implements OrderService {
     @Transactional(readOnly = true)
     public Page<OrderResponseDTO> filterOrders(OrderFilterDTO dto, Pageable pageable){
 
+        var spec = buildSpecification(dto);
+
+        // Fase 1: paginar només els ids perquè el LIMIT s'apliqui sobre comandes
+        Page<Long> ids = orderRepository.findIdsBy(spec, pageable);
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, ids.getTotalElements());
+        }
+
+        // Fase 2: carregar proveïdor, items i productes de la pàgina en una sola consulta
+        Map<Long, Order> orders = loadOrdersById(ids.getContent());
+
+        // Retorn en l'ordre de la pàgina
+        return ids.map(id -> mapToResponseDTO(orders.get(id)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPagedResponseDTO<OrderResponseDTO> listOrdersByCursor(OrderFilterDTO dto) {
+
+        var spec = buildSpecification(dto);
+
+        OrderCursor after = dto.getCursor() == null || dto.getCursor().isBlank()
+                ? null
+                : OrderCursor.decode(dto.getCursor());
+
+        // Es demana un id de més per saber si hi ha pàgina següent sense fer recompte
+        List<Long> ids = orderRepository.findIdsAfter(spec,
+                after != null ? after.createdAt() : null,
+                after != null ? after.id() : null,
+                dto.getSize() + 1);
+
+        boolean hasNext = ids.size() > dto.getSize();
+        List<Long> pageIds = hasNext ? ids.subList(0, dto.getSize()) : ids;
+        if (pageIds.isEmpty()) {
+            return CursorPagedResponseDTO.of(List.of(), dto.getSize(), null);
+        }
+
+        Map<Long, Order> orders = loadOrdersById(pageIds);
+        List<Order> page = pageIds.stream().map(orders::get).toList();
+
+        Order last = page.get(page.size() - 1);
+        String nextCursor = hasNext ? new OrderCursor(last.getCreatedAt(), last.getId()).encode() : null;
+
+        return CursorPagedResponseDTO.of(page.stream().map(this::mapToResponseDTO).toList(), dto.getSize(), nextCursor);
+    }
+
+    /**
+     * Construeix l'especificació del llistat de comandes a partir dels filtres rebuts,
+     * limitada sempre a l'empresa de l'usuari autenticat.
+     *
+     * @param dto filtres del llistat
+     * @return especificació amb tots els filtres aplicats
+     * @throws ResourceNotFoundException si la comanda, el proveïdor o l'usuari filtrats no existeixen o l'estat no és vàlid
+     */
+    private Specification<Order> buildSpecification(OrderFilterDTO dto) {
         // Usuari autenticat
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByEmail(username).orElseThrow(() -> new ResourceNotFoundException("Usuari no trobat: " + username));
-        Long companyId = user.getCompany().getId();
+        Long companyId = AuthenticatedUser.current(userRepository).getCompanyId();
         Long userId = null;
         Long supplierId = null;
         Long orderId = null;
@@ -146,7 +222,7 @@ public class OrderServiceImpl implements OrderService {
 
         // Si rebem usuari
         if (dto.getUserUuid() != null && !dto.getUserUuid().isBlank()) {
-            user = userRepository.findByUuid(dto.getUserUuid()).orElseThrow(() -> new ResourceNotFoundException("Usuari no trobat"));
+            User user = userRepository.findByUuid(dto.getUserUuid()).orElseThrow(() -> new ResourceNotFoundException("Usuari no trobat"));
             userId = user.getId();
         }
 
@@ -161,7 +237,7 @@ public class OrderServiceImpl implements OrderService {
         }
 
         // Crear la Specification
-        var spec = OrderSpecifications.filterOrders(
+        return OrderSpecifications.filterOrders(
                 orderId,
                 companyId,
                 supplierId,
@@ -179,18 +255,25 @@ public class OrderServiceImpl implements OrderService {
                 dto.getUpdatedAtFrom(),
                 dto.getUpdatedAtTo()
         );
+    }
 
-        // llistat des de orderRepository
-        Page<Order> orders = orderRepository.findAll(spec, pageable);
-
-        // Retorn
-        return orders.map(this::mapToResponseDTO);
+    /**
+     * Carrega les comandes indicades amb el proveïdor, els items i els productes en una sola consulta.
+     *
+     * @param ids identificadors de les comandes
+     * @return comandes indexades per id
+     */
+    private Map<Long, Order> loadOrdersById(List<Long> ids) {
+        return orderRepository.findWithItemsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
     }
 
     /**
      * {@inheritDoc}
      *
-     * <p>Envia la comanda al proveïdor per email i actualitza l'estat a SENT.</p>
+     * <p>Encua el correu de la comanda al proveïdor i actualitza l'estat a SENT. El correu
+     * s'envia en segon pla un cop confirmada la transacció, de manera que la resposta no
+     * depèn del servidor SMTP.</p>
      *
      * <p>Validacions:
      * <ul>
@@ -205,8 +288,8 @@ public class OrderServiceImpl implements OrderService {
     public OrderResponseDTO sendOrder(String orderUuid) {
         log.info("Intentant enviar la comanda {}", orderUuid);
 
-        // Buscar la comanda
-        Order order = orderRepository.findByUuid(orderUuid)
+        // Buscar la comanda i bloquejar-la fins al final de la transacció
+        Order order = orderRepository.findForUpdateByUuid(orderUuid)
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "Comanda no trobada: " + orderUuid));
 
@@ -216,13 +299,17 @@ public class OrderServiceImpl implements OrderService {
                     "La comanda " + orderUuid + " no es pot enviar. Estat actual: " + order.getStatus());
         }
 
-        // Enviar notificació per email
-        // Si falla, la transacció fa rollback i l'estat no canvia
+        OrderStatsService.Snapshot before = OrderStatsService.Snapshot.of(order);
+        OrderRollupService.Snapshot rollupBefore = OrderRollupService.Snapshot.of(order);
+
+        // Encuar la notificació per email a la mateixa transacció: l'envia en segon pla
+        // l'EmailDispatcher. Si la transacció fa rollback, el correu no s'envia i l'estat no canvia
         notificationService.sendOrderNotification(order);
 
         // Actualitzar estat (ja es fa dins de notificationService, però per seguretat)
         order.setStatus(Order.OrderStatus.SENT);
         orderRepository.save(order);
+        recordChange(before, rollupBefore, order);
 
         log.info("Comanda {} enviada correctament a {}",
                 orderUuid, order.getSupplier().getEmail());
@@ -250,14 +337,17 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional
     public OrderResponseDTO deleteOrder(String orderUuid){
-        // Buscar la comanda
-        Order order = orderRepository.findByUuid(orderUuid).orElseThrow(() -> new ResourceNotFoundException("No s'ha trobat cap comanda amb el UUID: " + orderUuid));
+        // Buscar la comanda i bloquejar-la fins al final de la transacció
+        Order order = orderRepository.findForUpdateByUuid(orderUuid).orElseThrow(() -> new ResourceNotFoundException("No s'ha trobat cap comanda amb el UUID: " + orderUuid));
 
         // Marcar com a inactiu
+        OrderStatsService.Snapshot before = OrderStatsService.Snapshot.of(order);
+        OrderRollupService.Snapshot rollupBefore = OrderRollupService.Snapshot.of(order);
         order.setStatus(Order.OrderStatus.DELETED);
 
         // Guardar canvis
         order = orderRepository.save(order);
+        recordChange(before, rollupBefore, order);
 
         // Retornar DTO
         return buildOrderResponseDTO(order);
@@ -270,14 +360,16 @@ public class OrderServiceImpl implements OrderService {
     @Transactional
     public OrderResponseDTO updateOrder(String uuid, OrderRequestDTO dto) {
 
-        // Buscar la comanda pel UUID
-        Order order = orderRepository.findByUuid(uuid)
+        // Buscar la comanda pel UUID i bloquejar-la fins al final de la transacció
+        Order order = orderRepository.findForUpdateByUuid(uuid)
                 .orElseThrow(() -> new BadRequestException("La comanda no existeix"));
 
         // Comprovar que no estigui esborrada
         if (order.getStatus() == Order.OrderStatus.DELETED) {
             throw new BadRequestException("No es pot modificar una comanda eliminada");
         }
+        OrderStatsService.Snapshot before = OrderStatsService.Snapshot.of(order);
+        OrderRollupService.Snapshot rollupBefore = OrderRollupService.Snapshot.of(order);
 
         // Actualitzar camps simples
         order.setName(dto.getName());
@@ -292,11 +384,12 @@ public class OrderServiceImpl implements OrderService {
         }
 
         // Assignar company i usuari
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuari no trobat: " + username));
-        order.setUser(user);
-        order.setCompany(user.getCompany());
+        AuthenticatedUser principal = AuthenticatedUser.current(userRepository);
+        order.setUser(userRepository.getReferenceById(principal.getUserId()));
+        order.setCompany(companyRepository.getReferenceById(principal.getCompanyId()));
+
+        // Resoldre tots els productes en una sola consulta
+        Map<String, Product> products = resolveProducts(order.getSupplier(), dto.getItems());
 
         // Gestionar items
         Map<String, OrderItem> currentItemsMap = order.getItems().stream()
@@ -312,8 +405,7 @@ public class OrderServiceImpl implements OrderService {
                     throw new BadRequestException("Item amb UUID " + itemDTO.getOrderItemUuid() + " no existeix en aquesta comanda");
                 }
 
-                Product product = productRepository.findByUuid(itemDTO.getProductUuid())
-                        .orElseThrow(() -> new ResourceNotFoundException("Producte no trobat: " + itemDTO.getProductUuid()));
+                Product product = products.get(itemDTO.getProductUuid());
 
                 existing.setProduct(product);
                 existing.setQuantity(itemDTO.getQuantity());
@@ -326,8 +418,7 @@ public class OrderServiceImpl implements OrderService {
 
             } else {
                 // ITEM NOU → CREATE
-                Product product = productRepository.findByUuid(itemDTO.getProductUuid())
-                        .orElseThrow(() -> new ResourceNotFoundException("Producte no trobat: " + itemDTO.getProductUuid()));
+                Product product = products.get(itemDTO.getProductUuid());
 
                 OrderItem newItem = new OrderItem();
                 newItem.setUuid(UUID.randomUUID().toString());
@@ -355,10 +446,55 @@ public class OrderServiceImpl implements OrderService {
 
         // Guardar comanda
         orderRepository.save(order);
+        recordChange(before, rollupBefore, order);
 
         return buildOrderResponseDTO(order);
     }
 
+    /**
+     * Aplica el canvi d'una comanda als comptadors mensuals, als acumulats diaris i als histogrames
+     * d'imports i publica un {@link OrderChangedEvent} perquè s'invalidin els informes afectats,
+     * s'actualitzin les línies en memòria i se n'avisi els clients connectats.
+     *
+     * @param statsBefore estat anterior per als comptadors, o null si la comanda és nova
+     * @param rollupBefore estat anterior per als acumulats, o null si la comanda és nova
+     * @param order la comanda ja guardada
+     */
+    private void recordChange(OrderStatsService.Snapshot statsBefore, OrderRollupService.Snapshot rollupBefore, Order order) {
+        orderStatsService.applyChange(statsBefore, OrderStatsService.Snapshot.of(order));
+        OrderRollupService.Snapshot rollupAfter = OrderRollupService.Snapshot.of(order);
+        orderRollupService.applyChange(rollupBefore, rollupAfter);
+        orderValueSketchService.applyChange(rollupBefore, rollupAfter);
+        eventPublisher.publishEvent(new OrderChangedEvent(order.getCompany().getId(), order.getCreatedAt(), order.getId(), rollupAfter, order.getUuid()));
+    }
+
+    /**
+     * Resol tots els productes dels items amb una única consulta {@code IN}.
+     * Comprova que cada producte existeixi, pertanyi al proveïdor de la comanda i estigui actiu.
+     *
+     * @param supplier el proveïdor de la comanda
+     * @param items els items de la petició
+     * @return mapa d'uuid de producte a producte
+     * @throws ResourceNotFoundException si algun producte no existeix, és d'un altre proveïdor o està inactiu
+     */
+    private Map<String, Product> resolveProducts(Supplier supplier, List<OrderItemRequestDTO> items) {
+        Set<String> uuids = items.stream()
+                .map(OrderItemRequestDTO::getProductUuid)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        Map<String, Product> products = productRepository
+                .findActiveBySupplierIdAndUuidIn(supplier.getId(), uuids).stream()
+                .collect(Collectors.toMap(Product::getUuid, Function.identity()));
+
+        for (String uuid : uuids) {
+            if (!products.containsKey(uuid)) {
+                throw new ResourceNotFoundException("Producte no trobat: " + uuid);
+            }
+        }
+
+        return products;
+    }
+
     /**
      * Construeix el DTO de resposta a partir d'una entitat Order.
      *
@@ -0,0 +1,319 @@
+package cat.abasta_back_end.services.impl;
+
+import cat.abasta_back_end.dto.MonthlyOrderStatsDTO;
+import cat.abasta_back_end.entities.Order;
+import cat.abasta_back_end.services.OrderStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Implementació amb JDBC del servei de comptadors mensuals de comandes.
+ *
+ * <p>Cada canvi d'una comanda es tradueix en un sol {@code INSERT ... ON DUPLICATE KEY UPDATE}
+ * amb increments relatius sobre la fila {@code (company_id, stats_month)}, que la crea si encara
+ * no existeix. La sentència bloqueja la fila, de manera que dues transaccions concurrents sobre
+ * la mateixa empresa i mes s'apliquen una darrere l'altra sense perdre increments. Un
+ * {@code UPDATE} que no troba la fila seguit d'un {@code INSERT} no serviria: a InnoDB l'{@code UPDATE}
+ * bloqueja l'interval de la clau i dues transaccions que creen la mateixa fila es bloquegen
+ * mútuament.</p>
+ *
+ * <p>La conciliació s'executa segons {@code app.reports.monthly-stats.reconcile-cron} (cada
+ * nit per defecte), recalcula els comptadors agrupant la taula {@code orders} i sobreescriu
+ * només les files que no coincideixen. Cada empresa es concilia en una transacció curta pròpia
+ * que bloqueja primer només les seves files de comptadors i després agrupa només les seves
+ * comandes (índex {@code idx_company_date}): els canvis de comandes d'aquella empresa que
+ * arriben mentrestant esperen i s'apliquen sobre els valors ja corregits, i les de la resta
+ * d'empreses no es bloquegen.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @see OrderStatsService
+ * @since 2025
+ */
+@Service
+@Slf4j
+public class OrderStatsServiceImpl implements OrderStatsService {
+
+    private static final Order.OrderStatus[] STATUSES = Order.OrderStatus.values();
+
+    private static final String COUNT_COLUMNS = columns("%s");
+
+    private static final String SELECT_STATS_SQL =
+            "SELECT company_id, stats_month, " + COUNT_COLUMNS + ", total_amount FROM company_monthly_stats";
+
+    private static final String LOCK_COMPANY_STATS_SQL = SELECT_STATS_SQL + " WHERE company_id = ? FOR UPDATE";
+
+    private static final String SELECT_MONTH_SQL = SELECT_STATS_SQL + " WHERE company_id = ? AND stats_month = ?";
+
+    private static final String OVERWRITE_SQL = "UPDATE company_monthly_stats SET " + columns("%s = ?")
+            + ", total_amount = ?, updated_at = CURRENT_TIMESTAMP WHERE company_id = ? AND stats_month = ?";
+
+    private static final String INSERT_SQL = "INSERT INTO company_monthly_stats (" + COUNT_COLUMNS
+            + ", total_amount, company_id, stats_month) VALUES (" + columns("?") + ", ?, ?, ?)";
+
+    private static final String INCREMENT_SQL = INSERT_SQL + " ON DUPLICATE KEY UPDATE "
+            + columns("%1$s = %1$s + VALUES(%1$s)")
+            + ", total_amount = total_amount + VALUES(total_amount), updated_at = CURRENT_TIMESTAMP";
+
+    private static final String AGGREGATE_COMPANY_ORDERS_SQL = """
+            SELECT YEAR(created_at) AS stats_year, MONTH(created_at) AS stats_month_number, status,
+                   COUNT(*) AS order_count, COALESCE(SUM(total_amount), 0) AS total_amount
+            FROM orders
+            WHERE company_id = ?
+            GROUP BY YEAR(created_at), MONTH(created_at), status
+            """;
+
+    private static final String COMPANY_IDS_SQL = "SELECT id FROM companies ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Clau primària d'una fila de comptadors.
+     */
+    private record Key(Long companyId, YearMonth month) {
+    }
+
+    /**
+     * Crea el servei.
+     *
+     * @param jdbcTemplate accés JDBC a la base de dades
+     * @param transactionManager gestor de transaccions per conciliar cada empresa per separat
+     */
+    @Autowired
+    public OrderStatsServiceImpl(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void applyChange(Snapshot before, Snapshot after) {
+        Map<Key, Delta> deltas = new HashMap<>();
+        if (before != null) {
+            deltas.computeIfAbsent(keyOf(before), k -> new Delta()).add(before, -1);
+        }
+        deltas.computeIfAbsent(keyOf(after), k -> new Delta()).add(after, 1);
+
+        deltas.forEach((key, delta) -> {
+            if (!delta.isZero()) {
+                increment(key, delta);
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public MonthlyOrderStatsDTO getMonthlyStats(Long companyId, YearMonth month) {
+        List<MonthlyOrderStatsDTO> rows = jdbcTemplate.query(SELECT_MONTH_SQL,
+                (rs, rowNum) -> mapRow(rs), companyId, Date.valueOf(month.atDay(1)));
+
+        return rows.isEmpty() ? empty(companyId, month) : rows.get(0);
+    }
+
+    /**
+     * Executa la conciliació periòdicament segons {@code app.reports.monthly-stats.reconcile-cron}.
+     */
+    @Scheduled(cron = "${app.reports.monthly-stats.reconcile-cron:0 30 3 * * *}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Cada empresa es concilia en una transacció pròpia. Les files que ja no tenen cap comanda
+     * es posen a zero en lloc d'esborrar-se.</p>
+     */
+    @Override
+    public int reconcile() {
+        List<Long> companyIds = jdbcTemplate.queryForList(COMPANY_IDS_SQL, Long.class);
+
+        int repaired = 0;
+        for (Long companyId : companyIds) {
+            Integer companyRepaired = transactionTemplate.execute(status -> reconcileCompany(companyId));
+            repaired += companyRepaired != null ? companyRepaired : 0;
+        }
+
+        log.info("Conciliació de comptadors mensuals completada: {} files corregides en {} empreses",
+                repaired, companyIds.size());
+        return repaired;
+    }
+
+    /**
+     * Concilia els comptadors d'una empresa. S'ha de cridar dins d'una transacció.
+     *
+     * @return nombre de comptadors mensuals corregits
+     */
+    private int reconcileCompany(Long companyId) {
+        // Bloquejar els comptadors de l'empresa abans de llegir les seves comandes: un canvi
+        // concurrent no es pot aplicar entre la lectura i la sobreescriptura
+        Map<Key, MonthlyOrderStatsDTO> actual = jdbcTemplate.query(LOCK_COMPANY_STATS_SQL, (rs, rowNum) -> mapRow(rs), companyId)
+                .stream()
+                .collect(Collectors.toMap(s -> new Key(s.getCompanyId(), s.getMonth()), s -> s));
+
+        Map<Key, MonthlyOrderStatsDTO> expected = new HashMap<>();
+        jdbcTemplate.query(AGGREGATE_COMPANY_ORDERS_SQL, rs -> {
+            Key key = new Key(companyId, YearMonth.of(rs.getInt("stats_year"), rs.getInt("stats_month_number")));
+            Order.OrderStatus status = Order.OrderStatus.valueOf(rs.getString("status"));
+            MonthlyOrderStatsDTO stats = expected.computeIfAbsent(key, k -> empty(k.companyId(), k.month()));
+            stats.getCounts().put(status, rs.getLong("order_count"));
+            if (status.isActive()) {
+                stats.setTotalAmount(stats.getTotalAmount().add(rs.getBigDecimal("total_amount")));
+            }
+        }, companyId);
+
+        Set<Key> keys = new HashSet<>(expected.keySet());
+        keys.addAll(actual.keySet());
+
+        int repaired = 0;
+        for (Key key : keys) {
+            MonthlyOrderStatsDTO want = expected.getOrDefault(key, empty(key.companyId(), key.month()));
+            MonthlyOrderStatsDTO have = actual.get(key);
+            if (have != null && sameCounters(want, have)) {
+                continue;
+            }
+
+            log.warn("Comptadors de l'empresa {} per al mes {} desviats: {} en lloc de {}",
+                    key.companyId(), key.month(), have, want);
+            List<Object> args = counterArgs(want);
+            args.add(key.companyId());
+            args.add(Date.valueOf(key.month().atDay(1)));
+            jdbcTemplate.update(have != null ? OVERWRITE_SQL : INSERT_SQL, args.toArray());
+            repaired++;
+        }
+        return repaired;
+    }
+
+    /**
+     * Aplica un increment a una fila, creant-la si encara no existeix.
+     */
+    private void increment(Key key, Delta delta) {
+        List<Object> args = delta.args();
+        args.add(key.companyId());
+        args.add(Date.valueOf(key.month().atDay(1)));
+        jdbcTemplate.update(INCREMENT_SQL, args.toArray());
+    }
+
+    private static Key keyOf(Snapshot snapshot) {
+        return new Key(snapshot.companyId(), snapshot.month());
+    }
+
+    private static boolean sameCounters(MonthlyOrderStatsDTO a, MonthlyOrderStatsDTO b) {
+        for (Order.OrderStatus status : STATUSES) {
+            if (a.getCount(status) != b.getCount(status)) {
+                return false;
+            }
+        }
+        return a.getTotalAmount().compareTo(b.getTotalAmount()) == 0;
+    }
+
+    private static List<Object> counterArgs(MonthlyOrderStatsDTO stats) {
+        List<Object> args = new ArrayList<>(STATUSES.length + 3);
+        for (Order.OrderStatus status : STATUSES) {
+            args.add(stats.getCount(status));
+        }
+        args.add(stats.getTotalAmount());
+        return args;
+    }
+
+    private static MonthlyOrderStatsDTO mapRow(ResultSet rs) throws SQLException {
+        Map<Order.OrderStatus, Long> counts = new EnumMap<>(Order.OrderStatus.class);
+        for (Order.OrderStatus status : STATUSES) {
+            counts.put(status, rs.getLong(column(status)));
+        }
+        return MonthlyOrderStatsDTO.builder()
+                .companyId(rs.getLong("company_id"))
+                .month(YearMonth.from(rs.getDate("stats_month").toLocalDate()))
+                .counts(counts)
+                .totalAmount(rs.getBigDecimal("total_amount"))
+                .build();
+    }
+
+    private static MonthlyOrderStatsDTO empty(Long companyId, YearMonth month) {
+        return MonthlyOrderStatsDTO.builder()
+                .companyId(companyId)
+                .month(month)
+                .counts(new EnumMap<>(Order.OrderStatus.class))
+                .totalAmount(BigDecimal.ZERO)
+                .build();
+    }
+
+    private static String column(Order.OrderStatus status) {
+        return status.name().toLowerCase() + "_count";
+    }
+
+    /**
+     * Genera la llista de columnes de comptadors aplicant un patró a cadascuna.
+     */
+    private static String columns(String pattern) {
+        List<String> parts = new ArrayList<>(STATUSES.length);
+        for (Order.OrderStatus status : STATUSES) {
+            parts.add(String.format(pattern, column(status)));
+        }
+        return String.join(", ", parts);
+    }
+
+    /**
+     * Variació acumulada dels comptadors d'una fila.
+     */
+    private static final class Delta {
+
+        private final long[] counts = new long[STATUSES.length];
+
+        private BigDecimal amount = BigDecimal.ZERO;
+
+        void add(Snapshot snapshot, int sign) {
+            counts[snapshot.status().ordinal()] += sign;
+            if (snapshot.status().isActive()) {
+                BigDecimal total = Objects.requireNonNullElse(snapshot.totalAmount(), BigDecimal.ZERO);
+                amount = amount.add(sign < 0 ? total.negate() : total);
+            }
+        }
+
+        boolean isZero() {
+            for (long count : counts) {
+                if (count != 0) {
+                    return false;
+                }
+            }
+            return amount.signum() == 0;
+        }
+
+        List<Object> args() {
+            List<Object> args = new ArrayList<>(counts.length + 3);
+            for (long count : counts) {
+                args.add(count);
+            }
+            args.add(amount);
+            return args;
+        }
+    }
+}
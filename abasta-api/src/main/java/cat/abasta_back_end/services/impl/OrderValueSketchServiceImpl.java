@@ -0,0 +1,309 @@
+package cat.abasta_back_end.services.impl;
+
+import cat.abasta_back_end.analytics.QuantileSketch;
+import cat.abasta_back_end.entities.Order;
+import cat.abasta_back_end.money.Money;
+import cat.abasta_back_end.services.OrderRollupService.Snapshot;
+import cat.abasta_back_end.services.OrderValueSketchService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Implementació amb JDBC del servei d'histogrames d'imports de comandes.
+ *
+ * <p>Cada canvi de comanda bloqueja l'histograma del seu proveïdor i mes, hi treu l'import
+ * anterior, hi afegeix el nou i el torna a guardar, de manera que dues escriptures simultànies
+ * sobre el mateix histograma s'esperen. La fila es crea buida, si encara no existeix, amb un
+ * {@code INSERT ... ON DUPLICATE KEY UPDATE} que ja la deixa bloquejada: un
+ * {@code SELECT ... FOR UPDATE} sobre una fila que no existeix bloquejaria l'interval de la
+ * clau a InnoDB, i dues transaccions que la creessin alhora es bloquejarien mútuament. Els
+ * histogrames que queden buits s'esborren.</p>
+ *
+ * <p>Cada nit ({@code app.reports.order-value-sketches.rebuild-cron}) es recalcula el mes
+ * anterior a partir de les comandes, i en arrencar s'omple la taula si és buida
+ * ({@code app.reports.order-value-sketches.backfill-on-startup}). Cada empresa i mes es
+ * recalcula en una transacció curta pròpia que primer n'esborra els histogrames per la clau
+ * primària {@code (company_id, sketch_month)}: els canvis de comandes d'aquella empresa i mes
+ * que arriben mentrestant esperen i s'apliquen sobre els histogrames ja recalculats, i els de
+ * la resta d'empreses no es bloquegen.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @see OrderValueSketchService
+ * @since 2025
+ */
+@Service
+@Slf4j
+public class OrderValueSketchServiceImpl implements OrderValueSketchService {
+
+    private static final String ACTIVE_STATUSES = Arrays.stream(Order.OrderStatus.values())
+            .filter(Order.OrderStatus::isActive)
+            .map(status -> "'" + status.name() + "'")
+            .collect(Collectors.joining(", ", "(", ")"));
+
+    private static final String CREATE_EMPTY_SQL = """
+            INSERT INTO order_value_sketches (order_count, sketch, company_id, sketch_month, supplier_id)
+            VALUES (0, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE order_count = order_count
+            """;
+
+    private static final String LOCK_SQL = """
+            SELECT sketch FROM order_value_sketches
+            WHERE company_id = ? AND sketch_month = ? AND supplier_id = ?
+            FOR UPDATE
+            """;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO order_value_sketches (order_count, sketch, company_id, sketch_month, supplier_id)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    private static final String UPDATE_SQL = """
+            UPDATE order_value_sketches SET order_count = ?, sketch = ?
+            WHERE company_id = ? AND sketch_month = ? AND supplier_id = ?
+            """;
+
+    private static final String DELETE_SQL =
+            "DELETE FROM order_value_sketches WHERE company_id = ? AND sketch_month = ? AND supplier_id = ?";
+
+    private static final String SELECT_RANGE_SQL = """
+            SELECT supplier_id, sketch_month, sketch
+            FROM order_value_sketches
+            WHERE company_id = ? AND sketch_month BETWEEN ? AND ?
+            """;
+
+    private static final String DELETE_COMPANY_MONTH_SQL =
+            "DELETE FROM order_value_sketches WHERE company_id = ? AND sketch_month = ?";
+
+    private static final String COMPANY_MONTH_ORDERS_SQL = """
+            SELECT supplier_id, total_amount
+            FROM orders
+            WHERE company_id = ? AND created_at >= ? AND created_at < ? AND status IN %s
+            """.formatted(ACTIVE_STATUSES);
+
+    private static final String COMPANY_IDS_SQL = "SELECT id FROM companies ORDER BY id";
+
+    private static final String ORDER_MONTHS_SQL = """
+            SELECT DISTINCT YEAR(created_at) AS order_year, MONTH(created_at) AS order_month
+            FROM orders
+            WHERE status IN %s
+            """.formatted(ACTIVE_STATUSES);
+
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM order_value_sketches";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean backfillOnStartup;
+
+    /**
+     * Clau d'un histograma, ordenable per prendre els bloquejos sempre en el mateix ordre.
+     */
+    private record Key(Long companyId, YearMonth month, Long supplierId) {
+
+        static final Comparator<Key> ORDER = Comparator.comparing(Key::companyId)
+                .thenComparing(Key::month)
+                .thenComparing(Key::supplierId);
+    }
+
+    /**
+     * Imports que cal treure i afegir a un histograma.
+     */
+    private static final class Change {
+
+        private final List<Long> removed = new ArrayList<>();
+        private final List<Long> added = new ArrayList<>();
+    }
+
+    /**
+     * Crea el servei amb la configuració de l'aplicació.
+     *
+     * @param jdbcTemplate accés JDBC a la base de dades
+     * @param transactionManager gestor de transaccions per recalcular cada empresa i mes per separat
+     * @param backfillOnStartup si s'ha d'omplir la taula en arrencar quan és buida
+     */
+    @Autowired
+    public OrderValueSketchServiceImpl(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                       @Value("${app.reports.order-value-sketches.backfill-on-startup:true}") boolean backfillOnStartup) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.backfillOnStartup = backfillOnStartup;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void applyChange(Snapshot before, Snapshot after) {
+        Map<Key, Change> changes = new TreeMap<>(Key.ORDER);
+        if (isActive(before)) {
+            changes.computeIfAbsent(keyOf(before), k -> new Change()).removed.add(cents(before));
+        }
+        if (isActive(after)) {
+            changes.computeIfAbsent(keyOf(after), k -> new Change()).added.add(cents(after));
+        }
+
+        changes.forEach((key, change) -> {
+            // Una modificació que no canvia ni l'histograma ni l'import no cal escriure-la
+            if (change.removed.equals(change.added)) {
+                return;
+            }
+            apply(key, change);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<SketchRow> getSketches(Long companyId, Long supplierId, YearMonth from, YearMonth to) {
+        String sql = SELECT_RANGE_SQL;
+        Object[] args;
+        if (supplierId != null) {
+            sql += " AND supplier_id = ?";
+            args = new Object[]{companyId, Date.valueOf(from.atDay(1)), Date.valueOf(to.atDay(1)), supplierId};
+        } else {
+            args = new Object[]{companyId, Date.valueOf(from.atDay(1)), Date.valueOf(to.atDay(1))};
+        }
+
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new SketchRow(
+                rs.getLong("supplier_id"),
+                YearMonth.from(rs.getDate("sketch_month").toLocalDate()),
+                QuantileSketch.fromBytes(rs.getBytes("sketch"))), args);
+    }
+
+    /**
+     * Recalcula el mes anterior segons {@code app.reports.order-value-sketches.rebuild-cron},
+     * per corregir qualsevol desviació dels histogrames.
+     */
+    @Scheduled(cron = "${app.reports.order-value-sketches.rebuild-cron:0 15 4 * * *}")
+    public void rebuildPreviousMonth() {
+        rebuildMonth(YearMonth.now().minusMonths(1));
+    }
+
+    /**
+     * Omple la taula a partir de les comandes si és buida, per exemple després de crear-la.
+     * Cada empresa i mes es recalcula en la seva pròpia transacció.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        Integer existing = jdbcTemplate.queryForObject(COUNT_SQL, Integer.class);
+        if (!backfillOnStartup || (existing != null && existing > 0)) {
+            return;
+        }
+
+        List<YearMonth> months = jdbcTemplate.query(ORDER_MONTHS_SQL,
+                (rs, rowNum) -> YearMonth.of(rs.getInt("order_year"), rs.getInt("order_month")));
+        int sketches = 0;
+        for (YearMonth month : months) {
+            sketches += rebuildMonth(month);
+        }
+        log.info("Histogrames d'imports inicialitzats: {} histogrames de {} mesos", sketches, months.size());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Cada empresa es recalcula en una transacció pròpia.</p>
+     */
+    @Override
+    public int rebuildMonth(YearMonth month) {
+        int rows = 0;
+        for (Long companyId : jdbcTemplate.queryForList(COMPANY_IDS_SQL, Long.class)) {
+            Integer rebuilt = transactionTemplate.execute(status -> rebuildCompanyMonth(companyId, month));
+            rows += rebuilt != null ? rebuilt : 0;
+        }
+
+        log.debug("Histogrames d'imports del mes {} recalculats: {}", month, rows);
+        return rows;
+    }
+
+    /**
+     * Recalcula els histogrames d'una empresa i un mes. S'ha de cridar dins d'una transacció.
+     *
+     * @return nombre d'histogrames guardats
+     */
+    private int rebuildCompanyMonth(Long companyId, YearMonth month) {
+        // Esborrar primer bloqueja els histogrames de l'empresa i el mes (prefix de la clau
+        // primària): un canvi concurrent espera que acabi el recàlcul, i les comandes es llegeixen
+        // després, amb tots els canvis anteriors confirmats
+        jdbcTemplate.update(DELETE_COMPANY_MONTH_SQL, companyId, Date.valueOf(month.atDay(1)));
+
+        Map<Key, QuantileSketch> sketches = new HashMap<>();
+        jdbcTemplate.query(COMPANY_MONTH_ORDERS_SQL, rs -> {
+            Key key = new Key(companyId, month, rs.getLong("supplier_id"));
+            sketches.computeIfAbsent(key, k -> new QuantileSketch()).add(Money.toCents(rs.getBigDecimal("total_amount")));
+        }, companyId, Timestamp.valueOf(month.atDay(1).atStartOfDay()), Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay()));
+
+        List<Object[]> rows = sketches.entrySet().stream()
+                .map(entry -> args(entry.getKey(), entry.getValue()))
+                .toList();
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        return rows.size();
+    }
+
+    /**
+     * Actualitza un histograma amb la fila bloquejada, creant-la buida si encara no existeix.
+     */
+    private void apply(Key key, Change change) {
+        Object[] keyArgs = {key.companyId(), Date.valueOf(key.month().atDay(1)), key.supplierId()};
+        jdbcTemplate.update(CREATE_EMPTY_SQL, new byte[0], keyArgs[0], keyArgs[1], keyArgs[2]);
+        List<byte[]> current = jdbcTemplate.query(LOCK_SQL, (rs, rowNum) -> rs.getBytes("sketch"), keyArgs);
+        QuantileSketch sketch = QuantileSketch.fromBytes(current.isEmpty() ? null : current.get(0));
+
+        for (long value : change.removed) {
+            if (!sketch.remove(value)) {
+                log.warn("L'import {} no era a l'histograma de l'empresa {}, proveïdor {} i mes {}",
+                        value, key.companyId(), key.supplierId(), key.month());
+            }
+        }
+        change.added.forEach(sketch::add);
+
+        if (sketch.isEmpty()) {
+            jdbcTemplate.update(DELETE_SQL, keyArgs);
+        } else {
+            jdbcTemplate.update(UPDATE_SQL, args(key, sketch));
+        }
+    }
+
+    private static Object[] args(Key key, QuantileSketch sketch) {
+        return new Object[]{Math.toIntExact(sketch.count()), sketch.toBytes(),
+                key.companyId(), Date.valueOf(key.month().atDay(1)), key.supplierId()};
+    }
+
+    private static boolean isActive(Snapshot snapshot) {
+        return snapshot != null && snapshot.status() != null && snapshot.status().isActive();
+    }
+
+    private static Key keyOf(Snapshot snapshot) {
+        return new Key(snapshot.companyId(), YearMonth.from(snapshot.day()), snapshot.supplierId());
+    }
+
+    private static long cents(Snapshot snapshot) {
+        return Money.toCents(Objects.requireNonNullElse(snapshot.totalAmount(), BigDecimal.ZERO));
+    }
+}
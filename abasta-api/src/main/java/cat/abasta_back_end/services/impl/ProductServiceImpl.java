@@ -4,14 +4,13 @@ import cat.abasta_back_end.dto.*;
 import cat.abasta_back_end.entities.Company;
 import cat.abasta_back_end.entities.Product;
 import cat.abasta_back_end.entities.Supplier;
-import cat.abasta_back_end.entities.User;
 import cat.abasta_back_end.exceptions.ResourceNotFoundException;
 import cat.abasta_back_end.repositories.ProductRepository;
 import cat.abasta_back_end.repositories.SupplierRepository;
 import cat.abasta_back_end.repositories.UserRepository;
 import cat.abasta_back_end.repositories.*;
+import cat.abasta_back_end.security.AuthenticatedUser;
 import cat.abasta_back_end.services.ProductService;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.stereotype.Service;
 import org.springframework.data.domain.Page;
@@ -159,10 +158,7 @@ public class ProductServiceImpl implements ProductService {
     public Page<ProductResponseDTO> listProductsByCompany(Pageable pageable){
 
         // Assignar company i usuari
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuari no trobat: " + username));
-        Long companyId = user.getCompany().getId();
+        Long companyId = AuthenticatedUser.current(userRepository).getCompanyId();
 
         Page<Product> products = productRepository.findProductsByCompanyId(companyId, pageable);
 
@@ -188,10 +184,7 @@ public class ProductServiceImpl implements ProductService {
             products = productRepository.searchProductsBySupplierId(supplierId, dto.getSearchText(), pageable);
         }else{
             // Proveïdor no especificat - cercar company de l'usuari.
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
-            User user = userRepository.findByEmail(username)
-                    .orElseThrow(() -> new ResourceNotFoundException("Usuari no trobat: " + username));
-            Long companyId = user.getCompany().getId();
+            Long companyId = AuthenticatedUser.current(userRepository).getCompanyId();
             products = productRepository.searchProductsByCompanyId(companyId, dto.getSearchText(), pageable);
         }
         return products.map(this::mapToResponseDTO);
@@ -226,10 +219,7 @@ public class ProductServiceImpl implements ProductService {
                     isActive, pageable);
         }else{
             // Proveïdor no especificat - cercar company de l'usuari.
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
-            User user = userRepository.findByEmail(username)
-                    .orElseThrow(() -> new ResourceNotFoundException("Usuari no trobat: " + username));
-            Long companyId = user.getCompany().getId();
+            Long companyId = AuthenticatedUser.current(userRepository).getCompanyId();
             products = productRepository.filterProductsByCompanyId(companyId,
                     dto.getName(),
                     dto.getDescription(),
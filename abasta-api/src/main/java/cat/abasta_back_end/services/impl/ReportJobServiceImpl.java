@@ -0,0 +1,431 @@
+package cat.abasta_back_end.services.impl;
+
+import cat.abasta_back_end.dto.PeriodRequestDTO;
+import cat.abasta_back_end.dto.ReportGlobalResponseDTO;
+import cat.abasta_back_end.dto.ReportJobFormat;
+import cat.abasta_back_end.dto.ReportJobResponseDTO;
+import cat.abasta_back_end.dto.ReportJobStatus;
+import cat.abasta_back_end.exceptions.ResourceNotFoundException;
+import cat.abasta_back_end.exceptions.TooManyRequestsException;
+import cat.abasta_back_end.repositories.UserRepository;
+import cat.abasta_back_end.security.AuthenticatedUser;
+import cat.abasta_back_end.services.ReportJobService;
+import cat.abasta_back_end.services.ReportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Implementació de la interfície {@link ReportJobService}.
+ *
+ * <p>Cada informe s'executa en un fil virtual. El nombre d'informes calculant-se alhora està
+ * limitat globalment (protegeix el pool de connexions) i per empresa (una empresa no pot ocupar
+ * tots els torns). Els informes que esperen torn compten per a la capacitat de la cua; quan és
+ * plena, la petició es rebutja amb una {@link TooManyRequestsException} (HTTP 429).</p>
+ *
+ * <p>El resultat s'escriu al directori configurat, en un fitxer temporal que es reanomena quan
+ * és complet. L'estat dels informes es guarda en memòria; una tasca periòdica elimina els
+ * informes finalitzats i els fitxers que han superat el temps de vida, també els que han quedat
+ * d'una execució anterior de l'aplicació.</p>
+ *
+ * <p>Exposa comptadors d'informes completats, fallits, rebutjats i caducats.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ */
+@Slf4j
+@Service
+public class ReportJobServiceImpl implements ReportJobService {
+
+    /**
+     * Segons recomanats al client abans de tornar-ho a provar quan la cua és plena.
+     */
+    private static final long RETRY_AFTER_SECONDS = 30;
+
+    private static final String BUSY_MESSAGE =
+            "Hi ha massa informes pendents. Torna-ho a provar d'aquí a uns minuts.";
+
+    private final ReportService reportService;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final int maxPerCompany;
+    private final int maxPending;
+    private final long ttlMillis;
+
+    private final ExecutorService executor;
+    private final Semaphore running;
+    private final Map<Long, Semaphore> companySlots = new ConcurrentHashMap<>();
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    /**
+     * Estat en memòria d'un informe.
+     */
+    private static final class Job {
+        final String uuid;
+        final Long companyId;
+        final ReportJobFormat format;
+        final PeriodRequestDTO period;
+        final LocalDateTime createdAt = LocalDateTime.now();
+        volatile ReportJobStatus status = ReportJobStatus.PENDING;
+        volatile LocalDateTime finishedAt;
+        volatile long finishedAtMillis;
+        volatile String error;
+
+        Job(String uuid, Long companyId, ReportJobFormat format, PeriodRequestDTO period) {
+            this.uuid = uuid;
+            this.companyId = companyId;
+            this.format = format;
+            this.period = period;
+        }
+
+        void finish(ReportJobStatus status, String error) {
+            this.error = error;
+            this.finishedAt = LocalDateTime.now();
+            this.finishedAtMillis = System.currentTimeMillis();
+            this.status = status;
+        }
+    }
+
+    /**
+     * Crea el servei amb la configuració de l'aplicació.
+     *
+     * @param reportService servei que calcula i genera els informes
+     * @param userRepository repositori per resoldre l'usuari autenticat
+     * @param objectMapper serialitzador dels resultats JSON
+     * @param directory directori on es guarden els resultats
+     * @param maxConcurrent nombre màxim d'informes calculant-se alhora
+     * @param maxPerCompany nombre màxim d'informes d'una mateixa empresa calculant-se alhora
+     * @param maxPending nombre màxim d'informes a la cua o calculant-se
+     * @param ttlMinutes minuts que es conserva un informe finalitzat
+     */
+    @Autowired
+    public ReportJobServiceImpl(ReportService reportService, UserRepository userRepository, ObjectMapper objectMapper,
+                                @Value("${app.reports.jobs.dir:${java.io.tmpdir}/abasta-report-jobs}") Path directory,
+                                @Value("${app.reports.jobs.max-concurrent:4}") int maxConcurrent,
+                                @Value("${app.reports.jobs.max-per-company:2}") int maxPerCompany,
+                                @Value("${app.reports.jobs.max-pending:100}") int maxPending,
+                                @Value("${app.reports.jobs.ttl-minutes:60}") long ttlMinutes) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No s'ha pogut crear el directori d'informes " + directory, e);
+        }
+
+        this.reportService = reportService;
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.directory = directory;
+        this.maxPerCompany = maxPerCompany;
+        this.maxPending = maxPending;
+        this.ttlMillis = ttlMinutes * 60_000;
+        this.running = new Semaphore(maxConcurrent);
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("report-job-", 0).factory());
+
+        log.info("Informes en segon pla a {} amb {} torns ({} per empresa) i una cua de {}",
+                directory, maxConcurrent, maxPerCompany, maxPending);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ReportJobResponseDTO submit(PeriodRequestDTO period, ReportJobFormat format) {
+
+        // Recuperem l'empresa ara: el fil de l'informe no té context de seguretat
+        Long companyId = AuthenticatedUser.current(userRepository).getCompanyId();
+
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            rejected.increment();
+            throw new TooManyRequestsException(BUSY_MESSAGE, RETRY_AFTER_SECONDS);
+        }
+
+        Job job = new Job(UUID.randomUUID().toString(), companyId, format, period);
+        jobs.put(job.uuid, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            // L'aplicació s'està aturant
+            jobs.remove(job.uuid);
+            pending.decrementAndGet();
+            rejected.increment();
+            throw new TooManyRequestsException(BUSY_MESSAGE, RETRY_AFTER_SECONDS);
+        }
+
+        return mapToResponseDTO(job, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ReportJobResponseDTO getJob(String uuid) {
+        Job job = findOwnJob(uuid);
+
+        ReportGlobalResponseDTO result = null;
+        if (job.status == ReportJobStatus.COMPLETED && job.format == ReportJobFormat.JSON) {
+            try {
+                result = objectMapper.readValue(existingResult(job).toFile(), ReportGlobalResponseDTO.class);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return mapToResponseDTO(job, result);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Path getPdfResult(String uuid) {
+        Job job = findOwnJob(uuid);
+        if (job.status != ReportJobStatus.COMPLETED || job.format != ReportJobFormat.PDF) {
+            throw new ResourceNotFoundException("L'informe no té cap PDF disponible: " + uuid);
+        }
+        return existingResult(job);
+    }
+
+    /**
+     * Elimina els informes caducats periòdicament segons {@code app.reports.jobs.cleanup-interval-ms}
+     * (5 minuts per defecte).
+     */
+    @Scheduled(fixedDelayString = "${app.reports.jobs.cleanup-interval-ms:300000}")
+    public void scheduledCleanup() {
+        int removed = cleanup();
+        if (removed > 0) {
+            log.info("Eliminats {} informes caducats", removed);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int cleanup() {
+        long limit = System.currentTimeMillis() - ttlMillis;
+        int removed = 0;
+
+        Iterator<Job> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            Job job = iterator.next();
+            if (isFinished(job) && job.finishedAtMillis < limit) {
+                iterator.remove();
+                deleteQuietly(resultPath(job));
+                removed++;
+            }
+        }
+
+        // Fitxers sense informe en memòria (per exemple, d'abans d'un reinici)
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                int dot = name.indexOf('.');
+                String uuid = dot > 0 ? name.substring(0, dot) : name;
+                if (!jobs.containsKey(uuid) && Files.getLastModifiedTime(file).toMillis() < limit) {
+                    deleteQuietly(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("No s'ha pogut revisar el directori d'informes {}: {}", directory, e.getMessage());
+        }
+
+        expired.add(removed);
+        return removed;
+    }
+
+    /**
+     * Atura els informes en curs en tancar l'aplicació.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return nombre d'informes completats
+     */
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    /**
+     * @return nombre d'informes que han fallat
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * @return nombre de peticions rebutjades perquè la cua era plena
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return nombre d'informes eliminats per caducitat
+     */
+    public long getExpiredCount() {
+        return expired.sum();
+    }
+
+    /**
+     * @return nombre d'informes a la cua o calculant-se
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Espera torn (de l'empresa i global) i executa l'informe.
+     *
+     * @param job l'informe
+     */
+    private void run(Job job) {
+        Semaphore companySlot = companySlots.computeIfAbsent(job.companyId, id -> new Semaphore(maxPerCompany));
+        try {
+            companySlot.acquire();
+            try {
+                running.acquire();
+                try {
+                    execute(job);
+                } finally {
+                    running.release();
+                }
+            } finally {
+                companySlot.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.finish(ReportJobStatus.FAILED, "Informe interromput");
+            failed.increment();
+        } finally {
+            pending.decrementAndGet();
+        }
+    }
+
+    /**
+     * Calcula l'informe i n'escriu el resultat al directori.
+     *
+     * @param job l'informe
+     */
+    private void execute(Job job) {
+        job.status = ReportJobStatus.RUNNING;
+        Path target = resultPath(job);
+        Path temp = directory.resolve(job.uuid + ".tmp");
+
+        try {
+            ReportGlobalResponseDTO report = reportService.globalInfo(job.companyId, job.period);
+
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                if (job.format == ReportJobFormat.PDF) {
+                    reportService.writeGlobalInfoPDF(report, out);
+                } else {
+                    objectMapper.writeValue(out, report);
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            job.finish(ReportJobStatus.COMPLETED, null);
+            completed.increment();
+        } catch (Exception e) {
+            log.warn("Error generant l'informe {} de l'empresa {}: {}", job.uuid, job.companyId, e.getMessage());
+            deleteQuietly(temp);
+            job.finish(ReportJobStatus.FAILED, "Error generant l'informe");
+            failed.increment();
+        }
+    }
+
+    /**
+     * Busca un informe de l'empresa de l'usuari autenticat.
+     *
+     * @param uuid identificador de l'informe
+     * @return l'informe
+     * @throws ResourceNotFoundException si no existeix o és d'una altra empresa
+     */
+    private Job findOwnJob(String uuid) {
+        Long companyId = AuthenticatedUser.current(userRepository).getCompanyId();
+        Job job = jobs.get(uuid);
+        if (job == null || !job.companyId.equals(companyId)) {
+            throw new ResourceNotFoundException("Informe no trobat: " + uuid);
+        }
+        return job;
+    }
+
+    private Path existingResult(Job job) {
+        Path path = resultPath(job);
+        if (!Files.exists(path)) {
+            throw new ResourceNotFoundException("El resultat de l'informe ja no està disponible: " + job.uuid);
+        }
+        return path;
+    }
+
+    private Path resultPath(Job job) {
+        return directory.resolve(job.uuid + (job.format == ReportJobFormat.PDF ? ".pdf" : ".json"));
+    }
+
+    private static boolean isFinished(Job job) {
+        return job.status == ReportJobStatus.COMPLETED || job.status == ReportJobStatus.FAILED;
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("No s'ha pogut eliminar {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Converteix un informe en un {@link ReportJobResponseDTO}.
+     *
+     * @param job l'informe
+     * @param result resultat JSON, o null
+     * @return el DTO de resposta
+     */
+    private ReportJobResponseDTO mapToResponseDTO(Job job, ReportGlobalResponseDTO result) {
+        return ReportJobResponseDTO.builder()
+                .uuid(job.uuid)
+                .estat(job.status)
+                .format(job.format)
+                .dataInicial(job.period.getDataInicial())
+                .dataFinal(job.period.getDataFinal())
+                .creat(job.createdAt)
+                .finalitzat(job.finishedAt)
+                .error(job.error)
+                .resultat(result)
+                .build();
+    }
+}
@@ -0,0 +1,281 @@
+package cat.abasta_back_end.services.impl;
+
+import cat.abasta_back_end.concurrent.SingleFlight;
+import cat.abasta_back_end.events.OrderChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Memòria cau acotada dels resultats dels informes, separada per empresa.
+ *
+ * <p>Cada entrada s'indexa per empresa, tipus d'informe i període (normalitzat a segons) i
+ * caduca passat el temps configurat. Quan s'arriba a la capacitat màxima s'eliminen primer
+ * les entrades caducades i, si no n'hi ha prou, una part de les existents.</p>
+ *
+ * <p>Les escriptures de comandes publiquen un {@link OrderChangedEvent}; un cop confirmada la
+ * transacció s'eliminen les entrades de l'empresa el període de les quals conté la data de
+ * creació de la comanda. Un comptador de generació per empresa evita guardar un resultat
+ * calculat abans d'una invalidació que ha arribat mentre es calculava.</p>
+ *
+ * <p>Les errades simultànies d'una mateixa clau s'agrupen amb {@link SingleFlight}: només
+ * una calcula l'informe i la resta n'esperen el resultat.</p>
+ *
+ * <p>Exposa comptadors d'encerts, errades, crides agrupades, expulsions i invalidacions.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ * @since 2025
+ * @see ReportServiceImpl
+ */
+@Slf4j
+@Component
+public class ReportResultCache {
+
+    /**
+     * Fracció de la capacitat que s'allibera quan la memòria cau és plena
+     * i no hi ha entrades caducades.
+     */
+    private static final int EVICTION_DIVISOR = 10;
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final SingleFlight<Load> loads = new SingleFlight<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Clau d'un resultat: empresa, tipus d'informe i període inclòs.
+     *
+     * @param companyId identificador de l'empresa
+     * @param report tipus d'informe
+     * @param start inici del període
+     * @param end final del període
+     */
+    public record Key(Long companyId, String report, LocalDateTime start, LocalDateTime end) {
+
+        /**
+         * Clau normalitzada de l'informe global d'un període.
+         *
+         * @param companyId identificador de l'empresa
+         * @param start inici del període
+         * @param end final del període
+         * @return la clau
+         */
+        public static Key global(Long companyId, LocalDateTime start, LocalDateTime end) {
+            return new Key(companyId, "global", start.truncatedTo(ChronoUnit.SECONDS), end.truncatedTo(ChronoUnit.SECONDS));
+        }
+
+        /**
+         * Clau del dashboard d'un mes.
+         *
+         * @param companyId identificador de l'empresa
+         * @param month mes del dashboard
+         * @return la clau
+         */
+        public static Key dashboard(Long companyId, YearMonth month) {
+            return new Key(companyId, "dashboard", month.atDay(1).atStartOfDay(),
+                    month.atEndOfMonth().atTime(23, 59, 59));
+        }
+
+        boolean covers(LocalDateTime date) {
+            return date == null || (!date.isBefore(start) && !date.isAfter(end));
+        }
+    }
+
+    private record Entry(Object value, long expiresAtMillis) {
+    }
+
+    /**
+     * Càlcul en curs: la generació evita que una crida posterior a una invalidació
+     * esperi un resultat calculat abans.
+     */
+    private record Load(Key key, long generation) {
+    }
+
+    /**
+     * Crea la memòria cau amb la configuració de l'aplicació.
+     *
+     * @param maxEntries nombre màxim de resultats guardats
+     * @param ttlSeconds segons de vida de cada resultat
+     */
+    @Autowired
+    public ReportResultCache(@Value("${app.reports.cache.max-entries:1000}") int maxEntries,
+                             @Value("${app.reports.cache.ttl-seconds:300}") long ttlSeconds) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("La capacitat ha de ser positiva");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    /**
+     * Retorna el resultat guardat per a la clau o el calcula i el guarda.
+     *
+     * @param key clau del resultat
+     * @param loader càlcul del resultat si no és a la memòria cau
+     * @param <T> tipus del resultat
+     * @return el resultat
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Key key, Supplier<T> loader) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAtMillis() > System.currentTimeMillis()) {
+            hits.increment();
+            return (T) entry.value();
+        }
+        if (entry != null) {
+            entries.remove(key, entry);
+            evictions.increment();
+        }
+        misses.increment();
+
+        // Les errades simultànies de la mateixa clau i generació comparteixen un sol càlcul
+        long generation = generation(key.companyId()).get();
+        return loads.execute(new Load(key, generation), () -> {
+            T value = loader.get();
+
+            if (generation(key.companyId()).get() == generation) {
+                if (entries.size() >= maxEntries) {
+                    makeRoom();
+                }
+                entries.put(key, new Entry(value, System.currentTimeMillis() + ttlMillis));
+            }
+            return value;
+        });
+    }
+
+    /**
+     * Elimina els resultats d'una empresa afectats per un canvi de comanda,
+     * un cop la transacció que l'ha modificada s'ha confirmat.
+     *
+     * @param event canvi de comanda
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        invalidate(event.companyId(), event.createdAt());
+    }
+
+    /**
+     * Elimina els resultats d'una empresa el període dels quals conté la data.
+     *
+     * @param companyId identificador de l'empresa
+     * @param date data afectada; si és null s'eliminen tots els resultats de l'empresa
+     */
+    public void invalidate(Long companyId, LocalDateTime date) {
+        generation(companyId).incrementAndGet();
+
+        int removed = 0;
+        Iterator<Key> keys = entries.keySet().iterator();
+        while (keys.hasNext()) {
+            Key key = keys.next();
+            if (key.companyId().equals(companyId) && key.covers(date)) {
+                keys.remove();
+                removed++;
+            }
+        }
+
+        invalidations.add(removed);
+        if (removed > 0) {
+            log.debug("Invalidats {} informes de l'empresa {}", removed, companyId);
+        }
+    }
+
+    /**
+     * Buida la memòria cau.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return nombre d'entrades actuals
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return nombre de consultes resoltes des de la memòria cau
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return nombre de consultes que han requerit calcular l'informe
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return nombre d'errades que han esperat un càlcul ja en curs en lloc de repetir-lo
+     */
+    public long getCoalescedCount() {
+        return loads.getCoalescedCount();
+    }
+
+    /**
+     * @return nombre d'entrades expulsades per manca d'espai o per caducitat
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return nombre d'entrades eliminades per canvis de comandes
+     */
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    private AtomicLong generation(Long companyId) {
+        return generations.computeIfAbsent(companyId, id -> new AtomicLong());
+    }
+
+    /**
+     * Allibera espai eliminant primer les entrades caducades i, si no n'hi ha prou,
+     * una desena part de la capacitat.
+     */
+    private void makeRoom() {
+        long now = System.currentTimeMillis();
+        Iterator<Entry> values = entries.values().iterator();
+        while (values.hasNext()) {
+            if (values.next().expiresAtMillis() <= now) {
+                values.remove();
+                evictions.increment();
+            }
+        }
+
+        if (entries.size() < maxEntries) {
+            return;
+        }
+
+        int toEvict = entries.size() - maxEntries + Math.max(1, maxEntries / EVICTION_DIVISOR);
+        Iterator<Key> keys = entries.keySet().iterator();
+        while (toEvict > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+            evictions.increment();
+            toEvict--;
+        }
+    }
+}
@@ -1,35 +1,53 @@
 package cat.abasta_back_end.services.impl;
 
+import cat.abasta_back_end.analytics.OrderLineStore;
+import cat.abasta_back_end.analytics.PivotQuery;
+import cat.abasta_back_end.analytics.PivotRow;
+import cat.abasta_back_end.analytics.QuantileSketch;
+import cat.abasta_back_end.concurrent.SingleFlight;
 import cat.abasta_back_end.dto.*;
 import cat.abasta_back_end.entities.*;
 import cat.abasta_back_end.exceptions.BadRequestException;
-import cat.abasta_back_end.exceptions.ResourceNotFoundException;
 import cat.abasta_back_end.repositories.OrderRepository;
 import cat.abasta_back_end.repositories.ProductRepository;
+import cat.abasta_back_end.repositories.SupplierRepository;
 import cat.abasta_back_end.repositories.UserRepository;
+import cat.abasta_back_end.security.AuthenticatedUser;
+import cat.abasta_back_end.exceptions.ResourceNotFoundException;
+import cat.abasta_back_end.money.Money;
+import cat.abasta_back_end.money.MoneyAccumulator;
+import cat.abasta_back_end.services.OrderRollupService;
+import cat.abasta_back_end.services.OrderStatsService;
+import cat.abasta_back_end.services.OrderValueSketchService;
 import cat.abasta_back_end.services.ReportService;
 import com.lowagie.text.Font;
 import com.lowagie.text.Image;
 import org.springframework.cglib.core.Local;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.awt.*;
 import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.text.DecimalFormat;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.io.ByteArrayOutputStream;
 import com.lowagie.text.Document;
 import com.lowagie.text.Paragraph;
 import com.lowagie.text.pdf.PdfPTable;
@@ -55,54 +73,124 @@ import com.lowagie.text.pdf.PdfWriter;
 @Service
 public class ReportServiceImpl implements ReportService {
 
+    /**
+     * Estats de les comandes que compten als informes.
+     */
+    private static final Set<Order.OrderStatus> ACTIVE_STATUSES = EnumSet.of(
+            Order.OrderStatus.PENDING, Order.OrderStatus.SENT, Order.OrderStatus.CONFIRMED, Order.OrderStatus.COMPLETED);
+
+    /**
+     * Nombre de productes del top de l'informe global.
+     */
+    private static final int TOP_PRODUCTES = 10;
+
+    /**
+     * Nombre màxim de punts d'una sèrie temporal (deu anys amb granularitat diària).
+     */
+    private static final int MAX_PUNTS = 3660;
+
     private final ProductRepository productRepository;
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
+    private final SupplierRepository supplierRepository;
+    private final OrderStatsService orderStatsService;
+    private final OrderRollupService orderRollupService;
+    private final ReportResultCache reportResultCache;
+    private final OrderLineStore orderLineStore;
+    private final OrderValueSketchService orderValueSketchService;
+
+    /**
+     * Transacció de només lectura dels càlculs que passen per la memòria cau. La consulta a la
+     * memòria cau i l'espera d'un càlcul en curs es fan fora de cap transacció, de manera que
+     * no retenen cap connexió a la base de dades.
+     */
+    private final TransactionTemplate readOnlyTransaction;
+
+    /**
+     * Sèries temporals en curs, per agrupar les peticions iguals simultànies.
+     */
+    private final SingleFlight<TimeSeriesKey> timeSeriesFlights = new SingleFlight<>();
+
+    /**
+     * Paràmetres que determinen una sèrie temporal.
+     */
+    private record TimeSeriesKey(Long companyId, Long supplierId, Long productId,
+                                 LocalDate from, LocalDate to, TimeSeriesGranularity granularity) {
+    }
 
     /**
      * Constructor amb injecció de dependències.
      *
      * @param productRepository  repositori de productes
      * @param orderRepository repositori de comandes
+     * @param supplierRepository repositori de proveïdors
+     * @param orderStatsService servei de comptadors mensuals de comandes
+     * @param orderRollupService servei d'acumulats diaris de comandes
+     * @param reportResultCache memòria cau dels resultats per empresa i període
+     * @param orderLineStore línies de comanda en memòria per a les consultes dinàmiques
+     * @param orderValueSketchService histogrames d'imports de comandes per proveïdor i mes
+     * @param transactionManager gestor de transaccions per als càlculs de només lectura
      */
-    public ReportServiceImpl(ProductRepository productRepository, OrderRepository orderRepository, UserRepository userRepository) {
+    public ReportServiceImpl(ProductRepository productRepository, OrderRepository orderRepository, UserRepository userRepository,
+                             SupplierRepository supplierRepository, OrderStatsService orderStatsService,
+                             OrderRollupService orderRollupService, ReportResultCache reportResultCache,
+                             OrderLineStore orderLineStore, OrderValueSketchService orderValueSketchService,
+                             PlatformTransactionManager transactionManager) {
         this.productRepository = productRepository;
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
+        this.supplierRepository = supplierRepository;
+        this.orderStatsService = orderStatsService;
+        this.orderRollupService = orderRollupService;
+        this.reportResultCache = reportResultCache;
+        this.orderLineStore = orderLineStore;
+        this.orderValueSketchService = orderValueSketchService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * @return nombre de peticions de sèries temporals que han esperat un càlcul ja en curs
+     */
+    public long getTimeSeriesCoalescedCount() {
+        return timeSeriesFlights.getCoalescedCount();
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    @Transactional
     public DashboardResponseDTO dashboardInfo() {
 
         // Recuperem informació de l'usuari i la companyia
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByEmail(username).orElseThrow(() -> new ResourceNotFoundException("Usuari no trobat: " + username));
-        Long companyId = user.getCompany().getId();
+        Long companyId = AuthenticatedUser.current(userRepository).getCompanyId();
 
-        // Calculem el període (últim mes)
-        LocalDateTime currentDate = LocalDateTime.now();
-        YearMonth currentYearMonth = YearMonth.from(currentDate);
-        LocalDateTime startDate = currentYearMonth.atDay(1).atStartOfDay();
-        LocalDateTime endDate = currentYearMonth.atEndOfMonth().atTime(LocalTime.MAX);
+        // Resultat del mes en curs, des de la memòria cau si ja s'ha calculat
+        YearMonth month = YearMonth.now();
+        return reportResultCache.get(ReportResultCache.Key.dashboard(companyId, month),
+                () -> readOnlyTransaction.execute(status -> computeDashboardInfo(companyId, month)));
+    }
 
-        // Recuperar llistat de comandes
-        List<Order> orders = orderRepository.getOrdersByCompanyIdAndPeriodWithoutOrderItems(companyId, startDate, endDate);
+    /**
+     * Calcula la informació del dashboard d'una empresa i un mes.
+     *
+     * @param companyId identificador de l'empresa
+     * @param month mes del dashboard
+     * @return la informació del dashboard
+     */
+    private DashboardResponseDTO computeDashboardInfo(Long companyId, YearMonth month) {
 
-        // Recuperem només les actives
-        List<Order> activeOrders = orders.stream().filter(o -> EnumSet.of(Order.OrderStatus.PENDING,Order.OrderStatus.SENT,Order.OrderStatus.CONFIRMED,Order.OrderStatus.COMPLETED).contains(o.getStatus())).toList();
+        // Comptadors del mes (una sola fila per clau primària)
+        MonthlyOrderStatsDTO stats = orderStatsService.getMonthlyStats(companyId, month);
 
-        // Calculem el total de comandes
-        int totalOrders = activeOrders.size();
+        // Total de comandes actives
+        int totalOrders = (int) stats.getActiveCount();
 
-        // Calculem l'import total
-        BigDecimal totalAmount = activeOrders.stream().map(Order::getTotalAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Import total de les comandes actives
+        BigDecimal totalAmount = stats.getTotalAmount();
 
-        // Calculem els pendents
-        int pendingOrders = (int) activeOrders.stream().filter(o -> o.getStatus() == Order.OrderStatus.PENDING).count();
+        // Comandes pendents
+        int pendingOrders = (int) stats.getCount(Order.OrderStatus.PENDING);
 
         // Retornar el resultat com a DTO
         return mapToDashboardResponseDTO(totalOrders,totalAmount,pendingOrders);
@@ -112,100 +200,75 @@ public class ReportServiceImpl implements ReportService {
      * {@inheritDoc}
      */
     @Override
-    @Transactional
     public ReportGlobalResponseDTO globalInfo(PeriodRequestDTO dto) {
 
         // Recuperem informació de l'usuari i la companyia
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByEmail(username).orElseThrow(() -> new ResourceNotFoundException("Usuari no trobat: " + username));
-        Long companyId = user.getCompany().getId();
+        Long companyId = AuthenticatedUser.current(userRepository).getCompanyId();
 
-        // Recuperar llistat de comandes
-        List<Order> orders = orderRepository.getOrdersByCompanyIdAndPeriodWithOrderItems(companyId, dto.getDataInicial(), dto.getDataFinal());
+        return globalInfo(companyId, dto);
+    }
 
-        // Recuperem només les actives
-        List<Order> activeOrders = orders.stream().filter(o -> EnumSet.of(Order.OrderStatus.PENDING,Order.OrderStatus.SENT,Order.OrderStatus.CONFIRMED,Order.OrderStatus.COMPLETED).contains(o.getStatus())).toList();
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ReportGlobalResponseDTO globalInfo(Long companyId, PeriodRequestDTO dto) {
 
-        // Calculem el total de comandes
-        int totalComandes = activeOrders.size();
+        // Resultat del període, des de la memòria cau si ja s'ha calculat
+        return reportResultCache.get(ReportResultCache.Key.global(companyId, dto.getDataInicial(), dto.getDataFinal()),
+                () -> readOnlyTransaction.execute(status -> computeGlobalInfo(companyId, dto)));
+    }
+
+    /**
+     * Calcula l'informe global d'una empresa en un període.
+     *
+     * @param companyId identificador de l'empresa
+     * @param dto període de temps
+     * @return l'informe global
+     */
+    private ReportGlobalResponseDTO computeGlobalInfo(Long companyId, PeriodRequestDTO dto) {
+
+        // Totals per proveïdor calculats a la base de dades (una fila per proveïdor)
+        List<SupplierTotalsDTO> supplierTotals = orderRepository.getSupplierTotalsByCompanyIdAndPeriod(
+                companyId, ACTIVE_STATUSES, dto.getDataInicial(), dto.getDataFinal());
+
+        // Cada comanda té un sol proveïdor: els totals globals són la suma dels totals per proveïdor
+        int totalComandes = supplierTotals.stream().mapToInt(t -> t.getNumComandes().intValue()).sum();
+
+        // Totals en cèntims: les sumes, la mitjana i els percentatges no creen BigDecimal intermedis.
+        // La despesa total suma les sumes per proveïdor sense arrodonir (quatre decimals) i
+        // s'arrodoneix un sol cop; només l'import mostrat de cada proveïdor s'arrodoneix per separat.
+        long[] supplierCents = new long[supplierTotals.size()];
+        MoneyAccumulator despesa = new MoneyAccumulator();
+        for (int i = 0; i < supplierCents.length; i++) {
+            BigDecimal supplierDespesa = supplierTotals.get(i).getDespesaTotal();
+            supplierCents[i] = Money.toCents(supplierDespesa);
+            despesa.add(supplierDespesa);
+        }
 
         // Despesa total
-        BigDecimal despesaTotal = activeOrders.stream()
-                .flatMap(order -> order.getItems().stream())
-                .map(item -> item.getUnitPrice().multiply(item.getQuantity()))
-                .reduce(BigDecimal.ZERO, BigDecimal::add)
-                .setScale(2, RoundingMode.HALF_UP);;
+        long despesaTotal = despesa.cents();
 
         // Comanda mitjana
-        BigDecimal comandaMitjana = totalComandes > 0
-                ? despesaTotal.divide(BigDecimal.valueOf(totalComandes), 2, RoundingMode.HALF_UP)
-                : BigDecimal.ZERO;
-
-        // Despesa per proveïdor
-        Map<Supplier, List<Order>> ordersBySupplier = activeOrders.stream().collect(Collectors.groupingBy(Order::getSupplier));
-
-        List<DespesaPerProveidorDTO> despesaPerProveidor = ordersBySupplier.entrySet().stream()
-                .map(entry -> {
-                    Supplier supplier = entry.getKey();
-                    List<Order> supplierOrders = entry.getValue();
-
-                    // Nombre de comandes del proveïdor
-                    int numComandes = supplierOrders.size();
-
-                    // Despesa total del proveïdor
-                    BigDecimal totalSupplier = supplierOrders.stream()
-                            .flatMap(o -> o.getItems().stream())
-                            .map(i -> i.getUnitPrice().multiply(i.getQuantity()))
-                            .reduce(BigDecimal.ZERO, BigDecimal::add)
-                            .setScale(2, RoundingMode.HALF_UP);
-
-                    // % respecte el total del període
-                    BigDecimal percentatge = despesaTotal.compareTo(BigDecimal.ZERO) > 0
-                            ? totalSupplier.multiply(BigDecimal.valueOf(100))
-                            .divide(despesaTotal, 2, RoundingMode.HALF_UP)
-                            : BigDecimal.ZERO;
-
-                    return new DespesaPerProveidorDTO(
-                            supplier.getName(),
-                            numComandes,
-                            totalSupplier,
-                            percentatge
-                    );
-                })
-                .toList();
+        long comandaMitjana = totalComandes > 0 ? Money.divide(despesaTotal, totalComandes) : 0;
+
+        // Despesa per proveïdor i % respecte el total del període
+        List<DespesaPerProveidorDTO> despesaPerProveidor = new ArrayList<>(supplierCents.length);
+        for (int i = 0; i < supplierCents.length; i++) {
+            SupplierTotalsDTO totals = supplierTotals.get(i);
+            despesaPerProveidor.add(new DespesaPerProveidorDTO(
+                    totals.getProveidor(),
+                    totals.getNumComandes().intValue(),
+                    Money.toBigDecimal(supplierCents[i]),
+                    Money.toBigDecimal(Money.percentage(supplierCents[i], despesaTotal))
+            ));
+        }
 
-        // Agrupem tots els items per producte
-        Map<Product, List<OrderItem>> itemsPerProduct = activeOrders.stream()
-                .flatMap(o -> o.getItems().stream())
-                .collect(Collectors.groupingBy(OrderItem::getProduct));
-
-        // Convertim a llista de DTO + càlculs
-        List<ProducteTopDTO> topProductes = itemsPerProduct.entrySet().stream()
-                .map(entry -> {
-                    Product product = entry.getKey();
-                    List<OrderItem> items = entry.getValue();
-
-                    // Quantitat total
-                    BigDecimal quantitatTotal = items.stream()
-                            .map(OrderItem::getQuantity)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                    // Despesa total
-                    BigDecimal despesaProducte = items.stream()
-                            .map(i -> i.getUnitPrice().multiply(i.getQuantity()))
-                            .reduce(BigDecimal.ZERO, BigDecimal::add)
-                            .setScale(2, RoundingMode.HALF_UP);
-
-                    return new ProducteTopDTO(
-                            product.getName(),
-                            quantitatTotal,
-                            despesaProducte
-                    );
-                })
-                // Ordenem pels més demanats
-                .sorted(Comparator.comparing(ProducteTopDTO::getQuantitatTotal).reversed())
-                // Top 10
-                .limit(10)
+        // Top productes més demanats, agregats, ordenats i limitats a la base de dades
+        List<ProducteTopDTO> topProductes = orderRepository.getTopProductsByCompanyIdAndPeriod(
+                        companyId, ACTIVE_STATUSES, dto.getDataInicial(), dto.getDataFinal(), Limit.of(TOP_PRODUCTES))
+                .stream()
+                .map(p -> new ProducteTopDTO(p.getNomProducte(), p.getQuantitatTotal(), p.getDespesaTotal().setScale(2, RoundingMode.HALF_UP)))
                 .toList();
 
         //Retornar el resultat com a DTO
@@ -213,8 +276,8 @@ public class ReportServiceImpl implements ReportService {
                 dto.getDataInicial(),
                 dto.getDataFinal(),
                 totalComandes,
-                despesaTotal,
-                comandaMitjana,
+                Money.toBigDecimal(despesaTotal),
+                Money.toBigDecimal(comandaMitjana),
                 despesaPerProveidor,
                 topProductes
         );
@@ -224,16 +287,231 @@ public class ReportServiceImpl implements ReportService {
      * {@inheritDoc}
      */
     @Override
-    @Transactional
+    public TimeSeriesResponseDTO timeSeries(TimeSeriesRequestDTO dto) {
+
+        // Recuperem informació de l'usuari i la companyia
+        Long companyId = AuthenticatedUser.current(userRepository).getCompanyId();
+
+        // Validem el període i el nombre de punts
+        validatePeriod(dto.getDataInicial(), dto.getDataFinal(), dto.getGranularitat());
+
+        // Filtres opcionals, sempre dins de l'empresa de l'usuari, en una transacció curta
+        TimeSeriesKey key = readOnlyTransaction.execute(status -> new TimeSeriesKey(companyId,
+                resolveSupplierId(companyId, dto.getSupplierUuid()),
+                resolveProductId(companyId, dto.getProductUuid()),
+                dto.getDataInicial(), dto.getDataFinal(), dto.getGranularitat()));
+
+        // Sèrie calculada només a partir dels acumulats diaris; les peticions iguals simultànies
+        // comparteixen el càlcul i l'esperen fora de cap transacció
+        List<TimeSeriesPointDTO> series = timeSeriesFlights.execute(key, () -> orderRollupService.getTimeSeries(
+                key.companyId(), key.supplierId(), key.productId(), key.from(), key.to(), key.granularity()));
+
+        return TimeSeriesResponseDTO.builder()
+                .dataInicial(dto.getDataInicial())
+                .dataFinal(dto.getDataFinal())
+                .granularitat(dto.getGranularitat())
+                .punts(series)
+                .build();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PivotResponseDTO pivot(PivotRequestDTO dto) {
+
+        // Recuperem informació de l'usuari i la companyia
+        Long companyId = AuthenticatedUser.current(userRepository).getCompanyId();
+
+        // Validem el període i, si l'agrupació és temporal, el nombre de punts
+        PivotDimension agrupacio = dto.getAgrupacio() != null ? dto.getAgrupacio() : PivotDimension.SUPPLIER;
+        validatePeriod(dto.getDataInicial(), dto.getDataFinal(), agrupacio.granularity());
+
+        // Filtres opcionals, sempre dins de l'empresa de l'usuari
+        Long supplierId = resolveSupplierId(companyId, dto.getSupplierUuid());
+        Long productId = resolveProductId(companyId, dto.getProductUuid());
+
+        // Agregació sobre les línies de comanda en memòria, sense consultar les comandes
+        List<PivotRow> rows = orderLineStore.query(companyId,
+                new PivotQuery(dto.getDataInicial(), dto.getDataFinal(), agrupacio, supplierId, productId));
+
+        // Noms de proveïdors i productes, amb una sola consulta
+        List<Long> ids = rows.stream().map(PivotRow::id).toList();
+        Map<Long, String[]> labels = switch (agrupacio) {
+            case SUPPLIER -> supplierRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Supplier::getId, s -> new String[]{s.getUuid(), s.getName()}));
+            case PRODUCT -> productRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Product::getId, p -> new String[]{p.getUuid(), p.getName()}));
+            default -> Map.of();
+        };
+
+        Function<PivotRow, PivotRowDTO> toDto = row -> {
+            String[] label = row.id() != null ? labels.get(row.id()) : null;
+            return PivotRowDTO.builder()
+                    .clau(row.start() != null ? row.start().toString() : label != null ? label[0] : null)
+                    .nom(label != null ? label[1] : null)
+                    .numComandes(row.orders())
+                    .quantitat(Money.toBigDecimal(row.quantityHundredths()))
+                    .despesa(Money.toBigDecimal(row.amountCents()))
+                    .build();
+        };
+
+        // Períodes per data; proveïdors i productes per despesa descendent
+        Comparator<PivotRow> order = agrupacio.granularity() != null
+                ? Comparator.comparing(PivotRow::start)
+                : Comparator.comparingLong(PivotRow::amountCents).reversed();
+
+        return PivotResponseDTO.builder()
+                .dataInicial(dto.getDataInicial())
+                .dataFinal(dto.getDataFinal())
+                .agrupacio(agrupacio)
+                .files(rows.stream().sorted(order).map(toDto).toList())
+                .build();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PercentilesResponseDTO orderValuePercentiles(PercentilesRequestDTO dto) {
+
+        // Recuperem informació de l'usuari i la companyia
+        Long companyId = AuthenticatedUser.current(userRepository).getCompanyId();
+
+        // Validem el període i l'agrupació
+        validatePeriod(dto.getDataInicial(), dto.getDataFinal(), null);
+        PivotDimension agrupacio = dto.getAgrupacio();
+        if (agrupacio != null && agrupacio != PivotDimension.SUPPLIER && agrupacio != PivotDimension.MONTH) {
+            throw new BadRequestException("Agrupació no vàlida per als percentils: " + agrupacio);
+        }
+        YearMonth mesInicial = YearMonth.from(dto.getDataInicial());
+        YearMonth mesFinal = YearMonth.from(dto.getDataFinal());
+
+        // Filtre opcional, sempre dins de l'empresa de l'usuari
+        Long supplierId = resolveSupplierId(companyId, dto.getSupplierUuid());
+
+        // Fusionem els histogrames mensuals: el cost depèn dels cubs, no del nombre de comandes
+        QuantileSketch total = new QuantileSketch();
+        Map<Object, QuantileSketch> groups = new TreeMap<>();
+        for (OrderValueSketchService.SketchRow row : orderValueSketchService.getSketches(companyId, supplierId, mesInicial, mesFinal)) {
+            total.merge(row.sketch());
+            if (agrupacio != null) {
+                Object key = agrupacio == PivotDimension.SUPPLIER ? row.supplierId() : row.month();
+                groups.computeIfAbsent(key, k -> new QuantileSketch()).merge(row.sketch());
+            }
+        }
+
+        List<PercentilesRowDTO> files = new ArrayList<>();
+        if (agrupacio == PivotDimension.SUPPLIER) {
+            Map<Long, Supplier> suppliers = supplierRepository.findAllById(groups.keySet().stream().map(Long.class::cast).toList())
+                    .stream()
+                    .collect(Collectors.toMap(Supplier::getId, Function.identity()));
+            groups.forEach((key, sketch) -> {
+                Supplier supplier = suppliers.get((Long) key);
+                files.add(mapToPercentilesRowDTO(supplier != null ? supplier.getUuid() : null,
+                        supplier != null ? supplier.getName() : null, sketch));
+            });
+            files.sort(Comparator.comparing(PercentilesRowDTO::getNumComandes).reversed());
+        } else if (agrupacio == PivotDimension.MONTH) {
+            groups.forEach((key, sketch) -> files.add(mapToPercentilesRowDTO(key.toString(), null, sketch)));
+        }
+
+        return PercentilesResponseDTO.builder()
+                .mesInicial(mesInicial)
+                .mesFinal(mesFinal)
+                .agrupacio(agrupacio)
+                .total(mapToPercentilesRowDTO(null, null, total))
+                .files(files)
+                .build();
+    }
+
+    /**
+     * Comprova que el període és vàlid i, si s'agrupa per temps, que no té massa punts.
+     *
+     * @param dataInicial primer dia del període
+     * @param dataFinal últim dia del període
+     * @param granularitat granularitat dels punts, o null si no s'agrupa per temps
+     * @throws BadRequestException si el període no és vàlid
+     */
+    private void validatePeriod(LocalDate dataInicial, LocalDate dataFinal, TimeSeriesGranularity granularitat) {
+        if (dataInicial.isAfter(dataFinal)) {
+            throw new BadRequestException("La data inicial no pot ser posterior a la data final");
+        }
+        if (granularitat == null) {
+            return;
+        }
+        int punts = 0;
+        for (LocalDate inici = granularitat.bucketStart(dataInicial);
+             !inici.isAfter(dataFinal) && punts <= MAX_PUNTS;
+             inici = granularitat.next(inici)) {
+            punts++;
+        }
+        if (punts > MAX_PUNTS) {
+            throw new BadRequestException("El període té massa punts per a la granularitat " + granularitat);
+        }
+    }
+
+    /**
+     * Resol el filtre de proveïdor dins de l'empresa.
+     *
+     * @param companyId identificador de l'empresa
+     * @param supplierUuid UUID del proveïdor, o buit
+     * @return identificador del proveïdor, o null si no hi ha filtre
+     * @throws ResourceNotFoundException si el proveïdor no existeix o és d'una altra empresa
+     */
+    private Long resolveSupplierId(Long companyId, String supplierUuid) {
+        if (supplierUuid == null || supplierUuid.isBlank()) {
+            return null;
+        }
+        return supplierRepository.findByUuid(supplierUuid)
+                .filter(s -> companyId.equals(s.getCompany().getId()))
+                .orElseThrow(() -> new ResourceNotFoundException("Proveïdor no trobat"))
+                .getId();
+    }
+
+    /**
+     * Resol el filtre de producte dins de l'empresa.
+     *
+     * @param companyId identificador de l'empresa
+     * @param productUuid UUID del producte, o buit
+     * @return identificador del producte, o null si no hi ha filtre
+     * @throws ResourceNotFoundException si el producte no existeix o és d'una altra empresa
+     */
+    private Long resolveProductId(Long companyId, String productUuid) {
+        if (productUuid == null || productUuid.isBlank()) {
+            return null;
+        }
+        return productRepository.findByUuid(productUuid)
+                .filter(p -> companyId.equals(p.getSupplier().getCompany().getId()))
+                .orElseThrow(() -> new ResourceNotFoundException("Producte no trobat"))
+                .getId();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
     public byte[] generateGlobalInfoPDF(ReportGlobalResponseDTO report) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeGlobalInfoPDF(report, out);
+        return out.toByteArray();
+    }
 
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+    /**
+     * {@inheritDoc}
+     *
+     * <p>El logo i les fonts es carreguen una sola vegada ({@link PdfResources}); cada document
+     * només en fa una còpia lleugera que comparteix les dades decodificades de la imatge.</p>
+     */
+    @Override
+    public void writeGlobalInfoPDF(ReportGlobalResponseDTO report, OutputStream out) {
 
-            // Logo Abasta
-            Image img = Image.getInstance(getClass().getResource("/images/logo_pdf.png"));
-            img.scaleToFit(100,100);
-            img.setAlignment(Image.ALIGN_RIGHT);
+        try {
 
+            // Logo Abasta (còpia de la imatge ja decodificada)
+            Image img = Image.getInstance(PdfResources.LOGO);
 
             Document document = new Document();
             PdfWriter.getInstance(document, out);
@@ -242,22 +520,17 @@ public class ReportServiceImpl implements ReportService {
             // Logo al document
             document.add(img);
 
-            // Fonts
-            Font titleFont = new Font(Font.HELVETICA, 18, Font.BOLD, Color.BLUE);
-            Font subtitleFont = new Font(Font.HELVETICA, 16, Font.BOLD, Color.BLACK);
-
             // Títol
-            Paragraph title = new Paragraph("Report Global", titleFont);
+            Paragraph title = new Paragraph("Report Global", PdfResources.TITLE_FONT);
             document.add(title);
 
             // Periode
             document.add(new Paragraph("\n"));
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            document.add(new Paragraph("Període: de " + report.getDataInicial().format(formatter) + " a " + report.getDataFinal().format(formatter) ));
+            document.add(new Paragraph("Període: de " + report.getDataInicial().format(PdfResources.DATE_FORMAT) + " a " + report.getDataFinal().format(PdfResources.DATE_FORMAT) ));
 
             // Informació general
             document.add(new Paragraph("\n"));
-            Paragraph subtitleGlobal = new Paragraph("Resum global", subtitleFont);
+            Paragraph subtitleGlobal = new Paragraph("Resum global", PdfResources.SUBTITLE_FONT);
             document.add(subtitleGlobal);
             document.add(new Paragraph("\n"));
             document.add(new Paragraph("Total comandes: " + report.getTotalComandes()));
@@ -269,7 +542,7 @@ public class ReportServiceImpl implements ReportService {
 
             // Tabla de proveïdors
             document.add(new Paragraph("\n"));
-            Paragraph subtitle2 = new Paragraph("Despesa proveïdors", subtitleFont);
+            Paragraph subtitle2 = new Paragraph("Despesa proveïdors", PdfResources.SUBTITLE_FONT);
             document.add(subtitle2);
             document.add(new Paragraph("\n"));
             PdfPTable table = new PdfPTable(4);
@@ -288,7 +561,7 @@ public class ReportServiceImpl implements ReportService {
             // Taula de productes top
             document.add(new Paragraph("\n"));
             document.add(new Paragraph("\n"));
-            Paragraph subtitle1 = new Paragraph("Top Productes", subtitleFont);
+            Paragraph subtitle1 = new Paragraph("Top Productes", PdfResources.SUBTITLE_FONT);
             document.add(subtitle1);
             document.add(new Paragraph("\n"));
             PdfPTable prodTable = new PdfPTable(3);
@@ -303,12 +576,53 @@ public class ReportServiceImpl implements ReportService {
             document.add(prodTable);
 
             document.close();
-            return out.toByteArray();
         } catch (Exception e) {
             throw new BadRequestException("Error generant PDF" + e.getMessage());
         }
     }
 
+    /**
+     * Recursos estàtics dels PDF, carregats la primera vegada que es genera un informe.
+     * Les fonts no es modifiquen mai i el logo només es fa servir com a plantilla per copiar.
+     */
+    private static final class PdfResources {
+
+        static final Font TITLE_FONT = new Font(Font.HELVETICA, 18, Font.BOLD, Color.BLUE);
+        static final Font SUBTITLE_FONT = new Font(Font.HELVETICA, 16, Font.BOLD, Color.BLACK);
+        static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        static final Image LOGO = loadLogo();
+
+        private static Image loadLogo() {
+            try {
+                Image img = Image.getInstance(ReportServiceImpl.class.getResource("/images/logo_pdf.png"));
+                img.scaleToFit(100,100);
+                img.setAlignment(Image.ALIGN_RIGHT);
+                return img;
+            } catch (Exception e) {
+                throw new IllegalStateException("No s'ha pogut carregar el logo dels informes", e);
+            }
+        }
+    }
+
+    /**
+     * Construeix una fila de percentils a partir d'un histograma d'imports en cèntims
+     *
+     * @param clau clau del grup
+     * @param nom nom del grup
+     * @param sketch histograma dels imports
+     * @return PercentilesRowDTO amb el nombre de comandes i els percentils
+     */
+    private PercentilesRowDTO mapToPercentilesRowDTO(String clau, String nom, QuantileSketch sketch) {
+        return PercentilesRowDTO.builder()
+                .clau(clau)
+                .nom(nom)
+                .numComandes(sketch.count())
+                .mediana(Money.toBigDecimal(sketch.quantile(0.5)))
+                .p90(Money.toBigDecimal(sketch.quantile(0.9)))
+                .p99(Money.toBigDecimal(sketch.quantile(0.99)))
+                .build();
+    }
+
     /**
      * Converteix una sèrie d'informació en un {@link DashboardResponseDTO}.
      *
@@ -5,19 +5,18 @@ import cat.abasta_back_end.dto.SupplierRequestDTO;
 import cat.abasta_back_end.dto.SupplierResponseDTO;
 import cat.abasta_back_end.entities.Company;
 import cat.abasta_back_end.entities.Supplier;
-import cat.abasta_back_end.entities.User;
 import cat.abasta_back_end.exceptions.DuplicateResourceException;
 import cat.abasta_back_end.exceptions.ResourceNotFoundException;
 import cat.abasta_back_end.repositories.CompanyRepository;
 import cat.abasta_back_end.repositories.SupplierRepository;
 import cat.abasta_back_end.repositories.UserRepository;
+import cat.abasta_back_end.security.AuthenticatedUser;
 import cat.abasta_back_end.services.SupplierService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.security.core.context.SecurityContextHolder;
 
 /**
  * Implementació concreta del servei de negoci per a la gestió integral de proveïdors.
@@ -252,18 +251,13 @@ public class SupplierServiceImpl implements SupplierService {
      * @throws ResourceNotFoundException si l'usuari no existeix o no té empresa assignada
      */
     private String getCompanyUuidFromAuthenticatedUser() {
-        String username = SecurityContextHolder.getContext()
-                .getAuthentication()
-                .getName();
+        AuthenticatedUser principal = AuthenticatedUser.current(userRepository);
 
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuari no trobat: " + username));
-
-        if (user.getCompany() == null || user.getCompany().getUuid() == null) {
+        if (principal.getCompanyUuid() == null) {
             throw new ResourceNotFoundException("L'usuari no té empresa assignada");
         }
 
-        return user.getCompany().getUuid();
+        return principal.getCompanyUuid();
     }
 
     /**
@@ -8,15 +8,18 @@ import cat.abasta_back_end.exceptions.DuplicateResourceException;
 import cat.abasta_back_end.exceptions.ResourceNotFoundException;
 import cat.abasta_back_end.repositories.CompanyRepository;
 import cat.abasta_back_end.repositories.UserRepository;
+import cat.abasta_back_end.security.AuthenticatedUser;
 import cat.abasta_back_end.security.JwtUtil;
+import cat.abasta_back_end.security.PasswordHashingExecutor;
 import cat.abasta_back_end.services.EmailService;
+import cat.abasta_back_end.services.LastLoginService;
 import cat.abasta_back_end.services.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
@@ -81,6 +84,17 @@ public class UserServiceImpl implements UserService {
      */
     private final PasswordEncoder passwordEncoder;
 
+    /**
+     * Executor acotat on es verifiquen les contrasenyes de l'inici de sessió,
+     * perquè BCrypt no ocupi els fils de Tomcat.
+     */
+    private final PasswordHashingExecutor passwordHashingExecutor;
+
+    /**
+     * Servei que acumula les dates d'últim inici de sessió i les escriu en bloc.
+     */
+    private final LastLoginService lastLoginService;
+
     /**
      * {@inheritDoc}
      *
@@ -145,14 +159,21 @@ public class UserServiceImpl implements UserService {
      * </ul>
      * Si totes les validacions són correctes, s'actualitza la data de l'últim inici de sessió
      * i es genera un token JWT per a l'usuari autenticat.
+     * <p>
+     * El mètode no obre cap transacció: la contrasenya es verifica a l'{@link PasswordHashingExecutor}
+     * sense retenir cap connexió de base de dades, i la data d'inici de sessió es registra al
+     * {@link LastLoginService}, que l'escriu més tard en bloc. L'inici de sessió no fa cap
+     * escriptura síncrona a la base de dades.
      *
      * @param loginDTO l'objecte que conté les credencials d'inici de sessió (correu electrònic i contrasenya)
      * @return un {@link LoginResponseDTO} amb el token JWT generat, el seu tipus ("Bearer") i la informació de l'usuari
      * @throws BadRequestException si les credencials són incorrectes, l'usuari està inactiu o no ha verificat el correu electrònic
+     * @throws cat.abasta_back_end.exceptions.TooManyRequestsException si l'executor de BCrypt està saturat
      */
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public LoginResponseDTO login(LoginRequestDTO loginDTO) {
-        User user = userRepository.findByEmail(loginDTO.getEmail())
+        User user = userRepository.findWithCompanyByEmail(loginDTO.getEmail())
                 .orElseThrow(() -> new BadRequestException("Credencials invàlides"));
 
         if (!user.getIsActive()) {
@@ -167,14 +188,14 @@ public class UserServiceImpl implements UserService {
             throw new BadRequestException("Has de verificar el teu correu electrònic abans d'iniciar sessió. Revisa la teva safata d'entrada.");
         }
 
-        if (!passwordEncoder.matches(loginDTO.getPassword(), user.getPassword())) {
+        if (!passwordHashingExecutor.matches(loginDTO.getPassword(), user.getPassword())) {
             throw new BadRequestException("Credencials invàlides");
         }
 
         user.setLastLogin(LocalDateTime.now());
-        userRepository.save(user);
+        lastLoginService.recordLogin(user.getId(), user.getLastLogin());
 
-        String token = jwtUtil.generateToken(user.getEmail());
+        String token = jwtUtil.generateToken(user);
 
         return LoginResponseDTO.builder()
                 .token(token)
@@ -446,23 +467,19 @@ public class UserServiceImpl implements UserService {
      * Obté l'UUID de l'empresa de l'usuari autenticat des del context de Spring Security.
      * Aquest mètode s'utilitza per garantir que l'usuari
      * només pugui accedir als empleats de la seva pròpia empresa.
+     * L'UUID es llegeix dels claims del token sense accedir a la base de dades.
      *
      * @return UUID de l'empresa associada a l'usuari autenticat
      * @throws ResourceNotFoundException si l'usuari no existeix o no té empresa assignada
      */
     private String getCompanyUuidFromAuthenticatedUser() {
-        String username = SecurityContextHolder.getContext()
-                .getAuthentication()
-                .getName();
-
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuari no trobat: " + username));
+        AuthenticatedUser principal = AuthenticatedUser.current(userRepository);
 
-        if (user.getCompany() == null || user.getCompany().getUuid() == null) {
+        if (principal.getCompanyUuid() == null) {
             throw new ResourceNotFoundException("L'usuari no té empresa assignada");
         }
 
-        return user.getCompany().getUuid();
+        return principal.getCompanyUuid();
     }
 
 
@@ -478,14 +495,7 @@ public class UserServiceImpl implements UserService {
      * @throws ResourceNotFoundException si l'usuari autenticat no existeix a la base de dades
      */
     private Boolean isAdminUser() {
-        String username = SecurityContextHolder.getContext()
-                .getAuthentication()
-                .getName();
-
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuari no trobat: " + username));
-
-        return user.getRole() == ADMIN;
+        return AuthenticatedUser.current(userRepository).isAdmin();
     }
 
     /**
@@ -0,0 +1,134 @@
+package cat.abasta_back_end.analytics;
+
+import cat.abasta_back_end.dto.PivotDimension;
+import cat.abasta_back_end.entities.Order;
+import cat.abasta_back_end.services.OrderRollupService.Line;
+import cat.abasta_back_end.services.OrderRollupService.Snapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaris per OrderLineColumns.
+ * Verifica les agrupacions, els filtres, la substitució de comandes i que el recorregut
+ * en paral·lel dona el mateix resultat que el seqüencial.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@DisplayName("OrderLineColumns Tests")
+class OrderLineColumnsTest {
+
+    private static final LocalDate JAN = LocalDate.of(2025, 1, 10);
+    private static final LocalDate FEB = LocalDate.of(2025, 2, 5);
+
+    private OrderLineColumns columns;
+
+    @BeforeEach
+    void setUp() {
+        columns = new OrderLineColumns();
+        // Comanda 1: proveïdor 10, dos productes
+        columns.append(1, JAN, 10, 100, 200, 1000);
+        columns.append(1, JAN, 10, 101, 100, 550);
+        // Comanda 2: proveïdor 10, un producte
+        columns.append(2, FEB, 10, 100, 50, 250);
+        // Comanda 3: proveïdor 20
+        columns.append(3, FEB, 20, 200, 300, 3000);
+    }
+
+    @Test
+    @DisplayName("Hauria d'agrupar per proveïdor comptant cada comanda un sol cop")
+    void scan_bySupplier_ShouldCountDistinctOrders() {
+        // When
+        List<PivotRow> rows = scan(PivotDimension.SUPPLIER, null, null);
+
+        // Then
+        assertThat(rows).extracting(PivotRow::id).containsExactly(10L, 20L);
+        assertThat(rows.get(0).orders()).isEqualTo(2);
+        assertThat(rows.get(0).quantityHundredths()).isEqualTo(350);
+        assertThat(rows.get(0).amountCents()).isEqualTo(1800);
+        assertThat(rows.get(1).orders()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Hauria d'agrupar per mes i aplicar el filtre de producte")
+    void scan_byMonthWithProduct_ShouldFilterLines() {
+        // When
+        List<PivotRow> rows = scan(PivotDimension.MONTH, null, 100L);
+
+        // Then
+        assertThat(rows).extracting(PivotRow::start)
+                .containsExactly(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 1));
+        assertThat(rows).extracting(PivotRow::amountCents).containsExactly(1000L, 250L);
+        assertThat(scan(PivotDimension.MONTH, null, 999L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Substituir una comanda hauria de reemplaçar les línies i eliminar-les si deixa de ser activa")
+    void replace_ShouldUpdateOrRemoveLines() {
+        // When
+        columns.replace(2, new Snapshot(1L, FEB, 20L, Order.OrderStatus.CONFIRMED, new BigDecimal("7.00"),
+                Map.of(200L, new Line(new BigDecimal("1.00"), new BigDecimal("7.00")))));
+        columns.replace(3, new Snapshot(1L, FEB, 20L, Order.OrderStatus.CANCELLED, new BigDecimal("30.00"), Map.of()));
+
+        // Then
+        List<PivotRow> rows = scan(PivotDimension.SUPPLIER, null, null);
+        assertThat(rows).extracting(PivotRow::id).containsExactly(10L, 20L);
+        assertThat(rows.get(0).orders()).isEqualTo(1);
+        assertThat(rows.get(0).amountCents()).isEqualTo(1550);
+        assertThat(rows.get(1).orders()).isEqualTo(1);
+        assertThat(rows.get(1).amountCents()).isEqualTo(700);
+        assertThat(columns.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Hauria de rebutjar línies d'una comanda que no són consecutives")
+    void append_nonContiguousOrder_ShouldThrow() {
+        assertThatThrownBy(() -> columns.append(1, JAN, 10, 102, 100, 100))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("El recorregut en paral·lel hauria de coincidir amb el seqüencial després de compactar")
+    void scan_parallel_ShouldMatchSequential() {
+        // Given
+        Random random = new Random(2025);
+        OrderLineColumns large = new OrderLineColumns();
+        for (long order = 1; order <= 50_000; order++) {
+            LocalDate day = JAN.plusDays(random.nextInt(365));
+            long supplier = random.nextInt(20);
+            for (int line = 0, lines = 1 + random.nextInt(4); line < lines; line++) {
+                large.append(order, day, supplier, random.nextInt(300), 1 + random.nextInt(999), 1 + random.nextInt(99_999));
+            }
+        }
+        for (long order = 1; order <= 50_000; order += 2) {
+            large.remove(order);
+        }
+
+        // When
+        PivotQuery query = new PivotQuery(JAN, JAN.plusDays(365), PivotDimension.WEEK, null, null);
+        List<PivotRow> sequential = large.scan(query, 1);
+        List<PivotRow> parallel = large.scan(query, 8);
+
+        // Then
+        assertThat(parallel).containsExactlyElementsOf(sequential);
+        assertThat(sequential.stream().mapToLong(PivotRow::orders).sum()).isEqualTo(25_000);
+    }
+
+    private List<PivotRow> scan(PivotDimension dimension, Long supplierId, Long productId) {
+        return columns.scan(new PivotQuery(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31), dimension, supplierId, productId), 4)
+                .stream()
+                .sorted(Comparator.comparing((PivotRow row) -> row.start() != null ? row.start().toEpochDay() : row.id()))
+                .toList();
+    }
+}
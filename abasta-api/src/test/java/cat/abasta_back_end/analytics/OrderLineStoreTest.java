@@ -0,0 +1,172 @@
+package cat.abasta_back_end.analytics;
+
+import cat.abasta_back_end.dto.PivotDimension;
+import cat.abasta_back_end.entities.*;
+import cat.abasta_back_end.events.OrderChangedEvent;
+import cat.abasta_back_end.services.OrderRollupService.Line;
+import cat.abasta_back_end.services.OrderRollupService.Snapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests d'OrderLineStore amb H2.
+ * Verifica la càrrega de les línies, l'actualització amb els canvis de comandes,
+ * l'expulsió per memòria i la consulta directa quan el motor està desactivat.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(OrderLineStore.class)
+@Sql(scripts = "/test-schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DisplayName("OrderLineStore Tests")
+class OrderLineStoreTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 10, 15);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderLineStore orderLineStore;
+
+    private Company company;
+    private User user;
+    private Supplier supplier;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        company = entityManager.persist(Company.builder().uuid("pivot-company-uuid").name("Empresa Pivot SL").taxId("B11223344").email("pivot@empresa.com").status(Company.CompanyStatus.ACTIVE).build());
+        user = entityManager.persist(User.builder().uuid("pivot-user-uuid").company(company).email("pivot@test.com").password("pass").firstName("Pivot").lastName("Test").role(User.UserRole.ADMIN).isActive(true).isDeleted(false).emailVerified(true).build());
+        supplier = entityManager.persist(Supplier.builder().uuid("pivot-supplier-uuid").company(company).name("Proveïdor Pivot").isActive(true).build());
+        product = entityManager.persist(Product.builder().uuid("pivot-product-uuid").supplier(supplier).name("Producte Pivot").price(new BigDecimal("2.00")).isActive(true).build());
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("Hauria de carregar només les comandes actives i agrupar-les per proveïdor")
+    void query_ShouldLoadActiveOrders() {
+        // Given
+        persistOrder(DAY, Order.OrderStatus.CONFIRMED, "4", "8.00");
+        persistOrder(DAY.plusDays(1), Order.OrderStatus.PENDING, "1", "2.00");
+        persistOrder(DAY, Order.OrderStatus.CANCELLED, "10", "20.00");
+        entityManager.flush();
+
+        // When
+        List<PivotRow> rows = orderLineStore.query(company.getId(), query(PivotDimension.SUPPLIER));
+
+        // Then
+        assertThat(rows).singleElement().satisfies(row -> {
+            assertThat(row.id()).isEqualTo(supplier.getId());
+            assertThat(row.orders()).isEqualTo(2);
+            assertThat(row.quantityHundredths()).isEqualTo(500);
+            assertThat(row.amountCents()).isEqualTo(1000);
+        });
+        assertThat(orderLineStore.getLoadCount()).isEqualTo(1);
+        assertThat(orderLineStore.getTenantCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Els canvis de comandes s'haurien d'aplicar en memòria sense tornar a carregar")
+    void onOrderChanged_ShouldUpdateLoadedTenant() {
+        // Given
+        Order order = persistOrder(DAY, Order.OrderStatus.PENDING, "4", "8.00");
+        entityManager.flush();
+        orderLineStore.query(company.getId(), query(PivotDimension.DAY));
+
+        // When
+        Snapshot changed = new Snapshot(company.getId(), DAY, supplier.getId(), Order.OrderStatus.CONFIRMED, new BigDecimal("3.00"),
+                Map.of(product.getId(), new Line(new BigDecimal("1.50"), new BigDecimal("3.00"))));
+        orderLineStore.onOrderChanged(new OrderChangedEvent(company.getId(), DAY.atTime(12, 0), order.getId(), changed, order.getUuid()));
+        List<PivotRow> rows = orderLineStore.query(company.getId(), query(PivotDimension.DAY));
+
+        // Then
+        assertThat(rows).singleElement().satisfies(row -> {
+            assertThat(row.start()).isEqualTo(DAY);
+            assertThat(row.quantityHundredths()).isEqualTo(150);
+            assertThat(row.amountCents()).isEqualTo(300);
+        });
+        assertThat(orderLineStore.getLoadCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Un esdeveniment sense l'estat de la comanda hauria d'expulsar l'empresa")
+    void onOrderChanged_withoutSnapshot_ShouldEvictTenant() {
+        // Given
+        persistOrder(DAY, Order.OrderStatus.PENDING, "4", "8.00");
+        entityManager.flush();
+        orderLineStore.query(company.getId(), query(PivotDimension.SUPPLIER));
+
+        // When
+        orderLineStore.onOrderChanged(new OrderChangedEvent(company.getId(), DAY.atTime(12, 0)));
+
+        // Then
+        assertThat(orderLineStore.getTenantCount()).isZero();
+        assertThat(orderLineStore.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Amb el motor desactivat hauria de llegir només el període de la base de dades")
+    void query_whenDisabled_ShouldReadPeriodFromDatabase() {
+        // Given
+        OrderLineStore disabled = new OrderLineStore(jdbcTemplate, false, 1, 2);
+        persistOrder(DAY, Order.OrderStatus.COMPLETED, "2", "4.00");
+        persistOrder(DAY.minusMonths(3), Order.OrderStatus.COMPLETED, "1", "2.00");
+        entityManager.flush();
+
+        // When
+        List<PivotRow> rows = disabled.query(company.getId(),
+                new PivotQuery(DAY.withDayOfMonth(1), DAY, PivotDimension.PRODUCT, null, null));
+
+        // Then
+        assertThat(rows).singleElement().satisfies(row -> {
+            assertThat(row.id()).isEqualTo(product.getId());
+            assertThat(row.amountCents()).isEqualTo(400);
+        });
+        assertThat(disabled.getFallbackCount()).isEqualTo(1);
+        assertThat(disabled.getTenantCount()).isZero();
+    }
+
+    private PivotQuery query(PivotDimension dimension) {
+        return new PivotQuery(DAY.minusDays(30), DAY.plusDays(30), dimension, null, null);
+    }
+
+    private Order persistOrder(LocalDate day, Order.OrderStatus status, String quantity, String spend) {
+        Order order = Order.builder()
+                .uuid(UUID.randomUUID().toString())
+                .company(company)
+                .supplier(supplier)
+                .user(user)
+                .name("Comanda " + status)
+                .status(status)
+                .totalAmount(new BigDecimal(spend))
+                .createdAt(day.atTime(12, 0))
+                .items(new ArrayList<>())
+                .build();
+        order.getItems().add(OrderItem.builder().uuid(UUID.randomUUID().toString()).order(order).product(product)
+                .quantity(new BigDecimal(quantity)).unitPrice(product.getPrice()).subtotal(new BigDecimal(spend)).build());
+        return entityManager.persist(order);
+    }
+}
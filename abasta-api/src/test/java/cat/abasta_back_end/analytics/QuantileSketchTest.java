@@ -0,0 +1,107 @@
+package cat.abasta_back_end.analytics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.withPercentage;
+
+/**
+ * Tests unitaris per QuantileSketch.
+ * Verifica l'error relatiu dels percentils, la fusió, la retirada de valors i la serialització.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@DisplayName("QuantileSketch Tests")
+class QuantileSketchTest {
+
+    @Test
+    @DisplayName("Els percentils haurien de tenir un error relatiu inferior a l'1%")
+    void quantile_ShouldBeWithinRelativeAccuracy() {
+        // Given
+        Random random = new Random(2025);
+        long[] values = new long[50_000];
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1 + (long) Math.exp(random.nextGaussian() * 1.5 + 9);
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        // When / Then
+        for (double q : new double[]{0, 0.01, 0.5, 0.9, 0.99, 1}) {
+            long exact = values[(int) Math.floor(q * (values.length - 1))];
+            assertThat((double) sketch.quantile(q))
+                    .as("percentil %s", q)
+                    .isCloseTo(exact, withPercentage(QuantileSketch.RELATIVE_ACCURACY * 100));
+        }
+        assertThat(sketch.count()).isEqualTo(values.length);
+    }
+
+    @Test
+    @DisplayName("Fusionar dos histogrames hauria de donar el mateix que afegir-ho tot a un")
+    void merge_ShouldMatchSingleSketch() {
+        // Given
+        QuantileSketch left = new QuantileSketch();
+        QuantileSketch right = new QuantileSketch();
+        QuantileSketch all = new QuantileSketch();
+        for (long value = 0; value < 5_000; value += 7) {
+            (value % 2 == 0 ? left : right).add(value * 13);
+            all.add(value * 13);
+        }
+
+        // When
+        left.merge(right);
+
+        // Then
+        assertThat(left.count()).isEqualTo(all.count());
+        assertThat(left.toBytes()).isEqualTo(all.toBytes());
+    }
+
+    @Test
+    @DisplayName("Treure un valor hauria de desfer l'afegit i ignorar valors que no hi són")
+    void remove_ShouldUndoAdd() {
+        // Given
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(1_000);
+        sketch.add(250_000);
+
+        // When
+        boolean removed = sketch.remove(250_000);
+        boolean missing = sketch.remove(999_999);
+
+        // Then
+        assertThat(removed).isTrue();
+        assertThat(missing).isFalse();
+        assertThat(sketch.count()).isEqualTo(1);
+        assertThat(sketch.quantile(1)).isCloseTo(1_000, withPercentage(1));
+    }
+
+    @Test
+    @DisplayName("Serialitzar i llegir un histograma hauria de conservar-ne els comptadors")
+    void toBytes_ShouldRoundTrip() {
+        // Given
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(0);
+        sketch.add(1);
+        sketch.add(12_345);
+        sketch.add(1_000_000_000L);
+
+        // When
+        QuantileSketch copy = QuantileSketch.fromBytes(sketch.toBytes());
+
+        // Then
+        assertThat(copy.count()).isEqualTo(4);
+        assertThat(copy.quantile(0)).isZero();
+        assertThat(copy.quantile(0.5)).isEqualTo(sketch.quantile(0.5));
+        assertThat(copy.toBytes()).isEqualTo(sketch.toBytes());
+        assertThat(QuantileSketch.fromBytes(null).isEmpty()).isTrue();
+        assertThatThrownBy(() -> QuantileSketch.fromBytes(new byte[]{9}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,94 @@
+package cat.abasta_back_end.benchmarks;
+
+import cat.abasta_back_end.exceptions.TooManyRequestsException;
+import cat.abasta_back_end.security.JwtUtil;
+import cat.abasta_back_end.security.PasswordHashingExecutor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH d'una allau d'inicis de sessió.
+ *
+ * <p>Cada iteració executa dos grups de fils en paral·lel: fils que verifiquen contrasenyes
+ * amb BCrypt (com {@code POST /api/auth/login}) i fils que fan una operació lleugera
+ * representativa de la resta de l'API (emetre un token JWT). El paràmetre {@code mode}
+ * compara BCrypt executat directament al fil de la petició ({@code inline}) amb
+ * l'{@link PasswordHashingExecutor} acotat ({@code bounded}).</p>
+ *
+ * <p>El mode {@link Mode#SampleTime} informa del nombre d'operacions (inicis de sessió per
+ * segon) i dels percentils de latència; el p0.99 del mètode {@code api} mostra com es
+ * degrada la resta de l'API durant l'allau. Als resultats del mode {@code bounded},
+ * les peticions rebutjades (HTTP 429) compten com a inicis de sessió ràpids.</p>
+ *
+ * <p>Execució: {@code mvn test-compile} i després llançar el mètode {@link #main(String[])}
+ * amb el classpath de test.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class LoginStormBenchmark {
+
+    private static final String PASSWORD = "password123";
+    private static final String USERNAME = "test@abasta.com";
+
+    @Param({"inline", "bounded"})
+    private String mode;
+
+    private BCryptPasswordEncoder encoder;
+    private PasswordHashingExecutor executor;
+    private JwtUtil jwtUtil;
+    private String hash;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder();
+        hash = encoder.encode(PASSWORD);
+        executor = new PasswordHashingExecutor(encoder, 0, 64, 10_000);
+        jwtUtil = new JwtUtil();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    @Group("storm")
+    @GroupThreads(8)
+    public boolean login() {
+        if ("inline".equals(mode)) {
+            return encoder.matches(PASSWORD, hash);
+        }
+        try {
+            return executor.matches(PASSWORD, hash);
+        } catch (TooManyRequestsException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    @Group("storm")
+    @GroupThreads(2)
+    public String api() {
+        return jwtUtil.generateToken(USERNAME);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(LoginStormBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
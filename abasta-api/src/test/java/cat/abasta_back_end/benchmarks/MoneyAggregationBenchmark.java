@@ -0,0 +1,122 @@
+package cat.abasta_back_end.benchmarks;
+
+import cat.abasta_back_end.money.Money;
+import cat.abasta_back_end.money.MoneyAccumulator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH de l'agregació d'imports de línies de comanda.
+ *
+ * <p>Cada operació suma {@value #ITEMS} productes preu × quantitat i en calcula la mitjana, com
+ * fan els informes. El paràmetre {@code mode} compara {@link BigDecimal} ({@code bigdecimal}) amb
+ * cèntims en {@code long} i {@link MoneyAccumulator} ({@code cents}).</p>
+ *
+ * <p>Exactitud: abans de mesurar, {@link #setUp()} comprova que tots dos modes donen el mateix
+ * resultat amb escala 2 i HALF_UP, també en casos límit d'arrodoniment, i atura el benchmark
+ * si no és així.</p>
+ *
+ * <p>Els resultats són per línia agregada ({@link OperationsPerInvocation}). El
+ * {@link GCProfiler} afegeix {@code gc.alloc.rate.norm}, els bytes assignats per línia.</p>
+ *
+ * <p>Execució: {@code mvn test-compile} i després llançar el mètode {@link #main(String[])}
+ * amb el classpath de test.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(MoneyAggregationBenchmark.ITEMS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyAggregationBenchmark {
+
+    static final int ITEMS = 10_000;
+
+    @Param({"bigdecimal", "cents"})
+    private String mode;
+
+    private long[] priceCents;
+    private long[] quantityHundredths;
+    private BigDecimal[] prices;
+    private BigDecimal[] quantities;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(2025);
+        priceCents = new long[ITEMS];
+        quantityHundredths = new long[ITEMS];
+        prices = new BigDecimal[ITEMS];
+        quantities = new BigDecimal[ITEMS];
+        for (int i = 0; i < ITEMS; i++) {
+            priceCents[i] = 1 + random.nextInt(99_999);
+            quantityHundredths[i] = 1 + random.nextInt(9_999);
+            prices[i] = Money.toBigDecimal(priceCents[i]);
+            quantities[i] = Money.toBigDecimal(quantityHundredths[i]);
+        }
+
+        // Cas límit: 0,05 × 0,10 = 0,005, mig cèntim que només s'arrodoneix en el total
+        priceCents[0] = 5;
+        quantityHundredths[0] = 10;
+        prices[0] = new BigDecimal("0.05");
+        quantities[0] = new BigDecimal("0.10");
+
+        verifyExact();
+    }
+
+    @Benchmark
+    public BigDecimal aggregate() {
+        if ("bigdecimal".equals(mode)) {
+            BigDecimal total = BigDecimal.ZERO;
+            for (int i = 0; i < ITEMS; i++) {
+                total = total.add(prices[i].multiply(quantities[i]));
+            }
+            total = total.setScale(2, RoundingMode.HALF_UP);
+            return total.divide(BigDecimal.valueOf(ITEMS), 2, RoundingMode.HALF_UP);
+        }
+
+        MoneyAccumulator total = new MoneyAccumulator();
+        for (int i = 0; i < ITEMS; i++) {
+            total.addProduct(priceCents[i], quantityHundredths[i]);
+        }
+        return Money.toBigDecimal(Money.divide(total.cents(), ITEMS));
+    }
+
+    /**
+     * Comprova que els dos modes coincideixen exactament amb les dades del benchmark.
+     */
+    private void verifyExact() {
+        String original = mode;
+        try {
+            mode = "bigdecimal";
+            BigDecimal expected = aggregate();
+            mode = "cents";
+            BigDecimal actual = aggregate();
+            if (!expected.equals(actual)) {
+                throw new IllegalStateException("Resultats diferents: " + expected + " != " + actual);
+            }
+        } finally {
+            mode = original;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MoneyAggregationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
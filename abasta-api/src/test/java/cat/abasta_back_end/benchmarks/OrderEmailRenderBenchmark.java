@@ -0,0 +1,152 @@
+package cat.abasta_back_end.benchmarks;
+
+import cat.abasta_back_end.entities.Order;
+import cat.abasta_back_end.entities.OrderItem;
+import cat.abasta_back_end.entities.Product;
+import cat.abasta_back_end.mail.EmailTemplate;
+import cat.abasta_back_end.mail.OrderDetailsHtml;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH de la taula de productes dels correus de comanda.
+ *
+ * <p>El paràmetre {@code mode} compara la implementació anterior ({@code format}: un
+ * {@code String.format} per línia sobre un bloc de text que s'analitza a cada crida, i un
+ * {@link StringBuilder} sense dimensionar) amb {@link OrderDetailsHtml#render(Order)}
+ * ({@code template}: plantilla {@link EmailTemplate} compilada una vegada, escapament HTML i
+ * un sol {@link StringBuilder} dimensionat per al nombre de línies).</p>
+ *
+ * <p>Exactitud: abans de mesurar, {@link #setUp()} comprova que tots dos modes generen el
+ * mateix HTML (les dades no tenen caràcters que calgui escapar) i atura el benchmark si no és
+ * així.</p>
+ *
+ * <p>Els resultats són per taula de {@code lines} línies. El {@link GCProfiler} afegeix
+ * {@code gc.alloc.rate.norm}, els bytes assignats per taula.</p>
+ *
+ * <p>Execució: {@code mvn test-compile} i després llançar el mètode {@link #main(String[])}
+ * amb el classpath de test. El {@link GCProfiler} és el mateix que {@code -prof gc}; les
+ * xifres per comparar els dos modes s'han de treure d'aquesta execució, no de mesures fetes
+ * fora de JMH.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderEmailRenderBenchmark {
+
+    @Param({"format", "template"})
+    private String mode;
+
+    @Param({"200"})
+    private int lines;
+
+    private Order order;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<OrderItem> items = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            Product product = Product.builder()
+                    .name("Producte de temporada " + i)
+                    .unit(i % 2 == 0 ? "kg" : "unitats")
+                    .volume(BigDecimal.valueOf(5 + i % 20, 1))
+                    .build();
+            items.add(OrderItem.builder()
+                    .product(product)
+                    .quantity(BigDecimal.valueOf(1 + i % 12))
+                    .notes(i % 4 == 0 ? "Lliurar abans de les 9h, si us plau" : null)
+                    .build());
+        }
+        order = Order.builder().name("Comanda setmanal").items(items).build();
+
+        String expected = renderWithFormat(order);
+        String actual = OrderDetailsHtml.render(order);
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException("Els dos modes no generen el mateix HTML");
+        }
+    }
+
+    @Benchmark
+    public String render() {
+        if ("format".equals(mode)) {
+            return renderWithFormat(order);
+        }
+        return OrderDetailsHtml.render(order);
+    }
+
+    /**
+     * Implementació anterior de la taula, tal com era a {@code NotificationServiceImpl}.
+     */
+    private static String renderWithFormat(Order order) {
+        StringBuilder html = new StringBuilder();
+        html.append("""
+                <table width="100%" cellpadding="0" cellspacing="0" style="border: 1px solid #e0e0e0; border-radius: 6px; overflow: hidden;">
+                    <thead>
+                        <tr style="background-color: #667eea;">
+                            <th style="padding: 12px; text-align: left; color: #ffffff; font-size: 14px;">Producte</th>
+                            <th style="padding: 12px; text-align: center; color: #ffffff; font-size: 14px;">Quantitat</th>
+                            <th style="padding: 12px; text-align: right; color: #ffffff; font-size: 14px;">Volum</th>
+                            <th style="padding: 12px; text-align: right; color: #ffffff; font-size: 14px;">Unitat</th>
+                        </tr>
+                    </thead>
+                    <tbody>
+                """);
+
+        for (OrderItem item : order.getItems()) {
+            String productName = item.getProduct() != null ?
+                    item.getProduct().getName() : "Producte desconegut";
+            String unit = item.getProduct() != null && item.getProduct().getUnit() != null ?
+                    item.getProduct().getUnit() : "";
+            String notes = item.getNotes() != null && !item.getNotes().isEmpty() ?
+                    "<br><span style=\"font-size: 12px; color: #999; font-style: italic;\">Notes: " +
+                            item.getNotes() + "</span>" : "";
+
+            html.append(String.format("""
+                            <tr style="border-bottom: 1px solid #eeeeee;">
+                                <td style="padding: 15px; color: #333333;">
+                                    <strong>%s</strong>%s
+                                </td>
+                                <td style="padding: 15px; text-align: center; color: #666666;">%s</td>
+                                <td style="padding: 15px; text-align: right; color: #666666;">%s</td>
+                                <td style="padding: 15px; text-align: right; color: #666666;">%s</td>
+                            </tr>
+                            """,
+                    productName,
+                    notes,
+                    item.getQuantity(),
+                    item.getProduct() != null ? item.getProduct().getVolume() : "",
+                    unit
+            ));
+        }
+
+        html.append("""
+                    </tbody>
+                </table>
+                """);
+
+        return html.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(OrderEmailRenderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
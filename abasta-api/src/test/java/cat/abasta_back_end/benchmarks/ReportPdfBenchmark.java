@@ -0,0 +1,150 @@
+package cat.abasta_back_end.benchmarks;
+
+import cat.abasta_back_end.dto.DespesaPerProveidorDTO;
+import cat.abasta_back_end.dto.ProducteTopDTO;
+import cat.abasta_back_end.dto.ReportGlobalResponseDTO;
+import cat.abasta_back_end.services.impl.ReportServiceImpl;
+import com.lowagie.text.Document;
+import com.lowagie.text.Font;
+import com.lowagie.text.Image;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.awt.Color;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH de la generació del PDF de l'informe global.
+ *
+ * <p>El paràmetre {@code mode} compara la implementació anterior ({@code legacy}: logo i
+ * fonts carregats a cada crida i document sencer en un {@link ByteArrayOutputStream} que
+ * després es copia a un {@code byte[]}) amb {@link ReportServiceImpl#writeGlobalInfoPDF}
+ * ({@code streaming}: recursos compartits i sortida directa al flux de la resposta, aquí un
+ * flux que descarta les dades).</p>
+ *
+ * <p>El mode {@link Mode#Throughput} informa de PDF per segon. El {@link GCProfiler} afegeix
+ * {@code gc.alloc.rate.norm}, els bytes assignats per PDF.</p>
+ *
+ * <p>Execució: {@code mvn test-compile} i després llançar el mètode {@link #main(String[])}
+ * amb el classpath de test.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class ReportPdfBenchmark {
+
+    @Param({"legacy", "streaming"})
+    private String mode;
+
+    @Param({"20"})
+    private int rows;
+
+    private ReportServiceImpl reportService;
+    private ReportGlobalResponseDTO report;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        reportService = new ReportServiceImpl(null, null, null, null, null, null, null, null, null, null);
+
+        List<DespesaPerProveidorDTO> proveidors = new ArrayList<>();
+        List<ProducteTopDTO> productes = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            proveidors.add(DespesaPerProveidorDTO.builder()
+                    .proveidor("Proveïdor " + i)
+                    .numComandes(10 + i)
+                    .despesaTotal(BigDecimal.valueOf(1000 + i * 37L, 2))
+                    .percentatge(BigDecimal.valueOf(5))
+                    .build());
+            productes.add(new ProducteTopDTO("Producte " + i, BigDecimal.valueOf(3 + i), BigDecimal.valueOf(250 + i, 2)));
+        }
+
+        report = ReportGlobalResponseDTO.builder()
+                .dataInicial(LocalDateTime.of(2025, 1, 1, 0, 0))
+                .dataFinal(LocalDateTime.of(2025, 12, 31, 23, 59, 59))
+                .totalComandes(rows * 10)
+                .despesaTotal(BigDecimal.valueOf(123456, 2))
+                .comandaMitjana(BigDecimal.valueOf(6172, 2))
+                .despesaProveidors(proveidors)
+                .topProductes(productes)
+                .build();
+    }
+
+    @Benchmark
+    public Object render() throws Exception {
+        if ("legacy".equals(mode)) {
+            return legacyPdf(report);
+        }
+        OutputStream out = OutputStream.nullOutputStream();
+        reportService.writeGlobalInfoPDF(report, out);
+        return out;
+    }
+
+    /**
+     * Reprodueix la generació anterior: decodifica el logo i crea les fonts a cada crida.
+     */
+    private byte[] legacyPdf(ReportGlobalResponseDTO report) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Image img = Image.getInstance(getClass().getResource("/images/logo_pdf.png"));
+        img.scaleToFit(100, 100);
+        img.setAlignment(Image.ALIGN_RIGHT);
+
+        Document document = new Document();
+        PdfWriter.getInstance(document, out);
+        document.open();
+        document.add(img);
+
+        Font titleFont = new Font(Font.HELVETICA, 18, Font.BOLD, Color.BLUE);
+        Font subtitleFont = new Font(Font.HELVETICA, 16, Font.BOLD, Color.BLACK);
+        document.add(new Paragraph("Report Global", titleFont));
+        document.add(new Paragraph("Resum global", subtitleFont));
+        document.add(new Paragraph("Total comandes: " + report.getTotalComandes()));
+
+        PdfPTable table = new PdfPTable(4);
+        for (var p : report.getDespesaProveidors()) {
+            table.addCell(p.getProveidor());
+            table.addCell(String.valueOf(p.getNumComandes()));
+            table.addCell(p.getDespesaTotal().toString());
+            table.addCell(p.getPercentatge().toString());
+        }
+        document.add(table);
+
+        PdfPTable prodTable = new PdfPTable(3);
+        for (var p : report.getTopProductes()) {
+            prodTable.addCell(p.getNomProducte());
+            prodTable.addCell(p.getQuantitatTotal().toString());
+            prodTable.addCell(p.getDespesaTotal().toString());
+        }
+        document.add(prodTable);
+
+        document.close();
+        return out.toByteArray();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ReportPdfBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
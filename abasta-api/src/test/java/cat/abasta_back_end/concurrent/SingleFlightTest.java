@@ -0,0 +1,108 @@
+package cat.abasta_back_end.concurrent;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaris per a la classe SingleFlight.
+ * Verifica l'agrupació de crides concurrents, la propagació d'errors i que no es guarden resultats.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@DisplayName("SingleFlight Tests")
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    @Test
+    @DisplayName("Les crides simultànies amb la mateixa clau haurien de compartir un sol càlcul")
+    void execute_concurrentSameKey_ShouldComputeOnce() throws Exception {
+        // Given
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+
+        try {
+            // When
+            List<Future<String>> results = new ArrayList<>();
+            results.add(pool.submit(() -> singleFlight.execute("empresa-1", () -> {
+                started.countDown();
+                await(release);
+                return "dashboard-" + calls.incrementAndGet();
+            })));
+            started.await(5, TimeUnit.SECONDS);
+            for (int i = 1; i < CALLERS; i++) {
+                results.add(pool.submit(() -> singleFlight.execute("empresa-1", () -> "dashboard-" + calls.incrementAndGet())));
+            }
+            while (singleFlight.getCoalescedCount() < CALLERS - 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            // Then
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("dashboard-1");
+            }
+            assertThat(calls).hasValue(1);
+            assertThat(singleFlight.getExecutionCount()).isEqualTo(1);
+            assertThat(singleFlight.getCoalescedCount()).isEqualTo(CALLERS - 1);
+            assertThat(singleFlight.getInFlightCount()).isZero();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Les crides seqüencials haurien de tornar a calcular")
+    void execute_sequential_ShouldNotCacheResults() {
+        // Given
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        singleFlight.execute("empresa-1", calls::incrementAndGet);
+        int second = singleFlight.execute("empresa-1", calls::incrementAndGet);
+
+        // Then
+        assertThat(second).isEqualTo(2);
+        assertThat(singleFlight.getCoalescedCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Hauria de propagar l'excepció del càlcul i alliberar la clau")
+    void execute_whenLoaderFails_ShouldPropagateAndRelease() {
+        // Given
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+
+        // When / Then
+        assertThatThrownBy(() -> singleFlight.execute("empresa-1", () -> {
+            throw new IllegalStateException("error de base de dades");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("error de base de dades");
+
+        assertThat(singleFlight.getInFlightCount()).isZero();
+        assertThat(singleFlight.<String>execute("empresa-1", () -> "recuperat")).isEqualTo("recuperat");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
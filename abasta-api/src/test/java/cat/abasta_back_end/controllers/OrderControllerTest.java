@@ -1,6 +1,7 @@
 package cat.abasta_back_end.controllers;
 
 import cat.abasta_back_end.dto.*;
+import cat.abasta_back_end.services.OrderEventStreamService;
 import cat.abasta_back_end.services.OrderService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -12,6 +13,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
@@ -41,6 +43,9 @@ class OrderControllerTest {
     @Mock
     private OrderService orderService;
 
+    @Mock
+    private OrderEventStreamService orderEventStreamService;
+
     @InjectMocks
     private OrderController orderController;
 
@@ -243,5 +248,48 @@ class OrderControllerTest {
                 .filterOrders(filterDTO, PageRequest.of(0, 10, Sort.by("name").ascending()));
     }
 
+    /**
+     * Test per llistar comandes paginades per cursor
+     */
+    @Test
+    @DisplayName("GET /api/orders/list?cursor= : llistar comandes per cursor")
+    void listOrdersByCursor_success() {
+        // Mock de la pàgina retornada pel servei
+        OrderFilterDTO filterDTO = OrderFilterDTO.builder()
+                .size(10)
+                .cursor("")
+                .build();
+        CursorPagedResponseDTO<OrderResponseDTO> pageMock =
+                CursorPagedResponseDTO.of(List.of(orderResponse), 10, "next-cursor");
+
+        when(orderService.listOrdersByCursor(filterDTO)).thenReturn(pageMock);
+
+        ResponseEntity<ApiResponseDTO<CursorPagedResponseDTO<OrderResponseDTO>>> response =
+                orderController.listOrdersByCursor(filterDTO);
 
-}
\ No newline at end of file
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getData().getContent()).containsExactly(orderResponse);
+        assertThat(response.getBody().getData().getNextCursor()).isEqualTo("next-cursor");
+        assertThat(response.getBody().getData().isHasNext()).isTrue();
+        assertThat(response.getBody().getMessage())
+                .contains("Llistat de comandes per cursor completat");
+
+        verify(orderService, times(1)).listOrdersByCursor(filterDTO);
+    }
+
+    /**
+     * Test de la connexió amb els canvis de comandes.
+     */
+    @Test
+    @DisplayName("GET /api/orders/stream : subscriure's als canvis de comandes")
+    void streamOrderChanges_success() {
+        SseEmitter emitter = new SseEmitter();
+        when(orderEventStreamService.subscribe()).thenReturn(emitter);
+
+        SseEmitter response = orderController.streamOrderChanges();
+
+        assertThat(response).isSameAs(emitter);
+        verify(orderEventStreamService, times(1)).subscribe();
+    }
+}
@@ -0,0 +1,115 @@
+package cat.abasta_back_end.controllers;
+
+import cat.abasta_back_end.dto.PeriodRequestDTO;
+import cat.abasta_back_end.dto.ReportGlobalResponseDTO;
+import cat.abasta_back_end.entities.User;
+import cat.abasta_back_end.security.AuthenticatedUser;
+import cat.abasta_back_end.security.JwtUtil;
+import cat.abasta_back_end.security.SecurityConfig;
+import cat.abasta_back_end.services.ReportJobService;
+import cat.abasta_back_end.services.ReportService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests del ReportController amb la cadena de seguretat real ({@link SecurityConfig}).
+ * Verifica que les respostes escrites en un dispatch asíncron, com el PDF de l'informe global,
+ * no es rebutgen quan el filtre JWT ja no torna a autenticar la petició.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@WebMvcTest(ReportController.class)
+@Import(SecurityConfig.class)
+@ActiveProfiles("test")
+@DisplayName("ReportController Security Tests")
+class ReportControllerSecurityTest {
+
+    private static final String TOKEN = "valid-token";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ReportService reportService;
+
+    @MockitoBean
+    private ReportJobService reportJobService;
+
+    @MockitoBean
+    private JwtUtil jwtUtil;
+
+    @Test
+    @DisplayName("GET /api/reports/global/pdf → el dispatch asíncron escriu el PDF")
+    void globalInfoPDF_asyncDispatch_ShouldBePermitted() throws Exception {
+        // Given
+        Claims claims = Jwts.claims().setSubject("admin@test.com");
+        AuthenticatedUser principal = AuthenticatedUser.builder()
+                .userId(1L)
+                .email("admin@test.com")
+                .companyId(1L)
+                .role(User.UserRole.ADMIN)
+                .build();
+        when(jwtUtil.getClaimsFromToken(TOKEN)).thenReturn(claims);
+        when(jwtUtil.toAuthenticatedUser(claims)).thenReturn(principal);
+
+        ReportGlobalResponseDTO report = ReportGlobalResponseDTO.builder()
+                .totalComandes(3)
+                .despesaTotal(BigDecimal.valueOf(44))
+                .build();
+        byte[] pdf = "FAKE_PDF_BYTES".getBytes();
+        when(reportService.globalInfo(any(PeriodRequestDTO.class))).thenReturn(report);
+        doAnswer(inv -> {
+            inv.getArgument(1, OutputStream.class).write(pdf);
+            return null;
+        }).when(reportService).writeGlobalInfoPDF(eq(report), any(OutputStream.class));
+
+        // When: la petició original s'autentica amb el token
+        MvcResult result = mockMvc.perform(get("/api/reports/global/pdf")
+                        .header("Authorization", "Bearer " + TOKEN)
+                        .param("startDate", "2025-01-01")
+                        .param("endDate", "2025-01-31"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then: el dispatch asíncron, sense context de seguretat, escriu el document
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_PDF))
+                .andExpect(content().bytes(pdf));
+
+        verify(reportService).writeGlobalInfoPDF(eq(report), any(OutputStream.class));
+    }
+
+    @Test
+    @DisplayName("GET /api/reports/global/pdf → sense token es rebutja abans de calcular l'informe")
+    void globalInfoPDF_withoutToken_ShouldBeRejected() throws Exception {
+        mockMvc.perform(get("/api/reports/global/pdf")
+                        .param("startDate", "2025-01-01")
+                        .param("endDate", "2025-01-31"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().is4xxClientError());
+    }
+}
@@ -1,6 +1,7 @@
 package cat.abasta_back_end.controllers;
 
 import cat.abasta_back_end.dto.*;
+import cat.abasta_back_end.services.ReportJobService;
 import cat.abasta_back_end.services.ReportService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
@@ -11,10 +12,17 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 /**
@@ -34,6 +42,9 @@ class ReportControllerTest {
     @Mock
     private ReportService reportService;
 
+    @Mock
+    private ReportJobService reportJobService;
+
     @InjectMocks
     private ReportController reportController;
 
@@ -123,11 +134,19 @@ class ReportControllerTest {
         byte[] fakePdf = "FAKE_PDF_BYTES".getBytes();
 
         when(reportService.globalInfo(any())).thenReturn(dto);
-        when(reportService.generateGlobalInfoPDF(dto)).thenReturn(fakePdf);
+        doAnswer(inv -> {
+            inv.getArgument(1, OutputStream.class).write(fakePdf);
+            return null;
+        }).when(reportService).writeGlobalInfoPDF(eq(dto), any(OutputStream.class));
 
-        mockMvc().perform(get("/api/reports/global/pdf")
+        MockMvc mockMvc = mockMvc();
+        MvcResult result = mockMvc.perform(get("/api/reports/global/pdf")
                         .param("startDate", "2025-01-01")
                         .param("endDate", "2025-01-31"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_PDF))
 
@@ -139,7 +158,165 @@ class ReportControllerTest {
                         "inline; filename=\"Report_Global_Abasta_de_2025_01_01_a_2025_01_31.pdf\""));
 
         verify(reportService).globalInfo(any(PeriodRequestDTO.class));
-        verify(reportService).generateGlobalInfoPDF(dto);
+        verify(reportService).writeGlobalInfoPDF(eq(dto), any(OutputStream.class));
+    }
+
+    /**
+     * Comprova l'endpoint de sèrie temporal amb granularitat mensual
+     * @throws Exception excepció
+     */
+    @Test
+    @DisplayName("GET /api/reports/timeseries → retorna la sèrie amb la granularitat demanada")
+    void timeSeries_success() throws Exception {
+
+        TimeSeriesResponseDTO dto = TimeSeriesResponseDTO.builder()
+                .dataInicial(LocalDate.of(2025, 1, 1))
+                .dataFinal(LocalDate.of(2025, 2, 28))
+                .granularitat(TimeSeriesGranularity.MONTH)
+                .punts(List.of(
+                        TimeSeriesPointDTO.builder().inici(LocalDate.of(2025, 1, 1)).numComandes(4L).despesa(BigDecimal.valueOf(120)).build(),
+                        TimeSeriesPointDTO.builder().inici(LocalDate.of(2025, 2, 1)).numComandes(0L).despesa(BigDecimal.ZERO).build()))
+                .build();
+
+        when(reportService.timeSeries(any())).thenReturn(dto);
+
+        mockMvc().perform(get("/api/reports/timeseries")
+                        .param("startDate", "2025-01-01")
+                        .param("endDate", "2025-02-28")
+                        .param("granularity", "month"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.granularitat").value("MONTH"))
+                .andExpect(jsonPath("$.data.punts.length()").value(2))
+                .andExpect(jsonPath("$.data.punts[0].numComandes").value(4));
+
+        verify(reportService).timeSeries(argThat(req ->
+                req.getGranularitat() == TimeSeriesGranularity.MONTH
+                        && req.getDataInicial().equals(LocalDate.of(2025, 1, 1))
+                        && req.getDataFinal().equals(LocalDate.of(2025, 2, 28))));
+    }
+
+    /**
+     * Comprova l'endpoint de consulta dinàmica agrupada per setmana
+     * @throws Exception excepció
+     */
+    @Test
+    @DisplayName("GET /api/reports/pivot → retorna les files amb l'agrupació demanada")
+    void pivot_success() throws Exception {
+
+        PivotResponseDTO dto = PivotResponseDTO.builder()
+                .dataInicial(LocalDate.of(2025, 1, 1))
+                .dataFinal(LocalDate.of(2025, 1, 31))
+                .agrupacio(PivotDimension.WEEK)
+                .files(List.of(PivotRowDTO.builder().clau("2024-12-30").numComandes(3L)
+                        .quantitat(BigDecimal.valueOf(12)).despesa(BigDecimal.valueOf(80)).build()))
+                .build();
+
+        when(reportService.pivot(any())).thenReturn(dto);
+
+        mockMvc().perform(get("/api/reports/pivot")
+                        .param("startDate", "2025-01-01")
+                        .param("endDate", "2025-01-31")
+                        .param("groupBy", "week")
+                        .param("supplierUuid", "supplier-uuid"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.agrupacio").value("WEEK"))
+                .andExpect(jsonPath("$.data.files[0].numComandes").value(3));
+
+        verify(reportService).pivot(argThat(req ->
+                req.getAgrupacio() == PivotDimension.WEEK
+                        && "supplier-uuid".equals(req.getSupplierUuid())
+                        && req.getDataFinal().equals(LocalDate.of(2025, 1, 31))));
+    }
+
+    /**
+     * Comprova l'endpoint de percentils agrupats per proveïdor
+     * @throws Exception excepció
+     */
+    @Test
+    @DisplayName("GET /api/reports/percentiles → retorna el total i una fila per proveïdor")
+    void percentiles_success() throws Exception {
+
+        PercentilesRowDTO fila = PercentilesRowDTO.builder().clau("supplier-uuid").nom("Proveïdor").numComandes(40L)
+                .mediana(new BigDecimal("85.00")).p90(new BigDecimal("210.00")).p99(new BigDecimal("480.00")).build();
+        PercentilesResponseDTO dto = PercentilesResponseDTO.builder()
+                .mesInicial(YearMonth.of(2025, 1))
+                .mesFinal(YearMonth.of(2025, 6))
+                .agrupacio(PivotDimension.SUPPLIER)
+                .total(fila)
+                .files(List.of(fila))
+                .build();
+
+        when(reportService.orderValuePercentiles(any())).thenReturn(dto);
+
+        mockMvc().perform(get("/api/reports/percentiles")
+                        .param("startDate", "2025-01-01")
+                        .param("endDate", "2025-06-30")
+                        .param("groupBy", "supplier"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.agrupacio").value("SUPPLIER"))
+                .andExpect(jsonPath("$.data.files[0].p90").value(210.00));
+
+        verify(reportService).orderValuePercentiles(argThat(req ->
+                req.getAgrupacio() == PivotDimension.SUPPLIER
+                        && req.getDataInicial().equals(LocalDate.of(2025, 1, 1))
+                        && req.getSupplierUuid() == null));
+    }
+
+    /**
+     * Comprova que demanar un informe en segon pla retorna 202 amb l'identificador
+     * @throws Exception excepció
+     */
+    @Test
+    @DisplayName("POST /api/reports/jobs → posa l'informe a la cua")
+    void submitJob_success() throws Exception {
+
+        ReportJobResponseDTO job = ReportJobResponseDTO.builder()
+                .uuid("job-uuid")
+                .estat(ReportJobStatus.PENDING)
+                .format(ReportJobFormat.PDF)
+                .build();
+
+        when(reportJobService.submit(any(PeriodRequestDTO.class), eq(ReportJobFormat.PDF))).thenReturn(job);
+
+        mockMvc().perform(post("/api/reports/jobs")
+                        .param("startDate", "2020-01-01")
+                        .param("endDate", "2025-12-31")
+                        .param("format", "pdf"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.uuid").value("job-uuid"))
+                .andExpect(jsonPath("$.data.estat").value("PENDING"));
+
+        verify(reportJobService).submit(argThat(period ->
+                period.getDataInicial().equals(LocalDate.of(2020, 1, 1).atStartOfDay())), eq(ReportJobFormat.PDF));
+    }
+
+    /**
+     * Comprova que un informe JSON completat retorna l'estat amb el resultat
+     * @throws Exception excepció
+     */
+    @Test
+    @DisplayName("GET /api/reports/jobs/{id} → retorna l'estat i el resultat JSON")
+    void getJob_json_success() throws Exception {
+
+        ReportJobResponseDTO job = ReportJobResponseDTO.builder()
+                .uuid("job-uuid")
+                .estat(ReportJobStatus.COMPLETED)
+                .format(ReportJobFormat.JSON)
+                .resultat(ReportGlobalResponseDTO.builder().totalComandes(12).build())
+                .build();
+
+        when(reportJobService.getJob("job-uuid")).thenReturn(job);
+
+        mockMvc().perform(get("/api/reports/jobs/job-uuid"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.estat").value("COMPLETED"))
+                .andExpect(jsonPath("$.data.resultat.totalComandes").value(12));
+
+        verify(reportJobService, never()).getPdfResult(any());
     }
 
-}
\ No newline at end of file
+}
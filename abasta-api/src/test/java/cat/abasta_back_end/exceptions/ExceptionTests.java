@@ -73,6 +73,19 @@ class ExceptionTests {
         assertThat(response.getBody().getMessage()).isEqualTo("Petició invàlida");
     }
 
+    @Test
+    void testHandleTooManyRequests() {
+        GlobalExceptionHandler handler = new GlobalExceptionHandler();
+        TooManyRequestsException ex = new TooManyRequestsException("Massa peticions", 3);
+
+        ResponseEntity<ApiResponseDTO<Void>> response = handler.handleTooManyRequests(ex);
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(429);
+        assertThat(response.getHeaders().getFirst("Retry-After")).isEqualTo("3");
+        assertThat(response.getBody().isSuccess()).isFalse();
+        assertThat(response.getBody().getMessage()).isEqualTo("Massa peticions");
+    }
+
     @Test
     void testHandleValidationExceptions() {
         GlobalExceptionHandler handler = new GlobalExceptionHandler();
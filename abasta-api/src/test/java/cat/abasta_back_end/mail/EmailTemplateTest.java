@@ -0,0 +1,106 @@
+package cat.abasta_back_end.mail;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaris per EmailTemplate.
+ * Verifica la substitució dels marcadors, l'escapament HTML i que les plantilles incorrectes
+ * es rebutgen en compilar-les.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@DisplayName("EmailTemplate Tests")
+class EmailTemplateTest {
+
+    @Test
+    @DisplayName("Hauria de substituir cada marcador pel seu valor, també els repetits")
+    void render_ShouldReplacePlaceholders() {
+        // Given
+        EmailTemplate template = EmailTemplate.compile(
+                "<p>Hola {{userName}}, <a href=\"{{link}}\">{{link}}</a> ({{count}})</p>",
+                "userName", "link", "count");
+
+        // When
+        String html = template.render("Joan", "https://abasta.test/verify?token=abc", 3);
+
+        // Then
+        assertThat(html).isEqualTo("<p>Hola Joan, <a href=\"https://abasta.test/verify?token=abc\">"
+                + "https://abasta.test/verify?token=abc</a> (3)</p>");
+    }
+
+    @Test
+    @DisplayName("Hauria d'escapar els valors i deixar tal qual els fragments HTML")
+    void render_ShouldEscapeValuesButNotRawFragments() {
+        // Given
+        EmailTemplate template = EmailTemplate.compile("<td>{{notes}}</td>{{{section}}}", "notes", "section");
+
+        // When
+        String html = template.render("<script>alert('x')</script> & \"cometes\"", "<tr><td>Fila</td></tr>");
+
+        // Then
+        assertThat(html).isEqualTo("<td>&lt;script&gt;alert(&#39;x&#39;)&lt;/script&gt; &amp; &quot;cometes&quot;</td>"
+                + "<tr><td>Fila</td></tr>");
+    }
+
+    @Test
+    @DisplayName("Els valors null s'haurien de renderitzar com a cadena buida")
+    void render_WithNullValue_ShouldRenderEmpty() {
+        // Given
+        EmailTemplate template = EmailTemplate.compile("[{{a}}][{{{b}}}]", "a", "b");
+
+        // When & Then
+        assertThat(template.render(null, null)).isEqualTo("[][]");
+    }
+
+    @Test
+    @DisplayName("Hauria de renderitzar diverses vegades al mateix StringBuilder")
+    void renderTo_ShouldAppendToBuilder() {
+        // Given
+        EmailTemplate row = EmailTemplate.compile("<tr><td>{{name}}</td><td>{{quantity}}</td></tr>", "name", "quantity");
+        StringBuilder html = new StringBuilder("<table>");
+
+        // When
+        row.renderTo(html, "Tomàquets", new BigDecimal("2.5"));
+        row.renderTo(html, "Pa & coca", 1);
+
+        // Then
+        assertThat(html.append("</table>").toString()).isEqualTo("<table>"
+                + "<tr><td>Tomàquets</td><td>2.5</td></tr>"
+                + "<tr><td>Pa &amp; coca</td><td>1</td></tr>"
+                + "</table>");
+        assertThat(row.literalLength()).isEqualTo("<tr><td></td><td></td></tr>".length());
+    }
+
+    @Test
+    @DisplayName("Hauria de rebutjar marcadors desconeguts, sense tancar o paràmetres sense marcador")
+    void compile_WithInvalidTemplate_ShouldThrow() {
+        assertThatThrownBy(() -> EmailTemplate.compile("Hola {{nom}}", "userName"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("nom");
+        assertThatThrownBy(() -> EmailTemplate.compile("Hola {{userName", "userName"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> EmailTemplate.compile("Hola {{userName}}", "userName", "link"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("link");
+        assertThatThrownBy(() -> EmailTemplate.compile("Hola {{userName}}", "userName", "userName"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Hauria de rebutjar un nombre de valors diferent del de paràmetres")
+    void render_WithWrongArity_ShouldThrow() {
+        // Given
+        EmailTemplate template = EmailTemplate.compile("{{a}}{{b}}", "a", "b");
+
+        // When & Then
+        assertThatThrownBy(() -> template.render("només un"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
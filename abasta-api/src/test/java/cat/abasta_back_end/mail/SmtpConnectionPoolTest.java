@@ -0,0 +1,228 @@
+package cat.abasta_back_end.mail;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests del SmtpConnectionPool contra un servidor SMTP en memòria.
+ * Verifica la reutilització de connexions, la renovació de les trencades o esgotades,
+ * l'expulsió de les inactives i compara el rendiment amb una connexió per missatge.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@DisplayName("SmtpConnectionPool Tests")
+class SmtpConnectionPoolTest {
+
+    private SmtpStub smtp;
+    private SmtpConnectionPool pool;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        if (smtp != null) {
+            smtp.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Un lot s'hauria d'enviar per una sola connexió")
+    void send_ShouldReuseOneConnectionForBatch() throws Exception {
+        // Given
+        smtp = new SmtpStub(0, 0);
+        JavaMailSenderImpl mailSender = mailSender(smtp);
+        pool = new SmtpConnectionPool(mailSender, 3, 30, 100);
+
+        // When
+        Map<MimeMessage, MessagingException> failures = pool.send(messages(mailSender, 20));
+
+        // Then
+        assertThat(failures).isEmpty();
+        assertThat(smtp.messages()).isEqualTo(20);
+        assertThat(smtp.connections()).isEqualTo(1);
+        assertThat(pool.getSentCount()).isEqualTo(20);
+        assertThat(pool.getIdleCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Els lots següents haurien de reutilitzar la connexió lliure")
+    void send_ShouldReuseIdleConnectionAcrossBatches() throws Exception {
+        // Given
+        smtp = new SmtpStub(0, 0);
+        JavaMailSenderImpl mailSender = mailSender(smtp);
+        pool = new SmtpConnectionPool(mailSender, 3, 30, 100);
+
+        // When
+        pool.send(messages(mailSender, 5));
+        pool.send(messages(mailSender, 5));
+
+        // Then
+        assertThat(smtp.messages()).isEqualTo(10);
+        assertThat(smtp.connections()).isEqualTo(1);
+        assertThat(pool.getOpenedCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Una connexió trencada s'hauria de substituir i tornar a enviar el missatge")
+    void send_WhenConnectionDrops_ShouldReplaceItAndResend() throws Exception {
+        // Given
+        smtp = new SmtpStub(0, 5);
+        JavaMailSenderImpl mailSender = mailSender(smtp);
+        pool = new SmtpConnectionPool(mailSender, 3, 30, 100);
+
+        // When
+        Map<MimeMessage, MessagingException> failures = pool.send(messages(mailSender, 12));
+
+        // Then
+        assertThat(failures).isEmpty();
+        assertThat(smtp.messages()).isEqualTo(12);
+        assertThat(smtp.connections()).isEqualTo(3);
+        assertThat(pool.getBrokenCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Una connexió s'hauria de renovar després del màxim de missatges")
+    void send_ShouldRenewConnectionAfterMaxMessages() throws Exception {
+        // Given
+        smtp = new SmtpStub(0, 0);
+        JavaMailSenderImpl mailSender = mailSender(smtp);
+        pool = new SmtpConnectionPool(mailSender, 3, 30, 5);
+
+        // When
+        pool.send(messages(mailSender, 12));
+
+        // Then
+        assertThat(smtp.messages()).isEqualTo(12);
+        assertThat(smtp.connections()).isEqualTo(3);
+        assertThat(pool.getBrokenCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Un destinatari rebutjat no hauria d'aturar el lot ni descartar la connexió")
+    void send_WhenRecipientRejected_ShouldFailOnlyThatMessage() throws Exception {
+        // Given
+        smtp = new SmtpStub(0, 0);
+        JavaMailSenderImpl mailSender = mailSender(smtp);
+        pool = new SmtpConnectionPool(mailSender, 3, 30, 100);
+        List<MimeMessage> messages = messages(mailSender, 3);
+        MimeMessage rejected = message(mailSender, "reject@test.com");
+        messages.add(1, rejected);
+
+        // When
+        Map<MimeMessage, MessagingException> failures = pool.send(messages);
+
+        // Then
+        assertThat(failures).containsOnlyKeys(rejected);
+        assertThat(smtp.messages()).isEqualTo(3);
+        assertThat(smtp.connections()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Si no es pot connectar, tot el lot s'hauria de retornar com a fallit")
+    void send_WhenServerUnavailable_ShouldFailWholeBatch() throws Exception {
+        // Given
+        smtp = new SmtpStub(0, 0);
+        JavaMailSenderImpl mailSender = mailSender(smtp);
+        smtp.close();
+        pool = new SmtpConnectionPool(mailSender, 3, 30, 100);
+        List<MimeMessage> messages = messages(mailSender, 4);
+
+        // When
+        Map<MimeMessage, MessagingException> failures = pool.send(messages);
+
+        // Then
+        assertThat(failures).hasSize(4);
+        assertThat(pool.getIdleCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Les connexions inactives s'haurien de tancar")
+    void evictIdle_ShouldCloseExpiredConnections() throws Exception {
+        // Given
+        smtp = new SmtpStub(0, 0);
+        JavaMailSenderImpl mailSender = mailSender(smtp);
+        pool = new SmtpConnectionPool(mailSender, 3, 0, 100);
+        pool.send(messages(mailSender, 2));
+
+        // When
+        int evicted = pool.evictIdle();
+
+        // Then
+        assertThat(evicted).isEqualTo(1);
+        assertThat(pool.getIdleCount()).isZero();
+        assertThat(pool.getEvictedCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("El pool hauria d'enviar més missatges per segon que una connexió per missatge")
+    void send_ShouldOutperformConnectionPerMessage() throws Exception {
+        // Given: cada connexió costa 20 ms, com una negociació STARTTLS i autenticació
+        int count = 50;
+        smtp = new SmtpStub(20, 0);
+        JavaMailSenderImpl mailSender = mailSender(smtp);
+        pool = new SmtpConnectionPool(mailSender, 3, 30, 100);
+
+        // When: camí anterior, JavaMailSender.send per cada missatge
+        long start = System.nanoTime();
+        for (MimeMessage message : messages(mailSender, count)) {
+            mailSender.send(message);
+        }
+        long perMessageNanos = System.nanoTime() - start;
+        int perMessageConnections = smtp.connections();
+
+        start = System.nanoTime();
+        Map<MimeMessage, MessagingException> failures = pool.send(messages(mailSender, count));
+        long pooledNanos = System.nanoTime() - start;
+        int pooledConnections = smtp.connections() - perMessageConnections;
+
+        // Then
+        System.out.printf("Una connexió per missatge: %.0f missatges/s (%d connexions)%n",
+                count * 1e9 / perMessageNanos, perMessageConnections);
+        System.out.printf("Pool de connexions: %.0f missatges/s (%d connexions)%n",
+                count * 1e9 / pooledNanos, pooledConnections);
+
+        assertThat(failures).isEmpty();
+        assertThat(perMessageConnections).isEqualTo(count);
+        assertThat(pooledConnections).isEqualTo(1);
+        assertThat(pooledNanos).isLessThan(perMessageNanos);
+    }
+
+    private static JavaMailSenderImpl mailSender(SmtpStub smtp) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtp.port());
+        mailSender.setDefaultEncoding("UTF-8");
+        return mailSender;
+    }
+
+    private static List<MimeMessage> messages(JavaMailSenderImpl mailSender, int count) throws MessagingException {
+        List<MimeMessage> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            messages.add(message(mailSender, "proveidor" + i + "@test.com"));
+        }
+        return messages;
+    }
+
+    private static MimeMessage message(JavaMailSenderImpl mailSender, String to) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom("noreply@abasta.com");
+        helper.setTo(to);
+        helper.setSubject("Nova Comanda - Abasta");
+        helper.setText("<p>Comanda de prova</p>", true);
+        return message;
+    }
+}
@@ -0,0 +1,132 @@
+package cat.abasta_back_end.mail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servidor SMTP mínim en memòria per als tests d'enviament.
+ *
+ * <p>Accepta qualsevol remitent i destinatari, excepte els destinataris que comencen per
+ * {@code reject}, i compta connexions i missatges rebuts. Pot simular el cost de negociar una
+ * connexió (STARTTLS i autenticació) amb una espera abans de la salutació, i tallar les
+ * connexions després d'un nombre de missatges.</p>
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+class SmtpStub implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final long handshakeDelayMillis;
+    private final int dropAfterMessages;
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger messages = new AtomicInteger();
+
+    /**
+     * Arrenca el servidor en un port lliure.
+     *
+     * @param handshakeDelayMillis espera abans de la salutació de cada connexió
+     * @param dropAfterMessages missatges per connexió abans de tallar-la; 0 per no tallar-la mai
+     */
+    SmtpStub(long handshakeDelayMillis, int dropAfterMessages) {
+        try {
+            this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.handshakeDelayMillis = handshakeDelayMillis;
+        this.dropAfterMessages = dropAfterMessages;
+        executor.execute(this::acceptLoop);
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    int connections() {
+        return connections.get();
+    }
+
+    int messages() {
+        return messages.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                executor.execute(() -> handle(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             OutputStream out = socket.getOutputStream()) {
+            if (handshakeDelayMillis > 0) {
+                Thread.sleep(handshakeDelayMillis);
+            }
+            reply(out, "220 stub ESMTP");
+
+            int received = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO", "HELO" -> reply(out, "250 stub");
+                    case "MAIL", "RSET", "NOOP" -> reply(out, "250 OK");
+                    case "RCPT" -> reply(out, line.toLowerCase().contains("<reject")
+                            ? "550 Mailbox unavailable"
+                            : "250 OK");
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // Es descarta el contingut
+                        }
+                        messages.incrementAndGet();
+                        reply(out, "250 OK");
+                        if (dropAfterMessages > 0 && ++received >= dropAfterMessages) {
+                            return;
+                        }
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            // El client ha tancat la connexió
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void reply(OutputStream out, String line) throws IOException {
+        out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+}
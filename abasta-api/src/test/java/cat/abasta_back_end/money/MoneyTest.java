@@ -0,0 +1,96 @@
+package cat.abasta_back_end.money;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaris per a les classes Money i MoneyAccumulator.
+ * Verifica que els càlculs en cèntims donen el mateix resultat que BigDecimal amb escala 2 i HALF_UP.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@DisplayName("Money Tests")
+class MoneyTest {
+
+    @Test
+    @DisplayName("Hauria de convertir imports a cèntims arrodonint HALF_UP")
+    void toCents_ShouldRoundHalfUp() {
+        assertThat(Money.toCents(new BigDecimal("12.345"))).isEqualTo(1235);
+        assertThat(Money.toCents(new BigDecimal("12.344"))).isEqualTo(1234);
+        assertThat(Money.toCents(new BigDecimal("-12.345"))).isEqualTo(-1235);
+        assertThat(Money.toCents(new BigDecimal("7"))).isEqualTo(700);
+        assertThat(Money.toCents(null)).isZero();
+        assertThat(Money.toBigDecimal(1235)).isEqualTo(new BigDecimal("12.35"));
+    }
+
+    @Test
+    @DisplayName("La mitjana i el percentatge haurien de coincidir amb BigDecimal")
+    void divideAndPercentage_ShouldMatchBigDecimal() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            long total = 1 + random.nextInt(10_000_000);
+            long part = random.nextInt((int) total + 1);
+            int count = 1 + random.nextInt(500);
+
+            BigDecimal totalBd = Money.toBigDecimal(total);
+            BigDecimal expectedAverage = totalBd.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
+            BigDecimal expectedPercentage = Money.toBigDecimal(part).multiply(BigDecimal.valueOf(100))
+                    .divide(totalBd, 2, RoundingMode.HALF_UP);
+
+            assertThat(Money.toBigDecimal(Money.divide(total, count))).isEqualTo(expectedAverage);
+            assertThat(Money.toBigDecimal(Money.percentage(part, total))).isEqualTo(expectedPercentage);
+        }
+        assertThat(Money.percentage(100, 0)).isZero();
+    }
+
+    @Test
+    @DisplayName("L'acumulador hauria de sumar preu per quantitat sense perdre precisió")
+    void accumulator_ShouldMatchBigDecimalSum() {
+        // Given
+        Random random = new Random(7);
+        MoneyAccumulator fromCents = new MoneyAccumulator();
+        MoneyAccumulator fromDecimals = new MoneyAccumulator();
+        BigDecimal expected = BigDecimal.ZERO;
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            long price = 1 + random.nextInt(99_999);
+            long quantity = 1 + random.nextInt(9_999);
+            BigDecimal subtotal = Money.toBigDecimal(price).multiply(Money.toBigDecimal(quantity));
+            expected = expected.add(subtotal);
+            fromCents.addProduct(price, quantity);
+            fromDecimals.add(subtotal);
+        }
+
+        // Then
+        assertThat(fromCents.toBigDecimal()).isEqualTo(expected.setScale(2, RoundingMode.HALF_UP));
+        assertThat(fromDecimals.cents()).isEqualTo(fromCents.cents());
+    }
+
+    @Test
+    @DisplayName("Hauria d'arrodonir la suma un sol cop i combinar acumuladors parcials")
+    void accumulator_ShouldRoundOnceAndMerge() {
+        // 0,005 + 0,005 = 0,01: arrodonir cada sumand per separat donaria 0,02
+        MoneyAccumulator left = new MoneyAccumulator().add(new BigDecimal("0.005"));
+        MoneyAccumulator right = new MoneyAccumulator().add(new BigDecimal("0.005"));
+
+        assertThat(left.merge(right).toBigDecimal()).isEqualTo(new BigDecimal("0.01"));
+        assertThat(new MoneyAccumulator().addProduct(5, 50).cents()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Hauria de detectar desbordaments")
+    void accumulator_ShouldDetectOverflow() {
+        MoneyAccumulator accumulator = new MoneyAccumulator().addCents(Long.MAX_VALUE / 100);
+
+        assertThatThrownBy(() -> accumulator.addCents(Long.MAX_VALUE / 100)).isInstanceOf(ArithmeticException.class);
+    }
+}
@@ -0,0 +1,86 @@
+package cat.abasta_back_end.repositories;
+
+import cat.abasta_back_end.entities.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests de la inserció en lot de comandes i items amb H2.
+ * Verifica que els identificadors es reserven en blocs i que els INSERT s'agrupen en lots JDBC.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Sql(scripts = "/test-schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DisplayName("Order Batch Insert Tests")
+class OrderBatchInsertTest {
+
+    private static final int ITEM_COUNT = 120;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Company company;
+    private User user;
+    private Supplier supplier;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        company = entityManager.persist(Company.builder().uuid("batch-company-uuid").name("Empresa Lots SL").taxId("B87654321").email("lots@empresa.com").status(Company.CompanyStatus.ACTIVE).build());
+        user = entityManager.persist(User.builder().uuid("batch-user-uuid").company(company).email("lots@test.com").password("pass").firstName("Lots").lastName("Test").role(User.UserRole.ADMIN).isActive(true).isDeleted(false).emailVerified(true).build());
+        supplier = entityManager.persist(Supplier.builder().uuid("batch-supplier-uuid").company(company).name("Proveïdor Lots").isActive(true).build());
+        product = entityManager.persist(Product.builder().uuid("batch-product-uuid").supplier(supplier).name("Producte Lots").price(BigDecimal.ONE).isActive(true).build());
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("Hauria d'inserir una comanda gran amb pocs lots JDBC")
+    void saveOrderWithManyItems_ShouldUseJdbcBatches() {
+        // Given
+        Order order = Order.builder().uuid(UUID.randomUUID().toString()).company(company).supplier(supplier).user(user).name("Reposició gran").deliveryDate(LocalDate.now()).items(new ArrayList<>()).build();
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            order.getItems().add(OrderItem.builder().uuid(UUID.randomUUID().toString()).order(order).product(product).quantity(BigDecimal.ONE).unitPrice(BigDecimal.ONE).subtotal(BigDecimal.ONE).build());
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // When
+        orderRepository.save(order);
+        boolean idsAssignedBeforeFlush = order.getId() != null
+                && order.getItems().stream().allMatch(item -> item.getId() != null);
+        entityManager.flush();
+
+        // Then
+        assertThat(idsAssignedBeforeFlush).isTrue();
+        assertThat(order.getItems()).extracting(OrderItem::getId).doesNotHaveDuplicates();
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(ITEM_COUNT + 1);
+        // Sense lots serien com a mínim 121 sentències; amb lots de 50 i reserva d'ids en blocs en queden poques
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(10);
+    }
+}
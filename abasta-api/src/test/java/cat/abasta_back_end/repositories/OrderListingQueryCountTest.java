@@ -0,0 +1,192 @@
+package cat.abasta_back_end.repositories;
+
+import cat.abasta_back_end.entities.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests del llistat paginat de comandes amb H2.
+ * Verifica que la càrrega en dues fases (ids paginats i comandes amb associacions)
+ * executa un nombre constant de sentències per pàgina i manté la paginació correcta,
+ * tant per pàgines (OFFSET) com per cursor (keyset).
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Sql(scripts = "/test-schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DisplayName("Order Listing Query Count Tests")
+class OrderListingQueryCountTest {
+
+    private static final int ORDER_COUNT = 25;
+    private static final int ITEMS_PER_ORDER = 4;
+    private static final int PAGE_SIZE = 10;
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2025, 11, 4, 10, 0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Company company;
+
+    @BeforeEach
+    void setUp() {
+        company = entityManager.persist(Company.builder().uuid("listing-company-uuid").name("Empresa Llistat SL").taxId("B11223344").email("llistat@empresa.com").status(Company.CompanyStatus.ACTIVE).build());
+        User user = entityManager.persist(User.builder().uuid("listing-user-uuid").company(company).email("llistat@test.com").password("pass").firstName("Llistat").lastName("Test").role(User.UserRole.ADMIN).isActive(true).isDeleted(false).emailVerified(true).build());
+
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            Supplier supplier = entityManager.persist(Supplier.builder().uuid("listing-supplier-" + i).company(company).name("Proveïdor " + i).isActive(true).build());
+            // Diverses comandes comparteixen data de creació per provar el desempat per id
+            Order order = Order.builder().uuid(UUID.randomUUID().toString()).company(company).supplier(supplier).user(user)
+                    .name("Comanda " + (i % 3)).deliveryDate(LocalDate.now()).createdAt(CREATED_AT.minusMinutes(i / 4)).items(new ArrayList<>()).build();
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                Product product = entityManager.persist(Product.builder().uuid("listing-product-" + i + "-" + j).supplier(supplier).name("Producte " + j).price(BigDecimal.ONE).isActive(true).build());
+                order.getItems().add(OrderItem.builder().uuid(UUID.randomUUID().toString()).order(order).product(product).quantity(BigDecimal.ONE).unitPrice(BigDecimal.ONE).subtotal(BigDecimal.ONE).build());
+            }
+            entityManager.persist(order);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private Specification<Order> companySpec() {
+        return OrderSpecifications.filterOrders(null, company.getId(), null, null, null, null, null, null,
+                null, null, null, null, null, null, null, null);
+    }
+
+    /**
+     * Reprodueix el llistat del servei: ids paginats, càrrega de la pàgina i accés a totes les associacions.
+     */
+    private List<String> loadPage(Pageable pageable) {
+        Page<Long> ids = orderRepository.findIdsBy(companySpec(), pageable);
+        Map<Long, Order> orders = orderRepository.findWithItemsByIdIn(ids.getContent()).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+
+        return ids.getContent().stream()
+                .map(orders::get)
+                .peek(order -> order.getItems().forEach(item -> item.getProduct().getName()))
+                .map(order -> order.getSupplier().getUuid())
+                .toList();
+    }
+
+    @Test
+    @DisplayName("Hauria de carregar una pàgina de comandes amb un nombre constant de sentències")
+    void loadPage_ShouldUseConstantStatementCount() {
+        // Given
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // When
+        List<String> suppliers = loadPage(PageRequest.of(0, PAGE_SIZE, Sort.by("name")));
+
+        // Then
+        assertThat(suppliers).hasSize(PAGE_SIZE);
+        // ids paginats + recompte + comandes amb proveïdor, items i productes;
+        // amb càrrega LAZY serien 3 + 10 proveïdors + 10 col·leccions + 40 productes
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getCollectionFetchCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Hauria de paginar per comandes sense repetir ni saltar-ne cap")
+    void loadPage_ShouldKeepPaginationCorrect() {
+        // Given
+        Sort sort = Sort.by("name");
+
+        // When
+        Page<Long> firstPage = orderRepository.findIdsBy(companySpec(), PageRequest.of(0, PAGE_SIZE, sort));
+        List<String> all = new ArrayList<>();
+        for (int page = 0; page < firstPage.getTotalPages(); page++) {
+            all.addAll(loadPage(PageRequest.of(page, PAGE_SIZE, sort)));
+        }
+
+        // Then
+        assertThat(firstPage.getTotalElements()).isEqualTo(ORDER_COUNT);
+        assertThat(firstPage.getTotalPages()).isEqualTo(3);
+        assertThat(all).hasSize(ORDER_COUNT).doesNotHaveDuplicates();
+    }
+
+    @Test
+    @DisplayName("Hauria de retornar els items complets de cada comanda encara que la consulta faci join")
+    void findWithItemsByIdIn_ShouldNotDuplicateOrders() {
+        // Given
+        Page<Long> ids = orderRepository.findIdsBy(companySpec(), PageRequest.of(0, PAGE_SIZE));
+
+        // When
+        List<Order> orders = orderRepository.findWithItemsByIdIn(ids.getContent());
+
+        // Then
+        assertThat(orders).hasSize(PAGE_SIZE);
+        assertThat(orders).allSatisfy(order -> assertThat(order.getItems()).hasSize(ITEMS_PER_ORDER));
+    }
+
+    @Test
+    @DisplayName("Hauria de recórrer totes les comandes per cursor sense recompte ni repeticions")
+    void findIdsAfter_ShouldSeekWithoutCount() {
+        // Given
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<Long> all = new ArrayList<>();
+        LocalDateTime afterCreatedAt = null;
+        Long afterId = null;
+        int pages = 0;
+
+        // When
+        while (true) {
+            statistics.clear();
+            List<Long> ids = orderRepository.findIdsAfter(companySpec(), afterCreatedAt, afterId, PAGE_SIZE);
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+            if (ids.isEmpty()) {
+                break;
+            }
+            pages++;
+            all.addAll(ids);
+
+            Order last = orderRepository.findById(ids.get(ids.size() - 1)).orElseThrow();
+            afterCreatedAt = last.getCreatedAt();
+            afterId = last.getId();
+        }
+
+        // Then
+        assertThat(pages).isEqualTo(3);
+        assertThat(all).hasSize(ORDER_COUNT).doesNotHaveDuplicates();
+        List<Order> ordered = orderRepository.findAllById(all).stream()
+                .sorted((a, b) -> all.indexOf(a.getId()) - all.indexOf(b.getId()))
+                .toList();
+        assertThat(ordered).isSortedAccordingTo((a, b) -> {
+            int byDate = b.getCreatedAt().compareTo(a.getCreatedAt());
+            return byDate != 0 ? byDate : b.getId().compareTo(a.getId());
+        });
+    }
+}
@@ -2,6 +2,7 @@ package cat.abasta_back_end.repositories;
 
 import cat.abasta_back_end.entities.*;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -56,6 +57,8 @@ class OrderRepositoryTest {
     private ProductRepository productRepository;
     @Autowired
     private OrderRepository orderRepository;
+    @Autowired
+    private EntityManager entityManager;
 
     // Objectes
     private Company testCompany;
@@ -126,6 +129,26 @@ class OrderRepositoryTest {
         assertThat(found.get().getUuid()).isEqualTo("test-order-uuid");
     }
 
+    /**
+     * Comprova la cerca per Uuid amb bloqueig de la fila
+     */
+    @Test
+    @DisplayName("Comprova la cerca per Uuid amb bloqueig d'escriptura")
+    void findForUpdateByUuid_success() {
+
+        companyRepository.save(testCompany);
+        userRepository.save(testUser);
+        supplierRepository.save(testSupplier);
+        orderRepository.save(testOrder);
+        entityManager.flush();
+        entityManager.clear();
+
+        Optional<Order> found = orderRepository.findForUpdateByUuid("test-order-uuid");
+        assertThat(found).isPresent();
+        assertThat(found.get().getUuid()).isEqualTo("test-order-uuid");
+        assertThat(entityManager.getLockMode(found.get())).isEqualTo(LockModeType.PESSIMISTIC_WRITE);
+    }
+
     /**
      * Comprova la recuperació de totes Orders
      */
@@ -0,0 +1,134 @@
+package cat.abasta_back_end.repositories;
+
+import cat.abasta_back_end.dto.ProducteTopDTO;
+import cat.abasta_back_end.dto.SupplierTotalsDTO;
+import cat.abasta_back_end.entities.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests de les consultes d'agregació de l'informe global amb H2.
+ * Verifica els totals per proveïdor i el top de productes calculats amb GROUP BY,
+ * excloent comandes d'altres empreses, fora del període o en estats no actius.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Sql(scripts = "/test-schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DisplayName("Report Aggregation Query Tests")
+class ReportAggregationQueryTest {
+
+    private static final Set<Order.OrderStatus> ACTIVE = EnumSet.of(
+            Order.OrderStatus.PENDING, Order.OrderStatus.SENT, Order.OrderStatus.CONFIRMED, Order.OrderStatus.COMPLETED);
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2025, 1, 31, 23, 59);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private Company company;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        company = entityManager.persist(Company.builder().uuid("report-company-uuid").name("Empresa Informes SL").taxId("B55667788").email("informes@empresa.com").status(Company.CompanyStatus.ACTIVE).build());
+        Company otherCompany = entityManager.persist(Company.builder().uuid("report-other-uuid").name("Altra Empresa SL").taxId("B99887766").email("altra@empresa.com").status(Company.CompanyStatus.ACTIVE).build());
+        user = entityManager.persist(User.builder().uuid("report-user-uuid").company(company).email("informes@test.com").password("pass").firstName("Informes").lastName("Test").role(User.UserRole.ADMIN).isActive(true).isDeleted(false).emailVerified(true).build());
+
+        Supplier fruites = supplier("Fruites Garcia");
+        Supplier forn = supplier("Forn Puig");
+        Product pomes = product(fruites, "Pomes");
+        Product peres = product(fruites, "Peres");
+        Product pa = product(forn, "Pa");
+
+        // Fruites: 2 comandes actives (una sense items) + 1 cancel·lada que no compta
+        order(company, fruites, Order.OrderStatus.SENT, START.plusDays(1), item(pomes, "3", "2"), item(peres, "1", "10"));
+        order(company, fruites, Order.OrderStatus.PENDING, START.plusDays(2));
+        order(company, fruites, Order.OrderStatus.CANCELLED, START.plusDays(3), item(peres, "100", "10"));
+        // Forn: 1 comanda activa dins del període i 1 fora
+        order(company, forn, Order.OrderStatus.COMPLETED, START.plusDays(4), item(pa, "5", "1"));
+        order(company, forn, Order.OrderStatus.COMPLETED, END.plusDays(1), item(pa, "50", "1"));
+        // Una comanda d'una altra empresa no compta
+        order(otherCompany, forn, Order.OrderStatus.SENT, START.plusDays(5), item(pa, "70", "1"));
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private Supplier supplier(String name) {
+        return entityManager.persist(Supplier.builder().uuid(UUID.randomUUID().toString()).company(company).name(name).isActive(true).build());
+    }
+
+    private Product product(Supplier supplier, String name) {
+        return entityManager.persist(Product.builder().uuid(UUID.randomUUID().toString()).supplier(supplier).name(name).price(BigDecimal.ONE).isActive(true).build());
+    }
+
+    private OrderItem item(Product product, String quantity, String unitPrice) {
+        BigDecimal qty = new BigDecimal(quantity);
+        BigDecimal price = new BigDecimal(unitPrice);
+        return OrderItem.builder().uuid(UUID.randomUUID().toString()).product(product).quantity(qty).unitPrice(price).subtotal(qty.multiply(price)).build();
+    }
+
+    private void order(Company owner, Supplier supplier, Order.OrderStatus status, LocalDateTime createdAt, OrderItem... items) {
+        Order order = Order.builder().uuid(UUID.randomUUID().toString()).company(owner).supplier(supplier).user(user)
+                .name("Comanda").status(status).deliveryDate(LocalDate.now()).createdAt(createdAt).items(new ArrayList<>()).build();
+        for (OrderItem item : items) {
+            item.setOrder(order);
+            order.getItems().add(item);
+        }
+        entityManager.persist(order);
+    }
+
+    @Test
+    @DisplayName("Hauria d'agregar les comandes actives del període per proveïdor")
+    void getSupplierTotals_ShouldGroupBySupplier() {
+        // When
+        List<SupplierTotalsDTO> totals = orderRepository.getSupplierTotalsByCompanyIdAndPeriod(company.getId(), ACTIVE, START, END);
+
+        // Then
+        assertThat(totals).hasSize(2);
+        SupplierTotalsDTO fruites = totals.stream().filter(t -> t.getProveidor().equals("Fruites Garcia")).findFirst().orElseThrow();
+        SupplierTotalsDTO forn = totals.stream().filter(t -> t.getProveidor().equals("Forn Puig")).findFirst().orElseThrow();
+        assertThat(fruites.getNumComandes()).isEqualTo(2);
+        assertThat(fruites.getDespesaTotal()).isEqualByComparingTo("16");
+        assertThat(forn.getNumComandes()).isEqualTo(1);
+        assertThat(forn.getDespesaTotal()).isEqualByComparingTo("5");
+    }
+
+    @Test
+    @DisplayName("Hauria de retornar els productes més demanats ordenats i limitats a la base de dades")
+    void getTopProducts_ShouldOrderByQuantityAndLimit() {
+        // When
+        List<ProducteTopDTO> all = orderRepository.getTopProductsByCompanyIdAndPeriod(company.getId(), ACTIVE, START, END, Limit.of(10));
+        List<ProducteTopDTO> top2 = orderRepository.getTopProductsByCompanyIdAndPeriod(company.getId(), ACTIVE, START, END, Limit.of(2));
+
+        // Then
+        assertThat(all).extracting(ProducteTopDTO::getNomProducte).containsExactly("Pa", "Pomes", "Peres");
+        assertThat(all.get(0).getQuantitatTotal()).isEqualByComparingTo("5");
+        assertThat(all.get(1).getDespesaTotal()).isEqualByComparingTo("6");
+        assertThat(top2).extracting(ProducteTopDTO::getNomProducte).containsExactly("Pa", "Pomes");
+    }
+}
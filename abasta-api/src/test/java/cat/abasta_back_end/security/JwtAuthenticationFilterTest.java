@@ -1,5 +1,9 @@
 package cat.abasta_back_end.security;
 
+import cat.abasta_back_end.entities.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -76,8 +80,7 @@ class JwtAuthenticationFilterTest {
         // Given
         String authHeader = "Bearer " + validToken;
         when(request.getHeader("Authorization")).thenReturn(authHeader);
-        when(jwtUtil.getUsernameFromToken(validToken)).thenReturn(testUsername);
-        when(jwtUtil.validateToken(validToken, testUsername)).thenReturn(true);
+        when(jwtUtil.getClaimsFromToken(validToken)).thenReturn(Jwts.claims().setSubject(testUsername));
 
         // When
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
@@ -94,8 +97,7 @@ class JwtAuthenticationFilterTest {
         // Given
         String authHeader = "Bearer " + validToken;
         when(request.getHeader("Authorization")).thenReturn(authHeader);
-        when(jwtUtil.getUsernameFromToken(validToken)).thenReturn(testUsername);
-        when(jwtUtil.validateToken(validToken, testUsername)).thenReturn(false);
+        when(jwtUtil.getClaimsFromToken(validToken)).thenThrow(new JwtException("Signatura invàlida"));
 
         // When
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
@@ -117,7 +119,7 @@ class JwtAuthenticationFilterTest {
         // Then
         verify(filterChain).doFilter(request, response);
         assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
-        verify(jwtUtil, never()).getUsernameFromToken(any());
+        verify(jwtUtil, never()).getClaimsFromToken(any());
     }
 
     @Test
@@ -126,7 +128,7 @@ class JwtAuthenticationFilterTest {
         // Given
         String authHeader = "Bearer " + validToken;
         when(request.getHeader("Authorization")).thenReturn(authHeader);
-        when(jwtUtil.getUsernameFromToken(validToken)).thenThrow(new RuntimeException("Token malformat"));
+        when(jwtUtil.getClaimsFromToken(validToken)).thenThrow(new RuntimeException("Token malformat"));
 
         // When
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
@@ -142,7 +144,7 @@ class JwtAuthenticationFilterTest {
         // Given
         String authHeader = "Bearer " + validToken;
         when(request.getHeader("Authorization")).thenReturn(authHeader);
-        when(jwtUtil.getUsernameFromToken(validToken)).thenReturn(testUsername);
+        when(jwtUtil.getClaimsFromToken(validToken)).thenReturn(Jwts.claims().setSubject(testUsername));
 
         // Simular que ja hi ha una autenticació
         SecurityContextHolder.getContext().setAuthentication(
@@ -154,7 +156,35 @@ class JwtAuthenticationFilterTest {
 
         // Then
         verify(filterChain).doFilter(request, response);
-        verify(jwtUtil, never()).validateToken(any(), any());
+        verify(jwtUtil, never()).toAuthenticatedUser(any());
         assertThat(SecurityContextHolder.getContext().getAuthentication().getName()).isEqualTo("existing@abasta.com");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Hauria de publicar un AuthenticatedUser quan el token conté claims de tenant")
+    void doFilterInternal_ShouldPublishAuthenticatedUser_WhenTokenHasTenantClaims() throws ServletException, IOException {
+        // Given
+        AuthenticatedUser principal = AuthenticatedUser.builder()
+                .userId(1L)
+                .email(testUsername)
+                .companyId(2L)
+                .companyUuid("company-uuid")
+                .role(User.UserRole.ADMIN)
+                .build();
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
+        Claims claims = Jwts.claims().setSubject(testUsername);
+        when(jwtUtil.getClaimsFromToken(validToken)).thenReturn(claims);
+        when(jwtUtil.toAuthenticatedUser(claims)).thenReturn(principal);
+
+        // When
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        verify(filterChain).doFilter(request, response);
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal()).isSameAs(principal);
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getName()).isEqualTo(testUsername);
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getAuthorities())
+                .extracting("authority")
+                .containsExactly("ROLE_ADMIN");
+    }
+}
@@ -0,0 +1,127 @@
+package cat.abasta_back_end.security;
+
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaris per a la classe JwtKeyRing.
+ * Verifica la selecció de la clau activa, les finestres de validesa i la rotació en calent.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@DisplayName("JwtKeyRing Tests")
+class JwtKeyRingTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static String secret(int seed) {
+        byte[] bytes = new byte[64];
+        bytes[0] = (byte) seed;
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    private static String keyEntry(String kid, int seed, Instant notBefore, Instant notAfter) {
+        return "key." + kid + ".secret=" + secret(seed) + "\n"
+                + (notBefore != null ? "key." + kid + ".not-before=" + notBefore + "\n" : "")
+                + (notAfter != null ? "key." + kid + ".not-after=" + notAfter + "\n" : "");
+    }
+
+    @Test
+    @DisplayName("Hauria de signar amb la clau activa més recent")
+    void getSigningKey_ShouldReturnNewestActiveKey() throws IOException {
+        // Given
+        Instant now = Instant.now();
+        Path file = tempDir.resolve("keyring.properties");
+        Files.writeString(file,
+                keyEntry("old", 1, now.minus(30, ChronoUnit.DAYS), now.plus(1, ChronoUnit.DAYS))
+                        + keyEntry("new", 2, now.minus(1, ChronoUnit.DAYS), null)
+                        + keyEntry("future", 3, now.plus(10, ChronoUnit.DAYS), null));
+
+        // When
+        JwtKeyRing keyRing = new JwtKeyRing(null, null, file.toString(), 60_000, 3_600_000);
+
+        // Then
+        assertThat(keyRing.getKeys()).hasSize(3);
+        assertThat(keyRing.getSigningKey().kid()).isEqualTo("new");
+        assertThat(keyRing.getVerificationKey("old")).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Una clau retirada s'hauria d'acceptar només durant el marge de verificació")
+    void getVerificationKey_ShouldHonourGracePeriod() throws IOException {
+        // Given
+        Instant now = Instant.now();
+        Path file = tempDir.resolve("keyring.properties");
+        Files.writeString(file,
+                keyEntry("retired", 1, null, now.minus(10, ChronoUnit.MINUTES))
+                        + keyEntry("expired", 2, null, now.minus(2, ChronoUnit.HOURS))
+                        + keyEntry("current", 3, null, null));
+
+        // When
+        JwtKeyRing keyRing = new JwtKeyRing(null, null, file.toString(), 60_000, 3_600_000);
+
+        // Then
+        assertThat(keyRing.getSigningKey().kid()).isEqualTo("current");
+        assertThat(keyRing.getVerificationKey("retired")).isNotNull();
+        assertThatThrownBy(() -> keyRing.getVerificationKey("expired")).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> keyRing.getVerificationKey("unknown")).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    @DisplayName("Hauria de recarregar el fitxer en calent i avisar els observadors")
+    void reload_ShouldPickUpRotatedKeys() throws IOException {
+        // Given
+        Path file = tempDir.resolve("keyring.properties");
+        Files.writeString(file, keyEntry("k1", 1, null, null));
+        JwtKeyRing keyRing = new JwtKeyRing(null, null, file.toString(), 0, 3_600_000);
+        int[] notifications = {0};
+        keyRing.addChangeListener(() -> notifications[0]++);
+
+        // When
+        Files.writeString(file, keyEntry("k1", 1, null, null)
+                + keyEntry("k2", 2, Instant.now().minusSeconds(1), null));
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(5)));
+
+        // Then
+        assertThat(keyRing.getSigningKey().kid()).isEqualTo("k2");
+        assertThat(keyRing.getVerificationKey("k1")).isNotNull();
+        assertThat(notifications[0]).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Hauria de rebutjar claus massa curtes per a HS512")
+    void constructor_ShouldRejectShortKeys() {
+        // Given
+        String shortSecret = Base64.getEncoder().encodeToString(new byte[32]);
+
+        // When & Then
+        assertThatThrownBy(() -> new JwtKeyRing(shortSecret, "k1", null, 60_000, 3_600_000))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Sense configuració hauria de generar una clau efímera")
+    void ephemeral_ShouldGenerateRandomKey() {
+        // When
+        JwtKeyRing keyRing = JwtKeyRing.ephemeral();
+
+        // Then
+        assertThat(keyRing.getKeys()).hasSize(1);
+        assertThat(keyRing.getSigningKey().secretKey().getEncoded()).hasSizeGreaterThanOrEqualTo(64);
+    }
+}
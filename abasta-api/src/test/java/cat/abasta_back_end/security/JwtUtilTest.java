@@ -1,5 +1,8 @@
 package cat.abasta_back_end.security;
 
+import cat.abasta_back_end.entities.Company;
+import cat.abasta_back_end.entities.User;
+import io.jsonwebtoken.JwtException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -7,6 +10,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.Base64;
 import java.util.Date;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -151,4 +155,86 @@ class JwtUtilTest {
         assertThat(jwtUtil.getUsernameFromToken(token1)).isEqualTo(testUsername);
         assertThat(jwtUtil.getUsernameFromToken(token2)).isEqualTo("other@abasta.com");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Un token generat a partir d'un usuari hauria d'incloure el context de tenant")
+    void generateToken_ShouldEmbedTenantClaims_WhenGeneratedFromUser() {
+        // Given
+        Company company = Company.builder().id(7L).uuid("company-uuid").build();
+        User user = User.builder()
+                .id(3L)
+                .email(testUsername)
+                .company(company)
+                .role(User.UserRole.ADMIN)
+                .build();
+
+        // When
+        String token = jwtUtil.generateToken(user);
+        AuthenticatedUser principal = jwtUtil.getAuthenticatedUserFromToken(token);
+
+        // Then
+        assertThat(jwtUtil.validateToken(token, testUsername)).isTrue();
+        assertThat(principal).isNotNull();
+        assertThat(principal.getUserId()).isEqualTo(3L);
+        assertThat(principal.getEmail()).isEqualTo(testUsername);
+        assertThat(principal.getCompanyId()).isEqualTo(7L);
+        assertThat(principal.getCompanyUuid()).isEqualTo("company-uuid");
+        assertThat(principal.isAdmin()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Un token sense claims de tenant no hauria de generar AuthenticatedUser")
+    void getAuthenticatedUserFromToken_ShouldReturnNull_WhenTokenHasNoTenantClaims() {
+        // Given
+        String token = jwtUtil.generateToken(testUsername);
+
+        // When & Then
+        assertThat(jwtUtil.getAuthenticatedUserFromToken(token)).isNull();
+    }
+
+    @Test
+    @DisplayName("Un token només s'hauria de verificar una vegada i després servir-se de la memòria cau")
+    void getClaimsFromToken_ShouldVerifyOnceAndServeFromCache() {
+        // Given
+        String token = jwtUtil.generateToken(testUsername);
+        VerifiedTokenCache cache = jwtUtil.getVerifiedTokenCache();
+
+        // When
+        jwtUtil.getUsernameFromToken(token);
+        jwtUtil.validateToken(token, testUsername);
+        jwtUtil.isTokenExpired(token);
+
+        // Then
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Un token manipulat no s'hauria de guardar a la memòria cau")
+    void getClaimsFromToken_ShouldNotCacheInvalidToken() {
+        // Given
+        String token = jwtUtil.generateToken(testUsername);
+        String tampered = token.substring(0, token.length() - 4) + "AAAA";
+
+        // When & Then
+        assertThatThrownBy(() -> jwtUtil.getClaimsFromToken(tampered)).isInstanceOf(Exception.class);
+        assertThat(jwtUtil.getVerifiedTokenCache().size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Un token signat per una instància s'hauria de validar a una altra amb la mateixa clau")
+    void validateToken_ShouldAcceptTokenFromAnotherInstanceWithSharedKey() {
+        // Given
+        String secret = Base64.getEncoder().encodeToString(new byte[64]);
+        JwtUtil instanceA = new JwtUtil(new JwtKeyRing(secret, "k1", null, 60_000, 3_600_000));
+        JwtUtil instanceB = new JwtUtil(new JwtKeyRing(secret, "k1", null, 60_000, 3_600_000));
+
+        // When
+        String token = instanceA.generateToken(testUsername);
+
+        // Then
+        assertThat(instanceB.validateToken(token, testUsername)).isTrue();
+        assertThatThrownBy(() -> jwtUtil.getClaimsFromToken(token)).isInstanceOf(JwtException.class);
+    }
+}
@@ -0,0 +1,114 @@
+package cat.abasta_back_end.security;
+
+import cat.abasta_back_end.exceptions.TooManyRequestsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaris per a la classe PasswordHashingExecutor.
+ * Verifica la delegació a BCrypt i el rebuig ràpid quan l'executor és ple.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@DisplayName("PasswordHashingExecutor Tests")
+class PasswordHashingExecutorTest {
+
+    private PasswordHashingExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Hauria de verificar i encriptar contrasenyes amb BCrypt")
+    void matchesAndEncode_ShouldDelegateToEncoder() {
+        // Given
+        executor = new PasswordHashingExecutor(new BCryptPasswordEncoder(4), 1, 4, 5_000);
+
+        // When
+        String hash = executor.encode("password123");
+
+        // Then
+        assertThat(executor.matches("password123", hash)).isTrue();
+        assertThat(executor.matches("wrongpassword", hash)).isFalse();
+        assertThat(executor.getCompletedCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Hauria de rebutjar immediatament quan el fil i la cua estan ocupats")
+    void matches_ShouldRejectWhenQueueIsFull() throws Exception {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor = new PasswordHashingExecutor(blockingEncoder(started, release), 1, 1, 5_000);
+
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> executor.matches("a", "a"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> executor.matches("b", "b"));
+        waitUntilQueued();
+
+        // When & Then
+        assertThatThrownBy(() -> executor.matches("c", "c"))
+                .isInstanceOf(TooManyRequestsException.class);
+        assertThat(executor.getRejectedCount()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Hauria de rebutjar quan l'operació supera el temps màxim d'espera")
+    void matches_ShouldRejectOnTimeout() {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        executor = new PasswordHashingExecutor(blockingEncoder(new CountDownLatch(1), release), 1, 1, 50);
+
+        // When & Then
+        assertThatThrownBy(() -> executor.matches("a", "a"))
+                .isInstanceOf(TooManyRequestsException.class);
+        assertThat(executor.getTimedOutCount()).isEqualTo(1);
+        release.countDown();
+    }
+
+    private void waitUntilQueued() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (executor.getQueueSize() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static PasswordEncoder blockingEncoder(CountDownLatch started, CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return rawPassword.toString().equals(encodedPassword);
+            }
+        };
+    }
+}
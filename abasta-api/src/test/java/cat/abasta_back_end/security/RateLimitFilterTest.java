@@ -0,0 +1,154 @@
+package cat.abasta_back_end.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaris per al RateLimitFilter.
+ * Verifica la limitació per IP i per email i que el cos arriba intacte al controlador.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@DisplayName("RateLimitFilter Tests")
+class RateLimitFilterTest {
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getLogin().setIp(new RateLimitProperties.Limit(3, 1));
+        properties.getLogin().setEmail(new RateLimitProperties.Limit(2, 1));
+        filter = new RateLimitFilter(properties, new ObjectMapper().findAndRegisterModules());
+    }
+
+    private MockHttpServletRequest loginRequest(String ip, String email) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(("{\"email\":\"" + email + "\",\"password\":\"secret\"}").getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private MockHttpServletResponse execute(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    @Test
+    @DisplayName("Hauria de limitar les peticions d'una mateixa IP")
+    void doFilter_ShouldLimitByIp() throws Exception {
+        // Given
+        execute(loginRequest("10.0.0.1", "a@abasta.com"));
+        execute(loginRequest("10.0.0.1", "b@abasta.com"));
+        execute(loginRequest("10.0.0.1", "c@abasta.com"));
+
+        // When
+        MockHttpServletResponse response = execute(loginRequest("10.0.0.1", "d@abasta.com"));
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader("Retry-After")).isNotNull();
+        assertThat(response.getContentAsString(StandardCharsets.UTF_8)).contains("Massa peticions");
+    }
+
+    @Test
+    @DisplayName("Hauria de limitar les peticions a un mateix email des d'IPs diferents")
+    void doFilter_ShouldLimitByEmail() throws Exception {
+        // Given
+        execute(loginRequest("10.0.0.1", "User@Abasta.com"));
+        execute(loginRequest("10.0.0.2", "user@abasta.com"));
+
+        // When
+        MockHttpServletResponse response = execute(loginRequest("10.0.0.3", "user@abasta.com"));
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    @DisplayName("El controlador hauria de rebre el cos complet de la petició")
+    void doFilter_ShouldPreserveRequestBody() throws Exception {
+        // Given
+        MockHttpServletRequest request = loginRequest("10.0.0.1", "user@abasta.com");
+        MockFilterChain chain = new MockFilterChain();
+
+        // When
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        // Then
+        String body = new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertThat(body).contains("\"email\":\"user@abasta.com\"");
+    }
+
+    @Test
+    @DisplayName("Un ReadListener hauria de poder llegir el cos complet de la petició")
+    void doFilter_ShouldSupportReadListener() throws Exception {
+        // Given
+        MockHttpServletRequest request = loginRequest("10.0.0.1", "user@abasta.com");
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        ServletInputStream input = chain.getRequest().getInputStream();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        boolean[] allDataRead = new boolean[1];
+
+        // When
+        input.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                byte[] buffer = new byte[16];
+                int read;
+                while (input.isReady() && (read = input.read(buffer)) >= 0) {
+                    body.write(buffer, 0, read);
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                allDataRead[0] = true;
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                throw new AssertionError(t);
+            }
+        });
+
+        // Then
+        assertThat(allDataRead[0]).isTrue();
+        assertThat(input.isFinished()).isTrue();
+        assertThat(body.toString(StandardCharsets.UTF_8)).contains("\"email\":\"user@abasta.com\"");
+    }
+
+    @Test
+    @DisplayName("No hauria de limitar els endpoints no configurats")
+    void doFilter_ShouldIgnoreOtherEndpoints() throws Exception {
+        // Given
+        MockHttpServletResponse response = null;
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders/create");
+            request.setRemoteAddr("10.0.0.1");
+            response = execute(request);
+        }
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+}
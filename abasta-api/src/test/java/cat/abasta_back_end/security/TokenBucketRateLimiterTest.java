@@ -0,0 +1,92 @@
+package cat.abasta_back_end.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaris per a la classe TokenBucketRateLimiter.
+ * Verifica la ràfega permesa, la recàrrega de fitxes i l'eliminació de galledes inactives.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@DisplayName("TokenBucketRateLimiter Tests")
+class TokenBucketRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private TokenBucketRateLimiter limiter(double capacity, double refillPerMinute, int maxBuckets) {
+        return new TokenBucketRateLimiter(capacity, refillPerMinute, 4, 60_000, maxBuckets, clock::get);
+    }
+
+    @Test
+    @DisplayName("Hauria de permetre una ràfega fins a la capacitat i rebutjar la següent")
+    void tryAcquire_ShouldAllowBurstUpToCapacity() {
+        // Given
+        TokenBucketRateLimiter limiter = limiter(3, 60, 100);
+
+        // When & Then
+        assertThat(limiter.tryAcquire("10.0.0.1")).isZero();
+        assertThat(limiter.tryAcquire("10.0.0.1")).isZero();
+        assertThat(limiter.tryAcquire("10.0.0.1")).isZero();
+        assertThat(limiter.tryAcquire("10.0.0.1")).isPositive();
+        assertThat(limiter.tryAcquire("10.0.0.2")).isZero();
+        assertThat(limiter.getAllowedCount()).isEqualTo(4);
+        assertThat(limiter.getRejectedCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Hauria de recuperar fitxes amb el pas del temps")
+    void tryAcquire_ShouldRefillOverTime() {
+        // Given
+        TokenBucketRateLimiter limiter = limiter(1, 60, 100);
+        limiter.tryAcquire("user@abasta.com");
+
+        // When
+        long wait = limiter.tryAcquire("user@abasta.com");
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        // Then
+        assertThat(wait).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+        assertThat(limiter.tryAcquire("user@abasta.com")).isZero();
+    }
+
+    @Test
+    @DisplayName("Hauria d'eliminar les galledes inactives")
+    void evictIdle_ShouldRemoveIdleBuckets() {
+        // Given
+        TokenBucketRateLimiter limiter = limiter(5, 60, 100);
+        limiter.tryAcquire("10.0.0.1");
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        limiter.tryAcquire("10.0.0.2");
+
+        // When
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        int removed = limiter.evictIdle();
+
+        // Then
+        assertThat(removed).isEqualTo(1);
+        assertThat(limiter.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("No hauria de superar el nombre màxim de galledes")
+    void tryAcquire_ShouldBoundNumberOfBuckets() {
+        // Given
+        TokenBucketRateLimiter limiter = limiter(5, 60, 10);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire("10.0.0." + i);
+        }
+
+        // Then
+        assertThat(limiter.size()).isLessThanOrEqualTo(10);
+        assertThat(limiter.getEvictionCount()).isPositive();
+    }
+}
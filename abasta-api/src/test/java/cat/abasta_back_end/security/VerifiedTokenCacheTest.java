@@ -0,0 +1,75 @@
+package cat.abasta_back_end.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaris per a la classe VerifiedTokenCache.
+ * Verifica els encerts, la caducitat de les entrades i el límit de capacitat.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@DisplayName("VerifiedTokenCache Tests")
+class VerifiedTokenCacheTest {
+
+    private Claims claimsExpiringIn(long millis) {
+        return Jwts.claims()
+                .setSubject("test@abasta.com")
+                .setExpiration(new Date(System.currentTimeMillis() + millis));
+    }
+
+    @Test
+    @DisplayName("Hauria de retornar els claims guardats i comptar encerts i errades")
+    void get_ShouldReturnCachedClaims() {
+        // Given
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        Claims claims = claimsExpiringIn(60_000);
+
+        // When
+        Claims before = cache.get("token-1");
+        cache.put("token-1", claims);
+        Claims after = cache.get("token-1");
+
+        // Then
+        assertThat(before).isNull();
+        assertThat(after).isSameAs(claims);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("No hauria de retornar entrades de tokens caducats")
+    void get_ShouldIgnoreExpiredEntries() {
+        // Given
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        cache.put("token-1", claimsExpiringIn(-1_000));
+
+        // When & Then
+        assertThat(cache.get("token-1")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("No hauria de superar la capacitat màxima")
+    void put_ShouldEvictWhenFull() {
+        // Given
+        VerifiedTokenCache cache = new VerifiedTokenCache(5);
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            cache.put("token-" + i, claimsExpiringIn(60_000));
+        }
+
+        // Then
+        assertThat(cache.size()).isLessThanOrEqualTo(5);
+        assertThat(cache.getEvictionCount()).isPositive();
+        assertThat(cache.get("token-19")).isNotNull();
+    }
+}
@@ -0,0 +1,167 @@
+package cat.abasta_back_end.services.impl;
+
+import cat.abasta_back_end.events.EmailQueuedEvent;
+import cat.abasta_back_end.mail.SmtpConnectionPool;
+import cat.abasta_back_end.services.EmailOutboxService;
+import cat.abasta_back_end.services.EmailOutboxService.OutboxEmail;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaris per EmailDispatcher.
+ * Verifica que els correus reclamats s'envien pel pool de connexions i es marquen, i que els
+ * errors es registren com a reintent o com a correu esgotat.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("EmailDispatcher Tests")
+class EmailDispatcherTest {
+
+    private static final int BATCH_SIZE = 10;
+
+    @Mock
+    private EmailOutboxService outboxService;
+
+    @Mock
+    private JavaMailSender mailSender;
+
+    @Mock
+    private SmtpConnectionPool connectionPool;
+
+    @Mock
+    private MimeMessage mimeMessage;
+
+    private EmailDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new EmailDispatcher(outboxService, mailSender, connectionPool, "noreply@abasta.com", BATCH_SIZE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    @DisplayName("Hauria d'enviar i marcar com a enviats tots els correus reclamats")
+    void drain_ShouldSendAndMarkClaimedEmails() {
+        // Given
+        OutboxEmail first = email(1L, 1);
+        OutboxEmail second = email(2L, 1);
+        when(outboxService.claim(BATCH_SIZE)).thenReturn(List.of(first, second)).thenReturn(List.of());
+        when(mailSender.createMimeMessage()).thenReturn(mimeMessage);
+        when(connectionPool.getMaxConnections()).thenReturn(1);
+        when(connectionPool.send(List.of(mimeMessage, mimeMessage))).thenReturn(Map.of());
+
+        // When
+        int processed = dispatcher.drain();
+
+        // Then
+        assertThat(processed).isEqualTo(2);
+        verify(connectionPool).send(List.of(mimeMessage, mimeMessage));
+        verify(outboxService).markSent(1L);
+        verify(outboxService).markSent(2L);
+        verify(outboxService, never()).markFailed(any(), anyString());
+        assertThat(dispatcher.getSentCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Hauria de repartir el lot entre les connexions del pool")
+    void drain_ShouldSplitBatchAcrossConnections() {
+        // Given
+        when(outboxService.claim(BATCH_SIZE))
+                .thenReturn(List.of(email(1L, 1), email(2L, 1), email(3L, 1)))
+                .thenReturn(List.of());
+        when(mailSender.createMimeMessage()).thenReturn(mimeMessage);
+        when(connectionPool.getMaxConnections()).thenReturn(3);
+        when(connectionPool.send(anyList())).thenReturn(Map.of());
+
+        // When
+        dispatcher.drain();
+
+        // Then
+        verify(connectionPool, times(3)).send(List.of(mimeMessage));
+        assertThat(dispatcher.getSentCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Un error d'enviament s'hauria de registrar com a reintent")
+    void drain_WhenSendFails_ShouldMarkFailed() {
+        // Given
+        OutboxEmail email = email(1L, 1);
+        when(outboxService.claim(BATCH_SIZE)).thenReturn(List.of(email)).thenReturn(List.of());
+        when(mailSender.createMimeMessage()).thenReturn(mimeMessage);
+        when(connectionPool.getMaxConnections()).thenReturn(3);
+        when(connectionPool.send(List.of(mimeMessage)))
+                .thenReturn(Map.of(mimeMessage, new SendFailedException("Connection refused")));
+        when(outboxService.markFailed(email, "Connection refused")).thenReturn(false);
+
+        // When
+        dispatcher.drain();
+
+        // Then
+        verify(outboxService).markFailed(email, "Connection refused");
+        verify(outboxService, never()).markSent(anyLong());
+        assertThat(dispatcher.getRetriedCount()).isEqualTo(1);
+        assertThat(dispatcher.getDeadCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Un correu que esgota els intents s'hauria de comptar com a DEAD")
+    void drain_WhenAttemptsExhausted_ShouldCountDead() {
+        // Given
+        OutboxEmail email = email(1L, 8);
+        when(outboxService.claim(BATCH_SIZE)).thenReturn(List.of(email)).thenReturn(List.of());
+        when(mailSender.createMimeMessage()).thenReturn(mimeMessage);
+        when(connectionPool.getMaxConnections()).thenReturn(3);
+        when(connectionPool.send(List.of(mimeMessage)))
+                .thenReturn(Map.of(mimeMessage, new SendFailedException("550 Mailbox unavailable")));
+        when(outboxService.markFailed(eq(email), anyString())).thenReturn(true);
+
+        // When
+        dispatcher.drain();
+
+        // Then
+        assertThat(dispatcher.getDeadCount()).isEqualTo(1);
+        assertThat(dispatcher.getRetriedCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Encuar un correu hauria de despertar el procés en segon pla")
+    void onEmailQueued_ShouldDrainInBackground() {
+        // Given
+        OutboxEmail email = email(1L, 1);
+        when(outboxService.claim(BATCH_SIZE)).thenReturn(List.of(email)).thenReturn(List.of());
+        when(mailSender.createMimeMessage()).thenReturn(mimeMessage);
+        when(connectionPool.getMaxConnections()).thenReturn(3);
+        when(connectionPool.send(List.of(mimeMessage))).thenReturn(Map.of());
+
+        // When
+        dispatcher.onEmailQueued(new EmailQueuedEvent(1L));
+
+        // Then
+        verify(outboxService, timeout(5000)).markSent(1L);
+    }
+
+    private static OutboxEmail email(Long id, int attempts) {
+        return new OutboxEmail(id, "proveidor" + id + "@test.com", "Nova Comanda", "<p>Comanda</p>", attempts);
+    }
+}
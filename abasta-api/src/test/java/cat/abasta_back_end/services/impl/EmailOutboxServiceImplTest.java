@@ -0,0 +1,180 @@
+package cat.abasta_back_end.services.impl;
+
+import cat.abasta_back_end.services.EmailOutboxService.OutboxEmail;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+
+/**
+ * Tests d'EmailOutboxServiceImpl amb H2.
+ * Verifica que els correus es reclamen una sola vegada, que els errors es reprogramen amb
+ * espera exponencial fins a l'estat DEAD i que els correus enviats antics s'eliminen.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(EmailOutboxServiceImpl.class)
+@Sql(scripts = "/test-schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DisplayName("EmailOutboxServiceImpl Tests")
+class EmailOutboxServiceImplTest {
+
+    @Autowired
+    private EmailOutboxServiceImpl outboxService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Hauria de reclamar un correu encuat una sola vegada mentre dura la reserva")
+    void claim_ShouldReturnQueuedEmailOnce() {
+        // Given
+        long id = outboxService.enqueue("proveidor@test.com", "Nova Comanda", "<p>Comanda</p>");
+
+        // When
+        List<OutboxEmail> first = outboxService.claim(10);
+        List<OutboxEmail> second = outboxService.claim(10);
+
+        // Then
+        assertThat(first).containsExactly(new OutboxEmail(id, "proveidor@test.com", "Nova Comanda", "<p>Comanda</p>", 1));
+        assertThat(second).isEmpty();
+        assertThat(status(id)).isEqualTo("SENDING");
+    }
+
+    @Test
+    @DisplayName("Hauria de tornar a reclamar un correu quan caduca la reserva")
+    void claim_WhenLeaseExpired_ShouldReclaim() {
+        // Given
+        long id = outboxService.enqueue("user@test.com", "Verificació", "<p>Token</p>");
+        outboxService.claim(10);
+        jdbcTemplate.update("UPDATE email_outbox SET locked_until = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), id);
+
+        // When
+        List<OutboxEmail> reclaimed = outboxService.claim(10);
+
+        // Then
+        assertThat(reclaimed).extracting(OutboxEmail::id, OutboxEmail::attempts).containsExactly(tuple(id, 2));
+    }
+
+    @Test
+    @DisplayName("Hauria de respectar el límit i l'ordre de cua")
+    void claim_ShouldRespectLimitAndOrder() {
+        // Given
+        long first = outboxService.enqueue("a@test.com", "A", "<p>A</p>");
+        long second = outboxService.enqueue("b@test.com", "B", "<p>B</p>");
+        outboxService.enqueue("c@test.com", "C", "<p>C</p>");
+
+        // When
+        List<OutboxEmail> claimed = outboxService.claim(2);
+
+        // Then
+        assertThat(claimed).extracting(OutboxEmail::id).containsExactly(first, second);
+    }
+
+    @Test
+    @DisplayName("Un correu enviat no s'hauria de tornar a reclamar")
+    void markSent_ShouldRemoveEmailFromQueue() {
+        // Given
+        long id = outboxService.enqueue("user@test.com", "Recuperació", "<p>Enllaç</p>");
+        outboxService.claim(10);
+
+        // When
+        outboxService.markSent(id);
+
+        // Then
+        assertThat(status(id)).isEqualTo("SENT");
+        jdbcTemplate.update("UPDATE email_outbox SET locked_until = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), id);
+        assertThat(outboxService.claim(10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Un error hauria de reprogramar el correu més endavant amb l'últim error")
+    void markFailed_ShouldScheduleRetry() {
+        // Given
+        long id = outboxService.enqueue("user@test.com", "Verificació", "<p>Token</p>");
+        OutboxEmail email = outboxService.claim(10).get(0);
+
+        // When
+        boolean dead = outboxService.markFailed(email, "Connection refused");
+
+        // Then
+        assertThat(dead).isFalse();
+        assertThat(status(id)).isEqualTo("PENDING");
+        assertThat(jdbcTemplate.queryForObject("SELECT last_error FROM email_outbox WHERE id = ?", String.class, id))
+                .isEqualTo("Connection refused");
+        assertThat(outboxService.claim(10)).isEmpty();
+
+        jdbcTemplate.update("UPDATE email_outbox SET next_attempt_at = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)), id);
+        assertThat(outboxService.claim(10)).extracting(OutboxEmail::attempts).containsExactly(2);
+    }
+
+    @Test
+    @DisplayName("Després del màxim d'intents el correu hauria de quedar en estat DEAD")
+    void markFailed_WhenAttemptsExhausted_ShouldMarkDead() {
+        // Given
+        long id = outboxService.enqueue("user@test.com", "Verificació", "<p>Token</p>");
+        outboxService.claim(10);
+        OutboxEmail lastAttempt = new OutboxEmail(id, "user@test.com", "Verificació", "<p>Token</p>", 8);
+
+        // When
+        boolean dead = outboxService.markFailed(lastAttempt, "550 Mailbox unavailable");
+
+        // Then
+        assertThat(dead).isTrue();
+        assertThat(status(id)).isEqualTo("DEAD");
+        jdbcTemplate.update("UPDATE email_outbox SET next_attempt_at = ?, locked_until = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(1)), Timestamp.valueOf(LocalDateTime.now().minusDays(1)), id);
+        assertThat(outboxService.claim(10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("L'espera entre intents s'hauria de doblar fins al màxim")
+    void backoffSeconds_ShouldGrowExponentiallyUpToMax() {
+        // Then
+        assertThat(outboxService.backoffSeconds(1)).isEqualTo(30);
+        assertThat(outboxService.backoffSeconds(2)).isEqualTo(60);
+        assertThat(outboxService.backoffSeconds(4)).isEqualTo(240);
+        assertThat(outboxService.backoffSeconds(20)).isEqualTo(3600);
+    }
+
+    @Test
+    @DisplayName("Hauria d'eliminar només els correus enviats abans del temps de conservació")
+    void purgeSent_ShouldRemoveOldSentEmails() {
+        // Given
+        long old = outboxService.enqueue("a@test.com", "A", "<p>A</p>");
+        long recent = outboxService.enqueue("b@test.com", "B", "<p>B</p>");
+        long pending = outboxService.enqueue("c@test.com", "C", "<p>C</p>");
+        outboxService.markSent(old);
+        outboxService.markSent(recent);
+        jdbcTemplate.update("UPDATE email_outbox SET sent_at = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(30)), old);
+
+        // When
+        int removed = outboxService.purgeSent();
+
+        // Then
+        assertThat(removed).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM email_outbox ORDER BY id", Long.class))
+                .containsExactly(recent, pending);
+    }
+
+    private String status(long id) {
+        return jdbcTemplate.queryForObject("SELECT status FROM email_outbox WHERE id = ?", String.class, id);
+    }
+}
@@ -1,6 +1,7 @@
 package cat.abasta_back_end.services.impl;
 
-import jakarta.mail.internet.MimeMessage;
+import cat.abasta_back_end.services.EmailOutboxService;
+import cat.abasta_back_end.services.EmailService.OrderSummary;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -8,16 +9,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 /**
  * Tests unitaris simplificats per EmailServiceImpl.
- * Verifica que els emails es generin i s'enviïn correctament sense requerir servidor de mail real.
+ * Verifica que els emails es generin i s'encuin correctament a la bústia de sortida sense requerir servidor de mail real.
  *
  * @author Enrique Pérez
  * @version 1.0
@@ -28,26 +32,20 @@ import static org.mockito.Mockito.*;
 class EmailServiceImplTest {
 
     @Mock
-    private JavaMailSender mailSender;
-
-    @Mock
-    private MimeMessage mimeMessage;
+    private EmailOutboxService outboxService;
 
     @InjectMocks
     private EmailServiceImpl emailService;
 
     @BeforeEach
     void setUp() {
-        // Configurar el fromEmail usando ReflectionTestUtils
-        ReflectionTestUtils.setField(emailService, "fromEmail", "noreply@abasta.com");
-
-        // Configurar el mock per retornar un MimeMessage
-        when(mailSender.createMimeMessage()).thenReturn(mimeMessage);
+        // Configurar la URL del frontend usant ReflectionTestUtils
+        ReflectionTestUtils.setField(emailService, "frontendUrl", "https://abasta.test");
     }
 
     @Test
-    @DisplayName("SendPasswordResetEmail hauria d'enviar email sense errors")
-    void sendPasswordResetEmail_ShouldSendEmailSuccessfully() {
+    @DisplayName("SendPasswordResetEmail hauria d'encuar l'email amb l'enllaç de restabliment")
+    void sendPasswordResetEmail_ShouldEnqueueEmail() {
         // Given
         String to = "user@test.com";
         String token = "reset-token-123";
@@ -57,13 +55,13 @@ class EmailServiceImplTest {
         assertThatCode(() -> emailService.sendPasswordResetEmail(to, token, userName))
                 .doesNotThrowAnyException();
 
-        verify(mailSender).createMimeMessage();
-        verify(mailSender).send(mimeMessage);
+        verify(outboxService).enqueue(eq(to), eq("Recuperació de Contrasenya - Abasta"),
+                contains("https://abasta.test/reset-password?token=" + token));
     }
 
     @Test
-    @DisplayName("SendEmailVerification hauria d'enviar email sense errors")
-    void sendEmailVerification_ShouldSendEmailSuccessfully() {
+    @DisplayName("SendEmailVerification hauria d'encuar l'email amb l'enllaç de verificació")
+    void sendEmailVerification_ShouldEnqueueEmail() {
         // Given
         String to = "user@test.com";
         String token = "verification-token-123";
@@ -73,13 +71,12 @@ class EmailServiceImplTest {
         assertThatCode(() -> emailService.sendEmailVerification(to, token, userName))
                 .doesNotThrowAnyException();
 
-        verify(mailSender).createMimeMessage();
-        verify(mailSender).send(mimeMessage);
+        verify(outboxService).enqueue(eq(to), eq("Verifica el teu compte d'Abasta"), contains(token));
     }
 
     @Test
-    @DisplayName("SendCompanyAdminVerification hauria d'enviar email sense errors")
-    void sendCompanyAdminVerification_ShouldSendEmailSuccessfully() {
+    @DisplayName("SendCompanyAdminVerification hauria d'encuar l'email amb el nom de l'empresa")
+    void sendCompanyAdminVerification_ShouldEnqueueEmail() {
         // Given
         String to = "admin@company.com";
         String token = "company-token-123";
@@ -90,81 +87,67 @@ class EmailServiceImplTest {
         assertThatCode(() -> emailService.sendCompanyAdminVerification(to, token, userName, companyName))
                 .doesNotThrowAnyException();
 
-        verify(mailSender).createMimeMessage();
-        verify(mailSender).send(mimeMessage);
+        verify(outboxService).enqueue(eq(to), eq("¡Benvingut a Abasta! - Verifica la teva empresa"),
+                contains(companyName));
     }
 
     @Test
-    @DisplayName("Haurien d'usar el fromEmail configurat")
-    void shouldUseConfiguredFromEmail() {
+    @DisplayName("SendOrderNotification hauria d'encuar l'email amb el nom de la comanda a l'assumpte")
+    void sendOrderNotification_ShouldEnqueueEmail() {
         // Given
-        String testFromEmail = "test@abasta.com";
-        ReflectionTestUtils.setField(emailService, "fromEmail", testFromEmail);
-
-        // When
-        emailService.sendPasswordResetEmail("user@test.com", "token", "User");
-
-        // Then
-        verify(mailSender).createMimeMessage();
-        verify(mailSender).send(mimeMessage);
-    }
+        String to = "proveidor@test.com";
 
-    @Test
-    @DisplayName("Tots els mètodes haurien de cridar mailSender.send()")
-    void allMethodsShouldCallMailSenderSend() {
         // When
-        emailService.sendPasswordResetEmail("user@test.com", "token1", "User1");
-        emailService.sendEmailVerification("user@test.com", "token2", "User2");
-        emailService.sendCompanyAdminVerification("admin@test.com", "token3", "Admin", "Company");
+        emailService.sendOrderNotification(to, "Contacte", "Empresa SL", "Carrer Major 1", "600000000",
+                "Comanda Setmanal", "<table></table>", "Lliurar al matí");
 
         // Then
-        verify(mailSender, times(3)).createMimeMessage();
-        verify(mailSender, times(3)).send(mimeMessage);
+        verify(outboxService).enqueue(eq(to), eq("Nova Comanda - Comanda Setmanal - Abasta"),
+                contains("Lliurar al matí"));
     }
 
     @Test
-    @DisplayName("SendPasswordResetEmail amb paràmetres vàlids")
-    void sendPasswordResetEmail_WithValidParameters() {
+    @DisplayName("SendOrderDigest hauria d'encuar un sol email amb totes les comandes")
+    void sendOrderDigest_ShouldEnqueueSingleEmail() {
         // Given
-        String validEmail = "valid@test.com";
-        String validToken = "valid-reset-token";
-        String validName = "Valid User";
+        String to = "proveidor@test.com";
+        List<OrderSummary> orders = List.of(
+                new OrderSummary("Comanda Setmanal", "<table>Tomàquets</table>", "Lliurar al matí"),
+                new OrderSummary("Comanda Urgent", "<table>Pebrots</table>", null));
 
-        // When & Then
-        assertThatCode(() -> emailService.sendPasswordResetEmail(validEmail, validToken, validName))
-                .doesNotThrowAnyException();
+        // When
+        emailService.sendOrderDigest(to, "Contacte", "Empresa SL", "Carrer Major 1", "600000000", orders);
 
-        verify(mailSender).send(mimeMessage);
+        // Then
+        verify(outboxService).enqueue(eq(to), eq("2 comandes noves - Empresa SL - Abasta"),
+                argThat(body -> body.contains("Comanda Setmanal") && body.contains("<table>Tomàquets</table>")
+                        && body.contains("Lliurar al matí")
+                        && body.contains("Comanda Urgent") && body.contains("<table>Pebrots</table>")));
+        verifyNoMoreInteractions(outboxService);
     }
 
     @Test
-    @DisplayName("SendEmailVerification amb paràmetres vàlids")
-    void sendEmailVerification_WithValidParameters() {
-        // Given
-        String validEmail = "verification@test.com";
-        String validToken = "valid-verification-token";
-        String validName = "Verification User";
-
-        // When & Then
-        assertThatCode(() -> emailService.sendEmailVerification(validEmail, validToken, validName))
-                .doesNotThrowAnyException();
+    @DisplayName("Tots els mètodes haurien d'encuar un email i no enviar-lo directament")
+    void allMethodsShouldEnqueueEmail() {
+        // When
+        emailService.sendPasswordResetEmail("user@test.com", "token1", "User1");
+        emailService.sendEmailVerification("user@test.com", "token2", "User2");
+        emailService.sendCompanyAdminVerification("admin@test.com", "token3", "Admin", "Company");
 
-        verify(mailSender).send(mimeMessage);
+        // Then
+        verify(outboxService, times(3)).enqueue(anyString(), anyString(), anyString());
+        verifyNoMoreInteractions(outboxService);
     }
 
     @Test
-    @DisplayName("SendCompanyAdminVerification amb paràmetres vàlids")
-    void sendCompanyAdminVerification_WithValidParameters() {
+    @DisplayName("Un error en encuar s'hauria de propagar per fer rollback de la transacció")
+    void sendPasswordResetEmail_WhenEnqueueFails_ShouldPropagate() {
         // Given
-        String validEmail = "company-admin@test.com";
-        String validToken = "valid-company-token";
-        String validAdminName = "Company Admin";
-        String validCompanyName = "Valid Company Ltd";
+        when(outboxService.enqueue(anyString(), anyString(), anyString()))
+                .thenThrow(new IllegalStateException("BD no disponible"));
 
         // When & Then
-        assertThatCode(() -> emailService.sendCompanyAdminVerification(validEmail, validToken, validAdminName, validCompanyName))
-                .doesNotThrowAnyException();
-
-        verify(mailSender).send(mimeMessage);
+        assertThatThrownBy(() -> emailService.sendPasswordResetEmail("user@test.com", "token", "User"))
+                .isInstanceOf(IllegalStateException.class);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,105 @@
+package cat.abasta_back_end.services.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaris per a LastLoginServiceImpl.
+ * Verifica l'agrupació de dates en memòria i l'escriptura en bloc.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LastLoginServiceImpl Tests")
+class LastLoginServiceImplTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private LastLoginServiceImpl lastLoginService;
+
+    @Test
+    @DisplayName("Hauria d'agrupar els inicis de sessió d'un usuari i conservar el més recent")
+    void recordLogin_ShouldKeepLatestPerUser() {
+        // Given
+        LocalDateTime earlier = LocalDateTime.of(2025, 10, 1, 8, 0);
+        LocalDateTime later = earlier.plusMinutes(5);
+
+        // When
+        lastLoginService.recordLogin(1L, later);
+        lastLoginService.recordLogin(1L, earlier);
+        lastLoginService.recordLogin(2L, earlier);
+
+        // Then
+        assertThat(lastLoginService.getPendingCount()).isEqualTo(2);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Flush hauria d'escriure totes les dates pendents en un sol lot")
+    @SuppressWarnings("unchecked")
+    void flush_ShouldWriteSingleBatch() {
+        // Given
+        LocalDateTime login = LocalDateTime.of(2025, 10, 1, 8, 0);
+        lastLoginService.recordLogin(1L, login);
+        lastLoginService.recordLogin(2L, login);
+
+        // When
+        int written = lastLoginService.flush();
+
+        // Then
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), batch.capture());
+        assertThat(batch.getValue()).hasSize(2);
+        assertThat(batch.getValue().get(0)[0]).isEqualTo(Timestamp.valueOf(login));
+        assertThat(written).isEqualTo(2);
+        assertThat(lastLoginService.getPendingCount()).isZero();
+        assertThat(lastLoginService.getFlushedCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Flush no hauria d'accedir a la base de dades si no hi ha res pendent")
+    void flush_ShouldSkipWhenNothingPending() {
+        // When
+        int written = lastLoginService.flush();
+
+        // Then
+        assertThat(written).isZero();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Si l'escriptura falla, les dates haurien de tornar a quedar pendents")
+    void flush_ShouldRequeueOnFailure() {
+        // Given
+        lastLoginService.recordLogin(1L, LocalDateTime.now());
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("BD no disponible"));
+
+        // When
+        int written = lastLoginService.flush();
+
+        // Then
+        assertThat(written).isZero();
+        assertThat(lastLoginService.getPendingCount()).isEqualTo(1);
+        assertThat(lastLoginService.getFlushedCount()).isZero();
+    }
+}
@@ -2,7 +2,11 @@ package cat.abasta_back_end.services.impl;
 
 import cat.abasta_back_end.entities.*;
 import cat.abasta_back_end.entities.Order.OrderStatus;
+import cat.abasta_back_end.repositories.OrderRepository;
 import cat.abasta_back_end.services.EmailService;
+import cat.abasta_back_end.services.EmailService.OrderSummary;
+import cat.abasta_back_end.services.OrderDigestService;
+import cat.abasta_back_end.services.OrderDigestService.DigestGroup;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -35,6 +39,12 @@ class NotificationServiceImplTest {
     @Mock
     private EmailService emailService;
 
+    @Mock
+    private OrderDigestService orderDigestService;
+
+    @Mock
+    private OrderRepository orderRepository;
+
     private Supplier supplier;
     private Order order;
 
@@ -72,6 +82,7 @@ class NotificationServiceImplTest {
 
         // Configurar comanda
         order = Order.builder()
+                .id(1L)
                 .uuid("order-uuid-123")
                 .company(company)
                 .supplier(supplier)
@@ -278,4 +289,100 @@ class NotificationServiceImplTest {
 
         assertEquals(OrderStatus.SENT, order.getStatus());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Hauria d'escapar les notes dels productes a l'HTML")
+    void testSendOrderNotification_ShouldEscapeItemNotes() {
+        // Given
+        order.getItems().getFirst().setNotes("<script>alert('x')</script>");
+
+        // When
+        notificationService.sendOrderNotification(order);
+
+        // Then
+        verify(emailService).sendOrderNotification(
+                anyString(), anyString(), anyString(), anyString(), anyString(),
+                anyString(),
+                argThat(html -> html.contains("Notes: &lt;script&gt;alert(&#39;x&#39;)&lt;/script&gt;")
+                        && !html.contains("<script>")),
+                anyString()
+        );
+    }
+
+    @Test
+    @DisplayName("Amb l'agrupació activada hauria d'apuntar la comanda al grup sense enviar-la")
+    void testSendOrderNotification_WhenDigestEnabled_ShouldScheduleAndMarkAsSent() {
+        // Given
+        when(orderDigestService.isEnabled()).thenReturn(true);
+
+        // When
+        notificationService.sendOrderNotification(order);
+
+        // Then
+        verify(orderDigestService).schedule(order);
+        verifyNoInteractions(emailService);
+        assertEquals(OrderStatus.SENT, order.getStatus());
+    }
+
+    @Test
+    @DisplayName("Hauria d'enviar les comandes d'un grup tancat en un sol email, en ordre d'enviament")
+    void testFlushOrderDigests_ShouldSendOneEmailPerGroup() {
+        // Given
+        Order second = Order.builder()
+                .id(2L)
+                .uuid("order-uuid-456")
+                .company(order.getCompany())
+                .supplier(supplier)
+                .name("Comanda Urgent #43")
+                .status(OrderStatus.SENT)
+                .items(new java.util.ArrayList<>())
+                .build();
+        when(orderDigestService.takeDue())
+                .thenReturn(List.of(new DigestGroup(10L, "joan@proveidorabc.com", List.of(1L, 2L))));
+        when(orderRepository.findWithItemsByIdIn(List.of(1L, 2L))).thenReturn(List.of(second, order));
+
+        // When
+        notificationService.flushOrderDigests();
+
+        // Then
+        verify(emailService).sendOrderDigest(
+                eq("joan@proveidorabc.com"),
+                eq("Joan Garcia"),
+                eq("Restaurant El Bon Gust"),
+                eq("Carrer Major 123"),
+                eq("666777888"),
+                argThat((List<OrderSummary> summaries) -> summaries.size() == 2
+                        && summaries.get(0).orderName().equals("Comanda Setmanal #42")
+                        && summaries.get(0).orderDetails().contains("Tomàquets Ecològics")
+                        && summaries.get(0).notes().equals("Entrega abans de les 9h")
+                        && summaries.get(1).orderName().equals("Comanda Urgent #43"))
+        );
+        verify(emailService, never()).sendOrderNotification(
+                anyString(), anyString(), anyString(), anyString(), anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Un grup d'una sola comanda s'hauria d'enviar com la notificació habitual")
+    void testFlushOrderDigests_WithSingleOrder_ShouldSendRegularNotification() {
+        // Given
+        when(orderDigestService.takeDue())
+                .thenReturn(List.of(new DigestGroup(10L, "joan@proveidorabc.com", List.of(1L))));
+        when(orderRepository.findWithItemsByIdIn(List.of(1L))).thenReturn(List.of(order));
+
+        // When
+        notificationService.flushOrderDigests();
+
+        // Then
+        verify(emailService).sendOrderNotification(
+                eq("joan@proveidorabc.com"),
+                eq("Joan Garcia"),
+                eq("Restaurant El Bon Gust"),
+                eq("Carrer Major 123"),
+                eq("666777888"),
+                eq("Comanda Setmanal #42"),
+                anyString(),
+                eq("Entrega abans de les 9h")
+        );
+        verify(emailService, never()).sendOrderDigest(any(), any(), any(), any(), any(), any());
+    }
+}
@@ -0,0 +1,133 @@
+package cat.abasta_back_end.services.impl;
+
+import cat.abasta_back_end.entities.*;
+import cat.abasta_back_end.services.OrderDigestService.DigestGroup;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests d'OrderDigestServiceImpl amb H2.
+ * Verifica que les comandes a un mateix proveïdor comparteixen la finestra de la primera, que
+ * els grups només es treuen quan la finestra s'ha tancat i que es treuen una sola vegada.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@DataJpaTest(properties = "app.notifications.order-digest.window-minutes=10")
+@ActiveProfiles("test")
+@Import(OrderDigestServiceImpl.class)
+@Sql(scripts = "/test-schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DisplayName("OrderDigestServiceImpl Tests")
+class OrderDigestServiceImplTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderDigestServiceImpl orderDigestService;
+
+    private Company company;
+    private User user;
+    private Supplier supplier;
+    private Supplier otherSupplier;
+
+    @BeforeEach
+    void setUp() {
+        company = entityManager.persist(Company.builder().uuid("digest-company-uuid").name("Empresa Digest SL").taxId("B55443322").email("digest@empresa.com").status(Company.CompanyStatus.ACTIVE).build());
+        user = entityManager.persist(User.builder().uuid("digest-user-uuid").company(company).email("digest@test.com").password("pass").firstName("Digest").lastName("Test").role(User.UserRole.ADMIN).isActive(true).isDeleted(false).emailVerified(true).build());
+        supplier = entityManager.persist(Supplier.builder().uuid("digest-supplier-uuid").company(company).name("Proveïdor Digest").email("Comandes@Proveidor.com").isActive(true).build());
+        otherSupplier = entityManager.persist(Supplier.builder().uuid("digest-supplier-2-uuid").company(company).name("Proveïdor Digest 2").email("altre@proveidor.com").isActive(true).build());
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("Les comandes al mateix proveïdor haurien de compartir la finestra de la primera")
+    void schedule_ShouldShareWindowOfFirstOrder() {
+        // Given
+        Order first = persistOrder(supplier);
+        Order second = persistOrder(supplier);
+
+        // When
+        orderDigestService.schedule(first);
+        jdbcTemplate.update("UPDATE order_digest_entries SET due_at = ?",
+                Timestamp.valueOf(LocalDateTime.now().plusMinutes(3)));
+        orderDigestService.schedule(second);
+
+        // Then
+        List<Timestamp> dueAts = jdbcTemplate.queryForList(
+                "SELECT due_at FROM order_digest_entries ORDER BY id", Timestamp.class);
+        assertThat(dueAts).hasSize(2);
+        assertThat(dueAts.get(1)).isEqualTo(dueAts.get(0));
+        assertThat(jdbcTemplate.queryForList("SELECT DISTINCT recipient FROM order_digest_entries", String.class))
+                .containsExactly("comandes@proveidor.com");
+    }
+
+    @Test
+    @DisplayName("Només s'haurien de treure els grups amb la finestra tancada, una sola vegada")
+    void takeDue_ShouldReturnClosedGroupsOnce() {
+        // Given
+        Order first = persistOrder(supplier);
+        Order second = persistOrder(supplier);
+        Order other = persistOrder(otherSupplier);
+        orderDigestService.schedule(first);
+        orderDigestService.schedule(second);
+        orderDigestService.schedule(other);
+
+        // When
+        List<DigestGroup> beforeWindow = orderDigestService.takeDue();
+        jdbcTemplate.update("UPDATE order_digest_entries SET due_at = ? WHERE order_id IN (?, ?)",
+                Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)), first.getId(), second.getId());
+        List<DigestGroup> afterWindow = orderDigestService.takeDue();
+        List<DigestGroup> again = orderDigestService.takeDue();
+
+        // Then
+        assertThat(beforeWindow).isEmpty();
+        assertThat(afterWindow).containsExactly(
+                new DigestGroup(company.getId(), "comandes@proveidor.com", List.of(first.getId(), second.getId())));
+        assertThat(again).isEmpty();
+        assertThat(jdbcTemplate.queryForList("SELECT order_id FROM order_digest_entries", Long.class))
+                .containsExactly(other.getId());
+    }
+
+    @Test
+    @DisplayName("Amb la finestra a 0 l'agrupació hauria d'estar desactivada")
+    void isEnabled_WithZeroWindow_ShouldBeFalse() {
+        assertThat(orderDigestService.isEnabled()).isTrue();
+        assertThat(new OrderDigestServiceImpl(jdbcTemplate, 0).isEnabled()).isFalse();
+    }
+
+    private Order persistOrder(Supplier orderSupplier) {
+        Order order = entityManager.persist(Order.builder()
+                .uuid(UUID.randomUUID().toString())
+                .company(company)
+                .supplier(orderSupplier)
+                .user(user)
+                .name("Comanda Digest")
+                .status(Order.OrderStatus.SENT)
+                .totalAmount(new BigDecimal("10.00"))
+                .items(new ArrayList<>())
+                .build());
+        entityManager.flush();
+        return order;
+    }
+}
@@ -0,0 +1,226 @@
+package cat.abasta_back_end.services.impl;
+
+import cat.abasta_back_end.entities.Order;
+import cat.abasta_back_end.entities.User;
+import cat.abasta_back_end.events.OrderChangedEvent;
+import cat.abasta_back_end.repositories.UserRepository;
+import cat.abasta_back_end.security.AuthenticatedUser;
+import cat.abasta_back_end.services.OrderRollupService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaris per OrderEventStreamServiceImpl.
+ * Verifica que els canvis de comandes només arriben als clients de la mateixa empresa, que
+ * s'envien els batecs i que els clients lents es desconnecten sense bloquejar qui publica.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OrderEventStreamServiceImpl Tests")
+class OrderEventStreamServiceImplTest {
+
+    private static final int BUFFER_SIZE = 4;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private final BlockingQueue<RecordingEmitter> emitters = new LinkedBlockingQueue<>();
+
+    private CountDownLatch sendsAllowed;
+
+    private OrderEventStreamServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        sendsAllowed = new CountDownLatch(0);
+        service = new OrderEventStreamServiceImpl(userRepository, new ObjectMapper(), BUFFER_SIZE, 60_000) {
+            @Override
+            SseEmitter createEmitter() {
+                RecordingEmitter emitter = new RecordingEmitter(sendsAllowed);
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Hauria d'enviar els canvis només als clients de la mateixa empresa")
+    void onOrderChanged_ShouldSendToSameCompanyOnly() throws InterruptedException {
+        // Given
+        RecordingEmitter own = subscribe(1L);
+        RecordingEmitter other = subscribe(2L);
+        assertThat(own.next()).contains(":connected");
+        assertThat(other.next()).contains(":connected");
+
+        // When
+        service.onOrderChanged(event(1L, "order-1", Order.OrderStatus.SENT, "12.50"));
+
+        // Then
+        String message = own.next();
+        assertThat(message).contains("event:order")
+                .contains("\"uuid\":\"order-1\"")
+                .contains("\"status\":\"SENT\"")
+                .contains("\"totalAmount\":12.50");
+        assertThat(other.sent.poll(200, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(service.getSubscriberCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Els canvis sense uuid de comanda no s'haurien d'enviar")
+    void onOrderChanged_WithoutUuid_ShouldBeIgnored() throws InterruptedException {
+        // Given
+        RecordingEmitter emitter = subscribe(1L);
+        emitter.next();
+
+        // When
+        service.onOrderChanged(new OrderChangedEvent(1L, LocalDateTime.now()));
+
+        // Then
+        assertThat(emitter.sent.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    @DisplayName("Hauria d'enviar un batec a tots els clients")
+    void heartbeat_ShouldSendCommentToAllClients() throws InterruptedException {
+        // Given
+        RecordingEmitter first = subscribe(1L);
+        RecordingEmitter second = subscribe(2L);
+        first.next();
+        second.next();
+
+        // When
+        service.heartbeat();
+
+        // Then
+        assertThat(first.next()).contains(":heartbeat");
+        assertThat(second.next()).contains(":heartbeat");
+    }
+
+    @Test
+    @DisplayName("Un client que no llegeix s'hauria de desconnectar quan s'omple la cua")
+    void onOrderChanged_WhenBufferFull_ShouldDropSlowClient() throws InterruptedException {
+        // Given: el client queda bloquejat rebent el primer missatge
+        sendsAllowed = new CountDownLatch(1);
+        RecordingEmitter emitter = subscribe(1L);
+
+        // When
+        for (int i = 0; i <= BUFFER_SIZE + 1; i++) {
+            service.onOrderChanged(event(1L, "order-" + i, Order.OrderStatus.PENDING, "1.00"));
+        }
+
+        // Then
+        assertThat(service.getDroppedCount()).isEqualTo(1);
+        assertThat(service.getSubscriberCount()).isZero();
+
+        sendsAllowed.countDown();
+        assertThat(emitter.completed.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Un client que ha tancat la connexió s'hauria de treure del registre")
+    void onOrderChanged_WhenSendFails_ShouldRemoveClient() throws InterruptedException {
+        // Given
+        RecordingEmitter emitter = subscribe(1L);
+        emitter.next();
+        emitter.failing = true;
+
+        // When
+        service.onOrderChanged(event(1L, "order-1", Order.OrderStatus.PENDING, "1.00"));
+
+        // Then
+        assertThat(emitter.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(service.getSubscriberCount()).isZero();
+    }
+
+    private RecordingEmitter subscribe(Long companyId) {
+        AuthenticatedUser principal = AuthenticatedUser.builder()
+                .userId(companyId)
+                .email("usuari" + companyId + "@test.com")
+                .companyId(companyId)
+                .role(User.UserRole.ADMIN)
+                .build();
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+
+        service.subscribe();
+        return emitters.poll();
+    }
+
+    private static OrderChangedEvent event(Long companyId, String uuid, Order.OrderStatus status, String total) {
+        OrderRollupService.Snapshot snapshot = new OrderRollupService.Snapshot(
+                companyId, LocalDate.now(), 1L, status, new BigDecimal(total), Map.of());
+        return new OrderChangedEvent(companyId, LocalDateTime.now(), 1L, snapshot, uuid);
+    }
+
+    /**
+     * Connexió que guarda els missatges enviats en lloc d'escriure'ls a la resposta.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private final CountDownLatch sendsAllowed;
+        private volatile boolean failing;
+
+        private RecordingEmitter(CountDownLatch sendsAllowed) {
+            this.sendsAllowed = sendsAllowed;
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> items) throws IOException {
+            try {
+                sendsAllowed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            StringBuilder message = new StringBuilder();
+            items.forEach(item -> message.append(item.getData()));
+            sent.add(message.toString());
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+
+        private String next() throws InterruptedException {
+            String message = sent.poll(5, TimeUnit.SECONDS);
+            assertThat(message).isNotNull();
+            return message;
+        }
+    }
+}
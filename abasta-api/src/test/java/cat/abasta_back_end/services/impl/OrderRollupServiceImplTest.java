@@ -0,0 +1,197 @@
+package cat.abasta_back_end.services.impl;
+
+import cat.abasta_back_end.dto.TimeSeriesGranularity;
+import cat.abasta_back_end.dto.TimeSeriesPointDTO;
+import cat.abasta_back_end.entities.*;
+import cat.abasta_back_end.services.OrderRollupService.Line;
+import cat.abasta_back_end.services.OrderRollupService.Snapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests d'OrderRollupServiceImpl amb H2.
+ * Verifica els increments dels acumulats diaris, les sèries temporals i la congelació de mesos tancats.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(OrderRollupServiceImpl.class)
+@Sql(scripts = "/test-schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DisplayName("OrderRollupServiceImpl Tests")
+class OrderRollupServiceImplTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 10, 15);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OrderRollupServiceImpl orderRollupService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Company company;
+    private User user;
+    private Supplier supplier;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        company = entityManager.persist(Company.builder().uuid("rollup-company-uuid").name("Empresa Rollup SL").taxId("B55667788").email("rollup@empresa.com").status(Company.CompanyStatus.ACTIVE).build());
+        user = entityManager.persist(User.builder().uuid("rollup-user-uuid").company(company).email("rollup@test.com").password("pass").firstName("Rollup").lastName("Test").role(User.UserRole.ADMIN).isActive(true).isDeleted(false).emailVerified(true).build());
+        supplier = entityManager.persist(Supplier.builder().uuid("rollup-supplier-uuid").company(company).name("Proveïdor Rollup").isActive(true).build());
+        product = entityManager.persist(Product.builder().uuid("rollup-product-uuid").supplier(supplier).name("Producte Rollup").price(new BigDecimal("2.00")).isActive(true).build());
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("Hauria de sumar una comanda activa i restar-la quan s'elimina")
+    void applyChange_ShouldAddAndRemoveActiveOrders() {
+        // Given
+        Snapshot pending = snapshot(DAY, Order.OrderStatus.PENDING, "3", "6.00");
+        Snapshot deleted = snapshot(DAY, Order.OrderStatus.DELETED, "3", "6.00");
+
+        // When
+        orderRollupService.applyChange(null, pending);
+        orderRollupService.applyChange(null, pending);
+        orderRollupService.applyChange(pending, deleted);
+
+        // Then
+        TimeSeriesPointDTO total = single(orderRollupService.getTimeSeries(company.getId(), null, null, DAY, DAY, TimeSeriesGranularity.DAY));
+        assertThat(total.getNumComandes()).isEqualTo(1);
+        assertThat(total.getDespesa()).isEqualByComparingTo("6.00");
+
+        TimeSeriesPointDTO perProduct = single(orderRollupService.getTimeSeries(company.getId(), null, product.getId(), DAY, DAY, TimeSeriesGranularity.DAY));
+        assertThat(perProduct.getNumComandes()).isEqualTo(1);
+        assertThat(perProduct.getQuantitat()).isEqualByComparingTo("3");
+    }
+
+    @Test
+    @DisplayName("Hauria de reagrupar per mes i incloure els mesos sense comandes")
+    void getTimeSeries_ByMonth_ShouldFillEmptyBuckets() {
+        // Given
+        orderRollupService.applyChange(null, snapshot(LocalDate.of(2025, 8, 3), Order.OrderStatus.SENT, "1", "2.00"));
+        orderRollupService.applyChange(null, snapshot(LocalDate.of(2025, 8, 28), Order.OrderStatus.COMPLETED, "2", "4.00"));
+        orderRollupService.applyChange(null, snapshot(DAY, Order.OrderStatus.PENDING, "5", "10.00"));
+
+        // When
+        List<TimeSeriesPointDTO> series = orderRollupService.getTimeSeries(company.getId(), supplier.getId(), null,
+                LocalDate.of(2025, 8, 10), LocalDate.of(2025, 10, 31), TimeSeriesGranularity.MONTH);
+
+        // Then
+        assertThat(series).extracting(TimeSeriesPointDTO::getInici)
+                .containsExactly(LocalDate.of(2025, 8, 1), LocalDate.of(2025, 9, 1), LocalDate.of(2025, 10, 1));
+        assertThat(series).extracting(TimeSeriesPointDTO::getNumComandes).containsExactly(1L, 0L, 1L);
+        assertThat(series.get(0).getDespesa()).isEqualByComparingTo("4.00");
+        assertThat(series.get(2).getDespesa()).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    @DisplayName("Congelar un mes hauria de reconstruir-lo a partir de les comandes i ignorar canvis posteriors")
+    void freezeMonth_ShouldRebuildAndIgnoreLaterChanges() {
+        // Given
+        YearMonth month = YearMonth.now().minusMonths(2);
+        LocalDate day = month.atDay(10);
+        persistOrder(day, Order.OrderStatus.CONFIRMED, "4", "8.00");
+        persistOrder(day, Order.OrderStatus.CANCELLED, "1", "2.00");
+        entityManager.flush();
+
+        // Acumulat desviat abans de congelar
+        orderRollupService.applyChange(null, snapshot(day, Order.OrderStatus.PENDING, "100", "200.00"));
+
+        // When
+        boolean frozen = orderRollupService.freezeMonth(month);
+        orderRollupService.applyChange(null, snapshot(day, Order.OrderStatus.PENDING, "1", "2.00"));
+
+        // Then
+        assertThat(frozen).isTrue();
+        assertThat(orderRollupService.freezeMonth(month)).isFalse();
+
+        TimeSeriesPointDTO point = single(orderRollupService.getTimeSeries(company.getId(), null, product.getId(), day, day, TimeSeriesGranularity.DAY));
+        assertThat(point.getNumComandes()).isEqualTo(1);
+        assertThat(point.getQuantitat()).isEqualByComparingTo("4");
+        assertThat(point.getDespesa()).isEqualByComparingTo("8.00");
+    }
+
+    @Test
+    @DisplayName("La congelació programada hauria de recalcular cada empresa i marcar el mes en transaccions pròpies")
+    void freezeClosedMonths_ShouldFreezePreviousMonthPerCompany() {
+        // Given
+        YearMonth month = YearMonth.now().minusMonths(1);
+        LocalDate day = month.atDay(10);
+        persistOrder(day, Order.OrderStatus.CONFIRMED, "4", "8.00");
+        entityManager.flush();
+        orderRollupService.applyChange(null, snapshot(day, Order.OrderStatus.PENDING, "100", "200.00"));
+        PlatformTransactionManager recordingManager = spy(transactionManager);
+        OrderRollupServiceImpl scheduledService = new OrderRollupServiceImpl(jdbcTemplate, recordingManager);
+
+        // When
+        scheduledService.freezeClosedMonths();
+
+        // Then: una transacció per l'única empresa i una altra per marcar el mes
+        verify(recordingManager, times(2)).getTransaction(any());
+        verify(recordingManager, times(2)).commit(any());
+        assertThat(orderRollupService.freezeMonth(month)).isFalse();
+        TimeSeriesPointDTO point = single(orderRollupService.getTimeSeries(company.getId(), null, product.getId(), day, day, TimeSeriesGranularity.DAY));
+        assertThat(point.getNumComandes()).isEqualTo(1);
+        assertThat(point.getDespesa()).isEqualByComparingTo("8.00");
+    }
+
+    private Snapshot snapshot(LocalDate day, Order.OrderStatus status, String quantity, String spend) {
+        return new Snapshot(company.getId(), day, supplier.getId(), status, new BigDecimal(spend),
+                Map.of(product.getId(), new Line(new BigDecimal(quantity), new BigDecimal(spend))));
+    }
+
+    private void persistOrder(LocalDate day, Order.OrderStatus status, String quantity, String spend) {
+        Order order = Order.builder()
+                .uuid(UUID.randomUUID().toString())
+                .company(company)
+                .supplier(supplier)
+                .user(user)
+                .name("Comanda " + status)
+                .status(status)
+                .totalAmount(new BigDecimal(spend))
+                .createdAt(day.atTime(12, 0))
+                .items(new ArrayList<>())
+                .build();
+        order.getItems().add(OrderItem.builder().uuid(UUID.randomUUID().toString()).order(order).product(product)
+                .quantity(new BigDecimal(quantity)).unitPrice(product.getPrice()).subtotal(new BigDecimal(spend)).build());
+        entityManager.persist(order);
+    }
+
+    private static TimeSeriesPointDTO single(List<TimeSeriesPointDTO> series) {
+        assertThat(series).hasSize(1);
+        return series.get(0);
+    }
+}
@@ -1,9 +1,15 @@
 package cat.abasta_back_end.services.impl;
 
 import cat.abasta_back_end.dto.*;
+import cat.abasta_back_end.events.OrderChangedEvent;
 import cat.abasta_back_end.entities.*;
+import cat.abasta_back_end.exceptions.BadRequestException;
 import cat.abasta_back_end.exceptions.ResourceNotFoundException;
 import cat.abasta_back_end.repositories.*;
+import cat.abasta_back_end.security.AuthenticatedUser;
+import cat.abasta_back_end.services.OrderRollupService;
+import cat.abasta_back_end.services.OrderStatsService;
+import cat.abasta_back_end.services.OrderValueSketchService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -12,8 +18,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -67,6 +75,16 @@ class OrderServiceImplTest {
     private ProductRepository productRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private CompanyRepository companyRepository;
+    @Mock
+    private OrderStatsService orderStatsService;
+    @Mock
+    private OrderRollupService orderRollupService;
+    @Mock
+    private OrderValueSketchService orderValueSketchService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     @InjectMocks
     private OrderServiceImpl orderServiceImpl;
 
@@ -120,7 +138,7 @@ class OrderServiceImplTest {
 
         when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
         when(supplierRepository.findByUuid(testSupplier.getUuid())).thenReturn(Optional.of(testSupplier));
-        when(productRepository.findByUuid(testProduct.getUuid())).thenReturn(Optional.of(testProduct));
+        when(productRepository.findActiveBySupplierIdAndUuidIn(any(), any())).thenReturn(List.of(testProduct));
         when(orderItemRepository.saveAll(any())).thenAnswer(inv -> inv.getArgument(0));
 
 
@@ -129,7 +147,7 @@ class OrderServiceImplTest {
         OrderRequestDTO orderRequest = OrderRequestDTO.builder().name("Test Order 1").supplierUuid(testSupplier.getUuid()).notes("Test notes order 1").deliveryDate(LocalDate.now()).items(List.of(itemDTO)).build();
 
         when(supplierRepository.findByUuid(testSupplier.getUuid())).thenReturn(Optional.of(testSupplier));
-        when(productRepository.findByUuid(testProduct.getUuid())).thenReturn(Optional.of(testProduct));
+        when(productRepository.findActiveBySupplierIdAndUuidIn(any(), any())).thenReturn(List.of(testProduct));
         when(orderRepository.save(any(Order.class))).thenAnswer(i -> i.getArguments()[0]);
 
         OrderResponseDTO response = orderServiceImpl.createOrder(orderRequest);
@@ -139,6 +157,37 @@ class OrderServiceImplTest {
         assertThat(response.getName()).isEqualTo("Test Order 1");
         assertThat(response.getItems()).hasSize(1);
         assertThat(response.getItems().get(0).getSubtotal()).isEqualByComparingTo(new BigDecimal("1.00"));
+        verify(orderStatsService).applyChange(isNull(), argThat(after ->
+                after.status() == Order.OrderStatus.PENDING && after.totalAmount().compareTo(new BigDecimal("1.00")) == 0));
+        verify(orderRollupService).applyChange(isNull(), argThat(after ->
+                after.lines().size() == 1 && after.lines().values().iterator().next().quantity().compareTo(new BigDecimal("2")) == 0));
+    }
+
+    /**
+     * Comprova que la creació d'una Order amb el principal del token no consulta l'usuari a la BD
+     */
+    @Test
+    @DisplayName("Comprova la creació d'una Order amb el context de tenant del token")
+    void createOrder_withAuthenticatedUserPrincipal_doesNotLookupUser() {
+
+        // Principal publicat pel filtre JWT
+        AuthenticatedUser principal = AuthenticatedUser.builder().userId(1L).email(testUser.getEmail()).companyId(2L).companyUuid(testCompany.getUuid()).role(User.UserRole.ADMIN).build();
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+
+        when(userRepository.getReferenceById(1L)).thenReturn(testUser);
+        when(companyRepository.getReferenceById(2L)).thenReturn(testCompany);
+        when(supplierRepository.findByUuid(testSupplier.getUuid())).thenReturn(Optional.of(testSupplier));
+        when(productRepository.findActiveBySupplierIdAndUuidIn(any(), any())).thenReturn(List.of(testProduct));
+        when(orderRepository.save(any(Order.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        OrderItemRequestDTO itemDTO = OrderItemRequestDTO.builder().productUuid(testProduct.getUuid()).quantity(new BigDecimal("2")).build();
+        OrderRequestDTO orderRequest = OrderRequestDTO.builder().name("Test Order 1").supplierUuid(testSupplier.getUuid()).deliveryDate(LocalDate.now()).items(List.of(itemDTO)).build();
+
+        OrderResponseDTO response = orderServiceImpl.createOrder(orderRequest);
+
+        assertThat(response).isNotNull();
+        verify(userRepository, Mockito.never()).findByEmail(any());
+        verify(orderRepository).save(argThat(order -> order.getUser() == testUser && order.getCompany() == testCompany));
     }
 
     /**
@@ -157,7 +206,7 @@ class OrderServiceImplTest {
 
         when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
         when(supplierRepository.findByUuid(testSupplier.getUuid())).thenReturn(Optional.of(testSupplier));
-        when(productRepository.findByUuid(testProduct.getUuid())).thenReturn(Optional.of(testProduct));
+        when(productRepository.findActiveBySupplierIdAndUuidIn(any(), any())).thenReturn(List.of(testProduct));
         when(orderItemRepository.saveAll(any())).thenAnswer(inv -> inv.getArgument(0));
 
         // Mock save: retorna la comanda passada
@@ -175,10 +224,11 @@ class OrderServiceImplTest {
         Order existingOrder = new Order();
         existingOrder.setUuid(uuidNewOrder);
         existingOrder.setName(response.getName());
+        existingOrder.setCompany(testCompany);
         existingOrder.setSupplier(testSupplier);
         existingOrder.setItems(new ArrayList<>());
 
-        when(orderRepository.findByUuid(uuidNewOrder)).thenReturn(Optional.of(existingOrder));
+        when(orderRepository.findForUpdateByUuid(uuidNewOrder)).thenReturn(Optional.of(existingOrder));
 
         // Crear dades modificades
         OrderItemRequestDTO itemDTOMod1 = OrderItemRequestDTO.builder().productUuid(testProduct.getUuid()).quantity(new BigDecimal("1")).build();
@@ -218,11 +268,12 @@ class OrderServiceImplTest {
         existingOrder.setUuid(orderUuid);
         existingOrder.setName("Test Order");
         existingOrder.setStatus(Order.OrderStatus.PENDING);
+        existingOrder.setCompany(testCompany);
         existingOrder.setSupplier(testSupplier);
         existingOrder.setItems(new ArrayList<>());
 
-        // Mock findByUuid: retorna l'Order trobada
-        when(orderRepository.findByUuid(orderUuid))
+        // Mock findForUpdateByUuid: retorna l'Order trobada i bloquejada
+        when(orderRepository.findForUpdateByUuid(orderUuid))
                 .thenReturn(Optional.of(existingOrder));
 
         // Mock save: retorna la mateixa Order passada
@@ -241,8 +292,16 @@ class OrderServiceImplTest {
                 order.getStatus() == Order.OrderStatus.DELETED
         ));
 
-        // Verificar que findByUuid es va cridar correctament
-        verify(orderRepository).findByUuid(orderUuid);
+        // Verificar que els comptadors mensuals passen de PENDING a DELETED
+        verify(orderStatsService).applyChange(
+                argThat(before -> before.status() == Order.OrderStatus.PENDING),
+                argThat(after -> after.status() == Order.OrderStatus.DELETED));
+
+        // Verificar que es publica l'esdeveniment per invalidar els informes
+        verify(eventPublisher).publishEvent(any(OrderChangedEvent.class));
+
+        // Verificar que la comanda es carrega bloquejada abans de fer la foto
+        verify(orderRepository).findForUpdateByUuid(orderUuid);
     }
 
     /**
@@ -355,8 +414,8 @@ class OrderServiceImplTest {
                 .thenReturn(Optional.of(testSupplier));
 
         // Mock productRepository producte no existeix
-        when(productRepository.findByUuid("bad-product"))
-                .thenReturn(Optional.empty());
+        when(productRepository.findActiveBySupplierIdAndUuidIn(any(), any()))
+                .thenReturn(List.of());
 
         // Es construeix el request
         OrderItemRequestDTO itemDTO = OrderItemRequestDTO.builder()
@@ -376,6 +435,39 @@ class OrderServiceImplTest {
                 .hasMessageContaining("Producte no trobat");
     }
 
+    /**
+     * Comprova que tots els productes d'una comanda es resolen amb una sola consulta
+     */
+    @Test
+    @DisplayName("Comprova que els productes de totes les línies es resolen amb una sola consulta")
+    void createOrder_resolvesAllProductsInOneQuery() {
+
+        // Principal publicat pel filtre JWT
+        AuthenticatedUser principal = AuthenticatedUser.builder().userId(1L).email(testUser.getEmail()).companyId(2L).companyUuid(testCompany.getUuid()).role(User.UserRole.ADMIN).build();
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+
+        testSupplier.setId(7L);
+        Product secondProduct = Product.builder().uuid("second-product-uuid").supplier(testSupplier).name("Test Producte 2").price(BigDecimal.valueOf(2)).isActive(true).build();
+
+        when(supplierRepository.findByUuid(testSupplier.getUuid())).thenReturn(Optional.of(testSupplier));
+        when(productRepository.findActiveBySupplierIdAndUuidIn(eq(7L), any())).thenReturn(List.of(testProduct, secondProduct));
+        when(orderRepository.save(any(Order.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        // 3 línies, dues del mateix producte
+        OrderRequestDTO orderRequest = OrderRequestDTO.builder().name("Reposició").supplierUuid(testSupplier.getUuid()).deliveryDate(LocalDate.now()).items(List.of(
+                OrderItemRequestDTO.builder().productUuid(testProduct.getUuid()).quantity(new BigDecimal("2")).build(),
+                OrderItemRequestDTO.builder().productUuid(secondProduct.getUuid()).quantity(new BigDecimal("1")).build(),
+                OrderItemRequestDTO.builder().productUuid(testProduct.getUuid()).quantity(new BigDecimal("4")).build()
+        )).build();
+
+        OrderResponseDTO response = orderServiceImpl.createOrder(orderRequest);
+
+        assertThat(response.getItems()).hasSize(3);
+        assertThat(response.getTotalAmount()).isEqualByComparingTo(new BigDecimal("5.00"));
+        verify(productRepository, Mockito.times(1)).findActiveBySupplierIdAndUuidIn(eq(7L), argThat((Collection<String> uuids) -> uuids.size() == 2));
+        verify(productRepository, Mockito.never()).findByUuid(any());
+    }
+
     @Test
     @DisplayName("Comprova el filtre d'ordres amb diversos criteris")
     void filterOrders_success() {
@@ -410,6 +502,7 @@ class OrderServiceImplTest {
         supplier.setUuid(UUID.randomUUID().toString());
 
         Order order = new Order();
+        order.setId(1L);
         order.setUuid(UUID.randomUUID().toString());
         order.setName("Test Order 1");
         order.setStatus(Order.OrderStatus.PENDING);
@@ -420,10 +513,12 @@ class OrderServiceImplTest {
         order.setNotes("Notes test");
         order.setDeliveryDate(LocalDate.now());
 
-        // --- Mock del repository per findAll amb specification ---
-        Page<Order> pageOrders = new PageImpl<>(List.of(order), pageable, 1);
-        when(orderRepository.findAll(any(Specification.class), eq(pageable)))
-                .thenReturn(pageOrders);
+        // --- Mock del repository: ids paginats amb specification i càrrega de la pàgina ---
+        Page<Long> pageIds = new PageImpl<>(List.of(order.getId()), pageable, 1);
+        when(orderRepository.findIdsBy(any(Specification.class), eq(pageable)))
+                .thenReturn(pageIds);
+        when(orderRepository.findWithItemsByIdIn(List.of(order.getId())))
+                .thenReturn(List.of(order));
 
         // --- Executar el servei ---
         Page<OrderResponseDTO> result = orderServiceImpl.filterOrders(filterDTO, pageable);
@@ -438,7 +533,62 @@ class OrderServiceImplTest {
 
         // --- Verificacions Mockito ---
         verify(userRepository).findByEmail(testUser.getEmail());
-        verify(orderRepository).findAll(any(Specification.class), eq(pageable));
+        verify(orderRepository).findIdsBy(any(Specification.class), eq(pageable));
+        verify(orderRepository).findWithItemsByIdIn(List.of(order.getId()));
+    }
+
+    @Test
+    @DisplayName("Comprova el llistat per cursor: demana un element de més i retorna el cursor següent")
+    void listOrdersByCursor_returnsNextCursor() {
+
+        // --- Mock de l'usuari autenticat ---
+        Authentication authentication = Mockito.mock(Authentication.class);
+        when(authentication.getName()).thenReturn(testUser.getEmail());
+        SecurityContext securityContext = Mockito.mock(SecurityContext.class);
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+
+        Company company = new Company();
+        company.setId(10L);
+        testUser.setCompany(company);
+        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+
+        // --- Cursor de la pàgina anterior i dues comandes següents ---
+        LocalDateTime createdAt = LocalDateTime.of(2025, 11, 4, 10, 0);
+        OrderCursor after = new OrderCursor(createdAt, 50L);
+        OrderFilterDTO filterDTO = OrderFilterDTO.builder().size(1).cursor(after.encode()).build();
+
+        Supplier supplier = new Supplier();
+        supplier.setUuid(UUID.randomUUID().toString());
+        Order order = new Order();
+        order.setId(40L);
+        order.setUuid(UUID.randomUUID().toString());
+        order.setStatus(Order.OrderStatus.PENDING);
+        order.setSupplier(supplier);
+        order.setItems(new ArrayList<>());
+        order.setCreatedAt(createdAt.minusMinutes(1));
+
+        when(orderRepository.findIdsAfter(any(Specification.class), eq(createdAt), eq(50L), eq(2)))
+                .thenReturn(List.of(40L, 30L));
+        when(orderRepository.findWithItemsByIdIn(List.of(40L))).thenReturn(List.of(order));
+
+        // --- Executar el servei ---
+        CursorPagedResponseDTO<OrderResponseDTO> result = orderServiceImpl.listOrdersByCursor(filterDTO);
+
+        // --- Asserts ---
+        assertThat(result.getContent()).extracting(OrderResponseDTO::getUuid).containsExactly(order.getUuid());
+        assertThat(result.isHasNext()).isTrue();
+        assertThat(OrderCursor.decode(result.getNextCursor())).isEqualTo(new OrderCursor(order.getCreatedAt(), 40L));
+        verify(orderRepository, Mockito.never()).findIdsBy(any(), any());
+    }
+
+    @Test
+    @DisplayName("Comprova que un cursor invàlid es rebutja amb BadRequestException")
+    void listOrdersByCursor_invalidCursor() {
+        assertThatThrownBy(() -> OrderCursor.decode("no-és-un-cursor"))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> OrderCursor.decode("MjAyNQ"))
+                .isInstanceOf(BadRequestException.class);
     }
 
 
@@ -0,0 +1,172 @@
+package cat.abasta_back_end.services.impl;
+
+import cat.abasta_back_end.dto.MonthlyOrderStatsDTO;
+import cat.abasta_back_end.entities.*;
+import cat.abasta_back_end.services.OrderStatsService.Snapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests d'OrderStatsServiceImpl amb H2.
+ * Verifica els increments dels comptadors mensuals i la conciliació amb la taula de comandes.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(OrderStatsServiceImpl.class)
+@Sql(scripts = "/test-schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DisplayName("OrderStatsServiceImpl Tests")
+class OrderStatsServiceImplTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2025, 10);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderStatsServiceImpl orderStatsService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Company company;
+    private User user;
+    private Supplier supplier;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM company_monthly_stats");
+        company = entityManager.persist(Company.builder().uuid("stats-company-uuid").name("Empresa Stats SL").taxId("B11223344").email("stats@empresa.com").status(Company.CompanyStatus.ACTIVE).build());
+        user = entityManager.persist(User.builder().uuid("stats-user-uuid").company(company).email("stats@test.com").password("pass").firstName("Stats").lastName("Test").role(User.UserRole.ADMIN).isActive(true).isDeleted(false).emailVerified(true).build());
+        supplier = entityManager.persist(Supplier.builder().uuid("stats-supplier-uuid").company(company).name("Proveïdor Stats").isActive(true).build());
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("Hauria de retornar comptadors a zero si l'empresa no té comandes al mes")
+    void getMonthlyStats_withoutRow_ShouldReturnZeros() {
+        // When
+        MonthlyOrderStatsDTO stats = orderStatsService.getMonthlyStats(company.getId(), MONTH);
+
+        // Then
+        assertThat(stats.getActiveCount()).isZero();
+        assertThat(stats.getTotalAmount()).isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    @Test
+    @DisplayName("Hauria d'aplicar creació, enviament i eliminació sobre la mateixa fila")
+    void applyChange_ShouldMoveCountersBetweenStatuses() {
+        // Given
+        Snapshot pending = new Snapshot(company.getId(), MONTH, Order.OrderStatus.PENDING, new BigDecimal("40.00"));
+        Snapshot sent = new Snapshot(company.getId(), MONTH, Order.OrderStatus.SENT, new BigDecimal("40.00"));
+        Snapshot deleted = new Snapshot(company.getId(), MONTH, Order.OrderStatus.DELETED, new BigDecimal("40.00"));
+
+        // When
+        orderStatsService.applyChange(null, pending);
+        orderStatsService.applyChange(null, pending);
+        orderStatsService.applyChange(pending, sent);
+        orderStatsService.applyChange(pending, deleted);
+
+        // Then
+        MonthlyOrderStatsDTO stats = orderStatsService.getMonthlyStats(company.getId(), MONTH);
+        assertThat(stats.getCount(Order.OrderStatus.PENDING)).isZero();
+        assertThat(stats.getCount(Order.OrderStatus.SENT)).isEqualTo(1);
+        assertThat(stats.getCount(Order.OrderStatus.DELETED)).isEqualTo(1);
+        assertThat(stats.getActiveCount()).isEqualTo(1);
+        assertThat(stats.getTotalAmount()).isEqualByComparingTo("40.00");
+    }
+
+    @Test
+    @DisplayName("La conciliació hauria de reconstruir els comptadors a partir de les comandes")
+    void reconcile_ShouldRepairDriftedCounters() {
+        // Given
+        persistOrder(Order.OrderStatus.PENDING, "10.00");
+        persistOrder(Order.OrderStatus.COMPLETED, "25.50");
+        persistOrder(Order.OrderStatus.CANCELLED, "99.00");
+        entityManager.flush();
+
+        // Comptador desviat: una comanda SENT que no existeix
+        orderStatsService.applyChange(null, new Snapshot(company.getId(), MONTH, Order.OrderStatus.SENT, new BigDecimal("5.00")));
+
+        // When
+        int repaired = orderStatsService.reconcile();
+
+        // Then
+        assertThat(repaired).isEqualTo(1);
+        MonthlyOrderStatsDTO stats = orderStatsService.getMonthlyStats(company.getId(), MONTH);
+        assertThat(stats.getCount(Order.OrderStatus.PENDING)).isEqualTo(1);
+        assertThat(stats.getCount(Order.OrderStatus.COMPLETED)).isEqualTo(1);
+        assertThat(stats.getCount(Order.OrderStatus.CANCELLED)).isEqualTo(1);
+        assertThat(stats.getCount(Order.OrderStatus.SENT)).isZero();
+        assertThat(stats.getTotalAmount()).isEqualByComparingTo("35.50");
+
+        // Una segona conciliació no ha de trobar diferències
+        assertThat(orderStatsService.reconcile()).isZero();
+    }
+
+    @Test
+    @DisplayName("La conciliació programada hauria de corregir cada empresa en una transacció pròpia")
+    void scheduledReconcile_ShouldRunEachCompanyInOwnTransaction() {
+        // Given: dues empreses amb comptadors desviats
+        Company other = entityManager.persist(Company.builder().uuid("stats-other-uuid").name("Altra Empresa SL").taxId("B55667788").email("altra@empresa.com").status(Company.CompanyStatus.ACTIVE).build());
+        persistOrder(Order.OrderStatus.PENDING, "10.00");
+        entityManager.flush();
+        orderStatsService.applyChange(null, new Snapshot(company.getId(), MONTH, Order.OrderStatus.SENT, new BigDecimal("5.00")));
+        orderStatsService.applyChange(null, new Snapshot(other.getId(), MONTH, Order.OrderStatus.SENT, new BigDecimal("7.00")));
+        PlatformTransactionManager recordingManager = spy(transactionManager);
+        OrderStatsServiceImpl scheduledService = new OrderStatsServiceImpl(jdbcTemplate, recordingManager);
+
+        // When
+        scheduledService.scheduledReconcile();
+
+        // Then
+        verify(recordingManager, times(2)).getTransaction(any());
+        verify(recordingManager, times(2)).commit(any());
+        MonthlyOrderStatsDTO stats = orderStatsService.getMonthlyStats(company.getId(), MONTH);
+        assertThat(stats.getCount(Order.OrderStatus.PENDING)).isEqualTo(1);
+        assertThat(stats.getCount(Order.OrderStatus.SENT)).isZero();
+        MonthlyOrderStatsDTO otherStats = orderStatsService.getMonthlyStats(other.getId(), MONTH);
+        assertThat(otherStats.getActiveCount()).isZero();
+        assertThat(otherStats.getTotalAmount()).isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    private void persistOrder(Order.OrderStatus status, String amount) {
+        entityManager.persist(Order.builder()
+                .uuid(UUID.randomUUID().toString())
+                .company(company)
+                .supplier(supplier)
+                .user(user)
+                .name("Comanda " + status)
+                .status(status)
+                .totalAmount(new BigDecimal(amount))
+                .createdAt(LocalDateTime.of(2025, 10, 15, 12, 0))
+                .build());
+    }
+}
@@ -0,0 +1,217 @@
+package cat.abasta_back_end.services.impl;
+
+import cat.abasta_back_end.entities.*;
+import cat.abasta_back_end.services.OrderRollupService.Snapshot;
+import cat.abasta_back_end.services.OrderValueSketchService.SketchRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests d'OrderValueSketchServiceImpl amb H2.
+ * Verifica l'actualització dels histogrames amb els canvis de comandes, el filtre per proveïdor
+ * i la reconstrucció d'un mes a partir de les comandes, també des dels recàlculs programats i en
+ * arrencar.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(OrderValueSketchServiceImpl.class)
+@Sql(scripts = "/test-schema.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@DisplayName("OrderValueSketchServiceImpl Tests")
+class OrderValueSketchServiceImplTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2025, 10);
+    private static final LocalDate DAY = MONTH.atDay(15);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OrderValueSketchServiceImpl orderValueSketchService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Company company;
+    private User user;
+    private Supplier supplier;
+    private Supplier otherSupplier;
+
+    @BeforeEach
+    void setUp() {
+        company = entityManager.persist(Company.builder().uuid("sketch-company-uuid").name("Empresa Sketch SL").taxId("B99887766").email("sketch@empresa.com").status(Company.CompanyStatus.ACTIVE).build());
+        user = entityManager.persist(User.builder().uuid("sketch-user-uuid").company(company).email("sketch@test.com").password("pass").firstName("Sketch").lastName("Test").role(User.UserRole.ADMIN).isActive(true).isDeleted(false).emailVerified(true).build());
+        supplier = entityManager.persist(Supplier.builder().uuid("sketch-supplier-uuid").company(company).name("Proveïdor Sketch").isActive(true).build());
+        otherSupplier = entityManager.persist(Supplier.builder().uuid("sketch-supplier-2-uuid").company(company).name("Proveïdor Sketch 2").isActive(true).build());
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("Hauria d'afegir, modificar i treure imports de l'histograma del proveïdor i mes")
+    void applyChange_ShouldMaintainSketch() {
+        // Given
+        Snapshot small = snapshot(supplier, Order.OrderStatus.PENDING, "10.00");
+        Snapshot large = snapshot(supplier, Order.OrderStatus.PENDING, "500.00");
+        Snapshot edited = snapshot(supplier, Order.OrderStatus.CONFIRMED, "20.00");
+        Snapshot cancelled = snapshot(supplier, Order.OrderStatus.CANCELLED, "20.00");
+
+        // When
+        orderValueSketchService.applyChange(null, small);
+        orderValueSketchService.applyChange(null, large);
+        orderValueSketchService.applyChange(small, edited);
+
+        // Then
+        SketchRow row = single(orderValueSketchService.getSketches(company.getId(), null, MONTH, MONTH));
+        assertThat(row.supplierId()).isEqualTo(supplier.getId());
+        assertThat(row.sketch().count()).isEqualTo(2);
+        assertThat(row.sketch().quantile(0)).isBetween(1980L, 2020L);
+
+        // When
+        orderValueSketchService.applyChange(edited, cancelled);
+        orderValueSketchService.applyChange(large, snapshot(supplier, Order.OrderStatus.DELETED, "500.00"));
+
+        // Then
+        assertThat(orderValueSketchService.getSketches(company.getId(), null, MONTH, MONTH)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Hauria de filtrar per proveïdor i pel rang de mesos")
+    void getSketches_ShouldFilterBySupplierAndMonths() {
+        // Given
+        orderValueSketchService.applyChange(null, snapshot(supplier, Order.OrderStatus.SENT, "10.00"));
+        orderValueSketchService.applyChange(null, snapshot(otherSupplier, Order.OrderStatus.SENT, "30.00"));
+        orderValueSketchService.applyChange(null, new Snapshot(company.getId(), DAY.minusMonths(2), supplier.getId(),
+                Order.OrderStatus.COMPLETED, new BigDecimal("40.00"), Map.of()));
+
+        // When
+        List<SketchRow> bySupplier = orderValueSketchService.getSketches(company.getId(), otherSupplier.getId(), MONTH, MONTH);
+        List<SketchRow> allMonths = orderValueSketchService.getSketches(company.getId(), supplier.getId(), MONTH.minusMonths(3), MONTH);
+
+        // Then
+        assertThat(single(bySupplier).supplierId()).isEqualTo(otherSupplier.getId());
+        assertThat(allMonths).extracting(SketchRow::month).containsExactlyInAnyOrder(MONTH.minusMonths(2), MONTH);
+    }
+
+    @Test
+    @DisplayName("Reconstruir un mes hauria de substituir els histogrames pels de les comandes actives")
+    void rebuildMonth_ShouldRecomputeFromOrders() {
+        // Given
+        orderValueSketchService.applyChange(null, snapshot(supplier, Order.OrderStatus.PENDING, "999.00"));
+        persistOrder(supplier, Order.OrderStatus.COMPLETED, "12.00");
+        persistOrder(supplier, Order.OrderStatus.CONFIRMED, "18.00");
+        persistOrder(supplier, Order.OrderStatus.CANCELLED, "50.00");
+        persistOrder(otherSupplier, Order.OrderStatus.SENT, "7.00");
+        entityManager.flush();
+
+        // When
+        int sketches = orderValueSketchService.rebuildMonth(MONTH);
+
+        // Then
+        assertThat(sketches).isEqualTo(2);
+        SketchRow row = single(orderValueSketchService.getSketches(company.getId(), supplier.getId(), MONTH, MONTH));
+        assertThat(row.sketch().count()).isEqualTo(2);
+        assertThat(row.sketch().quantile(1)).isBetween(1782L, 1818L);
+    }
+
+    @Test
+    @DisplayName("El recàlcul programat del mes anterior hauria de recalcular cada empresa en una transacció pròpia")
+    void rebuildPreviousMonth_ShouldRunEachCompanyInOwnTransaction() {
+        // Given: una segona empresa, sense comandes
+        entityManager.persist(Company.builder().uuid("sketch-other-uuid").name("Altra Empresa SL").taxId("B44332211").email("altra@empresa.com").status(Company.CompanyStatus.ACTIVE).build());
+        LocalDate day = YearMonth.now().minusMonths(1).atDay(10);
+        orderValueSketchService.applyChange(null, new Snapshot(company.getId(), day, supplier.getId(),
+                Order.OrderStatus.PENDING, new BigDecimal("999.00"), Map.of()));
+        persistOrder(supplier, Order.OrderStatus.COMPLETED, "12.00", day);
+        entityManager.flush();
+        PlatformTransactionManager recordingManager = spy(transactionManager);
+        OrderValueSketchServiceImpl scheduledService = new OrderValueSketchServiceImpl(jdbcTemplate, recordingManager, false);
+
+        // When
+        scheduledService.rebuildPreviousMonth();
+
+        // Then
+        verify(recordingManager, times(2)).getTransaction(any());
+        verify(recordingManager, times(2)).commit(any());
+        YearMonth month = YearMonth.from(day);
+        SketchRow row = single(orderValueSketchService.getSketches(company.getId(), supplier.getId(), month, month));
+        assertThat(row.sketch().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("L'ompliment en arrencar hauria de recalcular cada mes en una transacció pròpia")
+    void backfill_ShouldRebuildEachMonthInOwnTransaction() {
+        // Given
+        jdbcTemplate.update("DELETE FROM order_value_sketches");
+        persistOrder(supplier, Order.OrderStatus.COMPLETED, "12.00");
+        persistOrder(supplier, Order.OrderStatus.SENT, "30.00", MONTH.minusMonths(1).atDay(3));
+        entityManager.flush();
+        PlatformTransactionManager recordingManager = spy(transactionManager);
+        OrderValueSketchServiceImpl startupService = new OrderValueSketchServiceImpl(jdbcTemplate, recordingManager, true);
+
+        // When
+        startupService.backfill();
+
+        // Then
+        verify(recordingManager, times(2)).getTransaction(any());
+        verify(recordingManager, times(2)).commit(any());
+        assertThat(orderValueSketchService.getSketches(company.getId(), supplier.getId(), MONTH.minusMonths(1), MONTH))
+                .hasSize(2);
+    }
+
+    private Snapshot snapshot(Supplier orderSupplier, Order.OrderStatus status, String total) {
+        return new Snapshot(company.getId(), DAY, orderSupplier.getId(), status, new BigDecimal(total), Map.of());
+    }
+
+    private void persistOrder(Supplier orderSupplier, Order.OrderStatus status, String total) {
+        persistOrder(orderSupplier, status, total, DAY);
+    }
+
+    private void persistOrder(Supplier orderSupplier, Order.OrderStatus status, String total, LocalDate day) {
+        entityManager.persist(Order.builder()
+                .uuid(UUID.randomUUID().toString())
+                .company(company)
+                .supplier(orderSupplier)
+                .user(user)
+                .name("Comanda " + status)
+                .status(status)
+                .totalAmount(new BigDecimal(total))
+                .createdAt(day.atTime(12, 0))
+                .items(new ArrayList<>())
+                .build());
+    }
+
+    private static SketchRow single(List<SketchRow> rows) {
+        assertThat(rows).hasSize(1);
+        return rows.get(0);
+    }
+}
@@ -0,0 +1,204 @@
+package cat.abasta_back_end.services.impl;
+
+import cat.abasta_back_end.dto.*;
+import cat.abasta_back_end.entities.User;
+import cat.abasta_back_end.exceptions.ResourceNotFoundException;
+import cat.abasta_back_end.exceptions.TooManyRequestsException;
+import cat.abasta_back_end.repositories.UserRepository;
+import cat.abasta_back_end.security.AuthenticatedUser;
+import cat.abasta_back_end.services.ReportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaris per ReportJobServiceImpl.
+ * Verifica l'execució en segon pla, l'aïllament per empresa, el límit de la cua i la neteja
+ * dels resultats caducats.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ReportJobServiceImpl Tests")
+class ReportJobServiceImplTest {
+
+    @Mock
+    private ReportService reportService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @TempDir
+    private Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private ReportJobServiceImpl reportJobService;
+
+    private PeriodRequestDTO period;
+
+    @BeforeEach
+    void setUp() {
+        reportJobService = new ReportJobServiceImpl(reportService, userRepository, objectMapper, directory, 2, 1, 10, 60);
+        period = PeriodRequestDTO.builder()
+                .dataInicial(LocalDateTime.of(2020, 1, 1, 0, 0))
+                .dataFinal(LocalDateTime.of(2025, 12, 31, 23, 59, 59))
+                .build();
+        authenticateAs(1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reportJobService.shutdown();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Hauria de calcular l'informe en segon pla i retornar el resultat JSON")
+    void submit_json_ShouldCompleteWithResult() throws Exception {
+        // Given
+        ReportGlobalResponseDTO report = ReportGlobalResponseDTO.builder()
+                .dataInicial(period.getDataInicial())
+                .dataFinal(period.getDataFinal())
+                .totalComandes(42)
+                .despesaTotal(new BigDecimal("1234.50"))
+                .build();
+        when(reportService.globalInfo(1L, period)).thenReturn(report);
+
+        // When
+        ReportJobResponseDTO submitted = reportJobService.submit(period, ReportJobFormat.JSON);
+        ReportJobResponseDTO finished = awaitFinished(submitted.getUuid());
+
+        // Then
+        assertThat(submitted.getEstat()).isIn(ReportJobStatus.PENDING, ReportJobStatus.RUNNING);
+        assertThat(finished.getEstat()).isEqualTo(ReportJobStatus.COMPLETED);
+        assertThat(finished.getResultat().getTotalComandes()).isEqualTo(42);
+        assertThat(finished.getResultat().getDespesaTotal()).isEqualByComparingTo("1234.50");
+    }
+
+    @Test
+    @DisplayName("Hauria de guardar el PDF en disc i no mostrar-lo a una altra empresa")
+    void submit_pdf_ShouldBeVisibleOnlyToOwnCompany() throws Exception {
+        // Given
+        ReportGlobalResponseDTO report = ReportGlobalResponseDTO.builder().build();
+        when(reportService.globalInfo(1L, period)).thenReturn(report);
+        doAnswer(inv -> {
+            inv.getArgument(1, OutputStream.class).write("PDF".getBytes());
+            return null;
+        }).when(reportService).writeGlobalInfoPDF(eq(report), any(OutputStream.class));
+
+        // When
+        String uuid = reportJobService.submit(period, ReportJobFormat.PDF).getUuid();
+        ReportJobResponseDTO finished = awaitFinished(uuid);
+
+        // Then
+        assertThat(finished.getEstat()).isEqualTo(ReportJobStatus.COMPLETED);
+        assertThat(finished.getResultat()).isNull();
+        assertThat(Files.readString(reportJobService.getPdfResult(uuid))).isEqualTo("PDF");
+
+        authenticateAs(2L);
+        assertThatThrownBy(() -> reportJobService.getJob(uuid)).isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> reportJobService.getPdfResult(uuid)).isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    @DisplayName("Hauria de rebutjar informes quan la cua és plena")
+    void submit_whenQueueFull_ShouldThrowTooManyRequests() throws Exception {
+        // Given
+        reportJobService.shutdown();
+        reportJobService = new ReportJobServiceImpl(reportService, userRepository, objectMapper, directory, 1, 1, 1, 60);
+        CountDownLatch release = new CountDownLatch(1);
+        when(reportService.globalInfo(1L, period)).thenAnswer(inv -> {
+            release.await(5, TimeUnit.SECONDS);
+            return ReportGlobalResponseDTO.builder().build();
+        });
+        String uuid = reportJobService.submit(period, ReportJobFormat.JSON).getUuid();
+
+        // When / Then
+        assertThatThrownBy(() -> reportJobService.submit(period, ReportJobFormat.JSON))
+                .isInstanceOf(TooManyRequestsException.class);
+        assertThat(reportJobService.getRejectedCount()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(awaitFinished(uuid).getEstat()).isEqualTo(ReportJobStatus.COMPLETED);
+    }
+
+    @Test
+    @DisplayName("Hauria de marcar l'informe com a fallit si el càlcul llança una excepció")
+    void submit_whenComputationFails_ShouldMarkFailed() throws Exception {
+        // Given
+        when(reportService.globalInfo(1L, period)).thenThrow(new IllegalStateException("error de base de dades"));
+
+        // When
+        ReportJobResponseDTO finished = awaitFinished(reportJobService.submit(period, ReportJobFormat.JSON).getUuid());
+
+        // Then
+        assertThat(finished.getEstat()).isEqualTo(ReportJobStatus.FAILED);
+        assertThat(finished.getError()).isNotBlank();
+        assertThat(reportJobService.getFailedCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("La neteja hauria d'eliminar els informes caducats i els seus fitxers")
+    void cleanup_ShouldRemoveExpiredJobsAndFiles() throws Exception {
+        // Given
+        reportJobService.shutdown();
+        reportJobService = new ReportJobServiceImpl(reportService, userRepository, objectMapper, directory, 2, 1, 10, 0);
+        when(reportService.globalInfo(1L, period)).thenReturn(ReportGlobalResponseDTO.builder().build());
+        String uuid = reportJobService.submit(period, ReportJobFormat.JSON).getUuid();
+        awaitFinished(uuid);
+        Thread.sleep(5);
+
+        // When
+        int removed = reportJobService.cleanup();
+
+        // Then
+        assertThat(removed).isEqualTo(1);
+        assertThat(directory).isEmptyDirectory();
+        assertThatThrownBy(() -> reportJobService.getJob(uuid)).isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    private ReportJobResponseDTO awaitFinished(String uuid) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            ReportJobResponseDTO job = reportJobService.getJob(uuid);
+            if (job.getEstat() == ReportJobStatus.COMPLETED || job.getEstat() == ReportJobStatus.FAILED) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("L'informe no ha acabat: " + uuid);
+    }
+
+    private static void authenticateAs(Long companyId) {
+        AuthenticatedUser principal = AuthenticatedUser.builder()
+                .userId(companyId)
+                .email("user" + companyId + "@test.com")
+                .companyId(companyId)
+                .companyUuid("company-" + companyId)
+                .role(User.UserRole.ADMIN)
+                .build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+    }
+}
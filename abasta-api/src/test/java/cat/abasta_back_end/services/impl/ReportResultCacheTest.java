@@ -0,0 +1,164 @@
+package cat.abasta_back_end.services.impl;
+
+import cat.abasta_back_end.events.OrderChangedEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaris per a la classe ReportResultCache.
+ * Verifica els encerts, la caducitat, el límit de capacitat i la invalidació per canvis de comandes.
+ *
+ * @author Enrique Pérez
+ * @version 1.0
+ */
+@DisplayName("ReportResultCache Tests")
+class ReportResultCacheTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2025, 3, 31, 23, 59, 59, 999_999_999);
+
+    @Test
+    @DisplayName("Hauria de calcular un cop i servir la resta des de la memòria cau")
+    void get_ShouldComputeOnce() {
+        // Given
+        ReportResultCache cache = new ReportResultCache(10, 300);
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        String first = cache.get(ReportResultCache.Key.global(1L, START, END), () -> "informe-" + calls.incrementAndGet());
+        String second = cache.get(ReportResultCache.Key.global(1L, START, END.withNano(0)), () -> "informe-" + calls.incrementAndGet());
+
+        // Then
+        assertThat(first).isEqualTo("informe-1");
+        assertThat(second).isEqualTo("informe-1");
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("No hauria de compartir resultats entre empreses")
+    void get_ShouldSeparateCompanies() {
+        // Given
+        ReportResultCache cache = new ReportResultCache(10, 300);
+
+        // When
+        cache.get(ReportResultCache.Key.global(1L, START, END), () -> "empresa-1");
+        String other = cache.get(ReportResultCache.Key.global(2L, START, END), () -> "empresa-2");
+
+        // Then
+        assertThat(other).isEqualTo("empresa-2");
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("No hauria de retornar resultats caducats")
+    void get_ShouldRecomputeExpiredEntries() {
+        // Given
+        ReportResultCache cache = new ReportResultCache(10, 0);
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        cache.get(ReportResultCache.Key.dashboard(1L, YearMonth.of(2025, 1)), calls::incrementAndGet);
+        cache.get(ReportResultCache.Key.dashboard(1L, YearMonth.of(2025, 1)), calls::incrementAndGet);
+
+        // Then
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("No hauria de superar la capacitat màxima")
+    void get_ShouldEvictWhenFull() {
+        // Given
+        ReportResultCache cache = new ReportResultCache(5, 300);
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            cache.get(ReportResultCache.Key.global(1L, START.plusDays(i), END), () -> "informe");
+        }
+
+        // Then
+        assertThat(cache.size()).isLessThanOrEqualTo(5);
+        assertThat(cache.getEvictionCount()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Un canvi de comanda hauria d'invalidar només els períodes que la contenen")
+    void onOrderChanged_ShouldInvalidateCoveringPeriods() {
+        // Given
+        ReportResultCache cache = new ReportResultCache(10, 300);
+        cache.get(ReportResultCache.Key.global(1L, START, END), () -> "primer-trimestre");
+        cache.get(ReportResultCache.Key.global(1L, START.plusMonths(6), END.plusMonths(6)), () -> "tercer-trimestre");
+        cache.get(ReportResultCache.Key.global(2L, START, END), () -> "altra-empresa");
+
+        // When
+        cache.onOrderChanged(new OrderChangedEvent(1L, LocalDateTime.of(2025, 2, 10, 9, 30)));
+
+        // Then
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getInvalidationCount()).isEqualTo(1);
+        assertThat(cache.get(ReportResultCache.Key.global(1L, START, END), () -> "recalculat")).isEqualTo("recalculat");
+    }
+
+    @Test
+    @DisplayName("No hauria de guardar un resultat calculat abans d'una invalidació")
+    void get_ShouldDiscardResultInvalidatedWhileComputing() {
+        // Given
+        ReportResultCache cache = new ReportResultCache(10, 300);
+
+        // When
+        cache.get(ReportResultCache.Key.global(1L, START, END), () -> {
+            cache.invalidate(1L, START.plusDays(1));
+            return "antic";
+        });
+
+        // Then
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Les errades simultànies de la mateixa clau haurien de compartir el càlcul")
+    void get_concurrentMisses_ShouldComputeOnce() throws Exception {
+        // Given
+        ReportResultCache cache = new ReportResultCache(10, 300);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ReportResultCache.Key key = ReportResultCache.Key.dashboard(1L, YearMonth.of(2025, 10));
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+
+        try {
+            // When
+            Future<String> first = pool.submit(() -> cache.get(key, () -> {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return "dashboard-" + calls.incrementAndGet();
+            }));
+            started.await(5, TimeUnit.SECONDS);
+            Future<String> second = pool.submit(() -> cache.get(key, () -> "dashboard-" + calls.incrementAndGet()));
+            while (cache.getCoalescedCount() == 0) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            // Then
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("dashboard-1");
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("dashboard-1");
+            assertThat(calls).hasValue(1);
+            assertThat(cache.size()).isEqualTo(1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -1,22 +1,35 @@
 package cat.abasta_back_end.services.impl;
 
+import cat.abasta_back_end.analytics.OrderLineStore;
+import cat.abasta_back_end.analytics.PivotQuery;
+import cat.abasta_back_end.analytics.PivotRow;
+import cat.abasta_back_end.analytics.QuantileSketch;
 import cat.abasta_back_end.dto.*;
 import cat.abasta_back_end.entities.*;
 import cat.abasta_back_end.entities.Order;
 import cat.abasta_back_end.repositories.OrderRepository;
 import cat.abasta_back_end.repositories.ProductRepository;
+import cat.abasta_back_end.repositories.SupplierRepository;
 import cat.abasta_back_end.repositories.UserRepository;
 import cat.abasta_back_end.exceptions.ResourceNotFoundException;
+import cat.abasta_back_end.exceptions.BadRequestException;
+import cat.abasta_back_end.services.OrderRollupService;
+import cat.abasta_back_end.services.OrderStatsService;
+import cat.abasta_back_end.services.OrderValueSketchService;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.*;
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -33,6 +46,9 @@ import static org.mockito.Mockito.*;
  *     <li>Informació per el dashboard</li>
  *     <li>Informació global</li>
  *     <li>Error usuari no trobat</li>
+ *     <li>Sèrie temporal a partir dels acumulats</li>
+ *     <li>Consulta dinàmica a partir de les línies en memòria</li>
+ *     <li>Percentils de l'import a partir dels histogrames mensuals</li>
  * </ul>
  *
  * @author Daniel Garcia
@@ -48,6 +64,20 @@ class ReportServiceImplTest {
     private OrderRepository orderRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private SupplierRepository supplierRepository;
+    @Mock
+    private OrderStatsService orderStatsService;
+    @Mock
+    private OrderRollupService orderRollupService;
+    @Mock
+    private OrderLineStore orderLineStore;
+    @Mock
+    private OrderValueSketchService orderValueSketchService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Spy
+    private ReportResultCache reportResultCache = new ReportResultCache(100, 300);
 
     @InjectMocks
     private ReportServiceImpl reportService;
@@ -123,24 +153,20 @@ class ReportServiceImplTest {
         // Mock userRepository
         when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
 
-        // Crear orders de prova
-        Order order1 = Order.builder()
-                .uuid("order-1")
-                .status(Order.OrderStatus.PENDING)
-                .totalAmount(BigDecimal.valueOf(100))
+        // Comptadors del mes: una PENDING i una COMPLETED actives, una CANCELLED que no compta
+        Map<Order.OrderStatus, Long> counts = new EnumMap<>(Order.OrderStatus.class);
+        counts.put(Order.OrderStatus.PENDING, 1L);
+        counts.put(Order.OrderStatus.COMPLETED, 1L);
+        counts.put(Order.OrderStatus.CANCELLED, 1L);
+        MonthlyOrderStatsDTO stats = MonthlyOrderStatsDTO.builder()
+                .companyId(testCompany.getId())
+                .month(YearMonth.now())
+                .counts(counts)
+                .totalAmount(BigDecimal.valueOf(150))
                 .build();
 
-        Order order2 = Order.builder()
-                .uuid("order-2")
-                .status(Order.OrderStatus.COMPLETED)
-                .totalAmount(BigDecimal.valueOf(50))
-                .build();
-
-        List<Order> orders = List.of(order1, order2);
-
-        // Mock orderRepository
-        when(orderRepository.getOrdersByCompanyIdAndPeriodWithoutOrderItems(eq(testCompany.getId()), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(orders);
+        // Mock orderStatsService
+        when(orderStatsService.getMonthlyStats(eq(testCompany.getId()), any(YearMonth.class))).thenReturn(stats);
 
         // Executar servei
         DashboardResponseDTO dto = reportService.dashboardInfo();
@@ -153,7 +179,8 @@ class ReportServiceImplTest {
 
         // Verificacions
         verify(userRepository).findByEmail(testUser.getEmail());
-        verify(orderRepository).getOrdersByCompanyIdAndPeriodWithoutOrderItems(eq(testCompany.getId()), any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(orderStatsService).getMonthlyStats(testCompany.getId(), YearMonth.now());
+        verifyNoInteractions(orderRepository);
     }
 
     /**
@@ -165,30 +192,20 @@ class ReportServiceImplTest {
         // Mock userRepository
         when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
 
-        // Crear orders i items
-        Order order1 = Order.builder()
-                .uuid("order-1")
-                .status(Order.OrderStatus.PENDING)
-                .supplier(testSupplier)
-                .items(List.of(testItem))
-                .build();
-
-        Order order2 = Order.builder()
-                .uuid("order-2")
-                .status(Order.OrderStatus.CONFIRMED)
-                .supplier(testSupplier)
-                .items(List.of(testItem))
-                .build();
-
-        List<Order> orders = List.of(order1, order2);
+        // Totals agregats a la base de dades: 2 comandes al proveïdor amb el mateix item
+        BigDecimal itemTotal = testItem.getUnitPrice().multiply(testItem.getQuantity());
+        SupplierTotalsDTO supplierTotals = new SupplierTotalsDTO(testSupplier.getName(), 2L, itemTotal.multiply(BigDecimal.valueOf(2)));
+        ProducteTopDTO productTotals = new ProducteTopDTO(testProduct.getName(), testItem.getQuantity().multiply(BigDecimal.valueOf(2)), itemTotal.multiply(BigDecimal.valueOf(2)));
 
         PeriodRequestDTO periodDTO = PeriodRequestDTO.builder()
                 .dataInicial(LocalDateTime.now().minusDays(30))
                 .dataFinal(LocalDateTime.now())
                 .build();
 
-        when(orderRepository.getOrdersByCompanyIdAndPeriodWithOrderItems(eq(testCompany.getId()), eq(periodDTO.getDataInicial()), eq(periodDTO.getDataFinal())))
-                .thenReturn(orders);
+        when(orderRepository.getSupplierTotalsByCompanyIdAndPeriod(eq(testCompany.getId()), anyCollection(), eq(periodDTO.getDataInicial()), eq(periodDTO.getDataFinal())))
+                .thenReturn(List.of(supplierTotals));
+        when(orderRepository.getTopProductsByCompanyIdAndPeriod(eq(testCompany.getId()), anyCollection(), eq(periodDTO.getDataInicial()), eq(periodDTO.getDataFinal()), eq(Limit.of(10))))
+                .thenReturn(List.of(productTotals));
 
         // Executar servei
         ReportGlobalResponseDTO dto = reportService.globalInfo(periodDTO);
@@ -201,10 +218,69 @@ class ReportServiceImplTest {
         assertThat(dto.getComandaMitjana()).isEqualByComparingTo(expectedDespesaTotal.divide(BigDecimal.valueOf(2), 2, BigDecimal.ROUND_HALF_UP));
         assertThat(dto.getDespesaTotal()).isEqualByComparingTo(expectedDespesaTotal);
         assertThat(dto.getDespesaProveidors()).hasSize(1);
+        assertThat(dto.getDespesaProveidors().get(0).getPercentatge()).isEqualByComparingTo("100");
         assertThat(dto.getTopProductes()).hasSize(1);
+        assertThat(dto.getTopProductes().get(0).getDespesaTotal()).isEqualTo(expectedDespesaTotal);
 
         verify(userRepository).findByEmail(testUser.getEmail());
-        verify(orderRepository).getOrdersByCompanyIdAndPeriodWithOrderItems(eq(testCompany.getId()), eq(periodDTO.getDataInicial()), eq(periodDTO.getDataFinal()));
+        verify(orderRepository).getSupplierTotalsByCompanyIdAndPeriod(eq(testCompany.getId()), eq(EnumSet.of(Order.OrderStatus.PENDING, Order.OrderStatus.SENT, Order.OrderStatus.CONFIRMED, Order.OrderStatus.COMPLETED)), eq(periodDTO.getDataInicial()), eq(periodDTO.getDataFinal()));
+        verify(orderRepository, never()).getOrdersByCompanyIdAndPeriodWithOrderItems(any(), any(), any());
+    }
+
+    /**
+     * Comprova que l'informe global d'un mateix període només es calcula un cop
+     */
+    @Test
+    @DisplayName("Comprova que l'informe global es reutilitza des de la memòria cau")
+    void globalInfo_cached() {
+        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+
+        PeriodRequestDTO periodDTO = PeriodRequestDTO.builder()
+                .dataInicial(LocalDateTime.of(2025, 1, 1, 0, 0))
+                .dataFinal(LocalDateTime.of(2025, 1, 31, 23, 59, 59))
+                .build();
+
+        when(orderRepository.getSupplierTotalsByCompanyIdAndPeriod(any(), anyCollection(), any(), any())).thenReturn(List.of());
+        when(orderRepository.getTopProductsByCompanyIdAndPeriod(any(), anyCollection(), any(), any(), any())).thenReturn(List.of());
+
+        ReportGlobalResponseDTO first = reportService.globalInfo(periodDTO);
+        ReportGlobalResponseDTO second = reportService.globalInfo(periodDTO);
+
+        assertThat(second).isSameAs(first);
+        verify(orderRepository, times(1)).getSupplierTotalsByCompanyIdAndPeriod(any(), anyCollection(), any(), any());
+
+        // Només el càlcul obre una transacció, i és de només lectura; la lectura de la memòria cau no
+        verify(transactionManager, times(1)).getTransaction(argThat(TransactionDefinition::isReadOnly));
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    /**
+     * Comprova que la despesa total arrodoneix un sol cop la suma de les sumes per proveïdor
+     */
+    @Test
+    @DisplayName("Comprova que la despesa total no arrodoneix cada proveïdor per separat")
+    void globalInfo_supplierFractionalCents_roundedOnce() {
+        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+
+        // Sumes amb quatre decimals: arrodonides per separat farien 10,01 + 20,01 = 30,02
+        SupplierTotalsDTO first = new SupplierTotalsDTO("Supplier 1", 1L, new BigDecimal("10.0050"));
+        SupplierTotalsDTO second = new SupplierTotalsDTO("Supplier 2", 1L, new BigDecimal("20.0050"));
+
+        PeriodRequestDTO periodDTO = PeriodRequestDTO.builder()
+                .dataInicial(LocalDateTime.of(2025, 1, 1, 0, 0))
+                .dataFinal(LocalDateTime.of(2025, 1, 31, 23, 59, 59))
+                .build();
+
+        when(orderRepository.getSupplierTotalsByCompanyIdAndPeriod(any(), anyCollection(), any(), any())).thenReturn(List.of(first, second));
+        when(orderRepository.getTopProductsByCompanyIdAndPeriod(any(), anyCollection(), any(), any(), any())).thenReturn(List.of());
+
+        ReportGlobalResponseDTO dto = reportService.globalInfo(periodDTO);
+
+        // 10,0050 + 20,0050 = 30,0100
+        assertThat(dto.getDespesaTotal()).isEqualByComparingTo("30.01");
+        assertThat(dto.getComandaMitjana()).isEqualByComparingTo("15.01");
+        assertThat(dto.getDespesaProveidors()).extracting(DespesaPerProveidorDTO::getDespesaTotal)
+                .containsExactly(new BigDecimal("10.01"), new BigDecimal("20.01"));
     }
 
     /**
@@ -227,4 +303,130 @@ class ReportServiceImplTest {
         verify(userRepository).findByEmail(testUser.getEmail());
         verifyNoInteractions(orderRepository);
     }
+
+    /**
+     * Comprova que la sèrie temporal es calcula només a partir dels acumulats diaris
+     */
+    @Test
+    @DisplayName("Comprova la sèrie temporal filtrada per proveïdor")
+    void timeSeries_success() {
+        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        testSupplier.setId(7L);
+        when(supplierRepository.findByUuid(testSupplier.getUuid())).thenReturn(Optional.of(testSupplier));
+
+        LocalDate from = LocalDate.of(2023, 1, 1);
+        LocalDate to = LocalDate.of(2025, 12, 31);
+        List<TimeSeriesPointDTO> punts = List.of(TimeSeriesPointDTO.builder().inici(from).numComandes(3L).despesa(BigDecimal.TEN).build());
+        when(orderRollupService.getTimeSeries(testCompany.getId(), 7L, null, from, to, TimeSeriesGranularity.MONTH)).thenReturn(punts);
+
+        TimeSeriesRequestDTO request = TimeSeriesRequestDTO.builder()
+                .dataInicial(from)
+                .dataFinal(to)
+                .granularitat(TimeSeriesGranularity.MONTH)
+                .supplierUuid(testSupplier.getUuid())
+                .build();
+
+        TimeSeriesResponseDTO dto = reportService.timeSeries(request);
+
+        assertThat(dto.getGranularitat()).isEqualTo(TimeSeriesGranularity.MONTH);
+        assertThat(dto.getPunts()).isEqualTo(punts);
+        verifyNoInteractions(orderRepository);
+
+        // Els filtres es resolen en una transacció curta i la sèrie es demana un cop tancada
+        InOrder inOrder = inOrder(transactionManager, orderRollupService);
+        inOrder.verify(transactionManager).getTransaction(argThat(TransactionDefinition::isReadOnly));
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(orderRollupService).getTimeSeries(testCompany.getId(), 7L, null, from, to, TimeSeriesGranularity.MONTH);
+    }
+
+    /**
+     * Comprova que es rebutgen períodes amb massa punts
+     */
+    @Test
+    @DisplayName("Comprova excepció si la sèrie diària té massa punts")
+    void timeSeries_tooManyPoints_throws() {
+        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+
+        TimeSeriesRequestDTO request = TimeSeriesRequestDTO.builder()
+                .dataInicial(LocalDate.of(2000, 1, 1))
+                .dataFinal(LocalDate.of(2025, 12, 31))
+                .granularitat(TimeSeriesGranularity.DAY)
+                .build();
+
+        assertThatThrownBy(() -> reportService.timeSeries(request))
+                .isInstanceOf(BadRequestException.class);
+
+        verifyNoInteractions(orderRollupService);
+    }
+
+    /**
+     * Comprova que la consulta dinàmica es resol amb les línies en memòria i s'ordena per despesa
+     */
+    @Test
+    @DisplayName("Comprova la consulta dinàmica per producte")
+    void pivot_byProduct_success() {
+        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        Product other = Product.builder().id(6L).uuid("product-2-uuid").name("Product 2").supplier(testSupplier).build();
+        testProduct.setId(5L);
+
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 12, 31);
+        when(orderLineStore.query(testCompany.getId(), new PivotQuery(from, to, PivotDimension.PRODUCT, null, null)))
+                .thenReturn(List.of(new PivotRow(5L, null, 2, 350, 1250), new PivotRow(6L, null, 1, 100, 9900)));
+        when(productRepository.findAllById(List.of(5L, 6L))).thenReturn(List.of(testProduct, other));
+
+        PivotRequestDTO request = PivotRequestDTO.builder()
+                .dataInicial(from)
+                .dataFinal(to)
+                .agrupacio(PivotDimension.PRODUCT)
+                .build();
+
+        PivotResponseDTO dto = reportService.pivot(request);
+
+        assertThat(dto.getFiles()).extracting(PivotRowDTO::getClau).containsExactly("product-2-uuid", "product-uuid");
+        assertThat(dto.getFiles()).extracting(PivotRowDTO::getNom).containsExactly("Product 2", "Product 1");
+        assertThat(dto.getFiles().get(0).getDespesa()).isEqualByComparingTo("99.00");
+        assertThat(dto.getFiles().get(1).getNumComandes()).isEqualTo(2L);
+        assertThat(dto.getFiles().get(1).getQuantitat()).isEqualByComparingTo("3.50");
+        verifyNoInteractions(orderRepository, orderRollupService);
+    }
+
+    /**
+     * Comprova que els percentils es calculen fusionant els histogrames mensuals
+     */
+    @Test
+    @DisplayName("Comprova els percentils de l'import agrupats per mes")
+    void orderValuePercentiles_byMonth_success() {
+        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+
+        QuantileSketch january = new QuantileSketch();
+        QuantileSketch januaryOther = new QuantileSketch();
+        QuantileSketch february = new QuantileSketch();
+        for (long cents = 100; cents <= 10_000; cents += 100) {
+            january.add(cents);
+        }
+        januaryOther.add(1_000_000);
+        february.add(5_000);
+        when(orderValueSketchService.getSketches(testCompany.getId(), null, YearMonth.of(2025, 1), YearMonth.of(2025, 2)))
+                .thenReturn(List.of(
+                        new OrderValueSketchService.SketchRow(7L, YearMonth.of(2025, 2), february),
+                        new OrderValueSketchService.SketchRow(7L, YearMonth.of(2025, 1), january),
+                        new OrderValueSketchService.SketchRow(8L, YearMonth.of(2025, 1), januaryOther)));
+
+        PercentilesRequestDTO request = PercentilesRequestDTO.builder()
+                .dataInicial(LocalDate.of(2025, 1, 15))
+                .dataFinal(LocalDate.of(2025, 2, 10))
+                .agrupacio(PivotDimension.MONTH)
+                .build();
+
+        PercentilesResponseDTO dto = reportService.orderValuePercentiles(request);
+
+        assertThat(dto.getMesInicial()).isEqualTo(YearMonth.of(2025, 1));
+        assertThat(dto.getTotal().getNumComandes()).isEqualTo(102L);
+        assertThat(dto.getTotal().getP99()).isCloseTo(new BigDecimal("99.00"), withPercentage(2));
+        assertThat(dto.getFiles()).extracting(PercentilesRowDTO::getClau).containsExactly("2025-01", "2025-02");
+        assertThat(dto.getFiles().get(0).getNumComandes()).isEqualTo(101L);
+        assertThat(dto.getFiles().get(0).getMediana()).isCloseTo(new BigDecimal("51.00"), withPercentage(2));
+        verifyNoInteractions(orderRepository, supplierRepository);
+    }
 }
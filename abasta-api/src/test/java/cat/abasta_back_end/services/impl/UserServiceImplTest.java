@@ -8,10 +8,13 @@ import cat.abasta_back_end.entities.User.UserRole;
 import cat.abasta_back_end.exceptions.BadRequestException;
 import cat.abasta_back_end.exceptions.DuplicateResourceException;
 import cat.abasta_back_end.exceptions.ResourceNotFoundException;
+import cat.abasta_back_end.exceptions.TooManyRequestsException;
 import cat.abasta_back_end.repositories.CompanyRepository;
 import cat.abasta_back_end.repositories.UserRepository;
 import cat.abasta_back_end.security.JwtUtil;
+import cat.abasta_back_end.security.PasswordHashingExecutor;
 import cat.abasta_back_end.services.EmailService;
+import cat.abasta_back_end.services.LastLoginService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -67,6 +70,12 @@ class UserServiceImplTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Mock
+    private LastLoginService lastLoginService;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -106,9 +115,9 @@ class UserServiceImplTest {
     @DisplayName("Login hauria de retornar token JWT quan les credencials són correctes")
     void login_ShouldReturnJwtToken_WhenCredentialsAreValid() {
         // Given
-        when(userRepository.findByEmail("test@abasta.com")).thenReturn(Optional.of(testUser));
-        when(passwordEncoder.matches("password123", "encoded-password")).thenReturn(true);
-        when(jwtUtil.generateToken("test@abasta.com")).thenReturn("jwt-token");
+        when(userRepository.findWithCompanyByEmail("test@abasta.com")).thenReturn(Optional.of(testUser));
+        when(passwordHashingExecutor.matches("password123", "encoded-password")).thenReturn(true);
+        when(jwtUtil.generateToken(testUser)).thenReturn("jwt-token");
 
         // When
         LoginResponseDTO response = userService.login(loginRequest);
@@ -119,15 +128,16 @@ class UserServiceImplTest {
         assertThat(response.getType()).isEqualTo("Bearer");
         assertThat(response.getUser().getEmail()).isEqualTo("test@abasta.com");
 
-        verify(userRepository).save(testUser);
-        verify(jwtUtil).generateToken("test@abasta.com");
+        verify(lastLoginService).recordLogin(eq(1L), any(LocalDateTime.class));
+        verify(userRepository, never()).save(any());
+        verify(jwtUtil).generateToken(testUser);
     }
 
     @Test
     @DisplayName("Login hauria de llançar excepció quan l'usuari no existeix")
     void login_ShouldThrowException_WhenUserNotFound() {
         // Given
-        when(userRepository.findByEmail("test@abasta.com")).thenReturn(Optional.empty());
+        when(userRepository.findWithCompanyByEmail("test@abasta.com")).thenReturn(Optional.empty());
 
         // When & Then
         assertThatThrownBy(() -> userService.login(loginRequest))
@@ -140,7 +150,7 @@ class UserServiceImplTest {
     void login_ShouldThrowException_WhenUserIsInactive() {
         // Given
         testUser.setIsActive(false);
-        when(userRepository.findByEmail("test@abasta.com")).thenReturn(Optional.of(testUser));
+        when(userRepository.findWithCompanyByEmail("test@abasta.com")).thenReturn(Optional.of(testUser));
 
         // When & Then
         assertThatThrownBy(() -> userService.login(loginRequest))
@@ -153,7 +163,7 @@ class UserServiceImplTest {
     void login_ShouldThrowException_WhenEmailNotVerified() {
         // Given
         testUser.setEmailVerified(false);
-        when(userRepository.findByEmail("test@abasta.com")).thenReturn(Optional.of(testUser));
+        when(userRepository.findWithCompanyByEmail("test@abasta.com")).thenReturn(Optional.of(testUser));
 
         // When & Then
         assertThatThrownBy(() -> userService.login(loginRequest))
@@ -165,8 +175,8 @@ class UserServiceImplTest {
     @DisplayName("Login hauria de llançar excepció quan la contrasenya és incorrecta")
     void login_ShouldThrowException_WhenPasswordIsWrong() {
         // Given
-        when(userRepository.findByEmail("test@abasta.com")).thenReturn(Optional.of(testUser));
-        when(passwordEncoder.matches("password123", "encoded-password")).thenReturn(false);
+        when(userRepository.findWithCompanyByEmail("test@abasta.com")).thenReturn(Optional.of(testUser));
+        when(passwordHashingExecutor.matches("password123", "encoded-password")).thenReturn(false);
 
         // When & Then
         assertThatThrownBy(() -> userService.login(loginRequest))
@@ -174,6 +184,21 @@ class UserServiceImplTest {
                 .hasMessage("Credencials invàlides");
     }
 
+    @Test
+    @DisplayName("Login hauria de propagar el rebuig quan l'executor de BCrypt està saturat")
+    void login_ShouldThrowTooManyRequests_WhenHashingExecutorIsFull() {
+        // Given
+        when(userRepository.findWithCompanyByEmail("test@abasta.com")).thenReturn(Optional.of(testUser));
+        when(passwordHashingExecutor.matches("password123", "encoded-password"))
+                .thenThrow(new TooManyRequestsException("Massa peticions", 1));
+
+        // When & Then
+        assertThatThrownBy(() -> userService.login(loginRequest))
+                .isInstanceOf(TooManyRequestsException.class);
+        verify(lastLoginService, never()).recordLogin(any(), any());
+        verify(jwtUtil, never()).generateToken(any(User.class));
+    }
+
     @Test
     @DisplayName("RequestPasswordReset hauria de generar token i enviar email")
     void requestPasswordReset_ShouldGenerateTokenAndSendEmail() {
@@ -1,4 +1,4 @@
--- Schema per tests amb H2 - Companies, Users i Suppliers
+-- Schema per tests amb H2 - Companies, Users, Suppliers, Products i Orders
 
 -- Taula companies
 CREATE TABLE IF NOT EXISTS companies (
@@ -57,4 +57,162 @@ CREATE TABLE IF NOT EXISTS suppliers (
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
 
     FOREIGN KEY (company_id) REFERENCES companies(id)
-);
\ No newline at end of file
+);
+
+-- Taula products
+CREATE TABLE IF NOT EXISTS products (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    uuid VARCHAR(255) NOT NULL UNIQUE,
+    supplier_id BIGINT NOT NULL,
+    category VARCHAR(255),
+    name VARCHAR(255) NOT NULL,
+    description TEXT,
+    price DECIMAL(10, 2) NOT NULL,
+    volume DECIMAL(10, 2),
+    unit VARCHAR(50),
+    image_url VARCHAR(500),
+    is_active BOOLEAN DEFAULT TRUE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+
+    FOREIGN KEY (supplier_id) REFERENCES suppliers(id)
+);
+
+-- Taula orders
+CREATE TABLE IF NOT EXISTS orders (
+    id BIGINT PRIMARY KEY,
+    uuid VARCHAR(255) NOT NULL UNIQUE,
+    company_id BIGINT NOT NULL,
+    supplier_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    status VARCHAR(20) DEFAULT 'PENDING',
+    total_amount DECIMAL(10, 2) NOT NULL DEFAULT 0,
+    notes TEXT,
+    delivery_date DATE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+
+    FOREIGN KEY (company_id) REFERENCES companies(id),
+    FOREIGN KEY (supplier_id) REFERENCES suppliers(id),
+    FOREIGN KEY (user_id) REFERENCES users(id)
+);
+
+-- Taula order_items
+CREATE TABLE IF NOT EXISTS order_items (
+    id BIGINT PRIMARY KEY,
+    uuid VARCHAR(255) NOT NULL UNIQUE,
+    order_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    quantity DECIMAL(10, 2) NOT NULL,
+    unit_price DECIMAL(10, 2) NOT NULL,
+    subtotal DECIMAL(10, 2) NOT NULL,
+    notes TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+
+    FOREIGN KEY (order_id) REFERENCES orders(id),
+    FOREIGN KEY (product_id) REFERENCES products(id)
+);
+
+-- Generadors d'identificadors (pooled-lo) per a les taules amb inserts en lot
+CREATE TABLE IF NOT EXISTS id_generators (
+    sequence_name VARCHAR(255) PRIMARY KEY,
+    next_val BIGINT NOT NULL
+);
+
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'orders', 1 WHERE NOT EXISTS (SELECT 1 FROM id_generators WHERE sequence_name = 'orders');
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'order_items', 1 WHERE NOT EXISTS (SELECT 1 FROM id_generators WHERE sequence_name = 'order_items');
+
+-- Comptadors mensuals de comandes per empresa (dashboard)
+CREATE TABLE IF NOT EXISTS company_monthly_stats (
+    company_id BIGINT NOT NULL,
+    stats_month DATE NOT NULL,
+    pending_count INT NOT NULL DEFAULT 0,
+    sent_count INT NOT NULL DEFAULT 0,
+    confirmed_count INT NOT NULL DEFAULT 0,
+    rejected_count INT NOT NULL DEFAULT 0,
+    completed_count INT NOT NULL DEFAULT 0,
+    cancelled_count INT NOT NULL DEFAULT 0,
+    deleted_count INT NOT NULL DEFAULT 0,
+    total_amount DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+
+    PRIMARY KEY (company_id, stats_month),
+    FOREIGN KEY (company_id) REFERENCES companies(id)
+);
+
+-- Acumulats diaris de comandes (sèries temporals)
+CREATE TABLE IF NOT EXISTS supplier_daily_rollups (
+    company_id BIGINT NOT NULL,
+    rollup_date DATE NOT NULL,
+    supplier_id BIGINT NOT NULL,
+    order_count INT NOT NULL DEFAULT 0,
+    spend DECIMAL(14, 2) NOT NULL DEFAULT 0,
+
+    PRIMARY KEY (company_id, rollup_date, supplier_id),
+    FOREIGN KEY (company_id) REFERENCES companies(id),
+    FOREIGN KEY (supplier_id) REFERENCES suppliers(id)
+);
+
+CREATE TABLE IF NOT EXISTS product_daily_rollups (
+    company_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    rollup_date DATE NOT NULL,
+    supplier_id BIGINT NOT NULL,
+    order_count INT NOT NULL DEFAULT 0,
+    quantity DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    spend DECIMAL(14, 2) NOT NULL DEFAULT 0,
+
+    PRIMARY KEY (company_id, product_id, rollup_date),
+    FOREIGN KEY (company_id) REFERENCES companies(id),
+    FOREIGN KEY (product_id) REFERENCES products(id),
+    FOREIGN KEY (supplier_id) REFERENCES suppliers(id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_product_rollups_company_date ON product_daily_rollups (company_id, rollup_date);
+
+CREATE TABLE IF NOT EXISTS rollup_frozen_months (
+    rollup_month DATE PRIMARY KEY,
+    frozen_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS order_value_sketches (
+    company_id BIGINT NOT NULL,
+    sketch_month DATE NOT NULL,
+    supplier_id BIGINT NOT NULL,
+    order_count INT NOT NULL DEFAULT 0,
+    sketch BLOB NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+
+    PRIMARY KEY (company_id, sketch_month, supplier_id),
+    FOREIGN KEY (company_id) REFERENCES companies(id),
+    FOREIGN KEY (supplier_id) REFERENCES suppliers(id)
+);
+
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(255) NOT NULL,
+    body TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL,
+    locked_until TIMESTAMP NULL,
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP NULL
+);
+
+CREATE TABLE IF NOT EXISTS order_digest_entries (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    company_id BIGINT NOT NULL,
+    recipient VARCHAR(255) NOT NULL,
+    order_id BIGINT NOT NULL UNIQUE,
+    due_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+
+    FOREIGN KEY (company_id) REFERENCES companies(id),
+    FOREIGN KEY (order_id) REFERENCES orders(id)
+);
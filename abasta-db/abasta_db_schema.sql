@@ -141,6 +141,7 @@ CREATE TABLE orders (
     INDEX idx_status (status),
     INDEX idx_created_at (created_at),
     INDEX idx_company_status_date (company_id, status, created_at),
+    INDEX idx_company_date (company_id, created_at),
     INDEX idx_supplier_status (supplier_id, status)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
 COMMENT='Comandes a proveïdors';
@@ -165,4 +166,190 @@ CREATE TABLE order_items (
     INDEX idx_order_id (order_id),
     INDEX idx_product_id (product_id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
-COMMENT='Productes afegits a la comanda.';
\ No newline at end of file
+COMMENT='Productes afegits a la comanda.';
+-- ============================================================================
+-- TAULA: ID_GENERATORS
+-- ============================================================================
+-- Reserva d'identificadors en blocs (pooled-lo) per a les taules amb inserts en lot.
+-- next_val ha de ser sempre superior al MAX(id) de la taula corresponent.
+CREATE TABLE id_generators (
+    sequence_name VARCHAR(255) PRIMARY KEY,
+    next_val BIGINT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+COMMENT='Generadors d''identificadors per taula';
+
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'orders', COALESCE(MAX(id), 0) + 1 FROM orders;
+
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'order_items', COALESCE(MAX(id), 0) + 1 FROM order_items;
+
+-- ============================================================================
+-- TAULA: COMPANY_MONTHLY_STATS
+-- ============================================================================
+-- Comptadors de comandes per empresa i mes de creació, mantinguts de manera
+-- transaccional pel servei de comandes. total_amount només suma les comandes
+-- actives (PENDING, SENT, CONFIRMED, COMPLETED). Un procés de conciliació
+-- periòdic els recalcula a partir de la taula orders.
+CREATE TABLE company_monthly_stats (
+    company_id BIGINT NOT NULL,
+    stats_month DATE NOT NULL COMMENT 'Primer dia del mes',
+    pending_count INT NOT NULL DEFAULT 0,
+    sent_count INT NOT NULL DEFAULT 0,
+    confirmed_count INT NOT NULL DEFAULT 0,
+    rejected_count INT NOT NULL DEFAULT 0,
+    completed_count INT NOT NULL DEFAULT 0,
+    cancelled_count INT NOT NULL DEFAULT 0,
+    deleted_count INT NOT NULL DEFAULT 0,
+    total_amount DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+
+    PRIMARY KEY (company_id, stats_month),
+    FOREIGN KEY (company_id) REFERENCES companies(id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+COMMENT='Comptadors mensuals de comandes per empresa (dashboard)';
+
+INSERT INTO company_monthly_stats (company_id, stats_month, pending_count, sent_count, confirmed_count,
+                                   rejected_count, completed_count, cancelled_count, deleted_count, total_amount)
+SELECT company_id,
+       DATE_FORMAT(created_at, '%Y-%m-01'),
+       SUM(status = 'PENDING'),
+       SUM(status = 'SENT'),
+       SUM(status = 'CONFIRMED'),
+       SUM(status = 'REJECTED'),
+       SUM(status = 'COMPLETED'),
+       SUM(status = 'CANCELLED'),
+       SUM(status = 'DELETED'),
+       COALESCE(SUM(CASE WHEN status IN ('PENDING', 'SENT', 'CONFIRMED', 'COMPLETED') THEN total_amount END), 0)
+FROM orders
+GROUP BY company_id, DATE_FORMAT(created_at, '%Y-%m-01');
+
+-- ============================================================================
+-- TAULES: ACUMULATS DIARIS (SÈRIES TEMPORALS)
+-- ============================================================================
+-- Acumulats de comandes actives per empresa, dia de creació i proveïdor o producte,
+-- mantinguts de manera transaccional pel servei de comandes. Els mesos tancats es
+-- recalculen un últim cop i es registren a rollup_frozen_months.
+CREATE TABLE supplier_daily_rollups (
+    company_id BIGINT NOT NULL,
+    rollup_date DATE NOT NULL,
+    supplier_id BIGINT NOT NULL,
+    order_count INT NOT NULL DEFAULT 0,
+    spend DECIMAL(14, 2) NOT NULL DEFAULT 0,
+
+    PRIMARY KEY (company_id, rollup_date, supplier_id),
+    FOREIGN KEY (company_id) REFERENCES companies(id),
+    FOREIGN KEY (supplier_id) REFERENCES suppliers(id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+COMMENT='Comandes i despesa diàries per empresa i proveïdor';
+
+CREATE TABLE product_daily_rollups (
+    company_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    rollup_date DATE NOT NULL,
+    supplier_id BIGINT NOT NULL,
+    order_count INT NOT NULL DEFAULT 0,
+    quantity DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    spend DECIMAL(14, 2) NOT NULL DEFAULT 0,
+
+    PRIMARY KEY (company_id, product_id, rollup_date),
+    INDEX idx_company_date (company_id, rollup_date),
+    FOREIGN KEY (company_id) REFERENCES companies(id),
+    FOREIGN KEY (product_id) REFERENCES products(id),
+    FOREIGN KEY (supplier_id) REFERENCES suppliers(id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+COMMENT='Comandes, quantitat i despesa diàries per empresa i producte';
+
+CREATE TABLE rollup_frozen_months (
+    rollup_month DATE PRIMARY KEY COMMENT 'Primer dia del mes',
+    frozen_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+COMMENT='Mesos tancats amb els acumulats diaris congelats';
+
+INSERT INTO supplier_daily_rollups (company_id, rollup_date, supplier_id, order_count, spend)
+SELECT company_id, DATE(created_at), supplier_id, COUNT(*), SUM(total_amount)
+FROM orders
+WHERE status IN ('PENDING', 'SENT', 'CONFIRMED', 'COMPLETED')
+GROUP BY company_id, DATE(created_at), supplier_id;
+
+INSERT INTO product_daily_rollups (company_id, product_id, rollup_date, supplier_id, order_count, quantity, spend)
+SELECT o.company_id, i.product_id, DATE(o.created_at), o.supplier_id, COUNT(DISTINCT o.id), SUM(i.quantity), SUM(i.subtotal)
+FROM order_items i
+JOIN orders o ON o.id = i.order_id
+WHERE o.status IN ('PENDING', 'SENT', 'CONFIRMED', 'COMPLETED')
+GROUP BY o.company_id, i.product_id, DATE(o.created_at), o.supplier_id;
+
+INSERT INTO rollup_frozen_months (rollup_month)
+SELECT DISTINCT DATE_FORMAT(created_at, '%Y-%m-01')
+FROM orders
+WHERE created_at < DATE_FORMAT(CURRENT_DATE, '%Y-%m-01');
+
+-- ============================================================================
+-- TAULA: HISTOGRAMES D'IMPORTS DE COMANDES (PERCENTILS)
+-- ============================================================================
+-- Un histograma logarítmic fusionable (QuantileSketch) dels imports de les comandes
+-- actives per empresa, proveïdor i mes, mantingut de manera transaccional pel servei de
+-- comandes. Els percentils d'un període es calculen fusionant els histogrames dels seus
+-- mesos. Els histogrames no es poden calcular en SQL: si la taula és buida, l'aplicació
+-- la reconstrueix a partir de les comandes en arrencar.
+CREATE TABLE order_value_sketches (
+    company_id BIGINT NOT NULL,
+    sketch_month DATE NOT NULL COMMENT 'Primer dia del mes',
+    supplier_id BIGINT NOT NULL,
+    order_count INT NOT NULL DEFAULT 0,
+    sketch BLOB NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+
+    PRIMARY KEY (company_id, sketch_month, supplier_id),
+    FOREIGN KEY (company_id) REFERENCES companies(id),
+    FOREIGN KEY (supplier_id) REFERENCES suppliers(id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+COMMENT='Histogrames dels imports de les comandes actives per empresa, proveïdor i mes';
+
+-- ============================================================================
+-- TAULA: BÚSTIA DE SORTIDA DE CORREUS
+-- ============================================================================
+-- Els correus es guarden aquí dins de la mateixa transacció que el canvi que els origina
+-- (per exemple, l'enviament d'una comanda) i un procés en segon pla els envia per SMTP.
+-- Els intents fallits es reprogramen amb espera exponencial; després del màxim d'intents
+-- el correu queda en estat DEAD amb l'últim error.
+CREATE TABLE email_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(255) NOT NULL,
+    body MEDIUMTEXT NOT NULL,
+    status ENUM('PENDING', 'SENDING', 'SENT', 'DEAD') NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL COMMENT 'Moment a partir del qual es pot enviar',
+    locked_until TIMESTAMP NULL COMMENT 'Fi de la reserva mentre s''envia',
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP NULL,
+
+    INDEX idx_status_next_attempt (status, next_attempt_at),
+    INDEX idx_status_sent_at (status, sent_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+COMMENT='Correus pendents d''enviar, enviats i esgotats';
+
+-- ============================================================================
+-- TAULA: COMANDES PENDENTS D'AGRUPAR PER PROVEÏDOR
+-- ============================================================================
+-- Amb app.notifications.order-digest.window-minutes > 0, les comandes enviades s'apunten
+-- aquí en lloc d'enviar-ne el correu de seguida. Les comandes d'una empresa a una mateixa
+-- adreça de proveïdor comparteixen el due_at de la primera, i quan arriba s'envien totes en
+-- un sol correu i s'esborren de la taula.
+CREATE TABLE order_digest_entries (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    company_id BIGINT NOT NULL,
+    recipient VARCHAR(255) NOT NULL COMMENT 'Email del proveïdor, en minúscules',
+    order_id BIGINT NOT NULL,
+    due_at TIMESTAMP NOT NULL COMMENT 'Tancament de la finestra del grup',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+
+    UNIQUE KEY uk_order_digest_order (order_id),
+    INDEX idx_company_recipient (company_id, recipient),
+    INDEX idx_due_at (due_at),
+    FOREIGN KEY (company_id) REFERENCES companies(id),
+    FOREIGN KEY (order_id) REFERENCES orders(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+COMMENT='Comandes enviades pendents de notificar en un correu agrupat';